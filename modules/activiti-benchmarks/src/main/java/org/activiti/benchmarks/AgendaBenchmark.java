@@ -0,0 +1,84 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.ActivitiEngineAgenda;
+import org.activiti.engine.impl.agenda.DefaultActivitiEngineAgenda;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntityImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the planning side of {@link DefaultActivitiEngineAgenda}: creating the operations, queueing them,
+ * registering the involved executions and polling them again. The operations themselves are not run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AgendaBenchmark {
+
+  protected static final int OPERATIONS = 100;
+
+  protected CommandContext commandContext;
+  protected ExecutionEntityImpl[] executions;
+
+  @Setup(Level.Trial)
+  public void createExecutions(ProcessEngineState engineState) {
+    // No session is opened by planning operations, so the command context never touches the database
+    commandContext = new CommandContext(null, engineState.getProcessEngineConfiguration());
+    executions = new ExecutionEntityImpl[OPERATIONS];
+    for (int i = 0; i < OPERATIONS; i++) {
+      executions[i] = new ExecutionEntityImpl();
+      executions[i].setId(String.valueOf(i));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public void planAndPollOperations(Blackhole blackhole) {
+    ActivitiEngineAgenda agenda = new DefaultActivitiEngineAgenda(commandContext);
+    for (int i = 0; i < OPERATIONS; i++) {
+      switch (i % 3) {
+      case 0:
+        agenda.planContinueProcessOperation(executions[i]);
+        break;
+      case 1:
+        agenda.planTakeOutgoingSequenceFlowsOperation(executions[i], true);
+        break;
+      default:
+        agenda.planTriggerExecutionOperation(executions[i]);
+      }
+    }
+    while (!agenda.isEmpty()) {
+      blackhole.consume(agenda.getNextOperation());
+    }
+  }
+
+}
@@ -0,0 +1,83 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.db.DbSqlSession;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DbSqlSession#flush()} of a command that inserts {@link #entityCount} byte array entities and deletes
+ * (with revision check) the entities inserted by the previous invocation, which keeps the table size constant.
+ * The lookups of the previous entities are part of the measurement too.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DbSqlSessionFlushBenchmark {
+
+  protected static final byte[] PAYLOAD = new byte[256];
+
+  @Param({ "1", "10", "50" })
+  protected int entityCount;
+
+  protected String[] previousIds;
+
+  @Benchmark
+  public String[] flush(ProcessEngineState state) {
+    previousIds = state.getProcessEngineConfiguration().getCommandExecutor().execute(new Command<String[]>() {
+
+      public String[] execute(CommandContext commandContext) {
+        ByteArrayEntityManager byteArrayEntityManager = commandContext.getByteArrayEntityManager();
+
+        if (previousIds != null) {
+          for (String previousId : previousIds) {
+            byteArrayEntityManager.delete(byteArrayEntityManager.findById(previousId));
+          }
+        }
+
+        String[] ids = new String[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+          ByteArrayEntity byteArrayEntity = byteArrayEntityManager.create();
+          byteArrayEntity.setName("benchmark-" + i);
+          byteArrayEntity.setBytes(PAYLOAD);
+          byteArrayEntityManager.insert(byteArrayEntity);
+          ids[i] = byteArrayEntity.getId();
+        }
+
+        commandContext.getDbSqlSession().flush();
+        return ids;
+      }
+
+    });
+    return previousIds;
+  }
+
+}
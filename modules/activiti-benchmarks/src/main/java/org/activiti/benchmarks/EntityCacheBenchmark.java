@@ -0,0 +1,102 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.persistence.cache.EntityCacheImpl;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntityImpl;
+import org.activiti.engine.impl.persistence.entity.TaskEntityImpl;
+import org.activiti.engine.impl.persistence.entity.VariableInstanceEntityImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link EntityCacheImpl} lookups, which the entity managers do before every select by id.
+ * No database is involved: the cache is filled with {@link #entityCount} executions, tasks and variables.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityCacheBenchmark {
+
+  @Param({ "10", "1000" })
+  protected int entityCount;
+
+  protected EntityCacheImpl entityCache;
+  protected String[] ids;
+  protected int index;
+
+  @Setup(Level.Trial)
+  public void fillCache() {
+    entityCache = new EntityCacheImpl();
+    ids = new String[entityCount];
+    for (int i = 0; i < entityCount; i++) {
+      ids[i] = String.valueOf(i);
+
+      ExecutionEntityImpl execution = new ExecutionEntityImpl();
+      execution.setId(ids[i]);
+      entityCache.put(execution, true);
+
+      TaskEntityImpl task = new TaskEntityImpl();
+      task.setId(ids[i]);
+      entityCache.put(task, true);
+
+      VariableInstanceEntityImpl variable = new VariableInstanceEntityImpl();
+      variable.setId(ids[i]);
+      entityCache.put(variable, true);
+    }
+  }
+
+  protected String nextId() {
+    index = (index + 1) % ids.length;
+    return ids[index];
+  }
+
+  /**
+   * Lookup with the concrete entity class, which hits the class map directly.
+   */
+  @Benchmark
+  public ExecutionEntityImpl findByImplementationClass() {
+    return entityCache.findInCache(ExecutionEntityImpl.class, nextId());
+  }
+
+  /**
+   * Lookup with the entity interface, which scans the cached classes for an assignable one.
+   */
+  @Benchmark
+  public ExecutionEntity findByInterface() {
+    return entityCache.findInCache(ExecutionEntity.class, nextId());
+  }
+
+  @Benchmark
+  public List<TaskEntityImpl> findAllOfType() {
+    return entityCache.findInCache(TaskEntityImpl.class);
+  }
+
+}
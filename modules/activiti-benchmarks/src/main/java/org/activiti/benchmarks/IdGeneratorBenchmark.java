@@ -0,0 +1,83 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.cfg.IdGenerator;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.db.DbIdGenerator;
+import org.activiti.engine.impl.db.SnowflakeIdGenerator;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.persistence.StrongUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link IdGenerator#getNextId()} of the {@link DbIdGenerator} (with the default id block size), the
+ * {@link StrongUuidGenerator} and the {@link SnowflakeIdGenerator}, called by four threads sharing one generator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+  @Param({ "db", "uuid", "snowflake" })
+  protected String generator;
+
+  protected IdGenerator idGenerator;
+
+  @Setup(Level.Trial)
+  public void createIdGenerator(ProcessEngineState engineState) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = engineState.getProcessEngineConfiguration();
+    CommandConfig commandConfig = new CommandConfig().transactionRequiresNew();
+
+    if ("db".equals(generator)) {
+      DbIdGenerator dbIdGenerator = new DbIdGenerator();
+      dbIdGenerator.setIdBlockSize(processEngineConfiguration.getIdBlockSize());
+      dbIdGenerator.setCommandExecutor(processEngineConfiguration.getCommandExecutor());
+      dbIdGenerator.setCommandConfig(commandConfig);
+      idGenerator = dbIdGenerator;
+
+    } else if ("uuid".equals(generator)) {
+      idGenerator = new StrongUuidGenerator();
+
+    } else {
+      SnowflakeIdGenerator snowflakeIdGenerator = new SnowflakeIdGenerator();
+      snowflakeIdGenerator.setCommandExecutor(processEngineConfiguration.getCommandExecutor());
+      snowflakeIdGenerator.setCommandConfig(commandConfig);
+      idGenerator = snowflakeIdGenerator;
+    }
+  }
+
+  @Benchmark
+  public String getNextId() {
+    return idGenerator.getNextId();
+  }
+
+}
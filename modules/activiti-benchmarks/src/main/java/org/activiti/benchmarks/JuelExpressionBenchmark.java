@@ -0,0 +1,91 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.delegate.Expression;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link org.activiti.engine.impl.el.JuelExpression#getValue(org.activiti.engine.delegate.VariableScope)}
+ * against a process instance execution holding a handful of variables, which includes building the EL context
+ * and resolving the variables.
+ *
+ * The expressions are evaluated {@link #EVALUATIONS} times in one command, so the command overhead is amortized.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JuelExpressionBenchmark {
+
+  protected static final int EVALUATIONS = 100;
+
+  @Param({ "${amount > 1000}", "${amount * factor + 1 > 1000 && approved}", "${customer.name}" })
+  protected String expressionText;
+
+  protected Expression expression;
+  protected String processInstanceId;
+
+  @Setup(Level.Trial)
+  public void startProcessInstance(ProcessEngineState engineState) {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("amount", 2500L);
+    variables.put("factor", 1.5d);
+    variables.put("approved", Boolean.TRUE);
+    Map<String, Object> customer = new HashMap<String, Object>();
+    customer.put("name", "kermit");
+    variables.put("customer", customer);
+
+    processInstanceId = engineState.getRuntimeService().startProcessInstanceByKey(ProcessEngineState.ONE_TASK_PROCESS_KEY, variables).getId();
+    expression = engineState.getProcessEngineConfiguration().getExpressionManager().createExpression(expressionText);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVALUATIONS)
+  public void getValue(ProcessEngineState engineState, final Blackhole blackhole) {
+    engineState.getProcessEngineConfiguration().getCommandExecutor().execute(new Command<Void>() {
+
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity processInstance = commandContext.getExecutionEntityManager().findById(processInstanceId);
+        for (int i = 0; i < EVALUATIONS; i++) {
+          blackhole.consume(expression.getValue(processInstance));
+        }
+        return null;
+      }
+
+    });
+  }
+
+}
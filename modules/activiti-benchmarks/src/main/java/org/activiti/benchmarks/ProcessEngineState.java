@@ -0,0 +1,81 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared JMH state: one in-memory H2 process engine per trial, with the benchmark processes deployed.
+ *
+ * The async executor is disabled, so every measured operation runs synchronously on the benchmark thread.
+ */
+@State(Scope.Benchmark)
+public class ProcessEngineState {
+
+  public static final String ONE_TASK_PROCESS_KEY = "benchmarkOneTaskProcess";
+
+  protected ProcessEngine processEngine;
+  protected ProcessEngineConfigurationImpl processEngineConfiguration;
+  protected RuntimeService runtimeService;
+  protected TaskService taskService;
+
+  @Setup(Level.Trial)
+  public void buildProcessEngine() {
+    StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+    configuration.setJdbcUrl("jdbc:h2:mem:activiti-benchmarks;DB_CLOSE_DELAY=1000");
+    configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_CREATE_DROP);
+    configuration.setHistory("audit");
+    configuration.setAsyncExecutorActivate(false);
+
+    processEngine = configuration.buildProcessEngine();
+    processEngineConfiguration = configuration;
+    runtimeService = processEngine.getRuntimeService();
+    taskService = processEngine.getTaskService();
+
+    processEngine.getRepositoryService().createDeployment()
+      .addClasspathResource("org/activiti/benchmarks/oneTaskProcess.bpmn20.xml")
+      .deploy();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeProcessEngine() {
+    processEngine.close();
+  }
+
+  public ProcessEngine getProcessEngine() {
+    return processEngine;
+  }
+
+  public ProcessEngineConfigurationImpl getProcessEngineConfiguration() {
+    return processEngineConfiguration;
+  }
+
+  public RuntimeService getRuntimeService() {
+    return runtimeService;
+  }
+
+  public TaskService getTaskService() {
+    return taskService;
+  }
+
+}
@@ -0,0 +1,61 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.runtime.ProcessInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link org.activiti.engine.TaskService#complete(String)} of the only user task of a process instance,
+ * which ends the process instance.
+ *
+ * A fresh process instance is started before every invocation. A task completion takes hundreds of microseconds,
+ * so the per-invocation setup cost of JMH is negligible here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+  @State(Scope.Thread)
+  public static class TaskState {
+
+    protected String taskId;
+
+    @Setup(Level.Invocation)
+    public void startProcessInstance(ProcessEngineState engineState) {
+      ProcessInstance processInstance = engineState.getRuntimeService().startProcessInstanceByKey(ProcessEngineState.ONE_TASK_PROCESS_KEY);
+      taskId = engineState.getTaskService().createTaskQuery().processInstanceId(processInstance.getId()).singleResult().getId();
+    }
+  }
+
+  @Benchmark
+  public void complete(ProcessEngineState engineState, TaskState taskState) {
+    engineState.getTaskService().complete(taskState.taskId);
+  }
+
+}
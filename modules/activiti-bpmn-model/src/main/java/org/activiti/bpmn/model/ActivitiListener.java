@@ -31,7 +31,7 @@ public class ActivitiListener extends BaseElement {
   protected String customPropertiesResolverImplementation;
   
   @JsonIgnore
-  protected Object instance; // Can be used to set an instance of the listener directly. That instance will then always be reused.
+  protected transient Object instance; // Can be used to set an instance of the listener directly. That instance will then always be reused.
 
   public String getEvent() {
     return event;
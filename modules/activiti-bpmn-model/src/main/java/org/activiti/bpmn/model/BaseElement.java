@@ -12,6 +12,7 @@
  */
 package org.activiti.bpmn.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -22,7 +23,9 @@ import org.apache.commons.lang3.StringUtils;
 /**
  * @author Tijs Rademakers
  */
-public abstract class BaseElement implements HasExtensionAttributes {
+public abstract class BaseElement implements HasExtensionAttributes, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   protected String id;
   protected int xmlRowNumber;
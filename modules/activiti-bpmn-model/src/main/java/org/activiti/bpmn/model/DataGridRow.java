@@ -12,13 +12,16 @@
  */
 package org.activiti.bpmn.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author Tijs Rademakers
  */
-public class DataGridRow {
+public class DataGridRow implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   protected int index;
   protected List<DataGridField> fields = new ArrayList<DataGridField>();
@@ -30,7 +30,7 @@ public abstract class FlowNode extends FlowElement {
   protected List<SequenceFlow> outgoingFlows = new ArrayList<SequenceFlow>();
   
   @JsonIgnore
-  protected Object behavior;
+  protected transient Object behavior;
 
   public FlowNode() {
 
@@ -12,10 +12,14 @@
  */
 package org.activiti.bpmn.model;
 
+import java.io.Serializable;
+
 /**
  * @author Tijs Rademakers
  */
-public class GraphicInfo {
+public class GraphicInfo implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   protected double x;
   protected double y;
@@ -12,11 +12,15 @@
  */
 package org.activiti.bpmn.model;
 
+import java.io.Serializable;
+
 /**
  * @author Saeid Mirzaei
  */
 
-public class MapExceptionEntry {
+public class MapExceptionEntry implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   String errorCode;
   String className;
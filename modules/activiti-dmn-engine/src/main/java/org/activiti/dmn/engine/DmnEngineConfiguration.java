@@ -59,10 +59,12 @@ import org.activiti.dmn.engine.impl.interceptor.SessionFactory;
 import org.activiti.dmn.engine.impl.mvel.config.DefaultCustomExpressionFunctionRegistry;
 import org.activiti.dmn.engine.impl.parser.DmnParseFactory;
 import org.activiti.dmn.engine.impl.persistence.StrongUuidGenerator;
+import org.activiti.dmn.engine.impl.persistence.deploy.ConcurrentDeploymentCache;
 import org.activiti.dmn.engine.impl.persistence.deploy.DecisionTableCacheEntry;
 import org.activiti.dmn.engine.impl.persistence.deploy.DefaultDeploymentCache;
 import org.activiti.dmn.engine.impl.persistence.deploy.Deployer;
 import org.activiti.dmn.engine.impl.persistence.deploy.DeploymentCache;
+import org.activiti.dmn.engine.impl.persistence.deploy.DeploymentCacheWeigher;
 import org.activiti.dmn.engine.impl.persistence.deploy.DeploymentManager;
 import org.activiti.dmn.engine.impl.persistence.entity.DecisionTableEntityManager;
 import org.activiti.dmn.engine.impl.persistence.entity.DecisionTableEntityManagerImpl;
@@ -329,6 +331,14 @@ public class DmnEngineConfiguration {
   protected DeploymentManager deploymentManager;
 
   protected int decisionCacheLimit = -1; // By default, no limit
+
+  /**
+   * When set, the decision table cache is a {@link ConcurrentDeploymentCache} that evicts the least recently used 
+   * decision tables once the total weight of the cached ones exceeds this, as weighed by the {@link #decisionCacheWeigher}
+   * (by default every decision table weighs 1). Takes precedence over the {@link #decisionCacheLimit}. By default, no limit.
+   */
+  protected long decisionCacheMaxWeight = -1;
+  protected DeploymentCacheWeigher<DecisionTableCacheEntry> decisionCacheWeigher;
   protected DeploymentCache<DecisionTableCacheEntry> decisionCache;
 
   protected IdGenerator idGenerator;
@@ -709,7 +719,13 @@ public class DmnEngineConfiguration {
 
     // Decision cache
     if (decisionCache == null) {
-      if (decisionCacheLimit <= 0) {
+      if (decisionCacheMaxWeight > 0) {
+        if (decisionCacheWeigher == null) {
+          decisionCache = new ConcurrentDeploymentCache<DecisionTableCacheEntry>(decisionCacheMaxWeight);
+        } else {
+          decisionCache = new ConcurrentDeploymentCache<DecisionTableCacheEntry>(decisionCacheMaxWeight, decisionCacheWeigher);
+        }
+      } else if (decisionCacheLimit <= 0) {
         decisionCache = new DefaultDeploymentCache<DecisionTableCacheEntry>();
       } else {
         decisionCache = new DefaultDeploymentCache<DecisionTableCacheEntry>(decisionCacheLimit);
@@ -1162,6 +1178,24 @@ public class DmnEngineConfiguration {
     return this;
   }
 
+  public long getDecisionCacheMaxWeight() {
+    return decisionCacheMaxWeight;
+  }
+
+  public DmnEngineConfiguration setDecisionCacheMaxWeight(long decisionCacheMaxWeight) {
+    this.decisionCacheMaxWeight = decisionCacheMaxWeight;
+    return this;
+  }
+
+  public DeploymentCacheWeigher<DecisionTableCacheEntry> getDecisionCacheWeigher() {
+    return decisionCacheWeigher;
+  }
+
+  public DmnEngineConfiguration setDecisionCacheWeigher(DeploymentCacheWeigher<DecisionTableCacheEntry> decisionCacheWeigher) {
+    this.decisionCacheWeigher = decisionCacheWeigher;
+    return this;
+  }
+
   public DeploymentCache<DecisionTableCacheEntry> getDecisionCache() {
     return decisionCache;
   }
@@ -0,0 +1,277 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.dmn.engine.impl.persistence.deploy;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.dmn.engine.ActivitiDmnException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DeploymentCache} for caches that are read concurrently a lot, eg. the cache of the decision tables of a busy engine.
+ * 
+ * Reads don't take a lock. When a maximum weight is set, the least recently used objects are evicted once the total weight
+ * of the cached objects, as determined by the {@link DeploymentCacheWeigher}, exceeds it. With the default weigher every
+ * object weighs 1, so the maximum weight is the maximum number of cached objects.
+ * 
+ * Objects can be loaded with {@link #get(String, Callable)}, which makes concurrent misses for the same id wait for a single load.
+ * Hits, misses, loads and evictions are counted.
+ */
+public class ConcurrentDeploymentCache<T> implements DeploymentCache<T> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConcurrentDeploymentCache.class);
+
+  protected ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<String, Entry<T>>();
+  protected ConcurrentHashMap<String, Load<T>> loads = new ConcurrentHashMap<String, Load<T>>();
+
+  protected long maxWeight;
+  protected DeploymentCacheWeigher<T> weigher;
+
+  protected Object evictionLock = new Object();
+  protected AtomicLong accessClock = new AtomicLong();
+  protected AtomicLong weight = new AtomicLong();
+
+  protected AtomicLong hitCount = new AtomicLong();
+  protected AtomicLong missCount = new AtomicLong();
+  protected AtomicLong loadCount = new AtomicLong();
+  protected AtomicLong loadTime = new AtomicLong();
+  protected AtomicLong evictionCount = new AtomicLong();
+
+  /** Cache with no limit */
+  public ConcurrentDeploymentCache() {
+    this(-1L);
+  }
+
+  /**
+   * Cache which holds at most the given number of objects.
+   */
+  public ConcurrentDeploymentCache(long limit) {
+    this(limit, new DeploymentCacheWeigher<T>() {
+      public long weigh(String id, T object) {
+        return 1L;
+      }
+    });
+  }
+
+  /**
+   * Cache which evicts objects when their total weight exceeds the given maximum. An object that 
+   * weighs more than the maximum on its own is still cached, until another object is added.
+   */
+  public ConcurrentDeploymentCache(long maxWeight, DeploymentCacheWeigher<T> weigher) {
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  public T get(String id) {
+    Entry<T> entry = entries.get(id);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    entry.lastAccess = accessClock.incrementAndGet();
+    hitCount.incrementAndGet();
+    return entry.value;
+  }
+
+  /**
+   * Returns the cached object with the given id, loading it with the given loader when it isn't cached. 
+   * When the same id is being loaded by another thread, that load is waited for instead. 
+   * The loader may add the object itself, else the object it returns is added.
+   */
+  public T get(String id, Callable<T> loader) {
+    T value = get(id);
+    if (value != null) {
+      return value;
+    }
+
+    Load<T> load = new Load<T>(loader);
+    Load<T> existingLoad = loads.putIfAbsent(id, load);
+    if (existingLoad != null) {
+      if (existingLoad.thread == Thread.currentThread()) {
+        // Loading the same id again while loading it, which can't wait for itself
+        return call(loader);
+      }
+      return existingLoad.await(id);
+    }
+
+    long start = System.nanoTime();
+    try {
+      load.run();
+      value = load.await(id);
+      if (value != null && !entries.containsKey(id)) {
+        add(id, value);
+      }
+      return value;
+
+    } finally {
+      loads.remove(id, load);
+      loadCount.incrementAndGet();
+      loadTime.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  public void add(String id, T object) {
+    long objectWeight = Math.max(1L, weigher.weigh(id, object));
+    Entry<T> previousEntry = entries.put(id, new Entry<T>(object, objectWeight, accessClock.incrementAndGet()));
+    weight.addAndGet(previousEntry != null ? objectWeight - previousEntry.weight : objectWeight);
+
+    if (maxWeight > 0 && weight.get() > maxWeight) {
+      evict(id);
+    }
+  }
+
+  /**
+   * Evicts the least recently used objects, other than the one just added, until the total weight doesn't exceed the maximum.
+   * Evictions are rare compared to reads, so the oldest entry is simply searched for.
+   */
+  protected void evict(String addedId) {
+    synchronized (evictionLock) {
+      while (weight.get() > maxWeight) {
+        String eldestId = null;
+        Entry<T> eldestEntry = null;
+        for (Map.Entry<String, Entry<T>> mapEntry : entries.entrySet()) {
+          if (!mapEntry.getKey().equals(addedId) && (eldestEntry == null || mapEntry.getValue().lastAccess < eldestEntry.lastAccess)) {
+            eldestId = mapEntry.getKey();
+            eldestEntry = mapEntry.getValue();
+          }
+        }
+        if (eldestEntry == null) {
+          return;
+        }
+
+        if (entries.remove(eldestId, eldestEntry)) {
+          weight.addAndGet(-eldestEntry.weight);
+          evictionCount.incrementAndGet();
+          if (logger.isTraceEnabled()) {
+            logger.trace("Cache weight limit is reached, {} is evicted", eldestId);
+          }
+        }
+      }
+    }
+  }
+
+  public void remove(String id) {
+    Entry<T> entry = entries.remove(id);
+    if (entry != null) {
+      weight.addAndGet(-entry.weight);
+    }
+  }
+
+  @Override
+  public boolean contains(String id) {
+    return entries.containsKey(id);
+  }
+
+  public void clear() {
+    for (String id : entries.keySet()) {
+      remove(id);
+    }
+  }
+
+  protected T call(Callable<T> loader) {
+    try {
+      return loader.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ActivitiDmnException("Could not load cached object", e);
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the total weight of the cached objects
+   */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getLoadCount() {
+    return loadCount.get();
+  }
+
+  /**
+   * @return the total time spent by {@link #get(String, Callable)} loading objects, in milliseconds
+   */
+  public long getLoadTime() {
+    return TimeUnit.NANOSECONDS.toMillis(loadTime.get());
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  protected static class Entry<T> {
+
+    protected T value;
+    protected long weight;
+    protected volatile long lastAccess;
+
+    public Entry(T value, long weight, long lastAccess) {
+      this.value = value;
+      this.weight = weight;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  protected static class Load<V> extends FutureTask<V> {
+
+    protected Thread thread = Thread.currentThread();
+
+    public Load(Callable<V> loader) {
+      super(loader);
+    }
+
+    public V await(String id) {
+      try {
+        return get();
+
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new ActivitiDmnException("Could not load " + id, cause);
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ActivitiDmnException("Interrupted while waiting for " + id + " to be loaded", e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,26 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.dmn.engine.impl.persistence.deploy;
+
+/**
+ * Determines the weight of the objects cached in a {@link ConcurrentDeploymentCache}, 
+ * which should be roughly proportional to the memory they take.
+ */
+public interface DeploymentCacheWeigher<T> {
+
+  /**
+   * @return the weight of the given object, at least 1
+   */
+  long weigh(String id, T object);
+
+}
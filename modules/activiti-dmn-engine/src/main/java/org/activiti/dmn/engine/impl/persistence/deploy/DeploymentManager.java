@@ -14,6 +14,7 @@ package org.activiti.dmn.engine.impl.persistence.deploy;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.activiti.dmn.api.DmnDecisionTable;
 import org.activiti.dmn.engine.ActivitiDmnException;
@@ -141,19 +142,38 @@ public class DeploymentManager {
     DecisionTableCacheEntry cachedDecision = decisionCache.get(decisionId);
 
     if (cachedDecision == null) {
-      DmnDeploymentEntity deployment = engineConfig.getDeploymentEntityManager().findById(deploymentId);
-      List<ResourceEntity> resources = engineConfig.getResourceEntityManager().findResourcesByDeploymentId(deploymentId);
-      for (ResourceEntity resource : resources) {
-        deployment.addResource(resource);
+      if (decisionCache instanceof ConcurrentDeploymentCache) {
+        // Concurrent misses for the same decision wait for a single redeploy
+        final String id = decisionId;
+        final String parentDeploymentId = deploymentId;
+        cachedDecision = ((ConcurrentDeploymentCache<DecisionTableCacheEntry>) decisionCache).get(decisionId, new Callable<DecisionTableCacheEntry>() {
+          public DecisionTableCacheEntry call() {
+            return redeployDecision(id, parentDeploymentId);
+          }
+        });
+      } else {
+        cachedDecision = redeployDecision(decisionId, deploymentId);
       }
-      
-      deployment.setNew(false);
-      deploy(deployment, null);
-      cachedDecision = decisionCache.get(decisionId);
+    }
+    return cachedDecision;
+  }
 
-      if (cachedDecision == null) {
-        throw new ActivitiDmnException("deployment '" + deploymentId + "' didn't put decision '" + decisionId + "' in the cache");
-      }
+  /**
+   * Deploys the given deployment again, which puts its decisions in the cache.
+   */
+  protected DecisionTableCacheEntry redeployDecision(String decisionId, String deploymentId) {
+    DmnDeploymentEntity deployment = engineConfig.getDeploymentEntityManager().findById(deploymentId);
+    List<ResourceEntity> resources = engineConfig.getResourceEntityManager().findResourcesByDeploymentId(deploymentId);
+    for (ResourceEntity resource : resources) {
+      deployment.addResource(resource);
+    }
+    
+    deployment.setNew(false);
+    deploy(deployment, null);
+    DecisionTableCacheEntry cachedDecision = decisionCache.get(decisionId);
+
+    if (cachedDecision == null) {
+      throw new ActivitiDmnException("deployment '" + deploymentId + "' didn't put decision '" + decisionId + "' in the cache");
     }
     return cachedDecision;
   }
@@ -26,6 +26,7 @@ import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
 import org.activiti.engine.management.TableMetaData;
 import org.activiti.engine.management.TablePage;
 import org.activiti.engine.management.TablePageQuery;
+import org.activiti.engine.runtime.DeadLetterJobGroup;
 import org.activiti.engine.runtime.DeadLetterJobQuery;
 import org.activiti.engine.runtime.Job;
 import org.activiti.engine.runtime.JobQuery;
@@ -125,6 +126,27 @@ public interface ManagementService {
    *           when there is no job with the given id.
    */
   Job moveDeadLetterJobToExecutableJob(String jobId, int retries);
+  
+  /**
+   * Returns the dead letter jobs grouped by process definition, activity and exception message fingerprint, 
+   * largest groups first. Jobs that failed because of the same problem (eg. an external system being down) end up in the same group.
+   */
+  List<DeadLetterJobGroup> getDeadLetterJobGroups();
+  
+  /**
+   * Moves all dead letter jobs of the given group back to be executable jobs, resetting their retries.
+   * 
+   * The jobs are moved in transactions of {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getDeadLetterJobMoveBatchSize()} jobs,
+   * at most {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getDeadLetterJobMoveMaxJobsPerSecond()} jobs per second. 
+   * The method returns when all jobs of the group are moved. Jobs that fail again while the group is being moved aren't moved a second time.
+   * 
+   * @param jobGroup
+   *          a group returned by {@link #getDeadLetterJobGroups()}, cannot be null.
+   * @param retries
+   *          the number of retries (value greater than 0) which will be set on the jobs.
+   * @return the number of moved jobs.
+   */
+  int moveDeadLetterJobGroupToExecutableJobs(DeadLetterJobGroup jobGroup, int retries);
 
   /**
    * Delete the job with the provided id.
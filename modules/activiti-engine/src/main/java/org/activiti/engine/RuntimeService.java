@@ -49,6 +49,19 @@ public interface RuntimeService {
    * as an alternative to the various startProcessInstanceByXX methods. 
    */
   ProcessInstanceBuilder createProcessInstanceBuilder();
+
+  /**
+   * Starts a process instance for every given {@link ProcessInstanceBuilder}, created by {@link #createProcessInstanceBuilder()}.
+   * 
+   * The process instances are started in chunks of {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getBatchSizeProcessInstances()} builders. Every chunk is started in a single
+   * transaction: the process definitions are looked up once per chunk and all entities of the chunk are inserted with one flush. When starting a process instance fails, the exception is thrown and the
+   * process instances of that chunk are not started, while the process instances of the chunks before it remain started.
+   * 
+   * @param processInstanceBuilders
+   *          the builders describing the process instances to start, cannot be null.
+   * @return the started process instances, in the order of the given builders.
+   */
+  List<ProcessInstance> startProcessInstancesBatch(Collection<ProcessInstanceBuilder> processInstanceBuilders);
   
   /**
    * Starts a new process instance in the latest version of the process definition with the given key.
@@ -30,6 +30,7 @@ import org.activiti.engine.task.IdentityLink;
 import org.activiti.engine.task.IdentityLinkType;
 import org.activiti.engine.task.NativeTaskQuery;
 import org.activiti.engine.task.Task;
+import org.activiti.engine.task.TaskBatchResult;
 import org.activiti.engine.task.TaskQuery;
 
 /**
@@ -164,6 +165,21 @@ public interface TaskService {
    */
   void unclaim(String taskId);
 
+  /**
+   * Claims all given tasks for the given user, see {@link #claim(String, String)}.
+   * 
+   * The tasks are handled in chunks of {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getBatchSizeTasks()} tasks, each chunk in a single transaction. A task that cannot be claimed
+   * (eg. because it doesn't exist or is already claimed by another user) is reported in the returned result and does not prevent the other tasks from being claimed
+   * (see {@link TaskBatchResult} for the tasks rolled back together with it).
+   * 
+   * @param taskIds
+   *          the ids of the tasks to claim, cannot be null.
+   * @param userId
+   *          user that claims the tasks. When userId is null the tasks are unclaimed.
+   * @return the ids of the claimed tasks and the failure of every task that could not be claimed.
+   */
+  TaskBatchResult claimBatch(Collection<String> taskIds, String userId);
+
   /**
    * Called when the task is successfully executed.
    * 
@@ -247,6 +263,21 @@ public interface TaskService {
    */
   void complete(String taskId, Map<String, Object> variables, boolean localScope);
 
+  /**
+   * Completes all given tasks with the same variables, see {@link #complete(String, Map)}.
+   * 
+   * The tasks are handled in chunks of {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getBatchSizeTasks()} tasks, each chunk in a single transaction. A task that cannot be completed
+   * is reported in the returned result and does not prevent the other tasks from being completed
+   * (see {@link TaskBatchResult} for the tasks rolled back together with it).
+   * 
+   * @param taskIds
+   *          the ids of the tasks to complete, cannot be null.
+   * @param variables
+   *          task parameters set when completing every task. May be null or empty.
+   * @return the ids of the completed tasks and the failure of every task that could not be completed.
+   */
+  TaskBatchResult completeBatch(Collection<String> taskIds, Map<String, Object> variables);
+
   /**
    * Changes the assignee of the given task to the given userId. No check is done whether the user is known by the identity component.
    * 
@@ -437,6 +468,14 @@ public interface TaskService {
    */
   void setVariablesLocal(String taskId, Map<String, ? extends Object> variables);
 
+  /**
+   * set variables on all given tasks, see {@link #setVariables(String, Map)}. The tasks are handled in chunks of
+   * {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#getBatchSizeTasks()} tasks, each chunk in a single transaction.
+   * 
+   * @return the ids of the updated tasks and the failure of every task on which the variables could not be set.
+   */
+  TaskBatchResult setVariablesBatch(Collection<String> taskIds, Map<String, ? extends Object> variables);
+
   /**
    * get a variables and search in the task scope and if available also the execution scopes.
    */
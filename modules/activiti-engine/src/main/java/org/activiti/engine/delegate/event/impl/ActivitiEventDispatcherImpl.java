@@ -12,16 +12,32 @@
  */
 package org.activiti.engine.delegate.event.impl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.event.ActivitiEntityEvent;
 import org.activiti.engine.delegate.event.ActivitiEvent;
 import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventListener;
 import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.delegate.DelegateExecution;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
+import org.activiti.engine.impl.persistence.entity.IdentityLinkEntity;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.activiti.engine.impl.util.Activiti5Util;
 import org.activiti.engine.impl.util.ProcessDefinitionUtil;
 import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Class capable of dispatching events.
@@ -30,9 +46,17 @@ import org.activiti.engine.repository.ProcessDefinition;
  */
 public class ActivitiEventDispatcherImpl implements ActivitiEventDispatcher {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ActivitiEventDispatcherImpl.class);
+
   protected ActivitiEventSupport eventSupport;
   protected boolean enabled = true;
 
+  /** Types of events that listeners defined in process definitions listen to, see {@link #createProcessDefinitionEventSupport()} */
+  protected volatile EnumSet<ActivitiEventType> processDefinitionListenerTypes = EnumSet.noneOf(ActivitiEventType.class);
+
+  /** Process definitions parsed by this engine, whose listener types are known to be in {@link #processDefinitionListenerTypes} */
+  protected Set<String> parsedProcessDefinitionIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   public ActivitiEventDispatcherImpl() {
     eventSupport = new ActivitiEventSupport();
   }
@@ -60,6 +84,113 @@ public class ActivitiEventDispatcherImpl implements ActivitiEventDispatcher {
     eventSupport.removeEventListener(listenerToRemove);
   }
 
+  /**
+   * Returns true if an event of the given type would be dispatched to at least one listener of the engine
+   * or of a process definition parsed by this engine, so callers can skip creating events nobody is interested in.
+   * 
+   * Only use this for events of a process definition that is known to be parsed, like those of a running execution.
+   * Use {@link #hasEventListeners(ActivitiEventType, Object)} for entity events.
+   */
+  public boolean hasEventListeners(ActivitiEventType type) {
+    return enabled && (eventSupport.hasListeners(type) || processDefinitionListenerTypes.contains(type));
+  }
+
+  /**
+   * Returns true if an event of the given type about the given entity would be dispatched to at least one listener.
+   * 
+   * This is also the case when the entity belongs to a process definition that this engine didn't parse yet (after a reboot, 
+   * or when deployed by another engine): its listeners aren't known until it's parsed, which dispatching the event does.
+   */
+  public boolean hasEventListeners(ActivitiEventType type, Object entity) {
+    if (!enabled) {
+      return false;
+    }
+    if (hasEventListeners(type)) {
+      return true;
+    }
+    String processDefinitionId = getProcessDefinitionId(entity);
+    return processDefinitionId != null && !parsedProcessDefinitionIds.contains(processDefinitionId);
+  }
+
+  /**
+   * Returns {@link #hasEventListeners(ActivitiEventType)} for this implementation, 
+   * and {@link ActivitiEventDispatcher#isEnabled()} for any other dispatcher.
+   */
+  public static boolean hasEventListeners(ActivitiEventDispatcher eventDispatcher, ActivitiEventType type) {
+    if (eventDispatcher instanceof ActivitiEventDispatcherImpl) {
+      return ((ActivitiEventDispatcherImpl) eventDispatcher).hasEventListeners(type);
+    }
+    return eventDispatcher.isEnabled();
+  }
+
+  /**
+   * Returns {@link #hasEventListeners(ActivitiEventType, Object)} for this implementation, 
+   * and {@link ActivitiEventDispatcher#isEnabled()} for any other dispatcher.
+   */
+  public static boolean hasEventListeners(ActivitiEventDispatcher eventDispatcher, ActivitiEventType type, Object entity) {
+    if (eventDispatcher instanceof ActivitiEventDispatcherImpl) {
+      return ((ActivitiEventDispatcherImpl) eventDispatcher).hasEventListeners(type, entity);
+    }
+    return eventDispatcher.isEnabled();
+  }
+
+  /**
+   * The process definition an entity event is dispatched to, the same as {@link ActivitiEventBuilder#createEntityEvent(ActivitiEventType, Object)} determines it.
+   */
+  protected String getProcessDefinitionId(Object entity) {
+    if (entity instanceof Job) {
+      return ((Job) entity).getProcessDefinitionId();
+    } else if (entity instanceof DelegateExecution) {
+      return ((DelegateExecution) entity).getProcessDefinitionId();
+    } else if (entity instanceof IdentityLinkEntity) {
+      IdentityLinkEntity identityLink = (IdentityLinkEntity) entity;
+      if (identityLink.getProcessDefinitionId() != null) {
+        return identityLink.getProcessDefinitionId();
+      } else if (identityLink.getProcessInstance() != null) {
+        return identityLink.getProcessInstance().getProcessDefinitionId();
+      } else if (identityLink.getTask() != null) {
+        return identityLink.getTask().getProcessDefinitionId();
+      }
+    } else if (entity instanceof Task) {
+      return ((Task) entity).getProcessDefinitionId();
+    } else if (entity instanceof ProcessDefinition) {
+      return ((ProcessDefinition) entity).getId();
+    }
+    return null;
+  }
+
+  /**
+   * Called when a process definition is parsed and cached by this engine, 
+   * after the types of its listeners were added through its {@link #createProcessDefinitionEventSupport()}.
+   */
+  public void addParsedProcessDefinition(String processDefinitionId) {
+    parsedProcessDefinitionIds.add(processDefinitionId);
+  }
+
+  /**
+   * Creates the {@link ActivitiEventSupport} for the listeners defined in a process definition,
+   * which keeps this dispatcher informed of the event types those listeners are interested in.
+   */
+  public ActivitiEventSupport createProcessDefinitionEventSupport() {
+    return new ActivitiEventSupport(this);
+  }
+
+  /**
+   * Called when a listener is added to a process definition scoped {@link ActivitiEventSupport}.
+   * Types are never removed: a process definition can be in use as long as the engine runs.
+   * 
+   * @param types The types the listener is interested in, all types when empty
+   */
+  protected synchronized void addProcessDefinitionListenerTypes(ActivitiEventType... types) {
+    EnumSet<ActivitiEventType> newTypes = EnumSet.copyOf(processDefinitionListenerTypes);
+    if (types == null || types.length == 0) {
+      newTypes = EnumSet.allOf(ActivitiEventType.class);
+    } else {
+      newTypes.addAll(Arrays.asList(types));
+    }
+    processDefinitionListenerTypes = newTypes;
+  }
+
   @Override
   public void dispatchEvent(ActivitiEvent event) {
     if (enabled) {
@@ -102,10 +233,39 @@ public class ActivitiEventDispatcherImpl implements ActivitiEventDispatcher {
       ProcessDefinition processDefinition = ProcessDefinitionUtil.getProcessDefinition(event.getProcessDefinitionId(), true);
       if (processDefinition != null) {
         result = Context.getProcessEngineConfiguration().getDeploymentManager().resolveProcessDefinition(processDefinition).getBpmnModel();
+      } else if (!parsedProcessDefinitionIds.contains(event.getProcessDefinitionId())) {
+        result = resolveUnparsedProcessDefinition(event.getProcessDefinitionId());
       }
     }
     
     return result;
   }
 
+  /**
+   * Parses the process definition with the given id if this engine didn't parse it yet (after a reboot, or when deployed by another engine),
+   * so that its listeners get the event: {@link #hasEventListeners(ActivitiEventType, Object)} didn't skip it for this reason.
+   * The process definitions of a deployment that is being deployed are left alone, they're cached once the deployment is done.
+   */
+  protected BpmnModel resolveUnparsedProcessDefinition(String processDefinitionId) {
+    CommandContext commandContext = Context.getCommandContext();
+    ProcessDefinitionEntity processDefinition = commandContext.getProcessDefinitionEntityManager().findById(processDefinitionId);
+    if (processDefinition == null || processDefinition.getDeploymentId() == null 
+        || Activiti5Util.isActiviti5ProcessDefinition(commandContext, processDefinition)) {
+      return null;
+    }
+
+    DeploymentEntity deployment = commandContext.getDeploymentEntityManager().findById(processDefinition.getDeploymentId());
+    if (deployment == null || deployment.isNew()) {
+      return null;
+    }
+
+    try {
+      return Context.getProcessEngineConfiguration().getDeploymentManager().resolveProcessDefinition(processDefinition).getBpmnModel();
+    } catch (ActivitiException e) {
+      // E.g. while its deployment is being deleted: the process definition listeners miss the event, like before it was parsed
+      LOG.debug("Could not parse process definition {} to dispatch event {} to its listeners", processDefinitionId, e);
+      return null;
+    }
+  }
+
 }
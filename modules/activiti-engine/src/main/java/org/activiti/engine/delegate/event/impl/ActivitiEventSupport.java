@@ -12,10 +12,11 @@
  */
 package org.activiti.engine.delegate.event.impl;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
@@ -28,18 +29,37 @@ import org.slf4j.LoggerFactory;
 /**
  * Class that allows adding and removing event listeners and dispatching events to the appropriate listeners.
  * 
+ * Adding or removing a listener rebuilds an immutable snapshot, holding for every {@link ActivitiEventType}
+ * the listeners to notify (listeners for all events first, followed by the listeners for that type). 
+ * Dispatching only reads the current snapshot and never locks.
+ * 
  * @author Frederik Heremans
  */
 public class ActivitiEventSupport {
 
   private static final Logger LOG = LoggerFactory.getLogger(ActivitiEventSupport.class);
 
+  protected static final ActivitiEventListener[] NO_LISTENERS = new ActivitiEventListener[0];
+
+  // Only changed while holding the lock of this instance
   protected List<ActivitiEventListener> eventListeners;
   protected Map<ActivitiEventType, List<ActivitiEventListener>> typedListeners;
 
+  /** Immutable once published: only contains the types that have at least one listener */
+  protected volatile EnumMap<ActivitiEventType, ActivitiEventListener[]> listenersSnapshot;
+
+  /** If set, notified of the types of the listeners added to this (process definition scoped) instance */
+  protected ActivitiEventDispatcherImpl engineEventDispatcher;
+
   public ActivitiEventSupport() {
-    eventListeners = new CopyOnWriteArrayList<ActivitiEventListener>();
-    typedListeners = new HashMap<ActivitiEventType, List<ActivitiEventListener>>();
+    eventListeners = new ArrayList<ActivitiEventListener>();
+    typedListeners = new LinkedHashMap<ActivitiEventType, List<ActivitiEventListener>>();
+    listenersSnapshot = new EnumMap<ActivitiEventType, ActivitiEventListener[]>(ActivitiEventType.class);
+  }
+
+  public ActivitiEventSupport(ActivitiEventDispatcherImpl engineEventDispatcher) {
+    this();
+    this.engineEventDispatcher = engineEventDispatcher;
   }
 
   public synchronized void addEventListener(ActivitiEventListener listenerToAdd) {
@@ -48,6 +68,10 @@ public class ActivitiEventSupport {
     }
     if (!eventListeners.contains(listenerToAdd)) {
       eventListeners.add(listenerToAdd);
+      rebuildListenersSnapshot();
+    }
+    if (engineEventDispatcher != null) {
+      engineEventDispatcher.addProcessDefinitionListenerTypes();
     }
   }
 
@@ -63,15 +87,27 @@ public class ActivitiEventSupport {
       for (ActivitiEventType type : types) {
         addTypedEventListener(listenerToAdd, type);
       }
+      rebuildListenersSnapshot();
+      if (engineEventDispatcher != null) {
+        engineEventDispatcher.addProcessDefinitionListenerTypes(types);
+      }
     }
   }
 
-  public void removeEventListener(ActivitiEventListener listenerToRemove) {
+  public synchronized void removeEventListener(ActivitiEventListener listenerToRemove) {
     eventListeners.remove(listenerToRemove);
 
     for (List<ActivitiEventListener> listeners : typedListeners.values()) {
       listeners.remove(listenerToRemove);
     }
+    rebuildListenersSnapshot();
+  }
+
+  /**
+   * Returns true if at least one listener is registered for events of the given type.
+   */
+  public boolean hasListeners(ActivitiEventType type) {
+    return listenersSnapshot.containsKey(type);
   }
 
   public void dispatchEvent(ActivitiEvent event) {
@@ -83,17 +119,9 @@ public class ActivitiEventSupport {
       throw new ActivitiIllegalArgumentException("Event type cannot be null.");
     }
 
-    // Call global listeners
-    if (!eventListeners.isEmpty()) {
-      for (ActivitiEventListener listener : eventListeners) {
-        dispatchEvent(event, listener);
-      }
-    }
-
-    // Call typed listeners, if any
-    List<ActivitiEventListener> typed = typedListeners.get(event.getType());
-    if (typed != null && !typed.isEmpty()) {
-      for (ActivitiEventListener listener : typed) {
+    ActivitiEventListener[] listeners = listenersSnapshot.get(event.getType());
+    if (listeners != null) {
+      for (ActivitiEventListener listener : listeners) {
         dispatchEvent(event, listener);
       }
     }
@@ -117,7 +145,7 @@ public class ActivitiEventSupport {
     List<ActivitiEventListener> listeners = typedListeners.get(type);
     if (listeners == null) {
       // Add an empty list of listeners for this type
-      listeners = new CopyOnWriteArrayList<ActivitiEventListener>();
+      listeners = new ArrayList<ActivitiEventListener>();
       typedListeners.put(type, listeners);
     }
 
@@ -125,4 +153,21 @@ public class ActivitiEventSupport {
       listeners.add(listener);
     }
   }
+
+  protected synchronized void rebuildListenersSnapshot() {
+    EnumMap<ActivitiEventType, ActivitiEventListener[]> snapshot = new EnumMap<ActivitiEventType, ActivitiEventListener[]>(ActivitiEventType.class);
+    for (ActivitiEventType type : ActivitiEventType.values()) {
+      List<ActivitiEventListener> typed = typedListeners.get(type);
+      int nrOfTypedListeners = typed != null ? typed.size() : 0;
+      if (eventListeners.size() + nrOfTypedListeners > 0) {
+        List<ActivitiEventListener> listeners = new ArrayList<ActivitiEventListener>(eventListeners.size() + nrOfTypedListeners);
+        listeners.addAll(eventListeners);
+        if (typed != null) {
+          listeners.addAll(typed);
+        }
+        snapshot.put(type, listeners.toArray(NO_LISTENERS));
+      }
+    }
+    listenersSnapshot = snapshot;
+  }
 }
@@ -26,6 +26,7 @@ import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.query.Query;
 import org.activiti.engine.query.QueryProperty;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * Abstract superclass for all query types.
@@ -40,7 +41,7 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
   public static final String SORTORDER_DESC = "desc";
 
   private static enum ResultType {
-    LIST, LIST_PAGE, SINGLE_RESULT, COUNT
+    LIST, LIST_PAGE, SINGLE_RESULT, COUNT, FOR_EACH
   }
 
   protected transient CommandExecutor commandExecutor;
@@ -52,6 +53,8 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
 
   protected ResultType resultType;
 
+  protected transient QueryResultHandler<? super U> resultHandler;
+
   protected QueryProperty orderProperty;
 
   public static enum NullHandlingOnOrder {
@@ -149,6 +152,22 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
     return executeList(Context.getCommandContext(), new Page(firstResult, maxResults));
   }
 
+  public void forEach(QueryResultHandler<? super U> resultHandler) {
+    this.firstResult = 0;
+    this.maxResults = Integer.MAX_VALUE;
+    this.resultType = ResultType.FOR_EACH;
+    this.resultHandler = resultHandler;
+    try {
+      if (commandExecutor != null) {
+        commandExecutor.execute(this);
+      } else {
+        executeForEach(Context.getCommandContext(), resultHandler);
+      }
+    } finally {
+      this.resultHandler = null;
+    }
+  }
+
   public long count() {
     this.resultType = ResultType.COUNT;
     if (commandExecutor != null) {
@@ -164,6 +183,9 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
       return executeSingleResult(commandContext);
     } else if (resultType == ResultType.LIST_PAGE) {
       return executeList(commandContext, null);
+    } else if (resultType == ResultType.FOR_EACH) {
+      executeForEach(commandContext, resultHandler);
+      return null;
     } else {
       return executeCount(commandContext);
     }
@@ -179,6 +201,17 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
    */
   public abstract List<U> executeList(CommandContext commandContext, Page page);
 
+  /**
+   * Executes the actual query and passes the results to the handler. 
+   * Queries that can read their results through a cursor override this, by default the results of
+   * {@link #executeList(CommandContext, Page)} are used.
+   */
+  public void executeForEach(CommandContext commandContext, QueryResultHandler<? super U> resultHandler) {
+    for (U result : executeList(commandContext, null)) {
+      resultHandler.handleResult(result);
+    }
+  }
+
   public U executeSingleResult(CommandContext commandContext) {
     List<U> results = executeList(commandContext, null);
     if (results.size() == 1) {
@@ -236,7 +269,7 @@ public abstract class AbstractQuery<T extends Query<?, ?>, U> extends ListQueryP
   }
 
   public String getOrderBy() {
-    if (orderBy == null) {
+    if (orderBy == null || keysetPagination) {
       return super.getOrderBy();
     } else {
       return orderBy;
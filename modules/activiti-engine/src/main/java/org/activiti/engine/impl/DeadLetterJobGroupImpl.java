@@ -0,0 +1,90 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.io.Serializable;
+
+import org.activiti.engine.runtime.DeadLetterJobGroup;
+
+public class DeadLetterJobGroupImpl implements DeadLetterJobGroup, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected String exceptionFingerprint;
+  protected String exceptionMessage;
+  protected String processDefinitionId;
+  protected String activityId;
+  protected long jobCount;
+
+  public DeadLetterJobGroupImpl() {
+
+  }
+
+  public DeadLetterJobGroupImpl(String exceptionFingerprint, String processDefinitionId, String activityId) {
+    this.exceptionFingerprint = exceptionFingerprint;
+    this.processDefinitionId = processDefinitionId;
+    this.activityId = activityId;
+  }
+
+  @Override
+  public String getExceptionFingerprint() {
+    return exceptionFingerprint;
+  }
+
+  public void setExceptionFingerprint(String exceptionFingerprint) {
+    this.exceptionFingerprint = exceptionFingerprint;
+  }
+
+  @Override
+  public String getExceptionMessage() {
+    return exceptionMessage;
+  }
+
+  public void setExceptionMessage(String exceptionMessage) {
+    this.exceptionMessage = exceptionMessage;
+  }
+
+  @Override
+  public String getProcessDefinitionId() {
+    return processDefinitionId;
+  }
+
+  public void setProcessDefinitionId(String processDefinitionId) {
+    this.processDefinitionId = processDefinitionId;
+  }
+
+  @Override
+  public String getActivityId() {
+    return activityId;
+  }
+
+  public void setActivityId(String activityId) {
+    this.activityId = activityId;
+  }
+
+  @Override
+  public long getJobCount() {
+    return jobCount;
+  }
+
+  public void setJobCount(long jobCount) {
+    this.jobCount = jobCount;
+  }
+
+  @Override
+  public String toString() {
+    return "DeadLetterJobGroup[processDefinitionId=" + processDefinitionId + ", activityId=" + activityId 
+        + ", exceptionFingerprint=" + exceptionFingerprint + ", jobCount=" + jobCount + "]";
+  }
+
+}
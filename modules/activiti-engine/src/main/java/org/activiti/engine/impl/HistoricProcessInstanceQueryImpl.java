@@ -27,6 +27,7 @@ import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.impl.persistence.entity.HistoricProcessInstanceEntity;
+import org.activiti.engine.query.QueryResultHandler;
 import org.activiti.engine.repository.ProcessDefinition;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -604,6 +605,29 @@ public class HistoricProcessInstanceQueryImpl extends AbstractVariableQueryImpl<
     return results;
   }
 
+  @Override
+  public void executeForEach(final CommandContext commandContext, final QueryResultHandler<? super HistoricProcessInstance> resultHandler) {
+    if (includeProcessVariables) {
+      // The variables of one process instance are spread over multiple rows, so these can't be read through a cursor
+      super.executeForEach(commandContext, resultHandler);
+      return;
+    }
+    
+    checkQueryOk();
+    ensureVariablesInitialized();
+    final boolean localizationEnabled = commandContext.getProcessEngineConfiguration().getPerformanceSettings().isEnableLocalization();
+    commandContext.getHistoricProcessInstanceEntityManager().streamHistoricProcessInstancesByQueryCriteria(this, new QueryResultHandler<HistoricProcessInstance>() {
+      
+      public void handleResult(HistoricProcessInstance processInstance) {
+        if (localizationEnabled) {
+          localize(processInstance, commandContext);
+        }
+        resultHandler.handleResult(processInstance);
+      }
+      
+    });
+  }
+
   protected void localize(HistoricProcessInstance processInstance, CommandContext commandContext) {
     HistoricProcessInstanceEntity processInstanceEntity = (HistoricProcessInstanceEntity) processInstance;
     processInstanceEntity.setLocalizedName(null);
@@ -1263,8 +1263,10 @@ public class HistoricTaskInstanceQueryImpl extends AbstractVariableQueryImpl<His
     super.checkQueryOk();
     // In case historic query variables are included, an additional order-by
     // clause should be added
-    // to ensure the last value of a variable is used
-    if (includeProcessVariables || includeTaskLocalVariables) {
+    // to ensure the last value of a variable is used.
+    // A two phase fetch doesn't join the variables and orders them itself.
+    if ((includeProcessVariables || includeTaskLocalVariables)
+        && !Context.getProcessEngineConfiguration().getPerformanceSettings().isEnableTwoPhaseQueryVariablesFetch()) {
       this.orderBy(HistoricTaskInstanceQueryProperty.INCLUDED_VARIABLE_TIME).asc();
     }
   }
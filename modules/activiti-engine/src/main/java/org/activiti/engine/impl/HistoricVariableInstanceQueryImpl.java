@@ -22,11 +22,13 @@ import org.activiti.engine.history.HistoricVariableInstanceQuery;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntityImpl;
 import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntity;
 import org.activiti.engine.impl.variable.CacheableVariable;
 import org.activiti.engine.impl.variable.JPAEntityListVariableType;
 import org.activiti.engine.impl.variable.JPAEntityVariableType;
 import org.activiti.engine.impl.variable.VariableTypes;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Joram Barrez
@@ -239,6 +241,36 @@ public class HistoricVariableInstanceQueryImpl extends AbstractQuery<HistoricVar
     return historicVariableInstances;
   }
 
+  @Override
+  public void executeForEach(final CommandContext commandContext, final QueryResultHandler<? super HistoricVariableInstance> resultHandler) {
+    checkQueryOk();
+    ensureVariablesInitialized();
+    commandContext.getHistoricVariableInstanceEntityManager().streamHistoricVariableInstancesByQueryCriteria(this, new QueryResultHandler<HistoricVariableInstance>() {
+      
+      public void handleResult(HistoricVariableInstance historicVariableInstance) {
+        String loadedByteArrayId = null;
+        if (excludeVariableInitialization == false && historicVariableInstance instanceof HistoricVariableInstanceEntity) {
+          HistoricVariableInstanceEntity variableEntity = (HistoricVariableInstanceEntity) historicVariableInstance;
+          if (variableEntity.getVariableType() != null) {
+            String byteArrayId = variableEntity.getByteArrayRef() != null ? variableEntity.getByteArrayRef().getId() : null;
+            if (byteArrayId != null && commandContext.getEntityCache().findInCache(ByteArrayEntityImpl.class, byteArrayId) == null) {
+              loadedByteArrayId = byteArrayId;
+            }
+            variableEntity.getValue();
+          }
+        }
+        
+        resultHandler.handleResult(historicVariableInstance);
+        
+        // The byte array was only loaded for this result, don't keep it in the entity cache
+        if (loadedByteArrayId != null) {
+          commandContext.getEntityCache().cacheRemove(ByteArrayEntityImpl.class, loadedByteArrayId);
+        }
+      }
+      
+    });
+  }
+
   // order by
   // /////////////////////////////////////////////////////////////////
 
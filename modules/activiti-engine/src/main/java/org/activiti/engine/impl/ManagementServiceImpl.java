@@ -20,6 +20,7 @@ import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
 import org.activiti.engine.ManagementService;
 import org.activiti.engine.event.EventLogEntry;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.cmd.CustomSqlExecution;
 import org.activiti.engine.impl.cmd.DeleteDeadLetterJobCmd;
 import org.activiti.engine.impl.cmd.DeleteEventLogEntry;
@@ -27,6 +28,7 @@ import org.activiti.engine.impl.cmd.DeleteJobCmd;
 import org.activiti.engine.impl.cmd.DeleteTimerJobCmd;
 import org.activiti.engine.impl.cmd.ExecuteCustomSqlCmd;
 import org.activiti.engine.impl.cmd.ExecuteJobCmd;
+import org.activiti.engine.impl.cmd.GetDeadLetterJobGroupsCmd;
 import org.activiti.engine.impl.cmd.GetEventLogEntriesCmd;
 import org.activiti.engine.impl.cmd.GetJobExceptionStacktraceCmd;
 import org.activiti.engine.impl.cmd.GetPropertiesCmd;
@@ -35,6 +37,7 @@ import org.activiti.engine.impl.cmd.GetTableMetaDataCmd;
 import org.activiti.engine.impl.cmd.GetTableNameCmd;
 import org.activiti.engine.impl.cmd.JobType;
 import org.activiti.engine.impl.cmd.MoveDeadLetterJobToExecutableJobCmd;
+import org.activiti.engine.impl.cmd.MoveDeadLetterJobsToExecutableJobsCmd;
 import org.activiti.engine.impl.cmd.MoveJobToDeadLetterJobCmd;
 import org.activiti.engine.impl.cmd.MoveTimerToExecutableJobCmd;
 import org.activiti.engine.impl.cmd.SetJobRetriesCmd;
@@ -46,6 +49,7 @@ import org.activiti.engine.impl.interceptor.CommandConfig;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.management.TableMetaData;
 import org.activiti.engine.management.TablePageQuery;
+import org.activiti.engine.runtime.DeadLetterJobGroup;
 import org.activiti.engine.runtime.DeadLetterJobQuery;
 import org.activiti.engine.runtime.Job;
 import org.activiti.engine.runtime.JobQuery;
@@ -60,6 +64,14 @@ import org.activiti.engine.runtime.TimerJobQuery;
  */
 public class ManagementServiceImpl extends ServiceImpl implements ManagementService {
 
+  public ManagementServiceImpl() {
+
+  }
+
+  public ManagementServiceImpl(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    super(processEngineConfiguration);
+  }
+
   public Map<String, Long> getTableCount() {
     return commandExecutor.execute(new GetTableCountCmd());
   }
@@ -101,6 +113,46 @@ public class ManagementServiceImpl extends ServiceImpl implements ManagementServ
   public Job moveDeadLetterJobToExecutableJob(String jobId, int retries) {
     return commandExecutor.execute(new MoveDeadLetterJobToExecutableJobCmd(jobId, retries));
   }
+  
+  @Override
+  public List<DeadLetterJobGroup> getDeadLetterJobGroups() {
+    return commandExecutor.execute(new GetDeadLetterJobGroupsCmd());
+  }
+  
+  @Override
+  public int moveDeadLetterJobGroupToExecutableJobs(DeadLetterJobGroup jobGroup, int retries) {
+    if (jobGroup == null) {
+      throw new ActivitiIllegalArgumentException("jobGroup is null");
+    }
+    
+    int batchSize = processEngineConfiguration.getDeadLetterJobMoveBatchSize();
+    int maxJobsPerSecond = processEngineConfiguration.getDeadLetterJobMoveMaxJobsPerSecond();
+    
+    int movedJobCount = 0;
+    String lastJobId = null;
+    long startTime = System.currentTimeMillis();
+    while (true) {
+      List<String> movedJobIds = commandExecutor.execute(new MoveDeadLetterJobsToExecutableJobsCmd(jobGroup, retries, lastJobId, batchSize));
+      movedJobCount += movedJobIds.size();
+      if (movedJobIds.size() < batchSize) {
+        return movedJobCount;
+      }
+      lastJobId = movedJobIds.get(movedJobIds.size() - 1);
+      
+      if (maxJobsPerSecond > 0) {
+        // Wait until the moved jobs fit in the allowed rate since the start
+        long waitTime = startTime + (movedJobCount * 1000L / maxJobsPerSecond) - System.currentTimeMillis();
+        if (waitTime > 0) {
+          try {
+            Thread.sleep(waitTime);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ActivitiException("Interrupted while moving dead letter jobs, " + movedJobCount + " jobs have been moved", e);
+          }
+        }
+      }
+    }
+  }
 
   public void deleteJob(String jobId) {
     commandExecutor.execute(new DeleteJobCmd(jobId));
@@ -93,6 +93,10 @@ public class ProcessEngineImpl implements ProcessEngine {
       asyncExecutor.start();
     }
 
+    if (processEngineConfiguration.getDeploymentCacheInvalidationChannel() != null) {
+      processEngineConfiguration.getDeploymentCacheInvalidationChannel().start(commandExecutor, processEngineConfiguration.getDeploymentManager());
+    }
+
     if (processEngineConfiguration.getProcessEngineLifecycleListener() != null) {
       processEngineConfiguration.getProcessEngineLifecycleListener().onProcessEngineBuilt(this);
     }
@@ -106,6 +110,14 @@ public class ProcessEngineImpl implements ProcessEngine {
       asyncExecutor.shutdown();
     }
 
+    if (processEngineConfiguration.getDeploymentParsePool() != null) {
+      processEngineConfiguration.getDeploymentParsePool().shutdown();
+    }
+
+    if (processEngineConfiguration.getDeploymentCacheInvalidationChannel() != null) {
+      processEngineConfiguration.getDeploymentCacheInvalidationChannel().stop();
+    }
+
     commandExecutor.execute(processEngineConfiguration.getSchemaCommandConfig(), new SchemaOperationProcessEngineClose());
 
     if (processEngineConfiguration.getProcessEngineLifecycleListener() != null) {
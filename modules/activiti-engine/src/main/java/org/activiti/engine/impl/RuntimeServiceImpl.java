@@ -26,6 +26,7 @@ import org.activiti.engine.delegate.event.ActivitiEvent;
 import org.activiti.engine.delegate.event.ActivitiEventListener;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.form.FormData;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.cmd.ActivateProcessInstanceCmd;
 import org.activiti.engine.impl.cmd.AddEventListenerCommand;
 import org.activiti.engine.impl.cmd.AddIdentityLinkForProcessInstanceCmd;
@@ -56,10 +57,12 @@ import org.activiti.engine.impl.cmd.SetProcessInstanceNameCmd;
 import org.activiti.engine.impl.cmd.SignalEventReceivedCmd;
 import org.activiti.engine.impl.cmd.StartProcessInstanceByMessageCmd;
 import org.activiti.engine.impl.cmd.StartProcessInstanceCmd;
+import org.activiti.engine.impl.cmd.StartProcessInstancesBatchCmd;
 import org.activiti.engine.impl.cmd.SuspendProcessInstanceCmd;
 import org.activiti.engine.impl.cmd.TriggerCmd;
 import org.activiti.engine.impl.persistence.entity.VariableInstance;
 import org.activiti.engine.impl.runtime.ProcessInstanceBuilderImpl;
+import org.activiti.engine.impl.util.CollectionUtil;
 import org.activiti.engine.runtime.DataObject;
 import org.activiti.engine.runtime.Execution;
 import org.activiti.engine.runtime.ExecutionQuery;
@@ -78,6 +81,14 @@ import org.activiti.engine.task.IdentityLinkType;
  */
 public class RuntimeServiceImpl extends ServiceImpl implements RuntimeService {
 
+  public RuntimeServiceImpl() {
+
+  }
+
+  public RuntimeServiceImpl(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    super(processEngineConfiguration);
+  }
+
   public ProcessInstance startProcessInstanceByKey(String processDefinitionKey) {
     return commandExecutor.execute(new StartProcessInstanceCmd<ProcessInstance>(processDefinitionKey, null, null, null));
   }
@@ -538,4 +549,22 @@ public class RuntimeServiceImpl extends ServiceImpl implements RuntimeService {
     }
     
   }
+
+  @Override
+  public List<ProcessInstance> startProcessInstancesBatch(Collection<ProcessInstanceBuilder> processInstanceBuilders) {
+    if (processInstanceBuilders == null) {
+      throw new ActivitiIllegalArgumentException("processInstanceBuilders is null");
+    }
+
+    List<ProcessInstanceBuilderImpl> builders = new ArrayList<ProcessInstanceBuilderImpl>(processInstanceBuilders.size());
+    for (ProcessInstanceBuilder processInstanceBuilder : processInstanceBuilders) {
+      builders.add((ProcessInstanceBuilderImpl) processInstanceBuilder);
+    }
+
+    List<ProcessInstance> processInstances = new ArrayList<ProcessInstance>(builders.size());
+    for (List<ProcessInstanceBuilderImpl> chunk : CollectionUtil.partition(builders, processEngineConfiguration.getBatchSizeProcessInstances())) {
+      processInstances.addAll(commandExecutor.execute(new StartProcessInstancesBatchCmd(chunk)));
+    }
+    return processInstances;
+  }
 }
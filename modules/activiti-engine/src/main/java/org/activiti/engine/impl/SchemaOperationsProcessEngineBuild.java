@@ -26,6 +26,11 @@ public final class SchemaOperationsProcessEngineBuild implements Command<Object>
     DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
     if (dbSqlSession != null) {
       dbSqlSession.performSchemaOperationsProcessEngineBuild();
+      
+      if (dbSqlSession.getDbSqlSessionFactory().isBatchFlushEnabled() 
+          && commandContext.getProcessEngineConfiguration().getBatchUpdateCountsReported() == null) {
+        dbSqlSession.detectBatchUpdateCountsReported();
+      }
     }
     return null;
   }
@@ -0,0 +1,58 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.task.TaskBatchResult;
+
+public class TaskBatchResultImpl implements TaskBatchResult, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected List<String> succeededTaskIds = new ArrayList<String>();
+  protected Map<String, RuntimeException> failures = new LinkedHashMap<String, RuntimeException>();
+
+  public void addSucceededTaskId(String taskId) {
+    succeededTaskIds.add(taskId);
+  }
+
+  public void addSucceededTaskIds(Collection<String> taskIds) {
+    succeededTaskIds.addAll(taskIds);
+  }
+
+  public void addFailure(String taskId, RuntimeException exception) {
+    failures.put(taskId, exception);
+  }
+
+  @Override
+  public List<String> getSucceededTaskIds() {
+    return succeededTaskIds;
+  }
+
+  @Override
+  public Map<String, RuntimeException> getFailures() {
+    return failures;
+  }
+
+  @Override
+  public boolean hasFailures() {
+    return !failures.isEmpty();
+  }
+
+}
@@ -17,6 +17,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,6 +37,7 @@ import org.activiti.engine.impl.cmd.DeleteAttachmentCmd;
 import org.activiti.engine.impl.cmd.DeleteCommentCmd;
 import org.activiti.engine.impl.cmd.DeleteIdentityLinkCmd;
 import org.activiti.engine.impl.cmd.DeleteTaskCmd;
+import org.activiti.engine.impl.cmd.ExecuteTaskBatchCmd;
 import org.activiti.engine.impl.cmd.GetAttachmentCmd;
 import org.activiti.engine.impl.cmd.GetAttachmentContentCmd;
 import org.activiti.engine.impl.cmd.GetCommentCmd;
@@ -63,6 +67,7 @@ import org.activiti.engine.impl.cmd.SaveTaskCmd;
 import org.activiti.engine.impl.cmd.SetTaskDueDateCmd;
 import org.activiti.engine.impl.cmd.SetTaskPriorityCmd;
 import org.activiti.engine.impl.cmd.SetTaskVariablesCmd;
+import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.persistence.entity.VariableInstance;
 import org.activiti.engine.runtime.DataObject;
 import org.activiti.engine.task.Attachment;
@@ -72,6 +77,7 @@ import org.activiti.engine.task.IdentityLink;
 import org.activiti.engine.task.IdentityLinkType;
 import org.activiti.engine.task.NativeTaskQuery;
 import org.activiti.engine.task.Task;
+import org.activiti.engine.task.TaskBatchResult;
 import org.activiti.engine.task.TaskQuery;
 
 /**
@@ -178,6 +184,14 @@ public class TaskServiceImpl extends ServiceImpl implements TaskService {
     commandExecutor.execute(new ClaimTaskCmd(taskId, null));
   }
 
+  public TaskBatchResult claimBatch(Collection<String> taskIds, String userId) {
+    Map<String, Command<?>> taskCommands = new LinkedHashMap<String, Command<?>>();
+    for (String taskId : getBatchTaskIds(taskIds)) {
+      taskCommands.put(taskId, new ClaimTaskCmd(taskId, userId));
+    }
+    return executeTaskBatch(taskCommands);
+  }
+
   public void complete(String taskId) {
     commandExecutor.execute(new CompleteTaskCmd(taskId, null));
   }
@@ -195,6 +209,14 @@ public class TaskServiceImpl extends ServiceImpl implements TaskService {
     commandExecutor.execute(new CompleteTaskCmd(taskId, variables, localScope));
   }
 
+  public TaskBatchResult completeBatch(Collection<String> taskIds, Map<String, Object> variables) {
+    Map<String, Command<?>> taskCommands = new LinkedHashMap<String, Command<?>>();
+    for (String taskId : getBatchTaskIds(taskIds)) {
+      taskCommands.put(taskId, new CompleteTaskCmd(taskId, variables));
+    }
+    return executeTaskBatch(taskCommands);
+  }
+
   public void delegateTask(String taskId, String userId) {
     commandExecutor.execute(new DelegateTaskCmd(taskId, userId));
   }
@@ -300,6 +322,14 @@ public class TaskServiceImpl extends ServiceImpl implements TaskService {
     commandExecutor.execute(new SetTaskVariablesCmd(taskId, variables, true));
   }
 
+  public TaskBatchResult setVariablesBatch(Collection<String> taskIds, Map<String, ? extends Object> variables) {
+    Map<String, Command<?>> taskCommands = new LinkedHashMap<String, Command<?>>();
+    for (String taskId : getBatchTaskIds(taskIds)) {
+      taskCommands.put(taskId, new SetTaskVariablesCmd(taskId, variables, false));
+    }
+    return executeTaskBatch(taskCommands);
+  }
+
   public void removeVariable(String taskId, String variableName) {
     Collection<String> variableNames = new ArrayList<String>();
     variableNames.add(variableName);
@@ -469,4 +499,65 @@ public class TaskServiceImpl extends ServiceImpl implements TaskService {
     return commandExecutor.execute(new GetTaskDataObjectCmd(taskId, dataObjectName, locale, withLocalizationFallback));
   }
 
+  protected Collection<String> getBatchTaskIds(Collection<String> taskIds) {
+    if (taskIds == null) {
+      throw new ActivitiIllegalArgumentException("taskIds is null");
+    }
+    return new LinkedHashSet<String>(taskIds);
+  }
+
+  /**
+   * Executes the given task commands in chunks of {@link ProcessEngineConfigurationImpl#getBatchSizeTasks()}, each chunk in one transaction.
+   * 
+   * When a task command fails, the chunk is rolled back and the task is reported as failed. The tasks of the chunk after it weren't executed 
+   * and are handled in the next chunk. The tasks before it were executed and rolled back: they are executed again, one transaction per task,
+   * so only the tasks that fail on their own are reported as failed. When their non-transactional side effects (eg. calls done by service tasks 
+   * or listeners) must not be repeated, {@link ProcessEngineConfigurationImpl#setTaskBatchRetryRolledBackTasks(boolean)} can be disabled: 
+   * they are then reported as failed with the exception of the failing task.
+   */
+  protected TaskBatchResult executeTaskBatch(Map<String, Command<?>> taskCommands) {
+    TaskBatchResultImpl result = new TaskBatchResultImpl();
+    LinkedList<String> remainingTaskIds = new LinkedList<String>(taskCommands.keySet());
+    while (!remainingTaskIds.isEmpty()) {
+      List<String> chunkTaskIds = new ArrayList<String>();
+      List<Command<?>> chunkCommands = new ArrayList<Command<?>>();
+      while (!remainingTaskIds.isEmpty() && chunkTaskIds.size() < processEngineConfiguration.getBatchSizeTasks()) {
+        String taskId = remainingTaskIds.removeFirst();
+        chunkTaskIds.add(taskId);
+        chunkCommands.add(taskCommands.get(taskId));
+      }
+
+      ExecuteTaskBatchCmd executeTaskBatchCmd = new ExecuteTaskBatchCmd(chunkTaskIds, chunkCommands);
+      try {
+        commandExecutor.execute(executeTaskBatchCmd);
+        result.addSucceededTaskIds(chunkTaskIds);
+
+      } catch (RuntimeException chunkException) {
+        List<String> rolledBackTaskIds = chunkTaskIds;
+        int failedTaskIndex = executeTaskBatchCmd.getFailedTaskIndex();
+        if (failedTaskIndex >= 0) {
+          result.addFailure(chunkTaskIds.get(failedTaskIndex), chunkException);
+          rolledBackTaskIds = chunkTaskIds.subList(0, failedTaskIndex);
+          remainingTaskIds.addAll(0, chunkTaskIds.subList(failedTaskIndex + 1, chunkTaskIds.size()));
+        }
+        
+        for (String taskId : rolledBackTaskIds) {
+          if (processEngineConfiguration.isTaskBatchRetryRolledBackTasks()) {
+            try {
+              commandExecutor.execute(taskCommands.get(taskId));
+              result.addSucceededTaskId(taskId);
+            } catch (RuntimeException taskException) {
+              result.addFailure(taskId, taskException);
+            }
+            
+          } else {
+            result.addFailure(taskId, chunkException);
+          }
+        }
+      }
+    }
+
+    return result;
+  }
+
 }
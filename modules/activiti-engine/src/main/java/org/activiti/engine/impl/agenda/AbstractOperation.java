@@ -13,10 +13,12 @@
 package org.activiti.engine.impl.agenda;
 
 import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.HasExecutionListeners;
 import org.activiti.engine.delegate.ExecutionListener;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionCacheEntry;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntityManager;
 import org.activiti.engine.Agenda;
@@ -37,6 +39,9 @@ public abstract class AbstractOperation implements Runnable {
   protected Agenda agenda;
   protected ExecutionEntity execution;
 
+  protected ProcessExecutionPlan processExecutionPlan;
+  protected String processExecutionPlanProcessDefinitionId;
+
   public AbstractOperation() {
 
   }
@@ -63,6 +68,35 @@ public abstract class AbstractOperation implements Runnable {
     return null;
   }
 
+  /**
+   * Returns the precompiled {@link FlowNodeExecutionPlan} for the given flow node, or null if the process definition
+   * of the execution has no execution plan cached (in which case the flow node model needs to be inspected directly).
+   */
+  protected FlowNodeExecutionPlan getFlowNodeExecutionPlan(FlowNode flowNode) {
+    ProcessExecutionPlan processExecutionPlan = getProcessExecutionPlan();
+    if (processExecutionPlan == null) {
+      return null;
+    }
+    return processExecutionPlan.getFlowNodePlan(flowNode);
+  }
+
+  /**
+   * Returns the {@link ProcessExecutionPlan} of the process definition of the execution, or null if none is cached.
+   * The process definition cache is only consulted once per operation (and again if the execution is of another process definition).
+   */
+  protected ProcessExecutionPlan getProcessExecutionPlan() {
+    String processDefinitionId = execution.getProcessDefinitionId();
+    if (processDefinitionId == null) {
+      return null;
+    }
+    if (!processDefinitionId.equals(processExecutionPlanProcessDefinitionId)) {
+      ProcessDefinitionCacheEntry cacheEntry = commandContext.getProcessEngineConfiguration().getProcessDefinitionCache().get(processDefinitionId);
+      processExecutionPlan = cacheEntry != null ? cacheEntry.getExecutionPlan() : null;
+      processExecutionPlanProcessDefinitionId = processDefinitionId;
+    }
+    return processExecutionPlan;
+  }
+
   /**
    * Executes the execution listeners defined on the given element, with the given event type.
    * Uses the {@link #execution} of this operation instance as argument for the execution listener.
@@ -5,6 +5,7 @@ import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.ExecutionListener;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.delegate.ActivityBehavior;
 import org.activiti.engine.impl.interceptor.CommandContext;
@@ -66,11 +67,12 @@ public class ContinueProcessOperation extends AbstractOperation {
   }
 
   protected void continueThroughFlowNode(FlowNode flowNode) {
+    FlowNodeExecutionPlan flowNodePlan = getFlowNodeExecutionPlan(flowNode);
 
     // Check if it's the initial flow element. If so, we must fire the execution listeners for the process too
-    if (flowNode.getIncomingFlows() != null
-        && flowNode.getIncomingFlows().size() == 0
-        && flowNode.getSubProcess() == null) {
+    boolean processStart = flowNodePlan != null ? flowNodePlan.isProcessStart()
+        : flowNode.getIncomingFlows() != null && flowNode.getIncomingFlows().size() == 0 && flowNode.getSubProcess() == null;
+    if (processStart) {
       executeProcessStartExecutionListeners();
     }
 
@@ -81,11 +83,15 @@ public class ContinueProcessOperation extends AbstractOperation {
       createChildExecutionForSubProcess((SubProcess) flowNode);
     }
 
-    if (flowNode instanceof Activity && ((Activity) flowNode).hasMultiInstanceLoopCharacteristics()) {
+    boolean multiInstance = flowNodePlan != null ? flowNodePlan.isMultiInstance()
+        : flowNode instanceof Activity && ((Activity) flowNode).hasMultiInstanceLoopCharacteristics();
+    boolean asynchronous = flowNodePlan != null ? flowNodePlan.isAsynchronous() : flowNode.isAsynchronous();
+
+    if (multiInstance) {
       // the multi instance execution will look at async
       executeMultiInstanceSynchronous(flowNode);
 
-    } else if (forceSynchronousOperation || !flowNode.isAsynchronous()) {
+    } else if (forceSynchronousOperation || !asynchronous) {
       executeSynchronous(flowNode);
 
     } else {
@@ -111,18 +117,7 @@ public class ContinueProcessOperation extends AbstractOperation {
   protected void executeSynchronous(FlowNode flowNode) {
     commandContext.getHistoryManager().recordActivityStart(execution);
 
-    // Execution listener: event 'start'
-    if (CollectionUtil.isNotEmpty(flowNode.getExecutionListeners())) {
-      executeExecutionListeners(flowNode, ExecutionListener.EVENTNAME_START);
-    }
-
-    // Execute any boundary events, sub process boundary events will be executed from the activity behavior
-    if (!inCompensation && flowNode instanceof Activity) { // Only activities can have boundary events
-      List<BoundaryEvent> boundaryEvents = ((Activity) flowNode).getBoundaryEvents();
-      if (CollectionUtil.isNotEmpty(boundaryEvents)) {
-        executeBoundaryEvents(boundaryEvents, execution);
-      }
-    }
+    executeStartListenersAndBoundaryEvents(flowNode);
 
     // Execute actual behavior
     ActivityBehavior activityBehavior = (ActivityBehavior) flowNode.getBehavior();
@@ -136,25 +131,31 @@ public class ContinueProcessOperation extends AbstractOperation {
     }
   }
 
-  protected void executeAsynchronous(FlowNode flowNode) {
-    JobEntity job = commandContext.getJobManager().createAsyncJob(execution, flowNode.isExclusive());
-    commandContext.getJobManager().scheduleAsyncJob(job);
-  }
-
-  protected void executeMultiInstanceSynchronous(FlowNode flowNode) {
+  protected void executeStartListenersAndBoundaryEvents(FlowNode flowNode) {
+    FlowNodeExecutionPlan flowNodePlan = getFlowNodeExecutionPlan(flowNode);
 
     // Execution listener: event 'start'
-    if (CollectionUtil.isNotEmpty(flowNode.getExecutionListeners())) {
+    if (flowNodePlan != null ? flowNodePlan.hasStartExecutionListeners() : CollectionUtil.isNotEmpty(flowNode.getExecutionListeners())) {
       executeExecutionListeners(flowNode, ExecutionListener.EVENTNAME_START);
     }
 
     // Execute any boundary events, sub process boundary events will be executed from the activity behavior
     if (!inCompensation && flowNode instanceof Activity) { // Only activities can have boundary events
-      List<BoundaryEvent> boundaryEvents = ((Activity) flowNode).getBoundaryEvents();
+      List<BoundaryEvent> boundaryEvents = flowNodePlan != null ? flowNodePlan.getBoundaryEventsToExecute() : ((Activity) flowNode).getBoundaryEvents();
       if (CollectionUtil.isNotEmpty(boundaryEvents)) {
         executeBoundaryEvents(boundaryEvents, execution);
       }
     }
+  }
+
+  protected void executeAsynchronous(FlowNode flowNode) {
+    JobEntity job = commandContext.getJobManager().createAsyncJob(execution, flowNode.isExclusive());
+    commandContext.getJobManager().scheduleAsyncJob(job);
+  }
+
+  protected void executeMultiInstanceSynchronous(FlowNode flowNode) {
+
+    executeStartListenersAndBoundaryEvents(flowNode);
 
     // Execute the multi instance behavior
     ActivityBehavior activityBehavior = (ActivityBehavior) flowNode.getBehavior();
@@ -170,7 +171,7 @@ public class ContinueProcessOperation extends AbstractOperation {
   protected void executeActivityBehavior(ActivityBehavior activityBehavior, FlowNode flowNode) {
     logger.debug("Executing activityBehavior {} on activity '{}' with execution {}", activityBehavior.getClass(), flowNode.getId(), execution.getId());
 
-    if (Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if (Context.getProcessEngineConfiguration() != null && ActivitiEventDispatcherImpl.hasEventListeners(Context.getProcessEngineConfiguration().getEventDispatcher(), ActivitiEventType.ACTIVITY_STARTED)) {
       Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
           ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_STARTED, flowNode.getId(), flowNode.getName(), execution.getId(),
               execution.getProcessInstanceId(), execution.getProcessDefinitionId(), flowNode));
@@ -196,7 +197,7 @@ public class ContinueProcessOperation extends AbstractOperation {
     }
 
     // Firing event that transition is being taken
-    if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.getProcessEngineConfiguration() != null && ActivitiEventDispatcherImpl.hasEventListeners(Context.getProcessEngineConfiguration().getEventDispatcher(), ActivitiEventType.SEQUENCEFLOW_TAKEN)) {
       FlowElement sourceFlowElement = sequenceFlow.getSourceFlowElement();
       FlowElement targetFlowElement = sequenceFlow.getTargetFlowElement();
       Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
@@ -0,0 +1,194 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.agenda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.ActivitiListener;
+import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.CancelEventDefinition;
+import org.activiti.bpmn.model.CompensateEventDefinition;
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.Gateway;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.engine.delegate.ExecutionListener;
+import org.activiti.engine.impl.Condition;
+import org.activiti.engine.impl.el.ExpressionManager;
+import org.activiti.engine.impl.el.UelExpressionCondition;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * What the agenda operations need to know about one {@link FlowNode} when entering and leaving it, derived once from
+ * the BPMN model: the outgoing sequence flows with their parsed conditions and the default flow, whether start and end
+ * execution listeners exist, the boundary events to execute and the cancel boundary events to keep, and the async flags.
+ */
+public class FlowNodeExecutionPlan {
+
+  protected final FlowNode flowNode;
+
+  protected final SequenceFlow[] outgoingFlows;
+  protected final Condition[] outgoingFlowConditions;
+  protected final SequenceFlow defaultFlow;
+  protected final boolean outgoingFlowsCompiled;
+
+  protected final boolean startExecutionListeners;
+  protected final boolean endExecutionListeners;
+
+  protected final List<BoundaryEvent> boundaryEventsToExecute;
+  protected final Set<String> cancelBoundaryEventIds;
+
+  protected final boolean processStart;
+  protected final boolean asynchronous;
+  protected final boolean multiInstance;
+
+  public FlowNodeExecutionPlan(FlowNode flowNode, ExpressionManager expressionManager) {
+    this.flowNode = flowNode;
+
+    List<SequenceFlow> flowNodeOutgoingFlows = flowNode.getOutgoingFlows() != null ? flowNode.getOutgoingFlows() : Collections.<SequenceFlow>emptyList();
+    this.outgoingFlows = flowNodeOutgoingFlows.toArray(new SequenceFlow[flowNodeOutgoingFlows.size()]);
+    this.outgoingFlowConditions = new Condition[outgoingFlows.length];
+
+    String defaultFlowId = null;
+    if (flowNode instanceof Activity) {
+      defaultFlowId = ((Activity) flowNode).getDefaultFlow();
+    } else if (flowNode instanceof Gateway) {
+      defaultFlowId = ((Gateway) flowNode).getDefaultFlow();
+    }
+
+    // flows with a skip expression or an invalid condition are left to the model based evaluation at runtime
+    boolean compiled = true;
+    SequenceFlow resolvedDefaultFlow = null;
+    for (int i = 0; i < outgoingFlows.length; i++) {
+      SequenceFlow outgoingFlow = outgoingFlows[i];
+      if (defaultFlowId != null && defaultFlowId.equals(outgoingFlow.getId())) {
+        resolvedDefaultFlow = outgoingFlow;
+      }
+      if (outgoingFlow.getSkipExpression() != null) {
+        compiled = false;
+      }
+      if (StringUtils.isNotEmpty(outgoingFlow.getConditionExpression())) {
+        try {
+          outgoingFlowConditions[i] = new UelExpressionCondition(expressionManager.createExpression(outgoingFlow.getConditionExpression()));
+        } catch (RuntimeException e) {
+          compiled = false;
+        }
+      }
+    }
+    this.defaultFlow = resolvedDefaultFlow;
+    this.outgoingFlowsCompiled = compiled;
+
+    this.startExecutionListeners = hasExecutionListeners(flowNode, ExecutionListener.EVENTNAME_START);
+    this.endExecutionListeners = hasExecutionListeners(flowNode, ExecutionListener.EVENTNAME_END);
+
+    List<BoundaryEvent> executableBoundaryEvents = new ArrayList<BoundaryEvent>();
+    Set<String> cancelEventIds = new HashSet<String>();
+    if (flowNode instanceof Activity && CollectionUtil.isNotEmpty(((Activity) flowNode).getBoundaryEvents())) {
+      for (BoundaryEvent boundaryEvent : ((Activity) flowNode).getBoundaryEvents()) {
+        if (CollectionUtil.isNotEmpty(boundaryEvent.getEventDefinitions())) {
+          if (!(boundaryEvent.getEventDefinitions().get(0) instanceof CompensateEventDefinition)) {
+            executableBoundaryEvents.add(boundaryEvent);
+          }
+          if (boundaryEvent.getEventDefinitions().get(0) instanceof CancelEventDefinition) {
+            cancelEventIds.add(boundaryEvent.getId());
+          }
+        }
+      }
+    }
+    this.boundaryEventsToExecute = Collections.unmodifiableList(executableBoundaryEvents);
+    this.cancelBoundaryEventIds = Collections.unmodifiableSet(cancelEventIds);
+
+    this.processStart = flowNode.getIncomingFlows() != null && flowNode.getIncomingFlows().isEmpty() && flowNode.getSubProcess() == null;
+    this.asynchronous = flowNode.isAsynchronous();
+    this.multiInstance = flowNode instanceof Activity && ((Activity) flowNode).hasMultiInstanceLoopCharacteristics();
+  }
+
+  protected static boolean hasExecutionListeners(FlowNode flowNode, String eventType) {
+    if (flowNode.getExecutionListeners() != null) {
+      for (ActivitiListener executionListener : flowNode.getExecutionListeners()) {
+        if (eventType.equals(executionListener.getEvent())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  public FlowNode getFlowNode() {
+    return flowNode;
+  }
+
+  public int getOutgoingFlowCount() {
+    return outgoingFlows.length;
+  }
+
+  public SequenceFlow getOutgoingFlow(int index) {
+    return outgoingFlows[index];
+  }
+
+  /**
+   * @return the parsed condition of the outgoing flow, or null if the flow has no condition.
+   */
+  public Condition getOutgoingFlowCondition(int index) {
+    return outgoingFlowConditions[index];
+  }
+
+  public SequenceFlow getDefaultFlow() {
+    return defaultFlow;
+  }
+
+  /**
+   * @return false if an outgoing flow has a skip expression or a condition that could not be parsed,
+   *         in which case the outgoing flows must be evaluated from the model.
+   */
+  public boolean isOutgoingFlowsCompiled() {
+    return outgoingFlowsCompiled;
+  }
+
+  public boolean hasStartExecutionListeners() {
+    return startExecutionListeners;
+  }
+
+  public boolean hasEndExecutionListeners() {
+    return endExecutionListeners;
+  }
+
+  /**
+   * @return the boundary events that have an event definition other than compensation.
+   */
+  public List<BoundaryEvent> getBoundaryEventsToExecute() {
+    return boundaryEventsToExecute;
+  }
+
+  public Set<String> getCancelBoundaryEventIds() {
+    return cancelBoundaryEventIds;
+  }
+
+  public boolean isProcessStart() {
+    return processStart;
+  }
+
+  public boolean isAsynchronous() {
+    return asynchronous;
+  }
+
+  public boolean isMultiInstance() {
+    return multiInstance;
+  }
+
+}
@@ -0,0 +1,53 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.agenda;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.Process;
+import org.activiti.engine.impl.el.ExpressionManager;
+
+/**
+ * Immutable, precompiled view of the flow nodes of a process definition, built once when the process definition is
+ * cached and consulted by the agenda operations instead of walking the BPMN model collections for every step.
+ * 
+ * The plan of a flow node is only returned for the very flow node instance it was built from, so an execution that
+ * holds a flow node of another model instance falls back to the model based logic of the operations.
+ */
+public class ProcessExecutionPlan {
+
+  protected final Map<String, FlowNodeExecutionPlan> flowNodePlans;
+
+  public ProcessExecutionPlan(Process process, ExpressionManager expressionManager) {
+    Map<String, FlowNodeExecutionPlan> plans = new HashMap<String, FlowNodeExecutionPlan>();
+    for (FlowNode flowNode : process.findFlowElementsOfType(FlowNode.class, true)) {
+      plans.put(flowNode.getId(), new FlowNodeExecutionPlan(flowNode, expressionManager));
+    }
+    this.flowNodePlans = plans;
+  }
+
+  public FlowNodeExecutionPlan getFlowNodePlan(FlowNode flowNode) {
+    FlowNodeExecutionPlan flowNodePlan = flowNodePlans.get(flowNode.getId());
+    if (flowNodePlan != null && flowNodePlan.getFlowNode() == flowNode) {
+      return flowNodePlan;
+    }
+    return null;
+  }
+
+  public int size() {
+    return flowNodePlans.size();
+  }
+
+}
@@ -85,7 +85,8 @@ public class TakeOutgoingSequenceFlowsOperation extends AbstractOperation {
     // hence the check for NOT being a process instance
     if (!execution.isProcessInstanceType()) {
 
-      if (CollectionUtil.isNotEmpty(flowNode.getExecutionListeners())) {
+      FlowNodeExecutionPlan flowNodePlan = getFlowNodeExecutionPlan(flowNode);
+      if (flowNodePlan != null ? flowNodePlan.hasEndExecutionListeners() : CollectionUtil.isNotEmpty(flowNode.getExecutionListeners())) {
         executeExecutionListeners(flowNode, ExecutionListener.EVENTNAME_END);
       }
 
@@ -105,42 +106,13 @@ public class TakeOutgoingSequenceFlowsOperation extends AbstractOperation {
     logger.debug("Leaving flow node {} with id '{}' by following it's {} outgoing sequenceflow",
         flowNode.getClass(), flowNode.getId(), flowNode.getOutgoingFlows().size());
 
-    // Get default sequence flow (if set)
-    String defaultSequenceFlowId = null;
-    if (flowNode instanceof Activity) {
-      defaultSequenceFlowId = ((Activity) flowNode).getDefaultFlow();
-    } else if (flowNode instanceof Gateway) {
-      defaultSequenceFlowId = ((Gateway) flowNode).getDefaultFlow();
-    }
-
-    // Determine which sequence flows can be used for leaving
-    List<SequenceFlow> outgoingSequenceFlows = new ArrayList<SequenceFlow>();
-    for (SequenceFlow sequenceFlow : flowNode.getOutgoingFlows()) {
-
-      String skipExpressionString = sequenceFlow.getSkipExpression();
-      if (!SkipExpressionUtil.isSkipExpressionEnabled(execution, skipExpressionString)) {
-
-        if (!evaluateConditions
-            || (evaluateConditions && ConditionUtil.hasTrueCondition(sequenceFlow, execution) && (defaultSequenceFlowId == null || !defaultSequenceFlowId.equals(sequenceFlow.getId())))) {
-          outgoingSequenceFlows.add(sequenceFlow);
-        }
-
-      } else if (flowNode.getOutgoingFlows().size() == 1 || SkipExpressionUtil.shouldSkipFlowElement(commandContext, execution, skipExpressionString)) {
-        // The 'skip' for a sequence flow means that we skip the condition, not the sequence flow.
-        outgoingSequenceFlows.add(sequenceFlow);
-      }
-    }
-
-    // Check if there is a default sequence flow
-    if (outgoingSequenceFlows.size() == 0 && evaluateConditions) { // The elements that set this to false also have no support for default sequence flow
-      if (defaultSequenceFlowId != null) {
-        for (SequenceFlow sequenceFlow : flowNode.getOutgoingFlows()) {
-          if (defaultSequenceFlowId.equals(sequenceFlow.getId())) {
-            outgoingSequenceFlows.add(sequenceFlow);
-            break;
-          }
-        }
-      }
+    List<SequenceFlow> outgoingSequenceFlows = null;
+    FlowNodeExecutionPlan flowNodePlan = getFlowNodeExecutionPlan(flowNode);
+    if (flowNodePlan != null && flowNodePlan.isOutgoingFlowsCompiled()
+        && !Context.getProcessEngineConfiguration().isEnableProcessDefinitionInfoCache()) {
+      outgoingSequenceFlows = selectOutgoingSequenceFlows(flowNodePlan);
+    } else {
+      outgoingSequenceFlows = selectOutgoingSequenceFlows(flowNode);
     }
 
     // No outgoing found. Ending the execution
@@ -189,6 +161,83 @@ public class TakeOutgoingSequenceFlowsOperation extends AbstractOperation {
     }
   }
 
+  /**
+   * Determines the sequence flows that can be used for leaving, using the conditions
+   * that were parsed when the execution plan of the process definition was built.
+   */
+  protected List<SequenceFlow> selectOutgoingSequenceFlows(FlowNodeExecutionPlan flowNodePlan) {
+    SequenceFlow defaultSequenceFlow = flowNodePlan.getDefaultFlow();
+    int outgoingFlowCount = flowNodePlan.getOutgoingFlowCount();
+
+    List<SequenceFlow> outgoingSequenceFlows = new ArrayList<SequenceFlow>(outgoingFlowCount);
+    for (int i = 0; i < outgoingFlowCount; i++) {
+      SequenceFlow sequenceFlow = flowNodePlan.getOutgoingFlow(i);
+      if (!evaluateConditions) {
+        outgoingSequenceFlows.add(sequenceFlow);
+
+      } else if (sequenceFlow != defaultSequenceFlow) {
+        Condition condition = flowNodePlan.getOutgoingFlowCondition(i);
+        if (condition == null || condition.evaluate(sequenceFlow.getId(), execution)) {
+          outgoingSequenceFlows.add(sequenceFlow);
+        }
+      }
+    }
+
+    // Check if there is a default sequence flow
+    if (outgoingSequenceFlows.size() == 0 && evaluateConditions && defaultSequenceFlow != null) {
+      outgoingSequenceFlows.add(defaultSequenceFlow);
+    }
+
+    return outgoingSequenceFlows;
+  }
+
+  /**
+   * Determines the sequence flows that can be used for leaving by inspecting the flow node model,
+   * taking skip expressions and dynamically overridden conditions into account.
+   */
+  protected List<SequenceFlow> selectOutgoingSequenceFlows(FlowNode flowNode) {
+
+    // Get default sequence flow (if set)
+    String defaultSequenceFlowId = null;
+    if (flowNode instanceof Activity) {
+      defaultSequenceFlowId = ((Activity) flowNode).getDefaultFlow();
+    } else if (flowNode instanceof Gateway) {
+      defaultSequenceFlowId = ((Gateway) flowNode).getDefaultFlow();
+    }
+
+    // Determine which sequence flows can be used for leaving
+    List<SequenceFlow> outgoingSequenceFlows = new ArrayList<SequenceFlow>();
+    for (SequenceFlow sequenceFlow : flowNode.getOutgoingFlows()) {
+
+      String skipExpressionString = sequenceFlow.getSkipExpression();
+      if (!SkipExpressionUtil.isSkipExpressionEnabled(execution, skipExpressionString)) {
+
+        if (!evaluateConditions
+            || (evaluateConditions && ConditionUtil.hasTrueCondition(sequenceFlow, execution) && (defaultSequenceFlowId == null || !defaultSequenceFlowId.equals(sequenceFlow.getId())))) {
+          outgoingSequenceFlows.add(sequenceFlow);
+        }
+
+      } else if (flowNode.getOutgoingFlows().size() == 1 || SkipExpressionUtil.shouldSkipFlowElement(commandContext, execution, skipExpressionString)) {
+        // The 'skip' for a sequence flow means that we skip the condition, not the sequence flow.
+        outgoingSequenceFlows.add(sequenceFlow);
+      }
+    }
+
+    // Check if there is a default sequence flow
+    if (outgoingSequenceFlows.size() == 0 && evaluateConditions) { // The elements that set this to false also have no support for default sequence flow
+      if (defaultSequenceFlowId != null) {
+        for (SequenceFlow sequenceFlow : flowNode.getOutgoingFlows()) {
+          if (defaultSequenceFlowId.equals(sequenceFlow.getId())) {
+            outgoingSequenceFlows.add(sequenceFlow);
+            break;
+          }
+        }
+      }
+    }
+
+    return outgoingSequenceFlows;
+  }
+
   protected void handleAdhocSubProcess(FlowNode flowNode) {
     boolean completeAdhocSubProcess = false;
     AdhocSubProcess adhocSubProcess = (AdhocSubProcess) flowNode.getParentContainer();
@@ -278,11 +327,17 @@ public class TakeOutgoingSequenceFlowsOperation extends AbstractOperation {
       if (CollectionUtil.isNotEmpty(activity.getBoundaryEvents())) {
 
         // Cancel events are not removed
-        List<String> notToDeleteEvents = new ArrayList<String>();
-        for (BoundaryEvent event : activity.getBoundaryEvents()) {
-          if (CollectionUtil.isNotEmpty(event.getEventDefinitions()) &&
-              event.getEventDefinitions().get(0) instanceof CancelEventDefinition) {
-            notToDeleteEvents.add(event.getId());
+        Collection<String> notToDeleteEvents = null;
+        FlowNodeExecutionPlan flowNodePlan = getFlowNodeExecutionPlan(activity);
+        if (flowNodePlan != null) {
+          notToDeleteEvents = flowNodePlan.getCancelBoundaryEventIds();
+        } else {
+          notToDeleteEvents = new ArrayList<String>();
+          for (BoundaryEvent event : activity.getBoundaryEvents()) {
+            if (CollectionUtil.isNotEmpty(event.getEventDefinitions()) &&
+                event.getEventDefinitions().get(0) instanceof CancelEventDefinition) {
+              notToDeleteEvents.add(event.getId());
+            }
           }
         }
 
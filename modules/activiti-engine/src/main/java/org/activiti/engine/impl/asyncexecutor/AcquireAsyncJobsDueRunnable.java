@@ -36,9 +36,14 @@ public class AcquireAsyncJobsDueRunnable implements Runnable {
   protected final AtomicBoolean isWaiting = new AtomicBoolean(false);
 
   protected long millisToWait;
+  
+  protected final AdaptiveAsyncExecutor adaptiveAsyncExecutor;
+  protected final AdaptiveJobAcquisition adaptiveJobAcquisition;
 
   public AcquireAsyncJobsDueRunnable(AsyncExecutor asyncExecutor) {
     this.asyncExecutor = asyncExecutor;
+    this.adaptiveAsyncExecutor = asyncExecutor instanceof AdaptiveAsyncExecutor ? (AdaptiveAsyncExecutor) asyncExecutor : null;
+    this.adaptiveJobAcquisition = new AdaptiveJobAcquisition(adaptiveAsyncExecutor != null ? adaptiveAsyncExecutor.getAsyncJobAcquisitionMetrics() : null);
   }
 
   public synchronized void run() {
@@ -49,32 +54,62 @@ public class AcquireAsyncJobsDueRunnable implements Runnable {
 
     while (!isInterrupted) {
 
+      boolean adaptive = adaptiveAsyncExecutor != null && adaptiveAsyncExecutor.isAdaptiveJobAcquisition();
       try {
-        AcquiredJobEntities acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(asyncExecutor));
-
-        boolean allJobsSuccessfullyOffered = true; 
-        for (JobEntity job : acquiredJobs.getJobs()) {
-          boolean jobSuccessFullyOffered = asyncExecutor.executeAsyncJob(job);
-          if (!jobSuccessFullyOffered) {
-            allJobsSuccessfullyOffered = false;
-          }
+        int maxJobs = asyncExecutor.getMaxAsyncJobsDuePerAcquisition();
+        if (adaptive) {
+          maxJobs = adaptiveJobAcquisition.determinePageSize(adaptiveAsyncExecutor.getMaxAdaptiveJobsPerAcquisition(), 
+              adaptiveAsyncExecutor.getRemainingJobQueueCapacity());
         }
         
-        // If all jobs are executed, we check if we got back the amount we expected
-        // If not, we will wait, as to not query the database needlessly. 
-        // Otherwise, we set the wait time to 0, as to query again immediately.
-        millisToWait = asyncExecutor.getDefaultAsyncJobAcquireWaitTimeInMillis();
-        int jobsAcquired = acquiredJobs.size();
-        if (jobsAcquired >= asyncExecutor.getMaxAsyncJobsDuePerAcquisition()) {
-          millisToWait = 0; 
-        }
-        
-        // If the queue was full, we wait too (even if we got enough jobs back), as not overload the queue
-        if (millisToWait == 0 && !allJobsSuccessfullyOffered) {
-          millisToWait = asyncExecutor.getDefaultQueueSizeFullWaitTimeInMillis();
+        if (maxJobs <= 0) {
+          // Adaptive mode: the queue can't take any job, no need to query the database
+          millisToWait = adaptiveJobAcquisition.queueFull(asyncExecutor.getDefaultQueueSizeFullWaitTimeInMillis(), 
+              adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis());
+          
+        } else {
+          AcquiredJobEntities acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(asyncExecutor, maxJobs));
+  
+          boolean allJobsSuccessfullyOffered = true; 
+          for (JobEntity job : acquiredJobs.getJobs()) {
+            boolean jobSuccessFullyOffered = asyncExecutor.executeAsyncJob(job);
+            if (!jobSuccessFullyOffered) {
+              allJobsSuccessfullyOffered = false;
+            }
+          }
+          
+          if (adaptive) {
+            millisToWait = adaptiveJobAcquisition.jobsAcquired(maxJobs, acquiredJobs.size(), adaptiveAsyncExecutor.getMaxAdaptiveJobsPerAcquisition(), 
+                adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), adaptiveAsyncExecutor.getMaxAdaptiveAcquireWaitTimeInMillis());
+            
+            if (!allJobsSuccessfullyOffered) {
+              millisToWait = adaptiveJobAcquisition.queueFull(asyncExecutor.getDefaultQueueSizeFullWaitTimeInMillis(), 
+                  adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis());
+            }
+            
+          } else {
+            
+            // If all jobs are executed, we check if we got back the amount we expected
+            // If not, we will wait, as to not query the database needlessly. 
+            // Otherwise, we set the wait time to 0, as to query again immediately.
+            millisToWait = asyncExecutor.getDefaultAsyncJobAcquireWaitTimeInMillis();
+            int jobsAcquired = acquiredJobs.size();
+            if (jobsAcquired >= maxJobs) {
+              millisToWait = 0; 
+            }
+            
+            // If the queue was full, we wait too (even if we got enough jobs back), as not overload the queue
+            if (millisToWait == 0 && !allJobsSuccessfullyOffered) {
+              millisToWait = asyncExecutor.getDefaultQueueSizeFullWaitTimeInMillis();
+            }
+          }
         }
 
       } catch (ActivitiOptimisticLockingException optimisticLockingException) {
+        if (adaptive) {
+          millisToWait = adaptiveJobAcquisition.lockConflict(adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), 
+              adaptiveAsyncExecutor.getMaxAdaptiveAcquireWaitTimeInMillis());
+        }
         if (log.isDebugEnabled()) {
           log.debug("Optimistic locking exception during async job acquisition. If you have multiple async executors running against the same database, "
               + "this exception means that this thread tried to acquire a due async job, which already was acquired by another async executor acquisition thread."
@@ -84,7 +119,12 @@ public class AcquireAsyncJobsDueRunnable implements Runnable {
         }
       } catch (Throwable e) {
         log.error("exception during async job acquisition: {}", e.getMessage(), e);
-        millisToWait = asyncExecutor.getDefaultAsyncJobAcquireWaitTimeInMillis();
+        if (adaptive) {
+          millisToWait = adaptiveJobAcquisition.acquisitionFailed(adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), 
+              adaptiveAsyncExecutor.getMaxAdaptiveAcquireWaitTimeInMillis());
+        } else {
+          millisToWait = asyncExecutor.getDefaultAsyncJobAcquireWaitTimeInMillis();
+        }
       }
 
       if (millisToWait > 0) {
@@ -124,6 +164,20 @@ public class AcquireAsyncJobsDueRunnable implements Runnable {
     }
   }
 
+  /**
+   * Wakes up the acquisition thread when it is backing off in adaptive mode,
+   * so newly created jobs are picked up without waiting for the back off to end.
+   */
+  public void wakeUp() {
+    if (adaptiveAsyncExecutor != null && adaptiveJobAcquisition.wakeUp(adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis())) {
+      synchronized (MONITOR) {
+        if (isWaiting.compareAndSet(true, false)) {
+          MONITOR.notifyAll();
+        }
+      }
+    }
+  }
+
   public long getMillisToWait() {
     return millisToWait;
   }
@@ -131,4 +185,8 @@ public class AcquireAsyncJobsDueRunnable implements Runnable {
   public void setMillisToWait(long millisToWait) {
     this.millisToWait = millisToWait;
   }
+
+  public AdaptiveJobAcquisition getAdaptiveJobAcquisition() {
+    return adaptiveJobAcquisition;
+  }
 }
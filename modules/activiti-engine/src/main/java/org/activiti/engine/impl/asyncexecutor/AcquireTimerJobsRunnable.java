@@ -39,10 +39,15 @@ public class AcquireTimerJobsRunnable implements Runnable {
   protected final AtomicBoolean isWaiting = new AtomicBoolean(false);
 
   protected long millisToWait;
+  
+  protected final AdaptiveAsyncExecutor adaptiveAsyncExecutor;
+  protected final AdaptiveJobAcquisition adaptiveJobAcquisition;
 
   public AcquireTimerJobsRunnable(AsyncExecutor asyncExecutor, JobManager jobManager) {
     this.asyncExecutor = asyncExecutor;
     this.jobManager = jobManager;
+    this.adaptiveAsyncExecutor = asyncExecutor instanceof AdaptiveAsyncExecutor ? (AdaptiveAsyncExecutor) asyncExecutor : null;
+    this.adaptiveJobAcquisition = new AdaptiveJobAcquisition(adaptiveAsyncExecutor != null ? adaptiveAsyncExecutor.getTimerJobAcquisitionMetrics() : null);
   }
 
   public synchronized void run() {
@@ -53,28 +58,52 @@ public class AcquireTimerJobsRunnable implements Runnable {
 
     while (!isInterrupted) {
 
+      boolean adaptive = adaptiveAsyncExecutor != null && adaptiveAsyncExecutor.isAdaptiveJobAcquisition();
       try {
-        final AcquiredTimerJobEntities acquiredJobs = commandExecutor.execute(new AcquireTimerJobsCmd(asyncExecutor));
-
-        commandExecutor.execute(new Command<Void>() {
-
-          @Override
-          public Void execute(CommandContext commandContext) {
-            for (TimerJobEntity job : acquiredJobs.getJobs()) {
-              jobManager.moveTimerJobToExecutableJob(job);
+        int maxJobs = asyncExecutor.getMaxTimerJobsPerAcquisition();
+        if (adaptive) {
+          // Timer jobs that are moved become executable jobs that are handed to the async executor queue
+          maxJobs = adaptiveJobAcquisition.determinePageSize(adaptiveAsyncExecutor.getMaxAdaptiveJobsPerAcquisition(), 
+              adaptiveAsyncExecutor.getRemainingJobQueueCapacity());
+        }
+        
+        if (maxJobs <= 0) {
+          millisToWait = adaptiveJobAcquisition.queueFull(asyncExecutor.getDefaultQueueSizeFullWaitTimeInMillis(), 
+              adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis());
+          
+        } else {
+          final AcquiredTimerJobEntities acquiredJobs = commandExecutor.execute(new AcquireTimerJobsCmd(asyncExecutor, maxJobs));
+  
+          commandExecutor.execute(new Command<Void>() {
+  
+            @Override
+            public Void execute(CommandContext commandContext) {
+              for (TimerJobEntity job : acquiredJobs.getJobs()) {
+                jobManager.moveTimerJobToExecutableJob(job);
+              }
+              return null;
+            }
+          });
+          
+          if (adaptive) {
+            // New timer jobs do not wake up this thread, so it never backs off longer than the default timer wait time
+            millisToWait = adaptiveJobAcquisition.jobsAcquired(maxJobs, acquiredJobs.size(), adaptiveAsyncExecutor.getMaxAdaptiveJobsPerAcquisition(), 
+                adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), getMaxAdaptiveWaitTimeInMillis());
+            
+          } else {
+            // if all jobs were executed
+            millisToWait = asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis();
+            int jobsAcquired = acquiredJobs.size();
+            if (jobsAcquired >= maxJobs) {
+              millisToWait = 0; 
             }
-            return null;
           }
-        });
-        
-        // if all jobs were executed
-        millisToWait = asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis();
-        int jobsAcquired = acquiredJobs.size();
-        if (jobsAcquired >= asyncExecutor.getMaxTimerJobsPerAcquisition()) {
-          millisToWait = 0; 
         }
 
       } catch (ActivitiOptimisticLockingException optimisticLockingException) {
+        if (adaptive) {
+          millisToWait = adaptiveJobAcquisition.lockConflict(adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), getMaxAdaptiveWaitTimeInMillis());
+        }
         if (log.isDebugEnabled()) {
           log.debug("Optimistic locking exception during timer job acquisition. If you have multiple timer executors running against the same database, "
               + "this exception means that this thread tried to acquire a timer job, which already was acquired by another timer executor acquisition thread."
@@ -84,7 +113,11 @@ public class AcquireTimerJobsRunnable implements Runnable {
         }
       } catch (Throwable e) {
         log.error("exception during timer job acquisition: {}", e.getMessage(), e);
-        millisToWait = asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis();
+        if (adaptive) {
+          millisToWait = adaptiveJobAcquisition.acquisitionFailed(adaptiveAsyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis(), getMaxAdaptiveWaitTimeInMillis());
+        } else {
+          millisToWait = asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis();
+        }
       }
 
       if (millisToWait > 0) {
@@ -124,6 +157,10 @@ public class AcquireTimerJobsRunnable implements Runnable {
     }
   }
 
+  protected long getMaxAdaptiveWaitTimeInMillis() {
+    return Math.min(adaptiveAsyncExecutor.getMaxAdaptiveAcquireWaitTimeInMillis(), asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis());
+  }
+
   public long getMillisToWait() {
     return millisToWait;
   }
@@ -131,4 +168,8 @@ public class AcquireTimerJobsRunnable implements Runnable {
   public void setMillisToWait(long millisToWait) {
     this.millisToWait = millisToWait;
   }
+
+  public AdaptiveJobAcquisition getAdaptiveJobAcquisition() {
+    return adaptiveJobAcquisition;
+  }
 }
@@ -0,0 +1,63 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+/**
+ * Optional interface for {@link AsyncExecutor} implementations that support adaptive job acquisition:
+ * the acquisition threads size their queries to the free job queue capacity and back off when there is no work.
+ * Executors that don't implement it always acquire with the fixed page sizes and wait times of {@link AsyncExecutor}.
+ */
+public interface AdaptiveAsyncExecutor extends AsyncExecutor {
+
+  /**
+   * Signals that a new async job was created. When adaptive job acquisition is enabled
+   * and the async job acquisition thread is backing off, it is woken up to query again immediately.
+   */
+  void wakeUpJobAcquisition();
+
+  /**
+   * Returns the number of jobs that can still be handed to this {@link AsyncExecutor}
+   * without being rejected, or {@link Integer#MAX_VALUE} when this is not known.
+   */
+  int getRemainingJobQueueCapacity();
+
+  /**
+   * Returns the metrics of the async job acquisition thread.
+   */
+  JobAcquisitionMetrics getAsyncJobAcquisitionMetrics();
+
+  /**
+   * Returns the metrics of the timer job acquisition thread.
+   */
+  JobAcquisitionMetrics getTimerJobAcquisitionMetrics();
+
+
+  /* Getters and Setters */
+
+  boolean isAdaptiveJobAcquisition();
+
+  void setAdaptiveJobAcquisition(boolean adaptiveJobAcquisition);
+
+  int getMaxAdaptiveJobsPerAcquisition();
+
+  void setMaxAdaptiveJobsPerAcquisition(int maxJobs);
+
+  int getMinAdaptiveAcquireWaitTimeInMillis();
+
+  void setMinAdaptiveAcquireWaitTimeInMillis(int waitTimeInMillis);
+
+  int getMaxAdaptiveAcquireWaitTimeInMillis();
+
+  void setMaxAdaptiveAcquireWaitTimeInMillis(int waitTimeInMillis);
+
+}
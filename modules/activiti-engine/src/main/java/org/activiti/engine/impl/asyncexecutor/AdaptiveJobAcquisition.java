@@ -0,0 +1,135 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+/**
+ * Keeps track of the page size and the wait time of one acquisition thread when the {@link AsyncExecutor}
+ * runs with adaptive job acquisition (see {@link AdaptiveAsyncExecutor#isAdaptiveJobAcquisition()}).
+ * 
+ * The page size doubles every time a full page of jobs is acquired, up to the configured maximum,
+ * and is never larger than the free capacity of the job queue. When less jobs are found, the page size shrinks
+ * to the number of jobs that were found. Empty results, lock conflicts and failures make the acquisition thread
+ * back off exponentially, from the minimum to the maximum wait time. A wake up resets the back off.
+ * 
+ * Every decision is recorded in the {@link JobAcquisitionMetrics} passed at construction time.
+ */
+public class AdaptiveJobAcquisition {
+
+  protected final JobAcquisitionMetrics metrics;
+
+  protected volatile int pageSize = 1;
+  protected volatile long waitTimeInMillis;
+
+  public AdaptiveJobAcquisition(JobAcquisitionMetrics metrics) {
+    this.metrics = metrics != null ? metrics : new JobAcquisitionMetrics();
+  }
+
+  /**
+   * Returns the number of jobs to acquire in the next query, or 0 when the job queue has no free capacity.
+   */
+  public int determinePageSize(int maxPageSize, int freeCapacity) {
+    int size = Math.max(1, Math.min(pageSize, maxPageSize));
+    if (freeCapacity < size) {
+      size = Math.max(0, freeCapacity);
+    }
+    return size;
+  }
+
+  /**
+   * Adapts the page size to the outcome of an acquisition and returns the time to wait before the next one.
+   */
+  public long jobsAcquired(int requestedPageSize, int acquiredJobs, int maxPageSize, long minWaitTimeInMillis, long maxWaitTimeInMillis) {
+    metrics.acquisitionCycle(requestedPageSize, acquiredJobs);
+
+    if (acquiredJobs >= requestedPageSize) {
+      changePageSize(Math.min(Math.max(pageSize, requestedPageSize) * 2, Math.max(1, maxPageSize)));
+      return determineWaitTime(0, false);
+    }
+
+    if (acquiredJobs > 0) {
+      changePageSize(acquiredJobs);
+      return determineWaitTime(minWaitTimeInMillis, false);
+    }
+    
+    changePageSize(Math.max(1, pageSize / 2));
+    return backOff(minWaitTimeInMillis, maxWaitTimeInMillis);
+  }
+
+  /**
+   * Called when another acquisition thread locked the same jobs. Shrinks the page size to lower the chance
+   * of a new conflict and backs off.
+   */
+  public long lockConflict(long minWaitTimeInMillis, long maxWaitTimeInMillis) {
+    metrics.lockConflict();
+    changePageSize(Math.max(1, pageSize / 2));
+    return backOff(minWaitTimeInMillis, maxWaitTimeInMillis);
+  }
+
+  /**
+   * Called when the acquisition failed for any other reason.
+   */
+  public long acquisitionFailed(long minWaitTimeInMillis, long maxWaitTimeInMillis) {
+    return backOff(minWaitTimeInMillis, maxWaitTimeInMillis);
+  }
+
+  /**
+   * Called when the job queue could not take (all of) the acquired jobs.
+   */
+  public long queueFull(long queueFullWaitTimeInMillis, long minWaitTimeInMillis) {
+    metrics.queueFull();
+    return determineWaitTime(queueFullWaitTimeInMillis > 0 ? queueFullWaitTimeInMillis : minWaitTimeInMillis, false);
+  }
+
+  /**
+   * Resets the back off. Returns true when the acquisition thread was backing off, 
+   * i.e. it is worth waking it up.
+   */
+  public boolean wakeUp(long minWaitTimeInMillis) {
+    boolean backingOff = waitTimeInMillis > minWaitTimeInMillis;
+    waitTimeInMillis = 0;
+    if (backingOff) {
+      metrics.wokenUp();
+    }
+    return backingOff;
+  }
+
+  protected long backOff(long minWaitTimeInMillis, long maxWaitTimeInMillis) {
+    long newWaitTime = waitTimeInMillis > 0 ? waitTimeInMillis * 2 : minWaitTimeInMillis;
+    newWaitTime = Math.max(minWaitTimeInMillis, Math.min(newWaitTime, maxWaitTimeInMillis));
+    return determineWaitTime(newWaitTime, newWaitTime > waitTimeInMillis);
+  }
+
+  protected long determineWaitTime(long newWaitTime, boolean backOff) {
+    waitTimeInMillis = newWaitTime;
+    metrics.waitTimeDetermined(newWaitTime, backOff);
+    return newWaitTime;
+  }
+
+  protected void changePageSize(int newPageSize) {
+    metrics.pageSizeChanged(pageSize, newPageSize);
+    pageSize = newPageSize;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public long getWaitTimeInMillis() {
+    return waitTimeInMillis;
+  }
+
+  public JobAcquisitionMetrics getMetrics() {
+    return metrics;
+  }
+
+}
@@ -0,0 +1,44 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import org.activiti.engine.impl.cmd.AcquireJobsCmd;
+
+/**
+ * Determines how the {@link AcquireJobsCmd} claims async jobs for an {@link AsyncExecutor}.
+ */
+public enum AsyncJobAcquisitionStrategy {
+
+  /**
+   * Selects the unlocked jobs and locks each of them with a revision checked update.
+   * When multiple async executors select the same jobs, all but one fail with an optimistic locking exception
+   * and the whole acquired batch is rolled back. This is the default, and works on every database.
+   */
+  OPTIMISTIC_LOCKING,
+
+  /**
+   * Selects the unlocked jobs with a row lock that skips rows locked by other transactions
+   * (<code>for update skip locked</code> on Postgres, Oracle and MySQL 8, <code>readpast</code> on Microsoft SQL Server).
+   * Concurrent async executors get disjoint batches, so no optimistic locking exceptions are thrown.
+   * On databases without such a lock clause, {@link #OPTIMISTIC_LOCKING} is used.
+   */
+  SKIP_LOCKED,
+
+  /**
+   * Claims the candidate jobs with one update statement that only touches jobs that are still unlocked,
+   * and then fetches the jobs that were actually claimed. Jobs claimed by another async executor in the meantime
+   * are simply left out of the batch. Works on every database.
+   */
+  CLAIM_UPDATE;
+
+}
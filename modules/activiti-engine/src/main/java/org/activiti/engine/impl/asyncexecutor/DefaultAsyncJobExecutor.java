@@ -25,6 +25,7 @@ import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
 import org.activiti.engine.runtime.Job;
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
@@ -34,7 +35,7 @@ import org.slf4j.LoggerFactory;
  * @author Joram Barrez
  * @author Tijs Rademakers
  */
-public class DefaultAsyncJobExecutor implements AsyncExecutor {
+public class DefaultAsyncJobExecutor implements AcquisitionStrategyAsyncExecutor, AdaptiveAsyncExecutor, TimerWheelAsyncExecutor {
 
   private static Logger log = LoggerFactory.getLogger(DefaultAsyncJobExecutor.class);
 
@@ -71,10 +72,15 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
   protected Thread timerJobAcquisitionThread;
   protected Thread asyncJobAcquisitionThread;
   protected Thread resetExpiredJobThread;
+  protected Thread jobPartitionLeaseThread;
   
   protected AcquireTimerJobsRunnable timerJobRunnable;
   protected AcquireAsyncJobsDueRunnable asyncJobsDueRunnable;
   protected ResetExpiredJobsRunnable resetExpiredJobsRunnable;
+  protected JobPartitionLeaseRunnable jobPartitionLeaseRunnable;
+  
+  /** The single threaded executors used for exclusive jobs when the process instance affinity is enabled */
+  protected ProcessInstanceJobLanes processInstanceJobLanes;
   
   protected ExecuteAsyncRunnableFactory executeAsyncRunnableFactory;
 
@@ -84,6 +90,32 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
 
   protected int maxTimerJobsPerAcquisition = 1;
   protected int maxAsyncJobsDuePerAcquisition = 1;
+  protected AsyncJobAcquisitionStrategy asyncJobAcquisitionStrategy = AsyncJobAcquisitionStrategy.OPTIMISTIC_LOCKING;
+  
+  /** When true, the acquisition page size and wait time adapt to the load (see {@link AdaptiveJobAcquisition}) */
+  protected boolean adaptiveJobAcquisition;
+  protected int maxAdaptiveJobsPerAcquisition = 50;
+  protected int minAdaptiveAcquireWaitTimeInMillis = 100;
+  protected int maxAdaptiveAcquireWaitTimeInMillis = 60 * 1000;
+  
+  /** When true, the timer jobs due within the lookahead window are kept in a {@link TimerJobWheel} (see {@link TimerWheelAcquireTimerJobsRunnable}) */
+  protected boolean timerWheelEnabled;
+  protected int timerWheelLookaheadInMillis = 60 * 1000;
+  protected int timerWheelTickInMillis = 100;
+  protected int timerWheelBatchSize = 100;
+  protected int timerWheelMaxSize = 10000;
+  
+  /** 
+   * When true, exclusive jobs are executed on the {@link ProcessInstanceJobLanes lane} of the job partition of their process instance,
+   * without locking the process instance, for the partitions this node holds the lease of (see {@link JobPartitionLeaseRunnable}) 
+   */
+  protected boolean processInstanceAffinityEnabled;
+  protected int processInstanceLaneCount = 4;
+  protected int jobPartitionCount = 64;
+  protected int jobPartitionLeaseTimeInMillis = 60 * 1000;
+  
+  protected JobAcquisitionMetrics asyncJobAcquisitionMetrics = new JobAcquisitionMetrics();
+  protected JobAcquisitionMetrics timerJobAcquisitionMetrics = new JobAcquisitionMetrics();
   protected int defaultTimerJobAcquireWaitTimeInMillis = 10 * 1000;
   protected int defaultAsyncJobAcquireWaitTimeInMillis = 10 * 1000;
   protected int defaultQueueSizeFullWaitTime = 0; 
@@ -112,6 +144,22 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     
     Runnable runnable = null;
     if (isActive) {
+      
+      if (processInstanceJobLanes != null && job.isExclusive() && job.getProcessInstanceId() != null) {
+        int partition = jobPartitionLeaseRunnable.getPartition(job.getProcessInstanceId());
+        if (jobPartitionLeaseRunnable.isOwnedByThisNode(partition)) {
+          return executeAsyncJobOnLane(job, partition);
+          
+        } else if (jobPartitionLeaseRunnable.isOwnedByOtherNode(partition)) {
+          // The acquisition leaves out the jobs of partitions leased by other nodes (see AcquireJobsCmd), 
+          // so this only happens when the partition moved to another node after the job was acquired
+          unacquireJob(job);
+          return true;
+        }
+        
+        // Nobody holds the lease: the job is executed as usual, locking the process instance
+      }
+      
       runnable = createRunnableForJob(job);
       
       try {
@@ -123,23 +171,7 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
         // The job is now 'unlocked', meaning that the lock owner/time is set to null,
         // so other executors can pick the job up (or this async executor, the next time the 
         // acquire query is executed.
-        
-        // This can happen while already in a command context (for example in a transaction listener
-        // after the async executor has been hinted that a new async job is created)
-        // or not (when executed in the acquire thread runnable)
-        
-        CommandContext commandContext = Context.getCommandContext();
-        if (commandContext != null) {
-          commandContext.getJobManager().unacquire(job);
-          
-        } else {
-          processEngineConfiguration.getCommandExecutor().execute(new Command<Void>() {
-            public Void execute(CommandContext commandContext) {
-              commandContext.getJobManager().unacquire(job);
-              return null;
-            }
-          });
-        }
+        unacquireJob(job);
         
         // Job queue full, returning true so (if wanted) the acquiring can be throttled
         return false;
@@ -152,6 +184,61 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     return true;
   }
 
+  protected boolean executeAsyncJobOnLane(Job job, int partition) {
+    Runnable runnable = null;
+    if (executeAsyncRunnableFactory == null) {
+      runnable = new PartitionedExecuteAsyncRunnable(job, processEngineConfiguration, jobPartitionLeaseRunnable, partition);
+    } else {
+      runnable = executeAsyncRunnableFactory.createExecuteAsyncRunnable(job, processEngineConfiguration);
+    }
+    
+    try {
+      processInstanceJobLanes.execute(partition, runnable);
+    } catch (RejectedExecutionException e) {
+      unacquireJob(job);
+      return false;
+    }
+    return true;
+  }
+  
+  protected void unacquireJob(final Job job) {
+    // This can happen while already in a command context (for example in a transaction listener
+    // after the async executor has been hinted that a new async job is created)
+    // or not (when executed in the acquire thread runnable)
+    
+    CommandContext commandContext = Context.getCommandContext();
+    if (commandContext != null) {
+      commandContext.getJobManager().unacquire(job);
+      
+    } else {
+      processEngineConfiguration.getCommandExecutor().execute(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          commandContext.getJobManager().unacquire(job);
+          return null;
+        }
+      });
+    }
+  }
+
+  public void wakeUpJobAcquisition() {
+    if (adaptiveJobAcquisition && asyncJobsDueRunnable != null) {
+      asyncJobsDueRunnable.wakeUp();
+    }
+  }
+  
+  public void timerJobScheduled(TimerJobEntity timerJob) {
+    if (timerJobRunnable instanceof TimerWheelAcquireTimerJobsRunnable) {
+      ((TimerWheelAcquireTimerJobsRunnable) timerJobRunnable).timerJobScheduled(timerJob.getId(), timerJob.getDuedate());
+    }
+  }
+  
+  public int getRemainingJobQueueCapacity() {
+    if (threadPoolQueue == null) {
+      return Integer.MAX_VALUE;
+    }
+    return threadPoolQueue.remainingCapacity();
+  }
+
   protected Runnable createRunnableForJob(final Job job) {
     if (executeAsyncRunnableFactory == null) {
       return new ExecuteAsyncRunnable(job, processEngineConfiguration);
@@ -169,7 +256,13 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     log.info("Starting up the default async job executor [{}].", getClass().getName());
     
     if (timerJobRunnable == null) {
-      timerJobRunnable = new AcquireTimerJobsRunnable(this, processEngineConfiguration.getJobManager());
+      if (timerWheelEnabled) {
+        int ticksPerWheel = Math.max(1, timerWheelLookaheadInMillis / timerWheelTickInMillis);
+        timerJobRunnable = new TimerWheelAcquireTimerJobsRunnable(this, processEngineConfiguration.getJobManager(), 
+            new TimerJobWheel(timerWheelTickInMillis, ticksPerWheel), timerWheelLookaheadInMillis, timerWheelBatchSize, timerWheelMaxSize);
+      } else {
+        timerJobRunnable = new AcquireTimerJobsRunnable(this, processEngineConfiguration.getJobManager());
+      }
     }
     
     if (resetExpiredJobsRunnable == null) {
@@ -180,8 +273,14 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
       asyncJobsDueRunnable = new AcquireAsyncJobsDueRunnable(this);
     }
     
+    if (!isMessageQueueMode && processInstanceAffinityEnabled && jobPartitionLeaseRunnable == null) {
+      jobPartitionLeaseRunnable = new JobPartitionLeaseRunnable(this, jobPartitionCount, jobPartitionLeaseTimeInMillis);
+    }
+    
     if (!isMessageQueueMode) {
       initAsyncJobExecutionThreadPool();
+      initProcessInstanceJobLanes();
+      startJobPartitionLeaseThread();
       startJobAcquisitionThread();
     }
     
@@ -216,15 +315,25 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     if (resetExpiredJobsRunnable != null) {
       resetExpiredJobsRunnable.stop();
     }
+    if (jobPartitionLeaseRunnable != null) {
+      jobPartitionLeaseRunnable.stop();
+    }
     
     stopResetExpiredJobsThread();
     stopTimerAcquisitionThread();
     stopJobAcquisitionThread();
+    stopJobPartitionLeaseThread();
     stopExecutingAsyncJobs();
+    
+    // Only released when no more jobs run on the lanes, so the partitions can be claimed by other nodes right away
+    if (jobPartitionLeaseRunnable != null) {
+      jobPartitionLeaseRunnable.releaseLeases();
+    }
 
     timerJobRunnable = null;
     asyncJobsDueRunnable = null;
     resetExpiredJobsRunnable = null;
+    jobPartitionLeaseRunnable = null;
     
     isActive = false;
   }
@@ -243,7 +352,18 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     }
   }
 
+  protected void initProcessInstanceJobLanes() {
+    if (jobPartitionLeaseRunnable != null && processInstanceJobLanes == null) {
+      processInstanceJobLanes = new ProcessInstanceJobLanes(processInstanceLaneCount, queueSize);
+    }
+  }
+
   protected void stopExecutingAsyncJobs() {
+    if (processInstanceJobLanes != null) {
+      processInstanceJobLanes.shutdown(secondsToWaitOnShutdown);
+      processInstanceJobLanes = null;
+    }
+    
     if (executorService != null) {
       
       // Ask the thread pool to finish and exit
@@ -300,6 +420,26 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     }
   }
   
+  protected void startJobPartitionLeaseThread() {
+    if (jobPartitionLeaseRunnable != null) {
+      if (jobPartitionLeaseThread == null) {
+        jobPartitionLeaseThread = new Thread(jobPartitionLeaseRunnable);
+      }
+      jobPartitionLeaseThread.start();
+    }
+  }
+
+  protected void stopJobPartitionLeaseThread() {
+    if (jobPartitionLeaseThread != null) {
+      try {
+        jobPartitionLeaseThread.join();
+      } catch (InterruptedException e) {
+        log.warn("Interrupted while waiting for the job partition lease thread to terminate", e);
+      }
+      jobPartitionLeaseThread = null;
+    }
+  }
+  
   /** Starts the reset expired jobs thread */
   protected void startResetExpiredJobsThread() {
     if (resetExpiredJobThread == null) {
@@ -472,6 +612,138 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     this.maxAsyncJobsDuePerAcquisition = maxAsyncJobsDuePerAcquisition;
   }
 
+  public AsyncJobAcquisitionStrategy getAsyncJobAcquisitionStrategy() {
+    return asyncJobAcquisitionStrategy;
+  }
+
+  public void setAsyncJobAcquisitionStrategy(AsyncJobAcquisitionStrategy asyncJobAcquisitionStrategy) {
+    this.asyncJobAcquisitionStrategy = asyncJobAcquisitionStrategy;
+  }
+
+  public boolean isAdaptiveJobAcquisition() {
+    return adaptiveJobAcquisition;
+  }
+
+  public void setAdaptiveJobAcquisition(boolean adaptiveJobAcquisition) {
+    this.adaptiveJobAcquisition = adaptiveJobAcquisition;
+  }
+
+  public boolean isTimerWheelEnabled() {
+    return timerWheelEnabled;
+  }
+
+  public void setTimerWheelEnabled(boolean timerWheelEnabled) {
+    this.timerWheelEnabled = timerWheelEnabled;
+  }
+
+  public int getTimerWheelLookaheadInMillis() {
+    return timerWheelLookaheadInMillis;
+  }
+
+  public void setTimerWheelLookaheadInMillis(int timerWheelLookaheadInMillis) {
+    this.timerWheelLookaheadInMillis = timerWheelLookaheadInMillis;
+  }
+
+  public int getTimerWheelTickInMillis() {
+    return timerWheelTickInMillis;
+  }
+
+  public void setTimerWheelTickInMillis(int timerWheelTickInMillis) {
+    this.timerWheelTickInMillis = timerWheelTickInMillis;
+  }
+
+  public int getTimerWheelBatchSize() {
+    return timerWheelBatchSize;
+  }
+
+  public void setTimerWheelBatchSize(int timerWheelBatchSize) {
+    this.timerWheelBatchSize = timerWheelBatchSize;
+  }
+
+  public int getTimerWheelMaxSize() {
+    return timerWheelMaxSize;
+  }
+
+  public void setTimerWheelMaxSize(int timerWheelMaxSize) {
+    this.timerWheelMaxSize = timerWheelMaxSize;
+  }
+
+  public boolean isProcessInstanceAffinityEnabled() {
+    return processInstanceAffinityEnabled;
+  }
+
+  public void setProcessInstanceAffinityEnabled(boolean processInstanceAffinityEnabled) {
+    this.processInstanceAffinityEnabled = processInstanceAffinityEnabled;
+  }
+
+  public int getProcessInstanceLaneCount() {
+    return processInstanceLaneCount;
+  }
+
+  public void setProcessInstanceLaneCount(int processInstanceLaneCount) {
+    this.processInstanceLaneCount = processInstanceLaneCount;
+  }
+
+  public int getJobPartitionCount() {
+    return jobPartitionCount;
+  }
+
+  public void setJobPartitionCount(int jobPartitionCount) {
+    this.jobPartitionCount = jobPartitionCount;
+  }
+
+  public int getJobPartitionLeaseTimeInMillis() {
+    return jobPartitionLeaseTimeInMillis;
+  }
+
+  public void setJobPartitionLeaseTimeInMillis(int jobPartitionLeaseTimeInMillis) {
+    this.jobPartitionLeaseTimeInMillis = jobPartitionLeaseTimeInMillis;
+  }
+
+  public JobPartitionLeaseRunnable getJobPartitionLeaseRunnable() {
+    return jobPartitionLeaseRunnable;
+  }
+
+  public int getMaxAdaptiveJobsPerAcquisition() {
+    return maxAdaptiveJobsPerAcquisition;
+  }
+
+  public void setMaxAdaptiveJobsPerAcquisition(int maxAdaptiveJobsPerAcquisition) {
+    this.maxAdaptiveJobsPerAcquisition = maxAdaptiveJobsPerAcquisition;
+  }
+
+  public int getMinAdaptiveAcquireWaitTimeInMillis() {
+    return minAdaptiveAcquireWaitTimeInMillis;
+  }
+
+  public void setMinAdaptiveAcquireWaitTimeInMillis(int minAdaptiveAcquireWaitTimeInMillis) {
+    this.minAdaptiveAcquireWaitTimeInMillis = minAdaptiveAcquireWaitTimeInMillis;
+  }
+
+  public int getMaxAdaptiveAcquireWaitTimeInMillis() {
+    return maxAdaptiveAcquireWaitTimeInMillis;
+  }
+
+  public void setMaxAdaptiveAcquireWaitTimeInMillis(int maxAdaptiveAcquireWaitTimeInMillis) {
+    this.maxAdaptiveAcquireWaitTimeInMillis = maxAdaptiveAcquireWaitTimeInMillis;
+  }
+
+  public JobAcquisitionMetrics getAsyncJobAcquisitionMetrics() {
+    return asyncJobAcquisitionMetrics;
+  }
+
+  public void setAsyncJobAcquisitionMetrics(JobAcquisitionMetrics asyncJobAcquisitionMetrics) {
+    this.asyncJobAcquisitionMetrics = asyncJobAcquisitionMetrics;
+  }
+
+  public JobAcquisitionMetrics getTimerJobAcquisitionMetrics() {
+    return timerJobAcquisitionMetrics;
+  }
+
+  public void setTimerJobAcquisitionMetrics(JobAcquisitionMetrics timerJobAcquisitionMetrics) {
+    this.timerJobAcquisitionMetrics = timerJobAcquisitionMetrics;
+  }
+
   public int getDefaultTimerJobAcquireWaitTimeInMillis() {
     return defaultTimerJobAcquireWaitTimeInMillis;
   }
@@ -488,6 +760,10 @@ public class DefaultAsyncJobExecutor implements AsyncExecutor {
     this.defaultAsyncJobAcquireWaitTimeInMillis = defaultAsyncJobAcquireWaitTimeInMillis;
   }
 
+  public AcquireTimerJobsRunnable getTimerJobRunnable() {
+    return timerJobRunnable;
+  }
+
   public void setTimerJobRunnable(AcquireTimerJobsRunnable timerJobRunnable) {
     this.timerJobRunnable = timerJobRunnable;
   }
@@ -25,6 +25,7 @@ import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.el.NoExecutionVariableScope;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.jobexecutor.AsyncContinuationJobHandler;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler;
 import org.activiti.engine.impl.jobexecutor.AsyncJobAddedNotification;
 import org.activiti.engine.impl.jobexecutor.JobHandler;
 import org.activiti.engine.impl.jobexecutor.TimerEventHandler;
@@ -472,6 +473,11 @@ public class DefaultJobManager implements JobManager {
   protected DeadLetterJobEntity createDeadLetterJobFromOtherJob(AbstractJobEntity otherJob) {
     DeadLetterJobEntity deadLetterJob = processEngineConfiguration.getDeadLetterJobEntityManager().create();
     copyJobInfo(deadLetterJob, otherJob);
+    
+    // A failed history job is kept when its process instance ends, so it can't refer to it (see AsyncHistoryEventBuffer)
+    if (AsyncHistoryJobHandler.TYPE.equals(otherJob.getJobHandlerType())) {
+      deadLetterJob.setProcessInstanceId(null);
+    }
     return deadLetterJob;
   }
   
@@ -0,0 +1,147 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing the decisions taken by an acquisition thread of the {@link AsyncExecutor}
+ * (see {@link AcquireAsyncJobsDueRunnable} and {@link AcquireTimerJobsRunnable}).
+ * 
+ * All counters are cumulative since the async executor was created, except for the current page size
+ * and the current wait time, which reflect the latest acquisition cycle.
+ */
+public class JobAcquisitionMetrics {
+
+  protected final AtomicLong acquisitionCycles = new AtomicLong();
+  protected final AtomicLong jobsAcquired = new AtomicLong();
+  protected final AtomicLong emptyAcquisitions = new AtomicLong();
+  protected final AtomicLong lockConflicts = new AtomicLong();
+  protected final AtomicLong queueFullSkips = new AtomicLong();
+  protected final AtomicLong pageSizeIncreases = new AtomicLong();
+  protected final AtomicLong pageSizeDecreases = new AtomicLong();
+  protected final AtomicLong backOffs = new AtomicLong();
+  protected final AtomicLong wakeUps = new AtomicLong();
+  protected final AtomicLong totalWaitTimeInMillis = new AtomicLong();
+
+  protected volatile int currentPageSize;
+  protected volatile long currentWaitTimeInMillis;
+
+  public void acquisitionCycle(int pageSize, int jobsAcquired) {
+    acquisitionCycles.incrementAndGet();
+    this.jobsAcquired.addAndGet(jobsAcquired);
+    if (jobsAcquired == 0) {
+      emptyAcquisitions.incrementAndGet();
+    }
+    this.currentPageSize = pageSize;
+  }
+
+  public void lockConflict() {
+    lockConflicts.incrementAndGet();
+  }
+
+  public void queueFull() {
+    queueFullSkips.incrementAndGet();
+  }
+
+  public void pageSizeChanged(int oldPageSize, int newPageSize) {
+    if (newPageSize > oldPageSize) {
+      pageSizeIncreases.incrementAndGet();
+    } else if (newPageSize < oldPageSize) {
+      pageSizeDecreases.incrementAndGet();
+    }
+  }
+
+  public void waitTimeDetermined(long waitTimeInMillis, boolean backOff) {
+    this.currentWaitTimeInMillis = waitTimeInMillis;
+    totalWaitTimeInMillis.addAndGet(waitTimeInMillis);
+    if (backOff) {
+      backOffs.incrementAndGet();
+    }
+  }
+
+  public void wokenUp() {
+    wakeUps.incrementAndGet();
+  }
+
+  public void reset() {
+    acquisitionCycles.set(0);
+    jobsAcquired.set(0);
+    emptyAcquisitions.set(0);
+    lockConflicts.set(0);
+    queueFullSkips.set(0);
+    pageSizeIncreases.set(0);
+    pageSizeDecreases.set(0);
+    backOffs.set(0);
+    wakeUps.set(0);
+    totalWaitTimeInMillis.set(0);
+    currentPageSize = 0;
+    currentWaitTimeInMillis = 0;
+  }
+
+  /** The number of acquire queries that were executed. */
+  public long getAcquisitionCycles() {
+    return acquisitionCycles.get();
+  }
+
+  /** The total number of jobs that were acquired. */
+  public long getJobsAcquired() {
+    return jobsAcquired.get();
+  }
+
+  /** The number of acquire queries that did not return any job. */
+  public long getEmptyAcquisitions() {
+    return emptyAcquisitions.get();
+  }
+
+  /** The number of acquisitions that failed because another executor locked the same jobs. */
+  public long getLockConflicts() {
+    return lockConflicts.get();
+  }
+
+  /** The number of acquisition cycles that were skipped because the job queue had no free capacity. */
+  public long getQueueFullSkips() {
+    return queueFullSkips.get();
+  }
+
+  public long getPageSizeIncreases() {
+    return pageSizeIncreases.get();
+  }
+
+  public long getPageSizeDecreases() {
+    return pageSizeDecreases.get();
+  }
+
+  /** The number of times the acquisition thread waited longer than the previous cycle. */
+  public long getBackOffs() {
+    return backOffs.get();
+  }
+
+  /** The number of times a waiting acquisition thread was woken up because a new job was created. */
+  public long getWakeUps() {
+    return wakeUps.get();
+  }
+
+  public long getTotalWaitTimeInMillis() {
+    return totalWaitTimeInMillis.get();
+  }
+
+  public int getCurrentPageSize() {
+    return currentPageSize;
+  }
+
+  public long getCurrentWaitTimeInMillis() {
+    return currentWaitTimeInMillis;
+  }
+
+}
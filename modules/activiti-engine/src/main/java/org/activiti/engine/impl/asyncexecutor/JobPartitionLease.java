@@ -0,0 +1,76 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+/**
+ * The lease of a node on a job partition (or the heartbeat of a node), as stored in a property.
+ * 
+ * The property value holds the lock owner of the node and the time (in milliseconds) the lease expires.
+ */
+public class JobPartitionLease {
+
+  /** The common prefix of the lease and node properties */
+  public static final String PROPERTY_PREFIX = "job.partition.";
+  public static final String LEASE_PROPERTY_PREFIX = PROPERTY_PREFIX + "lease.";
+  public static final String NODE_PROPERTY_PREFIX = PROPERTY_PREFIX + "node.";
+
+  protected static final char SEPARATOR = '@';
+
+  protected final String lockOwner;
+  protected final long expirationTime;
+
+  public JobPartitionLease(String lockOwner, long expirationTime) {
+    this.lockOwner = lockOwner;
+    this.expirationTime = expirationTime;
+  }
+
+  /**
+   * Parses the given property value, returns null when the value isn't a valid lease.
+   */
+  public static JobPartitionLease parse(String value) {
+    if (value == null) {
+      return null;
+    }
+    int index = value.lastIndexOf(SEPARATOR);
+    if (index <= 0) {
+      return null;
+    }
+    try {
+      return new JobPartitionLease(value.substring(0, index), Long.parseLong(value.substring(index + 1)));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  public String getLockOwner() {
+    return lockOwner;
+  }
+
+  public long getExpirationTime() {
+    return expirationTime;
+  }
+
+  public boolean isExpired(long now) {
+    return expirationTime <= now;
+  }
+
+  public String toValue() {
+    return lockOwner + SEPARATOR + expirationTime;
+  }
+
+  @Override
+  public String toString() {
+    return "JobPartitionLease[lockOwner=" + lockOwner + ", expirationTime=" + expirationTime + "]";
+  }
+
+}
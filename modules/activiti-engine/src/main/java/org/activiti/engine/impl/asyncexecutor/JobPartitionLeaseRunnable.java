@@ -0,0 +1,186 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.cmd.ReleaseJobPartitionLeasesCmd;
+import org.activiti.engine.impl.cmd.RenewJobPartitionLeasesCmd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runnable that periodically renews the job partition leases of an async executor (see {@link RenewJobPartitionLeasesCmd}).
+ * 
+ * The exclusive jobs of a process instance all fall in the same partition, which is derived from the process instance id.
+ * While this node holds the lease of a partition, no other node executes its exclusive jobs, so they can be executed
+ * on a {@link ProcessInstanceJobLanes lane} without locking the process instance.
+ * 
+ * The leases are renewed three times per lease time. A lease only counts as owned while at least a third of
+ * the lease time is left, which leaves the jobs running on a lane the time to finish before another node
+ * can claim the partition when renewing fails.
+ * 
+ * A node that just claimed a partition can't know whether the previous owner still executes jobs of it,
+ * with or without locking the process instance. So the process instance lock is only skipped (see {@link #isProcessInstanceLockSkipped(int)})
+ * once the partition is held for the async job lock time, after which the locks and lanes of the previous owner are expired.
+ */
+public class JobPartitionLeaseRunnable implements Runnable {
+
+  private static Logger log = LoggerFactory.getLogger(JobPartitionLeaseRunnable.class);
+
+  protected final AsyncExecutor asyncExecutor;
+  protected final int partitionCount;
+  protected final int leaseTimeInMillis;
+
+  protected volatile Map<Integer, JobPartitionLease> leases = Collections.emptyMap();
+  
+  /** For every partition owned by this node, the time since when it is owned without interruption */
+  protected volatile Map<Integer, Long> ownedSince = Collections.emptyMap();
+
+  protected volatile boolean isInterrupted;
+  protected final Object MONITOR = new Object();
+  protected final AtomicBoolean isWaiting = new AtomicBoolean(false);
+
+  public JobPartitionLeaseRunnable(AsyncExecutor asyncExecutor, int partitionCount, int leaseTimeInMillis) {
+    this.asyncExecutor = asyncExecutor;
+    this.partitionCount = partitionCount;
+    this.leaseTimeInMillis = leaseTimeInMillis;
+  }
+
+  public synchronized void run() {
+    log.info("{} starting to renew job partition leases", asyncExecutor.getLockOwner());
+    Thread.currentThread().setName("activiti-job-partition-leases");
+
+    while (!isInterrupted) {
+
+      long millisToWait = leaseTimeInMillis / 3;
+      try {
+        renewLeases();
+
+      } catch (Throwable e) {
+        // Concurrent claims of the same partition fail with an optimistic locking exception or a duplicate key
+        if (e instanceof ActivitiOptimisticLockingException) {
+          log.debug("Optimistic locking exception while renewing the job partition leases", e);
+        } else {
+          log.warn("Exception while renewing the job partition leases", e);
+        }
+        millisToWait = asyncExecutor.getRetryWaitTimeInMillis();
+      }
+
+      try {
+        synchronized (MONITOR) {
+          if (!isInterrupted) {
+            isWaiting.set(true);
+            MONITOR.wait(millisToWait);
+          }
+        }
+
+      } catch (InterruptedException e) {
+        if (log.isDebugEnabled()) {
+          log.debug("job partition lease wait interrupted");
+        }
+      } finally {
+        isWaiting.set(false);
+      }
+    }
+
+    log.info("{} stopped renewing job partition leases", asyncExecutor.getLockOwner());
+  }
+
+  protected void renewLeases() {
+    Map<Integer, JobPartitionLease> renewedLeases = asyncExecutor.getProcessEngineConfiguration().getCommandExecutor().execute(
+        new RenewJobPartitionLeasesCmd(asyncExecutor.getLockOwner(), partitionCount, leaseTimeInMillis));
+    
+    long now = getCurrentTime();
+    Map<Integer, Long> renewedOwnedSince = new HashMap<Integer, Long>();
+    for (Map.Entry<Integer, JobPartitionLease> entry : renewedLeases.entrySet()) {
+      if (asyncExecutor.getLockOwner().equals(entry.getValue().getLockOwner())) {
+        // The partition is only owned without interruption when the previous lease of this node didn't expire in the meantime
+        JobPartitionLease previousLease = leases.get(entry.getKey());
+        Long previousOwnedSince = ownedSince.get(entry.getKey());
+        boolean ownedBefore = previousLease != null && previousOwnedSince != null && !previousLease.isExpired(now);
+        renewedOwnedSince.put(entry.getKey(), ownedBefore ? previousOwnedSince : now);
+      }
+    }
+    
+    ownedSince = renewedOwnedSince;
+    leases = renewedLeases;
+  }
+
+  /**
+   * Removes the leases of this node, to be called when no more jobs are executed on the lanes.
+   */
+  public void releaseLeases() {
+    leases = Collections.emptyMap();
+    ownedSince = Collections.emptyMap();
+    try {
+      asyncExecutor.getProcessEngineConfiguration().getCommandExecutor().execute(new ReleaseJobPartitionLeasesCmd(asyncExecutor.getLockOwner()));
+    } catch (Throwable e) {
+      log.warn("Could not release the job partition leases, they will be available to other nodes when they expire", e);
+    }
+  }
+
+  public void stop() {
+    synchronized (MONITOR) {
+      isInterrupted = true;
+      if (isWaiting.compareAndSet(true, false)) {
+        MONITOR.notifyAll();
+      }
+    }
+  }
+
+  public int getPartition(String processInstanceId) {
+    return (processInstanceId.hashCode() & Integer.MAX_VALUE) % partitionCount;
+  }
+
+  public boolean isOwnedByThisNode(int partition) {
+    JobPartitionLease lease = leases.get(partition);
+    return lease != null && asyncExecutor.getLockOwner().equals(lease.getLockOwner()) 
+        && lease.getExpirationTime() - getCurrentTime() > leaseTimeInMillis / 3;
+  }
+
+  /**
+   * Returns true when the exclusive jobs of the partition can be executed on a lane without locking the process instance:
+   * the partition must be owned by this node for at least the async job lock time, so no job of the previous owner
+   * can still be running.
+   */
+  public boolean isProcessInstanceLockSkipped(int partition) {
+    if (!isOwnedByThisNode(partition)) {
+      return false;
+    }
+    Long partitionOwnedSince = ownedSince.get(partition);
+    return partitionOwnedSince != null && getCurrentTime() - partitionOwnedSince >= asyncExecutor.getAsyncJobLockTimeInMillis();
+  }
+
+  public boolean isOwnedByOtherNode(int partition) {
+    JobPartitionLease lease = leases.get(partition);
+    return lease != null && !asyncExecutor.getLockOwner().equals(lease.getLockOwner()) && !lease.isExpired(getCurrentTime());
+  }
+
+  protected long getCurrentTime() {
+    return asyncExecutor.getProcessEngineConfiguration().getClock().getCurrentTime().getTime();
+  }
+
+  public Map<Integer, JobPartitionLease> getLeases() {
+    return leases;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+}
@@ -0,0 +1,53 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.runtime.Job;
+
+/**
+ * Executes an exclusive job on the lane of its job partition. While this node holds the lease of the partition,
+ * the exclusive jobs of the process instance are already executed one by one, so the process instance isn't locked.
+ * The process instance is locked as usual when the lease was lost in the meantime, or when the partition was claimed 
+ * too recently to rule out jobs of its previous owner (see {@link JobPartitionLeaseRunnable#isProcessInstanceLockSkipped(int)}).
+ */
+public class PartitionedExecuteAsyncRunnable extends ExecuteAsyncRunnable {
+
+  protected JobPartitionLeaseRunnable jobPartitionLeaseRunnable;
+  protected int partition;
+  protected boolean lockSkipped;
+
+  public PartitionedExecuteAsyncRunnable(Job job, ProcessEngineConfigurationImpl processEngineConfiguration, 
+      JobPartitionLeaseRunnable jobPartitionLeaseRunnable, int partition) {
+    super(job, processEngineConfiguration);
+    this.jobPartitionLeaseRunnable = jobPartitionLeaseRunnable;
+    this.partition = partition;
+  }
+
+  @Override
+  protected boolean lockJobIfNeeded() {
+    if (jobPartitionLeaseRunnable.isProcessInstanceLockSkipped(partition)) {
+      lockSkipped = true;
+      return true;
+    }
+    return super.lockJobIfNeeded();
+  }
+
+  @Override
+  protected void unlockJobIfNeeded() {
+    if (!lockSkipped) {
+      super.unlockJobIfNeeded();
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed set of single threaded executors. All jobs of a job partition are executed on the same lane,
+ * one after the other, while jobs of different partitions run in parallel on the other lanes.
+ */
+public class ProcessInstanceJobLanes {
+
+  private static Logger log = LoggerFactory.getLogger(ProcessInstanceJobLanes.class);
+
+  protected final ExecutorService[] lanes;
+
+  public ProcessInstanceJobLanes(int laneCount, int queueSize) {
+    log.info("Creating {} job lanes with a queue size of {}", laneCount, queueSize);
+    
+    BasicThreadFactory threadFactory = new BasicThreadFactory.Builder().namingPattern("activiti-async-job-lane-%d").build();
+    lanes = new ExecutorService[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), threadFactory);
+    }
+  }
+
+  /**
+   * Executes the runnable on the lane of the given partition.
+   * 
+   * @throws java.util.concurrent.RejectedExecutionException when the queue of the lane is full
+   */
+  public void execute(int partition, Runnable runnable) {
+    lanes[partition % lanes.length].execute(runnable);
+  }
+
+  public void shutdown(long secondsToWait) {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+    
+    long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(secondsToWait);
+    try {
+      for (ExecutorService lane : lanes) {
+        if (!lane.awaitTermination(Math.max(0L, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+          log.warn("Timeout during shutdown of the async job lanes. The current running jobs could not end within " + secondsToWait + " seconds after shutdown operation.");
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      log.warn("Interrupted while shutting down the async job lanes. ", e);
+    }
+  }
+
+  public int getLaneCount() {
+    return lanes.length;
+  }
+
+}
@@ -0,0 +1,186 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel holding the ids of timer jobs together with their due time.
+ * 
+ * The wheel is divided in a fixed number of buckets, each covering one tick.
+ * A timer job is put in the bucket of the tick it is due in, so scheduling and removing
+ * a timer job don't depend on the number of timer jobs in the wheel. Timer jobs that are due
+ * more than one revolution ahead share the bucket with the ones of the current revolution
+ * and are only expired when their due time has passed. Timer jobs scheduled for a tick
+ * that has already passed are kept apart and returned by the next expiration.
+ */
+public class TimerJobWheel {
+
+  protected static final long OVERDUE_TICK = -1L;
+
+  protected final long tickInMillis;
+  protected final List<Map<String, Long>> buckets;
+  protected final Map<String, Long> dueTimes = new HashMap<String, Long>();
+  protected final Map<String, Long> scheduledTicks = new HashMap<String, Long>();
+  protected final Map<String, Long> overdue = new HashMap<String, Long>();
+
+  /** The last tick that has fully passed at the latest expiration, -1 when nothing was expired yet */
+  protected long lastExpiredTick = -1;
+
+  public TimerJobWheel(long tickInMillis, int ticksPerWheel) {
+    if (tickInMillis <= 0 || ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("The tick duration and number of ticks per wheel must be positive");
+    }
+    this.tickInMillis = tickInMillis;
+    this.buckets = new ArrayList<Map<String, Long>>(ticksPerWheel);
+    for (int i = 0; i < ticksPerWheel; i++) {
+      buckets.add(new HashMap<String, Long>());
+    }
+  }
+
+  /**
+   * Adds the timer job with the given due time (in milliseconds) to the wheel.
+   * When the timer job was already scheduled, its due time is replaced.
+   */
+  public synchronized void schedule(String timerJobId, long dueTime) {
+    remove(timerJobId);
+    
+    long tick = dueTime / tickInMillis;
+    if (tick <= lastExpiredTick) {
+      tick = OVERDUE_TICK;
+      overdue.put(timerJobId, dueTime);
+    } else {
+      bucket(tick).put(timerJobId, dueTime);
+    }
+    dueTimes.put(timerJobId, dueTime);
+    scheduledTicks.put(timerJobId, tick);
+  }
+
+  public synchronized boolean remove(String timerJobId) {
+    Long tick = scheduledTicks.remove(timerJobId);
+    if (tick == null) {
+      return false;
+    }
+    if (tick == OVERDUE_TICK) {
+      overdue.remove(timerJobId);
+    } else {
+      bucket(tick).remove(timerJobId);
+    }
+    dueTimes.remove(timerJobId);
+    return true;
+  }
+
+  public synchronized boolean contains(String timerJobId) {
+    return dueTimes.containsKey(timerJobId);
+  }
+
+  public synchronized int size() {
+    return dueTimes.size();
+  }
+
+  public synchronized List<String> getTimerJobIds() {
+    return new ArrayList<String>(dueTimes.keySet());
+  }
+
+  /**
+   * Removes and returns the ids of all timer jobs that are due at the given time. 
+   */
+  public synchronized List<String> expire(long now) {
+    List<String> expiredTimerJobIds = new ArrayList<String>();
+    expireBucket(overdue, now, expiredTimerJobIds);
+    
+    long nowTick = now / tickInMillis;
+    if (nowTick <= lastExpiredTick) {
+      return expiredTimerJobIds;
+    }
+
+    if (lastExpiredTick < 0 || nowTick - lastExpiredTick >= buckets.size()) {
+      for (Map<String, Long> bucket : buckets) {
+        expireBucket(bucket, now, expiredTimerJobIds);
+      }
+    } else {
+      for (long tick = lastExpiredTick + 1; tick <= nowTick; tick++) {
+        expireBucket(bucket(tick), now, expiredTimerJobIds);
+      }
+    }
+    // The current tick can still hold timer jobs that are due later in the tick
+    lastExpiredTick = nowTick - 1;
+    return expiredTimerJobIds;
+  }
+
+  protected void expireBucket(Map<String, Long> bucket, long now, List<String> expiredTimerJobIds) {
+    Iterator<Map.Entry<String, Long>> iterator = bucket.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> entry = iterator.next();
+      if (entry.getValue() <= now) {
+        iterator.remove();
+        dueTimes.remove(entry.getKey());
+        scheduledTicks.remove(entry.getKey());
+        expiredTimerJobIds.add(entry.getKey());
+      }
+    }
+  }
+
+  /**
+   * Returns the earliest due time of the timer jobs in the wheel, or {@link Long#MAX_VALUE} when the wheel is empty.
+   */
+  public synchronized long getNextDueTime() {
+    if (dueTimes.isEmpty()) {
+      return Long.MAX_VALUE;
+    }
+    
+    long overdueTime = Long.MAX_VALUE;
+    for (Long dueTime : overdue.values()) {
+      overdueTime = Math.min(overdueTime, dueTime);
+    }
+    
+    // Walk one revolution, looking only at the timer jobs due in the tick of the bucket
+    long firstTick = lastExpiredTick + 1;
+    for (long tick = firstTick; tick < firstTick + buckets.size(); tick++) {
+      long nextDueTime = Long.MAX_VALUE;
+      for (Long dueTime : bucket(tick).values()) {
+        if (dueTime / tickInMillis <= tick) {
+          nextDueTime = Math.min(nextDueTime, dueTime);
+        }
+      }
+      if (nextDueTime != Long.MAX_VALUE) {
+        return Math.min(overdueTime, nextDueTime);
+      }
+    }
+    
+    // Nothing due within one revolution
+    long nextDueTime = Long.MAX_VALUE;
+    for (Long dueTime : dueTimes.values()) {
+      nextDueTime = Math.min(nextDueTime, dueTime);
+    }
+    return nextDueTime;
+  }
+
+  public synchronized void clear() {
+    for (Map<String, Long> bucket : buckets) {
+      bucket.clear();
+    }
+    overdue.clear();
+    dueTimes.clear();
+    scheduledTicks.clear();
+  }
+
+  protected Map<String, Long> bucket(long tick) {
+    return buckets.get((int) (tick % buckets.size()));
+  }
+
+}
@@ -0,0 +1,230 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.cmd.AcquireTimerJobsDueBeforeCmd;
+import org.activiti.engine.impl.cmd.MoveTimerJobsToExecutableJobsCmd;
+import org.activiti.engine.impl.cmd.UnlockTimerJobsCmd;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer job acquisition that keeps the timer jobs due within the lookahead window in a {@link TimerJobWheel}.
+ * 
+ * Once per lookahead window, the timer jobs due before the end of the window are fetched by due date
+ * and locked for this async executor until they are due. The wheel holds at most {@code maxWheelSize} timer jobs:
+ * the timer jobs that don't fit are left in the database for the next refill, for this or any other engine. Between those refills, the database isn't polled:
+ * the thread sleeps until the next timer job in the wheel is due, after which all due timer jobs 
+ * are moved to executable jobs in batches. 
+ * 
+ * Timer jobs created by this engine are added to the wheel when they are committed. Timer jobs created by
+ * other engines are picked up by the next refill. When an engine goes down, the locks of its timer jobs expire 
+ * and another engine picks them up with its next refill. On a regular shutdown, the locks are released right away.
+ */
+public class TimerWheelAcquireTimerJobsRunnable extends AcquireTimerJobsRunnable {
+
+  private static Logger log = LoggerFactory.getLogger(TimerWheelAcquireTimerJobsRunnable.class);
+
+  protected final TimerJobWheel timerJobWheel;
+  protected final long lookaheadInMillis;
+  protected final int batchSize;
+  protected final int maxWheelSize;
+
+  /** The due date up to which this node has fetched the timer jobs into the wheel */
+  protected volatile long horizon;
+  protected long nextRefillTime;
+
+  public TimerWheelAcquireTimerJobsRunnable(AsyncExecutor asyncExecutor, JobManager jobManager, 
+      TimerJobWheel timerJobWheel, long lookaheadInMillis, int batchSize, int maxWheelSize) {
+    super(asyncExecutor, jobManager);
+    this.timerJobWheel = timerJobWheel;
+    this.lookaheadInMillis = lookaheadInMillis;
+    this.batchSize = batchSize;
+    this.maxWheelSize = maxWheelSize;
+  }
+
+  @Override
+  public synchronized void run() {
+    log.info("starting to acquire timer jobs with a timer wheel");
+    Thread.currentThread().setName("activiti-acquire-timer-jobs");
+
+    final CommandExecutor commandExecutor = asyncExecutor.getProcessEngineConfiguration().getCommandExecutor();
+
+    // The wheel is (re)built from the database on the first refill
+    timerJobWheel.clear();
+    nextRefillTime = 0L;
+
+    while (!isInterrupted) {
+      try {
+        long now = getCurrentTime();
+        if (now >= nextRefillTime) {
+          refill(commandExecutor, now);
+        }
+        moveDueTimerJobs(commandExecutor, now);
+        millisToWait = determineMillisToWait();
+
+      } catch (ActivitiOptimisticLockingException optimisticLockingException) {
+        if (log.isDebugEnabled()) {
+          log.debug("Optimistic locking exception during timer wheel refill: another async executor locked one of the timer jobs. "
+              + "Exception message: {}", optimisticLockingException.getMessage());
+        }
+        millisToWait = asyncExecutor.getRetryWaitTimeInMillis();
+        
+      } catch (Throwable e) {
+        log.error("exception during timer job acquisition: {}", e.getMessage(), e);
+        millisToWait = asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis();
+      }
+
+      if (millisToWait > 0) {
+        try {
+          synchronized (MONITOR) {
+            if (!isInterrupted) {
+              isWaiting.set(true);
+              MONITOR.wait(millisToWait);
+            }
+          }
+        } catch (InterruptedException e) {
+          if (log.isDebugEnabled()) {
+            log.debug("timer wheel wait interrupted");
+          }
+        } finally {
+          isWaiting.set(false);
+        }
+      }
+    }
+
+    releaseTimerJobs(commandExecutor);
+    log.info("stopped acquiring timer jobs with a timer wheel");
+  }
+
+  protected void refill(CommandExecutor commandExecutor, long now) {
+    long newHorizon = now + lookaheadInMillis;
+    int maxJobs = Math.min(batchSize, maxWheelSize - timerJobWheel.size());
+    if (maxJobs <= 0) {
+      // The wheel is full: refill once the first timer jobs have been moved out of it
+      nextRefillTime = timerJobWheel.getNextDueTime();
+      return;
+    }
+    
+    AcquiredTimerJobEntities acquiredJobs = commandExecutor.execute(
+        new AcquireTimerJobsDueBeforeCmd(asyncExecutor, new Date(newHorizon), maxJobs));
+    
+    long lastDueTime = now;
+    for (TimerJobEntity timerJob : acquiredJobs.getJobs()) {
+      long dueTime = timerJob.getDuedate() != null ? timerJob.getDuedate().getTime() : now;
+      timerJobWheel.schedule(timerJob.getId(), dueTime);
+      lastDueTime = Math.max(lastDueTime, dueTime);
+    }
+    
+    if (acquiredJobs.size() >= maxJobs) {
+      // A full page means there are more timer jobs in this window, all due after the last fetched one.
+      // Fetch them right away as long as there is room in the wheel, otherwise once the first ones are moved out.
+      horizon = lastDueTime;
+      nextRefillTime = timerJobWheel.size() < maxWheelSize ? now : timerJobWheel.getNextDueTime();
+    } else {
+      horizon = newHorizon;
+      nextRefillTime = newHorizon;
+    }
+  }
+
+  protected void moveDueTimerJobs(CommandExecutor commandExecutor, long now) {
+    List<String> dueTimerJobIds = timerJobWheel.expire(now);
+    for (int i = 0; i < dueTimerJobIds.size(); i += batchSize) {
+      List<String> batch = dueTimerJobIds.subList(i, Math.min(i + batchSize, dueTimerJobIds.size()));
+      try {
+        commandExecutor.execute(new MoveTimerJobsToExecutableJobsCmd(new ArrayList<String>(batch), asyncExecutor.getLockOwner()));
+        
+      } catch (ActivitiOptimisticLockingException e) {
+        // One of the timer jobs was changed concurrently, move the others one by one
+        for (String timerJobId : batch) {
+          try {
+            commandExecutor.execute(new MoveTimerJobsToExecutableJobsCmd(Collections.singletonList(timerJobId), asyncExecutor.getLockOwner()));
+          } catch (ActivitiOptimisticLockingException optimisticLockingException) {
+            log.debug("Timer job {} was changed concurrently, not moving it", timerJobId);
+          }
+        }
+        
+      } catch (RuntimeException e) {
+        // Keep the timer jobs that weren't moved yet in the wheel, so they're retried 
+        for (String timerJobId : dueTimerJobIds.subList(i, dueTimerJobIds.size())) {
+          timerJobWheel.schedule(timerJobId, now);
+        }
+        throw e;
+      }
+    }
+  }
+
+  protected long determineMillisToWait() {
+    long wakeUpTime = Math.min(timerJobWheel.getNextDueTime(), nextRefillTime);
+    
+    // The clock can be changed (for example in tests), so the wait is never longer than the default timer wait time
+    long millisToWait = Math.min(wakeUpTime - getCurrentTime(), asyncExecutor.getDefaultTimerJobAcquireWaitTimeInMillis());
+    return Math.max(millisToWait, 0L);
+  }
+
+  protected void releaseTimerJobs(CommandExecutor commandExecutor) {
+    List<String> timerJobIds = timerJobWheel.getTimerJobIds();
+    timerJobWheel.clear();
+    if (!timerJobIds.isEmpty()) {
+      try {
+        commandExecutor.execute(new UnlockTimerJobsCmd(timerJobIds, asyncExecutor.getLockOwner()));
+      } catch (Throwable e) {
+        log.warn("Could not release the locks of the timer jobs in the timer wheel, they will be acquired again when the locks expire", e);
+      }
+    }
+  }
+
+  /**
+   * Called when a timer job created by this engine is committed. If it is due before the horizon of the wheel, 
+   * it won't be fetched by the current refill anymore and is added to the wheel directly, unless the wheel is full.
+   */
+  public void timerJobScheduled(String timerJobId, Date dueDate) {
+    if (dueDate != null && dueDate.getTime() <= horizon && timerJobWheel.size() < maxWheelSize) {
+      timerJobWheel.schedule(timerJobId, dueDate.getTime());
+      wakeUp();
+    }
+  }
+
+  public void wakeUp() {
+    synchronized (MONITOR) {
+      if (isWaiting.compareAndSet(true, false)) {
+        MONITOR.notifyAll();
+      }
+    }
+  }
+
+  protected long getCurrentTime() {
+    return asyncExecutor.getProcessEngineConfiguration().getClock().getCurrentTime().getTime();
+  }
+
+  public TimerJobWheel getTimerJobWheel() {
+    return timerJobWheel;
+  }
+
+  public long getHorizon() {
+    return horizon;
+  }
+
+  public int getMaxWheelSize() {
+    return maxWheelSize;
+  }
+
+}
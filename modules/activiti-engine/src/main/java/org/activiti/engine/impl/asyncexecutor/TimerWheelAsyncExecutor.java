@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.asyncexecutor;
+
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+
+/**
+ * Optional interface for {@link AsyncExecutor} implementations that can keep the timer jobs
+ * due within a lookahead window in memory (see {@link TimerWheelAcquireTimerJobsRunnable}),
+ * instead of polling the database for due timer jobs.
+ */
+public interface TimerWheelAsyncExecutor extends AsyncExecutor {
+
+  /**
+   * Signals that a new timer job was committed. When the timer wheel is enabled and the timer job
+   * is due within the current lookahead window, it is added to the wheel right away.
+   */
+  void timerJobScheduled(TimerJobEntity timerJob);
+
+
+  /* Getters and Setters */
+
+  boolean isTimerWheelEnabled();
+
+  void setTimerWheelEnabled(boolean timerWheelEnabled);
+
+  int getTimerWheelLookaheadInMillis();
+
+  void setTimerWheelLookaheadInMillis(int timerWheelLookaheadInMillis);
+
+}
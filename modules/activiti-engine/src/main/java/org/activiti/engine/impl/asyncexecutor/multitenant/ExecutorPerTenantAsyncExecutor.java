@@ -17,11 +17,17 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.activiti.engine.impl.asyncexecutor.AcquisitionStrategyAsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.AdaptiveAsyncExecutor;
 import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.AsyncJobAcquisitionStrategy;
 import org.activiti.engine.impl.asyncexecutor.DefaultAsyncJobExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobAcquisitionMetrics;
 import org.activiti.engine.impl.asyncexecutor.JobManager;
+import org.activiti.engine.impl.asyncexecutor.TimerWheelAsyncExecutor;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.cfg.multitenant.TenantInfoHolder;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
 import org.activiti.engine.runtime.Job;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +38,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Joram Barrez
  */
-public class ExecutorPerTenantAsyncExecutor implements TenantAwareAsyncExecutor {
+public class ExecutorPerTenantAsyncExecutor implements TenantAwareAsyncExecutor, AcquisitionStrategyAsyncExecutor, AdaptiveAsyncExecutor, TimerWheelAsyncExecutor {
   
   private static final Logger logger = LoggerFactory.getLogger(ExecutorPerTenantAsyncExecutor.class);
   
@@ -94,11 +100,50 @@ public class ExecutorPerTenantAsyncExecutor implements TenantAwareAsyncExecutor
   protected AsyncExecutor determineAsyncExecutor() {
     return tenantExecutors.get(tenantInfoHolder.getCurrentTenantId());
   }
+  
+  protected AdaptiveAsyncExecutor determineAdaptiveAsyncExecutor() {
+    AsyncExecutor asyncExecutor = determineAsyncExecutor();
+    return asyncExecutor instanceof AdaptiveAsyncExecutor ? (AdaptiveAsyncExecutor) asyncExecutor : null;
+  }
+  
+  protected TimerWheelAsyncExecutor determineTimerWheelAsyncExecutor() {
+    AsyncExecutor asyncExecutor = determineAsyncExecutor();
+    return asyncExecutor instanceof TimerWheelAsyncExecutor ? (TimerWheelAsyncExecutor) asyncExecutor : null;
+  }
 
   public boolean executeAsyncJob(Job job) {
     return determineAsyncExecutor().executeAsyncJob(job);
   }
 
+  public void wakeUpJobAcquisition() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    if (asyncExecutor != null) {
+      asyncExecutor.wakeUpJobAcquisition();
+    }
+  }
+
+  public void timerJobScheduled(TimerJobEntity timerJob) {
+    TimerWheelAsyncExecutor asyncExecutor = determineTimerWheelAsyncExecutor();
+    if (asyncExecutor != null) {
+      asyncExecutor.timerJobScheduled(timerJob);
+    }
+  }
+
+  public int getRemainingJobQueueCapacity() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getRemainingJobQueueCapacity() : Integer.MAX_VALUE;
+  }
+
+  public JobAcquisitionMetrics getAsyncJobAcquisitionMetrics() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getAsyncJobAcquisitionMetrics() : null;
+  }
+
+  public JobAcquisitionMetrics getTimerJobAcquisitionMetrics() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getTimerJobAcquisitionMetrics() : null;
+  }
+
   public JobManager getJobManager() {
     // Should never be accessed on this class, should be accessed on the actual AsyncExecutor
     throw new UnsupportedOperationException(); 
@@ -212,6 +257,98 @@ public class ExecutorPerTenantAsyncExecutor implements TenantAwareAsyncExecutor
     }
   }
 
+  public AsyncJobAcquisitionStrategy getAsyncJobAcquisitionStrategy() {
+    AsyncExecutor asyncExecutor = determineAsyncExecutor();
+    return asyncExecutor instanceof AcquisitionStrategyAsyncExecutor 
+        ? ((AcquisitionStrategyAsyncExecutor) asyncExecutor).getAsyncJobAcquisitionStrategy() : AsyncJobAcquisitionStrategy.OPTIMISTIC_LOCKING;
+  }
+
+  public void setAsyncJobAcquisitionStrategy(AsyncJobAcquisitionStrategy asyncJobAcquisitionStrategy) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof AcquisitionStrategyAsyncExecutor) {
+        ((AcquisitionStrategyAsyncExecutor) asyncExecutor).setAsyncJobAcquisitionStrategy(asyncJobAcquisitionStrategy);
+      }
+    }
+  }
+
+  public boolean isAdaptiveJobAcquisition() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null && asyncExecutor.isAdaptiveJobAcquisition();
+  }
+
+  public void setAdaptiveJobAcquisition(boolean adaptiveJobAcquisition) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof AdaptiveAsyncExecutor) {
+        ((AdaptiveAsyncExecutor) asyncExecutor).setAdaptiveJobAcquisition(adaptiveJobAcquisition);
+      }
+    }
+  }
+
+  public boolean isTimerWheelEnabled() {
+    TimerWheelAsyncExecutor asyncExecutor = determineTimerWheelAsyncExecutor();
+    return asyncExecutor != null && asyncExecutor.isTimerWheelEnabled();
+  }
+
+  public void setTimerWheelEnabled(boolean timerWheelEnabled) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof TimerWheelAsyncExecutor) {
+        ((TimerWheelAsyncExecutor) asyncExecutor).setTimerWheelEnabled(timerWheelEnabled);
+      }
+    }
+  }
+
+  public int getTimerWheelLookaheadInMillis() {
+    TimerWheelAsyncExecutor asyncExecutor = determineTimerWheelAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getTimerWheelLookaheadInMillis() : 0;
+  }
+
+  public void setTimerWheelLookaheadInMillis(int timerWheelLookaheadInMillis) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof TimerWheelAsyncExecutor) {
+        ((TimerWheelAsyncExecutor) asyncExecutor).setTimerWheelLookaheadInMillis(timerWheelLookaheadInMillis);
+      }
+    }
+  }
+
+  public int getMaxAdaptiveJobsPerAcquisition() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getMaxAdaptiveJobsPerAcquisition() : 0;
+  }
+
+  public void setMaxAdaptiveJobsPerAcquisition(int maxJobs) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof AdaptiveAsyncExecutor) {
+        ((AdaptiveAsyncExecutor) asyncExecutor).setMaxAdaptiveJobsPerAcquisition(maxJobs);
+      }
+    }
+  }
+
+  public int getMinAdaptiveAcquireWaitTimeInMillis() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getMinAdaptiveAcquireWaitTimeInMillis() : 0;
+  }
+
+  public void setMinAdaptiveAcquireWaitTimeInMillis(int waitTimeInMillis) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof AdaptiveAsyncExecutor) {
+        ((AdaptiveAsyncExecutor) asyncExecutor).setMinAdaptiveAcquireWaitTimeInMillis(waitTimeInMillis);
+      }
+    }
+  }
+
+  public int getMaxAdaptiveAcquireWaitTimeInMillis() {
+    AdaptiveAsyncExecutor asyncExecutor = determineAdaptiveAsyncExecutor();
+    return asyncExecutor != null ? asyncExecutor.getMaxAdaptiveAcquireWaitTimeInMillis() : 0;
+  }
+
+  public void setMaxAdaptiveAcquireWaitTimeInMillis(int waitTimeInMillis) {
+    for (AsyncExecutor asyncExecutor : tenantExecutors.values()) {
+      if (asyncExecutor instanceof AdaptiveAsyncExecutor) {
+        ((AdaptiveAsyncExecutor) asyncExecutor).setMaxAdaptiveAcquireWaitTimeInMillis(waitTimeInMillis);
+      }
+    }
+  }
+
   public int getMaxTimerJobsPerAcquisition() {
     return determineAsyncExecutor().getMaxTimerJobsPerAcquisition();
   }
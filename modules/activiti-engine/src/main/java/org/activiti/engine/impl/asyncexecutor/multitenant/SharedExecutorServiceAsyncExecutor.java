@@ -111,6 +111,16 @@ public class SharedExecutorServiceAsyncExecutor extends DefaultAsyncJobExecutor
     }
   }
 
+  @Override
+  public void wakeUpJobAcquisition() {
+    if (adaptiveJobAcquisition) {
+      TenantAwareAcquireAsyncJobsDueRunnable asyncJobsRunnable = asyncJobAcquisitionRunnables.get(tenantInfoHolder.getCurrentTenantId());
+      if (asyncJobsRunnable != null) {
+        asyncJobsRunnable.wakeUp();
+      }
+    }
+  }
+
   protected  void startTimerJobAcquisitionForTenant(String tenantId) {
     timerJobAcquisitionThreads.get(tenantId).start();
   }
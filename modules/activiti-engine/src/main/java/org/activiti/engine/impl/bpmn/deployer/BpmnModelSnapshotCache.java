@@ -0,0 +1,246 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.bpmn.deployer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
+import org.activiti.engine.impl.persistence.entity.ResourceEntity;
+import org.activiti.engine.impl.util.ReflectUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the {@link BpmnModel} converted from a BPMN resource as a serialized snapshot in a directory, one subdirectory
+ * per deployment, so a deployment that is parsed again (eg. after a restart or a cache eviction) doesn't need to convert the XML.
+ * 
+ * A snapshot is only used when it was written by the same engine version for the same resource bytes. 
+ * A snapshot that can't be read or written is ignored: the resource is then converted from the XML as usual.
+ */
+public class BpmnModelSnapshotCache {
+
+  private static final Logger log = LoggerFactory.getLogger(BpmnModelSnapshotCache.class);
+
+  protected static final int SNAPSHOT_MAGIC = 0x41435442;
+  protected static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  protected File directory;
+
+  public BpmnModelSnapshotCache(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the model of the snapshot of the given resource, or null when there is no valid snapshot for it.
+   */
+  public BpmnModel get(DeploymentEntity deployment, ResourceEntity resource) {
+    File snapshotFile = getSnapshotFile(deployment.getId(), resource.getName());
+    if (!snapshotFile.isFile()) {
+      return null;
+    }
+
+    ObjectInputStream in = null;
+    try {
+      in = new ClassLoaderObjectInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+      if (!readHeader(in, resource)) {
+        log.debug("Ignoring outdated BPMN model snapshot {}", snapshotFile);
+        return null;
+      }
+      return (BpmnModel) in.readObject();
+
+    } catch (Exception e) {
+      log.warn("Could not read BPMN model snapshot " + snapshotFile + ", the resource will be parsed", e);
+      return null;
+
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  /**
+   * Writes the snapshot of the given model, replacing any previous snapshot of the resource.
+   */
+  public void put(DeploymentEntity deployment, ResourceEntity resource, BpmnModel bpmnModel) {
+    File snapshotFile = getSnapshotFile(deployment.getId(), resource.getName());
+    File parent = snapshotFile.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      log.warn("Could not create BPMN model snapshot directory {}", parent);
+      return;
+    }
+
+    // Written to a temporary file first, so a concurrent reader never sees a partial snapshot
+    File temporaryFile = new File(parent, snapshotFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+    ObjectOutputStream out = null;
+    try {
+      out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+      writeHeader(out, resource);
+      out.writeObject(bpmnModel);
+      out.close();
+      out = null;
+
+      if (!temporaryFile.renameTo(snapshotFile)) {
+        snapshotFile.delete();
+        if (!temporaryFile.renameTo(snapshotFile)) {
+          log.warn("Could not write BPMN model snapshot {}", snapshotFile);
+        }
+      }
+
+    } catch (Exception e) {
+      log.warn("Could not write BPMN model snapshot " + snapshotFile, e);
+
+    } finally {
+      closeQuietly(out);
+      temporaryFile.delete();
+    }
+  }
+
+  /**
+   * Removes the snapshots of all resources of the given deployment.
+   */
+  public void remove(String deploymentId) {
+    File deploymentDirectory = getDeploymentDirectory(deploymentId);
+    File[] files = deploymentDirectory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    deploymentDirectory.delete();
+  }
+
+  protected void writeHeader(DataOutput out, ResourceEntity resource) throws IOException {
+    byte[] bytes = resource.getBytes();
+    out.writeInt(SNAPSHOT_MAGIC);
+    out.writeUTF(ProcessEngine.VERSION);
+    out.writeUTF(resource.getName());
+    out.writeInt(bytes.length);
+    out.writeLong(checksum(bytes));
+  }
+
+  protected boolean readHeader(DataInput in, ResourceEntity resource) throws IOException {
+    byte[] bytes = resource.getBytes();
+    return in.readInt() == SNAPSHOT_MAGIC
+        && ProcessEngine.VERSION.equals(in.readUTF())
+        && resource.getName().equals(in.readUTF())
+        && in.readInt() == bytes.length
+        && in.readLong() == checksum(bytes);
+  }
+
+  protected long checksum(byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return crc.getValue();
+  }
+
+  protected File getDeploymentDirectory(String deploymentId) {
+    return new File(directory, toFileName(deploymentId));
+  }
+
+  protected File getSnapshotFile(String deploymentId, String resourceName) {
+    // The resource name is also stored in the snapshot, so names mapping to the same file are told apart
+    return new File(getDeploymentDirectory(deploymentId), toFileName(resourceName) + SNAPSHOT_SUFFIX);
+  }
+
+  protected String toFileName(String name) {
+    return name.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  protected void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // Nothing to do
+      }
+    }
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Resolves the classes of the model with the class loader the engine uses, as custom model classes can be contributed.
+   * 
+   * Only the model classes and the JDK classes they use for their fields can be read: the snapshot directory is outside of the database,
+   * so a snapshot file that was tampered with must not be able to instantiate any other serializable class on the classpath.
+   */
+  protected static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+    protected static final String MODEL_PACKAGE_PREFIX = BpmnModel.class.getPackage().getName() + ".";
+
+    protected static final Set<String> ALLOWED_JDK_CLASSES = new HashSet<String>(Arrays.asList(
+        String.class.getName(), Boolean.class.getName(), Number.class.getName(), Integer.class.getName(), Long.class.getName(),
+        Double.class.getName(), Enum.class.getName(), Date.class.getName(), ArrayList.class.getName(), 
+        HashMap.class.getName(), LinkedHashMap.class.getName(), HashSet.class.getName(), LinkedHashSet.class.getName()));
+
+    public ClassLoaderObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      if (!isAllowedClass(desc.getName())) {
+        throw new InvalidClassException(desc.getName(), "class is not allowed in a BPMN model snapshot");
+      }
+      try {
+        return ReflectUtil.loadClass(desc.getName());
+      } catch (RuntimeException e) {
+        return super.resolveClass(desc);
+      }
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+      throw new InvalidClassException("proxy classes are not allowed in a BPMN model snapshot");
+    }
+
+    protected boolean isAllowedClass(String className) {
+      String componentClassName = className;
+      if (componentClassName.startsWith("[")) {
+        // Arrays: allowed when they are primitive arrays or when their component class is allowed
+        componentClassName = componentClassName.replaceFirst("^\\[+", "");
+        if (!componentClassName.startsWith("L")) {
+          return componentClassName.length() == 1;
+        }
+        componentClassName = componentClassName.substring(1, componentClassName.length() - 1);
+      }
+      return componentClassName.startsWith(MODEL_PACKAGE_PREFIX) || ALLOWED_JDK_CLASSES.contains(componentClassName);
+    }
+  }
+
+}
@@ -18,6 +18,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.Process;
 import org.activiti.engine.ActivitiException;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
+import org.activiti.engine.impl.agenda.ProcessExecutionPlan;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
@@ -52,8 +54,14 @@ public class CachingAndArtifactsManager {
       BpmnModel bpmnModel = parsedDeployment.getBpmnModelForProcessDefinition(processDefinition);
       Process process = parsedDeployment.getProcessModelForProcessDefinition(processDefinition);
       ProcessDefinitionCacheEntry cacheEntry = new ProcessDefinitionCacheEntry(processDefinition, bpmnModel, process);
+      cacheEntry.setExecutionPlan(new ProcessExecutionPlan(process, processEngineConfiguration.getExpressionManager()));
       processDefinitionCache.add(processDefinition.getId(), cacheEntry);
       addDefinitionInfoToCache(processDefinition, processEngineConfiguration, commandContext);
+
+      // The types of the listeners of the process definition were registered while parsing it
+      if (processEngineConfiguration.getEventDispatcher() instanceof ActivitiEventDispatcherImpl) {
+        ((ActivitiEventDispatcherImpl) processEngineConfiguration.getEventDispatcher()).addParsedProcessDefinition(processDefinition.getId());
+      }
     
       // Add to deployment for further usage
       deployment.addDeployedArtifact(processDefinition);
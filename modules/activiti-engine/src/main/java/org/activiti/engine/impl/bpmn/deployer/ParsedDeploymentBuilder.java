@@ -14,16 +14,36 @@ package org.activiti.engine.impl.bpmn.deployer;
 
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.impl.DeploymentQueryImpl;
+import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.bpmn.parser.BpmnParse;
 import org.activiti.engine.impl.bpmn.parser.BpmnParser;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.TransactionContext;
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cfg.TransactionState;
 import org.activiti.engine.impl.cmd.DeploymentSettings;
+import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.activiti.engine.impl.persistence.entity.ResourceEntity;
+import org.activiti.engine.repository.Deployment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +55,28 @@ public class ParsedDeploymentBuilder {
   protected BpmnParser bpmnParser;
   protected Map<String, Object> deploymentSettings;
 
+  /** When set, the BPMN resources are parsed concurrently on this pool. */
+  protected ForkJoinPool parsePool;
+
+  /** 
+   * When true, resources equal to the same resource of the previous deployment with the same name and tenant aren't validated again,
+   * provided that resource was validated. 
+   */
+  protected boolean skipValidationOfUnchangedResources;
+
+  /** 
+   * The id of the latest deployment in which the resource was validated, by tenant id, deployment name and resource name. 
+   * Shared by the builders of the engine, see {@link ParsedDeploymentBuilderFactory}.
+   */
+  protected Map<List<String>, String> validatedResourceDeploymentIds;
+
+  protected Set<String> unchangedResourceNames = Collections.emptySet();
+
+  /** When set, the converted models are kept as snapshots, which are used instead of the XML when the deployment is parsed again. */
+  protected BpmnModelSnapshotCache bpmnModelSnapshotCache;
+
+  protected Set<String> restoredResourceNames = Collections.synchronizedSet(new HashSet<String>());
+
   public ParsedDeploymentBuilder(DeploymentEntity deployment, 
       BpmnParser bpmnParser, Map<String, Object> deploymentSettings) {
     this.deployment = deployment;
@@ -49,22 +91,216 @@ public class ParsedDeploymentBuilder {
     Map<ProcessDefinitionEntity, ResourceEntity> processDefinitionsToResourceMap 
       = new LinkedHashMap<ProcessDefinitionEntity, ResourceEntity>();
 
+    List<ResourceEntity> bpmnResources = new ArrayList<ResourceEntity>();
     for (ResourceEntity resource : deployment.getResources().values()) {
       if (isBpmnResource(resource.getName())) {
+        bpmnResources.add(resource);
+      }
+    }
+
+    if (skipValidationOfUnchangedResources && deploymentSettings != null) {
+      unchangedResourceNames = findUnchangedResourceNames(bpmnResources);
+    }
+
+    List<BpmnParse> parses = null;
+    if (parsePool != null && bpmnResources.size() > 1) {
+      parses = createBpmnParsesInParallel(bpmnResources);
+    } else {
+      parses = new ArrayList<BpmnParse>(bpmnResources.size());
+      for (ResourceEntity resource : bpmnResources) {
         log.debug("Processing BPMN resource {}", resource.getName());
-        BpmnParse parse = createBpmnParseFromResource(resource);
-        for (ProcessDefinitionEntity processDefinition : parse.getProcessDefinitions()) {
-          processDefinitions.add(processDefinition);
-          processDefinitionsToBpmnParseMap.put(processDefinition, parse);
-          processDefinitionsToResourceMap.put(processDefinition, resource);
-        }
+        parses.add(createBpmnParseFromResource(resource));
+      }
+    }
+
+    for (int i = 0; i < bpmnResources.size(); i++) {
+      ResourceEntity resource = bpmnResources.get(i);
+      BpmnParse parse = parses.get(i);
+      for (ProcessDefinitionEntity processDefinition : parse.getProcessDefinitions()) {
+        processDefinitions.add(processDefinition);
+        processDefinitionsToBpmnParseMap.put(processDefinition, parse);
+        processDefinitionsToResourceMap.put(processDefinition, resource);
       }
     }
 
+    if (bpmnModelSnapshotCache != null) {
+      storeBpmnModelSnapshots(bpmnResources, parses);
+    }
+
+    if (skipValidationOfUnchangedResources && deploymentSettings != null) {
+      storeValidatedResources(bpmnResources, parses);
+    }
+
     return new ParsedDeployment(deployment, processDefinitions, 
         processDefinitionsToBpmnParseMap, processDefinitionsToResourceMap);
   }
 
+  /**
+   * Parses the resources on the parse pool, returning the parses in the order of the resources.
+   * 
+   * Parsing doesn't touch the database, so the pool threads only get the process engine configuration and the context class loader:
+   * the command context of the deployment isn't thread-safe and isn't shared with them.
+   * The first failure is rethrown on the calling thread.
+   */
+  protected List<BpmnParse> createBpmnParsesInParallel(List<ResourceEntity> resources) {
+    final ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+    List<Callable<BpmnParse>> parseTasks = new ArrayList<Callable<BpmnParse>>(resources.size());
+    for (final ResourceEntity resource : resources) {
+      parseTasks.add(new Callable<BpmnParse>() {
+
+        public BpmnParse call() {
+          Thread currentThread = Thread.currentThread();
+          ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+          currentThread.setContextClassLoader(contextClassLoader);
+          if (processEngineConfiguration != null) {
+            Context.setProcessEngineConfiguration(processEngineConfiguration);
+          }
+          try {
+            log.debug("Processing BPMN resource {}", resource.getName());
+            return createBpmnParseFromResource(resource);
+
+          } finally {
+            if (processEngineConfiguration != null) {
+              Context.removeProcessEngineConfiguration();
+            }
+            currentThread.setContextClassLoader(originalClassLoader);
+          }
+        }
+
+      });
+    }
+
+    List<Future<BpmnParse>> futures = parsePool.invokeAll(parseTasks);
+    List<BpmnParse> parses = new ArrayList<BpmnParse>(futures.size());
+    for (Future<BpmnParse> future : futures) {
+      try {
+        parses.add(future.get());
+
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new ActivitiException("Error parsing deployment " + deployment.getName(), cause);
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ActivitiException("Interrupted while parsing deployment " + deployment.getName(), e);
+      }
+    }
+    return parses;
+  }
+
+  /**
+   * Writes the snapshots of the models that were converted from the XML. For a new deployment, this is done when the
+   * deployment transaction is committed, so no snapshots are left behind for a deployment that is rolled back.
+   */
+  protected void storeBpmnModelSnapshots(List<ResourceEntity> resources, List<BpmnParse> parses) {
+    final Map<ResourceEntity, BpmnModel> bpmnModels = new LinkedHashMap<ResourceEntity, BpmnModel>();
+    for (int i = 0; i < resources.size(); i++) {
+      ResourceEntity resource = resources.get(i);
+      if (!restoredResourceNames.contains(resource.getName())) {
+        bpmnModels.put(resource, parses.get(i).getBpmnModel());
+      }
+    }
+    if (bpmnModels.isEmpty()) {
+      return;
+    }
+
+    TransactionContext transactionContext = Context.getTransactionContext();
+    if (deployment.isNew() && transactionContext != null) {
+      transactionContext.addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          writeBpmnModelSnapshots(bpmnModels);
+        }
+      });
+    } else {
+      writeBpmnModelSnapshots(bpmnModels);
+    }
+  }
+
+  protected void writeBpmnModelSnapshots(Map<ResourceEntity, BpmnModel> bpmnModels) {
+    for (Map.Entry<ResourceEntity, BpmnModel> entry : bpmnModels.entrySet()) {
+      bpmnModelSnapshotCache.put(deployment, entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Remembers the resources that were validated (or were unchanged since a validated deployment), once the deployment is committed.
+   */
+  protected void storeValidatedResources(List<ResourceEntity> resources, List<BpmnParse> parses) {
+    final List<String> validatedResourceNames = new ArrayList<String>();
+    for (int i = 0; i < resources.size(); i++) {
+      BpmnParse parse = parses.get(i);
+      String resourceName = resources.get(i).getName();
+      if ((parse.isValidateSchema() && parse.isValidateProcess()) || unchangedResourceNames.contains(resourceName)) {
+        validatedResourceNames.add(resourceName);
+      }
+    }
+    if (validatedResourceNames.isEmpty() || deployment.getName() == null || validatedResourceDeploymentIds == null) {
+      return;
+    }
+
+    TransactionContext transactionContext = Context.getTransactionContext();
+    if (transactionContext != null) {
+      transactionContext.addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          for (String resourceName : validatedResourceNames) {
+            validatedResourceDeploymentIds.put(getValidatedResourceKey(deployment, resourceName), deployment.getId());
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the names of the resources that have the same bytes as the resource with the same name in the
+   * latest previous deployment with the same name and tenant, when that resource was validated.
+   * 
+   * Only the validations done by this engine since it was started are known, so an unchanged resource is validated 
+   * again after a restart or when the previous deployment was done by another engine.
+   */
+  protected Set<String> findUnchangedResourceNames(List<ResourceEntity> resources) {
+    CommandContext commandContext = Context.getCommandContext();
+    if (deployment.getName() == null || commandContext == null || resources.isEmpty() || validatedResourceDeploymentIds == null) {
+      return Collections.emptySet();
+    }
+
+    DeploymentQueryImpl deploymentQuery = new DeploymentQueryImpl().deploymentName(deployment.getName());
+    if (deployment.getTenantId() == null || ProcessEngineConfiguration.NO_TENANT_ID.equals(deployment.getTenantId())) {
+      deploymentQuery.deploymentWithoutTenantId();
+    } else {
+      deploymentQuery.deploymentTenantId(deployment.getTenantId());
+    }
+    deploymentQuery.orderByDeploymenTime().desc();
+    List<Deployment> previousDeployments = commandContext.getDeploymentEntityManager().findDeploymentsByQueryCriteria(deploymentQuery, new Page(0, 1));
+    if (previousDeployments.isEmpty() || previousDeployments.get(0).getId().equals(deployment.getId())) {
+      return Collections.emptySet();
+    }
+
+    DeploymentEntity previousDeployment = (DeploymentEntity) previousDeployments.get(0);
+    Map<String, ResourceEntity> previousResources = previousDeployment.getResources();
+    Set<String> unchangedResourceNames = new HashSet<String>();
+    for (ResourceEntity resource : resources) {
+      ResourceEntity previousResource = previousResources.get(resource.getName());
+      if (previousResource != null 
+          && previousDeployment.getId().equals(validatedResourceDeploymentIds.get(getValidatedResourceKey(deployment, resource.getName())))
+          && Arrays.equals(resource.getBytes(), previousResource.getBytes())) {
+        unchangedResourceNames.add(resource.getName());
+      }
+    }
+    return unchangedResourceNames;
+  }
+
+  protected List<String> getValidatedResourceKey(DeploymentEntity deployment, String resourceName) {
+    String tenantId = deployment.getTenantId() != null ? deployment.getTenantId() : ProcessEngineConfiguration.NO_TENANT_ID;
+    return Arrays.asList(tenantId, deployment.getName(), resourceName);
+  }
+
   protected BpmnParse createBpmnParseFromResource(ResourceEntity resource) {
     String resourceName = resource.getName();
     ByteArrayInputStream inputStream = new ByteArrayInputStream(resource.getBytes());
@@ -75,7 +311,13 @@ public class ParsedDeploymentBuilder {
         .deployment(deployment)
         .name(resourceName);
 
-    if (deploymentSettings != null) {
+    if (deploymentSettings != null && unchangedResourceNames.contains(resourceName)) {
+      // Validated when the previous deployment was done
+      log.debug("Skipping validation of unchanged BPMN resource {}", resourceName);
+      bpmnParse.setValidateSchema(false);
+      bpmnParse.setValidateProcess(false);
+
+    } else if (deploymentSettings != null) {
 
       // Schema validation if needed
       if (deploymentSettings.containsKey(DeploymentSettings.IS_BPMN20_XSD_VALIDATION_ENABLED)) {
@@ -91,6 +333,15 @@ public class ParsedDeploymentBuilder {
       // On redeploy, we assume it is validated at the first deploy
       bpmnParse.setValidateSchema(false);
       bpmnParse.setValidateProcess(false);
+
+      if (bpmnModelSnapshotCache != null) {
+        BpmnModel bpmnModel = bpmnModelSnapshotCache.get(deployment, resource);
+        if (bpmnModel != null) {
+          log.debug("Using the BPMN model snapshot of resource {}", resourceName);
+          bpmnParse.setBpmnModel(bpmnModel);
+          restoredResourceNames.add(resourceName);
+        }
+      }
     }
     
     bpmnParse.execute();
@@ -107,4 +358,36 @@ public class ParsedDeploymentBuilder {
     return false;
   }
 
+  public ForkJoinPool getParsePool() {
+    return parsePool;
+  }
+
+  public void setParsePool(ForkJoinPool parsePool) {
+    this.parsePool = parsePool;
+  }
+
+  public BpmnModelSnapshotCache getBpmnModelSnapshotCache() {
+    return bpmnModelSnapshotCache;
+  }
+
+  public void setBpmnModelSnapshotCache(BpmnModelSnapshotCache bpmnModelSnapshotCache) {
+    this.bpmnModelSnapshotCache = bpmnModelSnapshotCache;
+  }
+
+  public Map<List<String>, String> getValidatedResourceDeploymentIds() {
+    return validatedResourceDeploymentIds;
+  }
+
+  public void setValidatedResourceDeploymentIds(Map<List<String>, String> validatedResourceDeploymentIds) {
+    this.validatedResourceDeploymentIds = validatedResourceDeploymentIds;
+  }
+
+  public boolean isSkipValidationOfUnchangedResources() {
+    return skipValidationOfUnchangedResources;
+  }
+
+  public void setSkipValidationOfUnchangedResources(boolean skipValidationOfUnchangedResources) {
+    this.skipValidationOfUnchangedResources = skipValidationOfUnchangedResources;
+  }
+
 }
\ No newline at end of file
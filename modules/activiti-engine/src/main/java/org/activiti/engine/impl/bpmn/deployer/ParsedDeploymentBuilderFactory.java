@@ -12,7 +12,10 @@
  */
 package org.activiti.engine.impl.bpmn.deployer;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.activiti.engine.impl.bpmn.parser.BpmnParser;
 import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
@@ -20,6 +23,12 @@ import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
 public class ParsedDeploymentBuilderFactory {
 
   protected BpmnParser bpmnParser;
+  protected ForkJoinPool parsePool;
+  protected boolean skipValidationOfUnchangedResources;
+  protected BpmnModelSnapshotCache bpmnModelSnapshotCache;
+
+  /** The deployments in which resources were validated, see {@link ParsedDeploymentBuilder#getValidatedResourceDeploymentIds()} */
+  protected Map<List<String>, String> validatedResourceDeploymentIds = new ConcurrentHashMap<List<String>, String>();
 
   public BpmnParser getBpmnParser() {
     return bpmnParser;
@@ -35,7 +44,35 @@ public class ParsedDeploymentBuilderFactory {
 
   public ParsedDeploymentBuilder getBuilderForDeploymentAndSettings(DeploymentEntity deployment,
       Map<String, Object> deploymentSettings) {
-    return new ParsedDeploymentBuilder(deployment, bpmnParser, deploymentSettings);
+    ParsedDeploymentBuilder parsedDeploymentBuilder = new ParsedDeploymentBuilder(deployment, bpmnParser, deploymentSettings);
+    parsedDeploymentBuilder.setParsePool(parsePool);
+    parsedDeploymentBuilder.setSkipValidationOfUnchangedResources(skipValidationOfUnchangedResources);
+    parsedDeploymentBuilder.setValidatedResourceDeploymentIds(validatedResourceDeploymentIds);
+    parsedDeploymentBuilder.setBpmnModelSnapshotCache(bpmnModelSnapshotCache);
+    return parsedDeploymentBuilder;
+  }
+
+  public ForkJoinPool getParsePool() {
+    return parsePool;
+  }
+
+  public void setParsePool(ForkJoinPool parsePool) {
+    this.parsePool = parsePool;
+  }
+
+  public boolean isSkipValidationOfUnchangedResources() {
+    return skipValidationOfUnchangedResources;
+  }
+
+  public void setSkipValidationOfUnchangedResources(boolean skipValidationOfUnchangedResources) {
+    this.skipValidationOfUnchangedResources = skipValidationOfUnchangedResources;
+  }
+
+  public BpmnModelSnapshotCache getBpmnModelSnapshotCache() {
+    return bpmnModelSnapshotCache;
+  }
+
+  public void setBpmnModelSnapshotCache(BpmnModelSnapshotCache bpmnModelSnapshotCache) {
+    this.bpmnModelSnapshotCache = bpmnModelSnapshotCache;
   }
-  
-}
\ No newline at end of file
+}
@@ -36,6 +36,7 @@ import org.activiti.bpmn.model.SequenceFlow;
 import org.activiti.bpmn.model.SubProcess;
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
 import org.activiti.engine.delegate.event.impl.ActivitiEventSupport;
 import org.activiti.engine.impl.bpmn.parser.factory.ActivityBehaviorFactory;
 import org.activiti.engine.impl.bpmn.parser.factory.ListenerFactory;
@@ -144,10 +145,13 @@ public class BpmnParse implements BpmnXMLConstants {
         encoding = processEngineConfiguration.getXmlEncoding();
       }
 
-      if (encoding != null) {
-        bpmnModel = converter.convertToBpmnModel(streamSource, validateSchema, enableSafeBpmnXml, encoding);
-      } else {
-        bpmnModel = converter.convertToBpmnModel(streamSource, validateSchema, enableSafeBpmnXml);
+      // A model that was set up front (eg. restored from a snapshot) is used as is
+      if (bpmnModel == null) {
+        if (encoding != null) {
+          bpmnModel = converter.convertToBpmnModel(streamSource, validateSchema, enableSafeBpmnXml, encoding);
+        } else {
+          bpmnModel = converter.convertToBpmnModel(streamSource, validateSchema, enableSafeBpmnXml);
+        }
       }
 
       // XSD validation goes first, then process/semantic validation
@@ -187,7 +191,7 @@ public class BpmnParse implements BpmnXMLConstants {
       }
       
       bpmnModel.setSourceSystemId(sourceSystemId);
-      bpmnModel.setEventSupport(new ActivitiEventSupport());
+      bpmnModel.setEventSupport(createEventSupport());
 
       // Validation successful (or no validation)
 
@@ -210,6 +214,18 @@ public class BpmnParse implements BpmnXMLConstants {
     return this;
   }
 
+  /**
+   * Creates the support for the event listeners defined in the processes, linked to the event dispatcher 
+   * of the engine so it knows which types of events these listeners are interested in.
+   */
+  protected ActivitiEventSupport createEventSupport() {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    if (processEngineConfiguration != null && processEngineConfiguration.getEventDispatcher() instanceof ActivitiEventDispatcherImpl) {
+      return ((ActivitiEventDispatcherImpl) processEngineConfiguration.getEventDispatcher()).createProcessDefinitionEventSupport();
+    }
+    return new ActivitiEventSupport();
+  }
+
   public BpmnParse name(String name) {
     this.name = name;
     return this;
@@ -23,7 +23,9 @@ import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventSupport;
 import org.activiti.engine.impl.bpmn.parser.BpmnParse;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +51,11 @@ public class ProcessParseHandler extends AbstractBpmnParseHandler<Process> {
   }
 
   protected ProcessDefinitionEntity transformProcess(BpmnParse bpmnParse, Process process) {
-    ProcessDefinitionEntity currentProcessDefinition = Context.getCommandContext().getProcessDefinitionEntityManager().create();
+    // The threads of the deployment parse pool only have the process engine configuration, not the command context
+    CommandContext commandContext = Context.getCommandContext();
+    ProcessDefinitionEntityManager processDefinitionEntityManager = commandContext != null 
+        ? commandContext.getProcessDefinitionEntityManager() : Context.getProcessEngineConfiguration().getProcessDefinitionEntityManager();
+    ProcessDefinitionEntity currentProcessDefinition = processDefinitionEntityManager.create();
     bpmnParse.setCurrentProcessDefinition(currentProcessDefinition);
 
     /*
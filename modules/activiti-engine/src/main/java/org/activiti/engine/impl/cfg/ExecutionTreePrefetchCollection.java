@@ -0,0 +1,35 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cfg;
+
+/**
+ * The collections of an execution that can be prefetched for the whole execution tree
+ * when eager execution tree fetching is enabled.
+ * 
+ * @see PerformanceSettings#getExecutionTreePrefetchCollections()
+ */
+public enum ExecutionTreePrefetchCollection {
+
+  VARIABLES,
+
+  TASKS,
+
+  JOBS,
+
+  TIMER_JOBS,
+
+  EVENT_SUBSCRIPTIONS,
+
+  IDENTITY_LINKS
+
+}
@@ -12,6 +12,9 @@
  */
 package org.activiti.engine.impl.cfg;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * @author Joram Barrez
  */
@@ -50,6 +53,29 @@ public class PerformanceSettings {
    */
   protected boolean enableLocalization = true;
 
+  /**
+   * Experimental setting: when a task, process instance or historic task query includes variables,
+   * the instances are queried (and paged) by the database first, after which their variables are fetched
+   * with one query per {@link #queryVariablesFetchChunkSize} instance ids.
+   * 
+   * When false, the variables are outer joined to the instances, which returns a row per variable.
+   * The paging is then done in memory and the number of rows is capped by the task query limit,
+   * silently leaving out instances and variables above that limit.
+   */
+  protected boolean enableTwoPhaseQueryVariablesFetch;
+
+  /**
+   * The maximum number of ids in the 'in' clause of one variable query of the two phase fetch.
+   */
+  protected int queryVariablesFetchChunkSize = 500;
+
+  /**
+   * Experimental setting: the collections (variables, tasks, jobs, ...) that are fetched for all executions
+   * of an execution tree together with the tree itself, one query per collection, instead of one query
+   * per execution when the collection is first accessed. Only used when {@link #enableEagerExecutionTreeFetching} is true.
+   */
+  protected Set<ExecutionTreePrefetchCollection> executionTreePrefetchCollections = EnumSet.noneOf(ExecutionTreePrefetchCollection.class);
+
   public boolean isEnableEagerExecutionTreeFetching() {
     return enableEagerExecutionTreeFetching;
   }
@@ -82,4 +108,28 @@ public class PerformanceSettings {
     this.enableLocalization = enableLocalization;
   }
 
+  public boolean isEnableTwoPhaseQueryVariablesFetch() {
+    return enableTwoPhaseQueryVariablesFetch;
+  }
+
+  public void setEnableTwoPhaseQueryVariablesFetch(boolean enableTwoPhaseQueryVariablesFetch) {
+    this.enableTwoPhaseQueryVariablesFetch = enableTwoPhaseQueryVariablesFetch;
+  }
+
+  public int getQueryVariablesFetchChunkSize() {
+    return queryVariablesFetchChunkSize;
+  }
+
+  public void setQueryVariablesFetchChunkSize(int queryVariablesFetchChunkSize) {
+    this.queryVariablesFetchChunkSize = queryVariablesFetchChunkSize;
+  }
+
+  public Set<ExecutionTreePrefetchCollection> getExecutionTreePrefetchCollections() {
+    return executionTreePrefetchCollections;
+  }
+
+  public void setExecutionTreePrefetchCollections(Set<ExecutionTreePrefetchCollection> executionTreePrefetchCollections) {
+    this.executionTreePrefetchCollections = executionTreePrefetchCollections;
+  }
+
 }
@@ -43,7 +43,9 @@ import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.DbIdGenerator;
 import org.activiti.engine.impl.db.DbSqlSessionFactory;
 import org.activiti.engine.impl.db.IbatisVariableTypeHandler;
+import org.activiti.engine.impl.db.SnowflakeIdGenerator;
 import org.activiti.engine.impl.delegate.invocation.DefaultDelegateInterceptor;
+import org.activiti.engine.impl.el.ExpressionCache;
 import org.activiti.engine.impl.el.ExpressionManager;
 import org.activiti.engine.impl.event.CompensationEventHandler;
 import org.activiti.engine.impl.event.EventHandler;
@@ -51,6 +53,7 @@ import org.activiti.engine.impl.event.MessageEventHandler;
 import org.activiti.engine.impl.event.SignalEventHandler;
 import org.activiti.engine.impl.event.logger.EventLogger;
 import org.activiti.engine.impl.form.*;
+import org.activiti.engine.impl.history.AsyncHistoryManager;
 import org.activiti.engine.impl.history.DefaultHistoryManager;
 import org.activiti.engine.impl.history.HistoryLevel;
 import org.activiti.engine.impl.history.HistoryManager;
@@ -59,6 +62,10 @@ import org.activiti.engine.impl.jobexecutor.*;
 import org.activiti.engine.impl.persistence.GenericManagerFactory;
 import org.activiti.engine.impl.persistence.cache.EntityCache;
 import org.activiti.engine.impl.persistence.cache.EntityCacheImpl;
+import org.activiti.engine.impl.persistence.cache.EntityCacheSessionFactory;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCache;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCacheEvictionPolicy;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCachePolicy;
 import org.activiti.engine.impl.persistence.deploy.*;
 import org.activiti.engine.impl.persistence.entity.*;
 import org.activiti.engine.impl.persistence.entity.data.*;
@@ -92,6 +99,7 @@ import org.slf4j.LoggerFactory;
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
 import javax.xml.namespace.QName;
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -105,6 +113,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Tom Baeyens
@@ -127,12 +136,12 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   // SERVICES /////////////////////////////////////////////////////////////////
 
   protected RepositoryService repositoryService = new RepositoryServiceImpl();
-  protected RuntimeService runtimeService = new RuntimeServiceImpl();
+  protected RuntimeService runtimeService = new RuntimeServiceImpl(this);
   protected HistoryService historyService = new HistoryServiceImpl(this);
   protected IdentityService identityService = new IdentityServiceImpl();
   protected TaskService taskService = new TaskServiceImpl(this);
   protected FormService formService = new FormServiceImpl();
-  protected ManagementService managementService = new ManagementServiceImpl();
+  protected ManagementService managementService = new ManagementServiceImpl(this);
   protected DynamicBpmnService dynamicBpmnService = new DynamicBpmnServiceImpl(this);
 
   // FORM ENGINE SERVICES /////////////////////////////////////////////////////
@@ -233,6 +242,13 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   protected HistoryManager historyManager;
 
+  /**
+   * If set to true, an {@link AsyncHistoryManager} is used: historic activity instances, variables and variable details 
+   * are then written by the async executor, in batches per process instance, instead of in the transaction 
+   * that changes the runtime state. Default false.
+   */
+  protected boolean enableAsyncHistory;
+
   // Job Manager
 
   protected JobManager jobManager;
@@ -254,6 +270,37 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected BpmnDeployer bpmnDeployer;
   protected BpmnParser bpmnParser;
   protected ParsedDeploymentBuilderFactory parsedDeploymentBuilderFactory;
+
+  /**
+   * The number of threads that parse and validate the BPMN resources of one deployment concurrently.
+   * With the default of 1, the resources are parsed one by one on the deploying thread.
+   * When above 1, the parse handlers run without a command context, so custom parse handlers can't use {@link Context#getCommandContext()}.
+   */
+  protected int deploymentParseParallelism = 1;
+
+  /**
+   * The pool that parses the BPMN resources of a deployment, created with {@link #deploymentParseParallelism} threads
+   * when not set. The pool is shut down when the process engine is closed.
+   */
+  protected ForkJoinPool deploymentParsePool;
+
+  /**
+   * When true, a BPMN resource with the same bytes as the resource with the same name in the previous deployment
+   * with the same name and tenant isn't validated again, when this engine validated that resource. 
+   * After a restart, or when the previous deployment was done by another engine, the resource is validated again.
+   */
+  protected boolean skipValidationOfUnchangedDeploymentResources;
+
+  /**
+   * The directory in which the models converted from the BPMN resources are kept as snapshots. When a deployment is
+   * parsed again (eg. after a restart), the snapshots written by the same engine version are used instead of the XML.
+   * Can be shared between the engines of a cluster. When null (the default), no snapshots are kept.
+   */
+  protected String bpmnModelSnapshotDirectory;
+
+  /** The snapshot cache used for the {@link #bpmnModelSnapshotDirectory}, created when not set. */
+  protected BpmnModelSnapshotCache bpmnModelSnapshotCache;
+
   protected TimerManager timerManager;
   protected EventSubscriptionManager eventSubscriptionManager;
   protected BpmnDeploymentHelper bpmnDeploymentHelper;
@@ -265,14 +312,40 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected DeploymentManager deploymentManager;
 
   protected int processDefinitionCacheLimit = -1; // By default, no limit
+
+  /**
+   * When set, the process definition cache is a {@link ConcurrentDeploymentCache} that evicts the least recently used 
+   * process definitions once the total weight of the cached ones exceeds this, as weighed by the 
+   * {@link #processDefinitionCacheWeigher}. Takes precedence over the {@link #processDefinitionCacheLimit}. By default, no limit.
+   */
+  protected long processDefinitionCacheMaxWeight = -1;
+  protected DeploymentCacheWeigher<ProcessDefinitionCacheEntry> processDefinitionCacheWeigher; // By default a ProcessDefinitionCacheEntryWeigher
   protected DeploymentCache<ProcessDefinitionCacheEntry> processDefinitionCache;
 
   protected int processDefinitionInfoCacheLimit = -1; // By default, no limit
   protected ProcessDefinitionInfoCache processDefinitionInfoCache;
 
+  /**
+   * When set, the engines sharing the database tell each other which process definitions and process definition infos 
+   * changed, so those are evicted from the caches. The process definition info cache then no longer checks the revision 
+   * in the database on every access. See {@link DbPollingDeploymentCacheInvalidationChannel}.
+   */
+  protected DeploymentCacheInvalidationChannel deploymentCacheInvalidationChannel;
+
   protected int knowledgeBaseCacheLimit = -1;
   protected DeploymentCache<Object> knowledgeBaseCache;
 
+  /**
+   * If set to true, entities that are looked up by id are also cached in a {@link SharedEntityCache} 
+   * that is shared by all commands, as determined by the {@link #sharedEntityCachePolicies}. Default false.
+   * Only enable this when no other process engine changes the cached entity types in the same database.
+   */
+  protected boolean enableSharedEntityCache;
+  protected SharedEntityCache sharedEntityCache;
+  protected Map<Class<?>, SharedEntityCachePolicy> sharedEntityCachePolicies; // By default SharedEntityCache.getDefaultPolicies()
+  protected int sharedEntityCacheLimit = 1000; // Per entity type
+  protected SharedEntityCacheEvictionPolicy sharedEntityCacheEvictionPolicy = SharedEntityCacheEvictionPolicy.LRU;
+
   // JOB EXECUTOR /////////////////////////////////////////////////////////////
 
   protected List<JobHandler> customJobHandlers;
@@ -373,6 +446,124 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
    */
   protected int asyncExecutorMaxAsyncJobsDuePerAcquisition = 1;
 
+  /**
+   * How the async job acquisition thread claims the jobs it fetched. See
+   * {@link AsyncJobAcquisitionStrategy}. Default value = optimistic locking.
+   *
+   * Use {@link AsyncJobAcquisitionStrategy#SKIP_LOCKED} or
+   * {@link AsyncJobAcquisitionStrategy#CLAIM_UPDATE} when many async executors
+   * acquire against the same database with
+   * {@link #asyncExecutorMaxAsyncJobsDuePerAcquisition} larger than 1.
+   *
+   * (This property is only applicable when using the
+   * {@link DefaultAsyncJobExecutor}).
+   */
+  protected AsyncJobAcquisitionStrategy asyncExecutorAsyncJobAcquisitionStrategy = AsyncJobAcquisitionStrategy.OPTIMISTIC_LOCKING;
+
+  /**
+   * Whether the database supports the row lock clause of {@link AsyncJobAcquisitionStrategy#SKIP_LOCKED}
+   * (eg. MySQL 8.0 and Postgres 9.5 or later). When not set, it is determined from the database metadata
+   * at startup if that strategy is used. Without support, the default acquisition query is used.
+   */
+  protected Boolean skipLockedSupported;
+
+  /**
+   * When true, the acquisition threads adapt the number of jobs fetched per query
+   * to the free capacity of the async executor queue (up to
+   * {@link #asyncExecutorMaxAdaptiveJobsPerAcquisition}), back off exponentially
+   * (from {@link #asyncExecutorMinAdaptiveAcquireWaitTime} to
+   * {@link #asyncExecutorMaxAdaptiveAcquireWaitTime}) when no jobs are found or
+   * when another executor locked the same jobs, and the async job acquisition
+   * thread is woken up as soon as a new async job is created. The fixed
+   * acquisition sizes and wait times are ignored then. Default value = false.
+   *
+   * (This property is only applicable when using the
+   * {@link DefaultAsyncJobExecutor}).
+   */
+  protected boolean asyncExecutorAdaptiveJobAcquisition;
+
+  /**
+   * The maximum number of jobs fetched per query when
+   * {@link #asyncExecutorAdaptiveJobAcquisition} is enabled. Default value = 50.
+   */
+  protected int asyncExecutorMaxAdaptiveJobsPerAcquisition = 50;
+
+  /**
+   * The first back off step (in milliseconds) when
+   * {@link #asyncExecutorAdaptiveJobAcquisition} is enabled. Default value =
+   * 100 milliseconds.
+   */
+  protected int asyncExecutorMinAdaptiveAcquireWaitTime = 100;
+
+  /**
+   * The longest back off (in milliseconds) when
+   * {@link #asyncExecutorAdaptiveJobAcquisition} is enabled. The timer job
+   * acquisition thread never waits longer than
+   * {@link #asyncExecutorDefaultTimerJobAcquireWaitTime}. Default value = 60
+   * seconds.
+   */
+  protected int asyncExecutorMaxAdaptiveAcquireWaitTime = 60 * 1000;
+
+  /**
+   * Experimental setting: when true, the timer jobs due within the next
+   * {@link #asyncExecutorTimerWheelLookahead} are fetched with one query per
+   * lookahead window, locked for this node and kept in an in-memory timer wheel.
+   * They are moved to executable jobs in batches as soon as they are due, instead
+   * of being polled for every {@link #asyncExecutorDefaultTimerJobAcquireWaitTime}.
+   * Timer jobs created by other nodes are picked up with the next refill. Default value = false.
+   *
+   * (This property is only applicable when using the
+   * {@link DefaultAsyncJobExecutor}).
+   */
+  protected boolean asyncExecutorTimerWheelEnabled;
+
+  /**
+   * The lookahead window (in milliseconds) of the timer wheel, see
+   * {@link #asyncExecutorTimerWheelEnabled}. Default value = 60 seconds.
+   */
+  protected int asyncExecutorTimerWheelLookahead = 60 * 1000;
+
+  /**
+   * The maximum number of timer jobs kept in the timer wheel, see
+   * {@link #asyncExecutorTimerWheelEnabled}. The timer jobs due later are left
+   * in the database for the next refill. Default value = 10000.
+   */
+  protected int asyncExecutorTimerWheelMaxSize = 10000;
+
+  /**
+   * Experimental setting: when true, the process instances are spread over
+   * {@link #asyncExecutorJobPartitionCount} job partitions, which are leased by
+   * the nodes of the cluster. The exclusive jobs of the partitions this node holds
+   * the lease of are executed on one of {@link #asyncExecutorProcessInstanceLaneCount}
+   * single threaded lanes, so exclusive jobs of the same process instance run one
+   * after the other without locking the process instance, while different process
+   * instances run in parallel. Exclusive jobs of partitions leased by another node
+   * are released for that node. Default value = false.
+   *
+   * (This property is only applicable when using the
+   * {@link DefaultAsyncJobExecutor}).
+   */
+  protected boolean asyncExecutorProcessInstanceAffinity;
+
+  /**
+   * The number of single threaded lanes of this node, see
+   * {@link #asyncExecutorProcessInstanceAffinity}. Default value = 4.
+   */
+  protected int asyncExecutorProcessInstanceLaneCount = 4;
+
+  /**
+   * The number of job partitions, see {@link #asyncExecutorProcessInstanceAffinity}.
+   * Must be the same on all nodes of the cluster. Default value = 64.
+   */
+  protected int asyncExecutorJobPartitionCount = 64;
+
+  /**
+   * The time (in milliseconds) a job partition lease is valid, see
+   * {@link #asyncExecutorProcessInstanceAffinity}. When a node goes down, its
+   * partitions are taken over by other nodes after this time. Default value = 60 seconds.
+   */
+  protected int asyncExecutorJobPartitionLeaseTime = 60 * 1000;
+
   /**
    * The time (in milliseconds) the timer acquisition thread will wait to
    * execute the next acquirement query. This happens when no new timer jobs
@@ -532,6 +723,26 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected boolean serializableVariableTypeTrackDeserializedObjects = true;
 
   protected ExpressionManager expressionManager;
+
+  /**
+   * Set this to false to parse every expression again when it is created, instead of using the {@link #expressionCache}.
+   */
+  protected boolean enableExpressionCache = true;
+
+  /**
+   * The cache of parsed expressions that is set on the {@link ExpressionManager}.
+   * 
+   * When not set, the cache that is shared by all process engines in the same class loader is used 
+   * (see {@link ExpressionCache#getSharedInstance()}).
+   */
+  protected ExpressionCache expressionCache;
+
+  /**
+   * When true, the evaluation count and time of every cached expression is tracked (see {@link ExpressionCache#getStatistics()}).
+   * This adds two calls to {@link System#nanoTime()} to every evaluation, so it is disabled by default.
+   */
+  protected boolean enableExpressionStatistics;
+
   protected List<String> customScriptingEngineClasses;
   protected ScriptingEngines scriptingEngines;
   protected List<ResolverFactory> resolverFactories;
@@ -558,6 +769,19 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   protected FailedJobCommandFactory failedJobCommandFactory;
 
+  /**
+   * Retry policies for failed jobs, see {@link JobRetryPolicy} and {@link org.activiti.engine.impl.cmd.JobRetryCmd}.
+   *
+   * The jobRetryPolicies are selected by name by a service task, with an activiti:jobRetryPolicy extension element.
+   * The exceptionJobRetryPolicies are keyed by exception class name, and are used when the exception a job failed with 
+   * or one of its causes is an instance of that class.
+   * The defaultJobRetryPolicy is used for the other failed jobs without an activiti:failedJobRetryTimeCycle. When it's null, 
+   * failed jobs are retried after the asyncFailedJobWaitTime or defaultFailedJobWaitTime.
+   */
+  protected Map<String, JobRetryPolicy> jobRetryPolicies;
+  protected Map<String, JobRetryPolicy> exceptionJobRetryPolicies;
+  protected JobRetryPolicy defaultJobRetryPolicy;
+
   /**
    * Set this to true if you want to have extra checks on the BPMN xml that is parsed.
    *
@@ -571,9 +795,27 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
    * instances).
    *
    * The default setting is quite low, as not to surprise anyone with sudden memory spikes. Change it to something higher if the environment Activiti runs in allows it.
+   *
+   * The batchSizeTasks setting is also the number of tasks handled in one transaction by the batch operations of the TaskService (eg. {@link org.activiti.engine.TaskService#completeBatch(Collection, Map)}).
+   * Likewise, batchSizeProcessInstances is the number of process instances started in one transaction by {@link org.activiti.engine.RuntimeService#startProcessInstancesBatch(Collection)}.
    */
   protected int batchSizeProcessInstances = 25;
   protected int batchSizeTasks = 25;
+  
+  /**
+   * When a task of a batch operation of the TaskService fails, the tasks executed before it in the same transaction are rolled back.
+   * By default they are executed again, one transaction per task, which also executes their non-transactional side effects 
+   * (eg. calls done by service tasks or listeners) again. When set to false, those tasks are reported as failed instead. Default true.
+   */
+  protected boolean taskBatchRetryRolledBackTasks = true;
+
+  /**
+   * The number of dead letter jobs moved back to the executable jobs in one transaction by 
+   * {@link org.activiti.engine.ManagementService#moveDeadLetterJobGroupToExecutableJobs(org.activiti.engine.runtime.DeadLetterJobGroup, int)},
+   * and the maximum number of jobs it moves per second (0 means no limit), so the async executor isn't flooded with jobs that may fail again.
+   */
+  protected int deadLetterJobMoveBatchSize = 100;
+  protected int deadLetterJobMoveMaxJobsPerSecond = 500;
 
   protected boolean enableEventDispatcher = true;
   protected ActivitiEventDispatcher eventDispatcher;
@@ -616,6 +858,39 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
    */
   protected int maxNrOfStatementsInBulkInsert = 100;
 
+  /**
+   * If set to true, all inserts, updates and deletes of a transaction are sent to the database 
+   * as JDBC batches when the session is flushed, instead of one round trip per statement.
+   * Optimistic locking is still detected, using the update counts returned by the batch.
+   * Default false. Requires a JDBC driver that returns the update count of every batched statement.
+   */
+  protected boolean isBatchFlushEnabled;
+  
+  /**
+   * Whether the JDBC driver returns the update count of batched statements, instead of {@link java.sql.Statement#SUCCESS_NO_INFO}.
+   * When false, the updates and deletes that are checked for optimistic locking are executed without batching.
+   * When not set, this is detected with a batch of one unchanged update when the process engine is built
+   * and batch flushing is enabled. Default not set.
+   */
+  protected Boolean batchUpdateCountsReported;
+
+  /**
+   * The JDBC fetch size used by {@link org.activiti.engine.query.Query#forEach(org.activiti.engine.query.QueryResultHandler)} 
+   * for queries that read their results through a cursor. Default 500.
+   * 
+   * Note that some drivers ignore the fetch size and always read the complete result set in memory (eg. MySQL without useCursorFetch=true).
+   * Use {@link #isQueryStreamKeysetPagination} for those.
+   */
+  protected int queryStreamFetchSize = 500;
+
+  /**
+   * If set to true, {@link org.activiti.engine.query.Query#forEach(org.activiti.engine.query.QueryResultHandler)} 
+   * reads the results in pages of {@link #queryStreamFetchSize} results ordered by id, instead of through a cursor. 
+   * Every page selects the results with an id higher than the last one of the previous page, so the memory use stays constant 
+   * on databases that can't stream a result set. The order of the query is ignored in this mode. Default false.
+   */
+  protected boolean isQueryStreamKeysetPagination;
+
   public int DEFAULT_MAX_NR_OF_STATEMENTS_BULK_INSERT_SQL_SERVER = 70; // currently Execution has most params (28). 2000 / 28 = 71.
 
   protected ObjectMapper objectMapper = new ObjectMapper();
@@ -709,6 +984,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     initProcessDefinitionCache();
     initProcessDefinitionInfoCache();
     initKnowledgeBaseCache();
+    initSharedEntityCache();
     initJobHandlers();
     initJobManager();
     initAsyncExecutor();
@@ -906,6 +1182,10 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     if (databaseType == null) {
       initDatabaseType();
     }
+    
+    if (skipLockedSupported == null && asyncExecutorAsyncJobAcquisitionStrategy == AsyncJobAcquisitionStrategy.SKIP_LOCKED) {
+      initSkipLockedSupported();
+    }
   }
 
   protected static Properties databaseTypeMappings = getDefaultDatabaseTypeMappings();
@@ -983,6 +1263,38 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     }
   }
 
+  public void initSkipLockedSupported() {
+    skipLockedSupported = false;
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      DatabaseMetaData databaseMetaData = connection.getMetaData();
+      skipLockedSupported = isSkipLockedSupported(databaseType, databaseMetaData.getDatabaseMajorVersion(), databaseMetaData.getDatabaseMinorVersion());
+      log.debug("skip locked job acquisition supported: {}", skipLockedSupported);
+      
+    } catch (SQLException e) {
+      log.error("Exception while reading the database version, falling back to the default job acquisition", e);
+    } finally {
+      try {
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        log.error("Exception while closing the Database connection", e);
+      }
+    }
+  }
+
+  protected boolean isSkipLockedSupported(String databaseType, int majorVersion, int minorVersion) {
+    if (DATABASE_TYPE_POSTGRES.equals(databaseType)) {
+      return majorVersion > 9 || (majorVersion == 9 && minorVersion >= 5);
+    } else if (DATABASE_TYPE_MYSQL.equals(databaseType)) {
+      return majorVersion >= 8;
+    } else {
+      return DATABASE_TYPE_ORACLE.equals(databaseType) || DATABASE_TYPE_MSSQL.equals(databaseType);
+    }
+  }
+
   // myBatis SqlSessionFactory
   // ////////////////////////////////////////////////
 
@@ -1294,7 +1606,11 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   public void initHistoryManager() {
     if (historyManager == null) {
-      historyManager = new DefaultHistoryManager(this, historyLevel);
+      if (enableAsyncHistory) {
+        historyManager = new AsyncHistoryManager(this, historyLevel);
+      } else {
+        historyManager = new DefaultHistoryManager(this, historyLevel);
+      }
     }
   }
 
@@ -1318,7 +1634,11 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
         initDbSqlSessionFactory();
       }
 
-      addSessionFactory(new GenericManagerFactory(EntityCache.class, EntityCacheImpl.class));
+      if (sharedEntityCache != null) {
+        addSessionFactory(new EntityCacheSessionFactory(sharedEntityCache));
+      } else {
+        addSessionFactory(new GenericManagerFactory(EntityCache.class, EntityCacheImpl.class));
+      }
     }
 
     if (customSessionFactories != null) {
@@ -1343,6 +1663,13 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     dbSqlSessionFactory.setDatabaseSchema(databaseSchema);
     dbSqlSessionFactory.setBulkInsertEnabled(isBulkInsertEnabled, databaseType);
     dbSqlSessionFactory.setMaxNrOfStatementsInBulkInsert(maxNrOfStatementsInBulkInsert);
+    dbSqlSessionFactory.setBatchFlushEnabled(isBatchFlushEnabled);
+    dbSqlSessionFactory.setBatchUpdateCountsReported(batchUpdateCountsReported == null || batchUpdateCountsReported);
+    dbSqlSessionFactory.setSharedEntityCache(sharedEntityCache);
+    dbSqlSessionFactory.setQueryStreamFetchSize(queryStreamFetchSize);
+    dbSqlSessionFactory.setQueryStreamKeysetPagination(isQueryStreamKeysetPagination);
+    dbSqlSessionFactory.setSkipLockedSupported(skipLockedSupported != null && skipLockedSupported);
+    dbSqlSessionFactory.initStreamStatements();
     addSessionFactory(dbSqlSessionFactory);
   }
 
@@ -1432,7 +1759,12 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   public void initProcessDefinitionCache() {
     if (processDefinitionCache == null) {
-      if (processDefinitionCacheLimit <= 0) {
+      if (processDefinitionCacheMaxWeight > 0) {
+        if (processDefinitionCacheWeigher == null) {
+          processDefinitionCacheWeigher = new ProcessDefinitionCacheEntryWeigher();
+        }
+        processDefinitionCache = new ConcurrentDeploymentCache<ProcessDefinitionCacheEntry>(processDefinitionCacheMaxWeight, processDefinitionCacheWeigher);
+      } else if (processDefinitionCacheLimit <= 0) {
         processDefinitionCache = new DefaultDeploymentCache<ProcessDefinitionCacheEntry>();
       } else {
         processDefinitionCache = new DefaultDeploymentCache<ProcessDefinitionCacheEntry>(processDefinitionCacheLimit);
@@ -1448,6 +1780,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
         processDefinitionInfoCache = new ProcessDefinitionInfoCache(commandExecutor, processDefinitionInfoCacheLimit);
       }
     }
+    if (deploymentCacheInvalidationChannel != null) {
+      processDefinitionInfoCache.setRevisionCheckEnabled(false);
+    }
   }
 
   public void initKnowledgeBaseCache() {
@@ -1460,6 +1795,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     }
   }
 
+  public void initSharedEntityCache() {
+    if (sharedEntityCache == null && enableSharedEntityCache) {
+      if (sharedEntityCachePolicies == null) {
+        sharedEntityCachePolicies = SharedEntityCache.getDefaultPolicies();
+      }
+      sharedEntityCache = new SharedEntityCache(sharedEntityCachePolicies, sharedEntityCacheEvictionPolicy, sharedEntityCacheLimit);
+    }
+  }
+
   public void initDeployers() {
     if (this.deployers == null) {
       this.deployers = new ArrayList<Deployer>();
@@ -1493,6 +1837,21 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     if (parsedDeploymentBuilderFactory.getBpmnParser() == null) {
       parsedDeploymentBuilderFactory.setBpmnParser(bpmnParser);
     }
+    if (deploymentParsePool == null && deploymentParseParallelism > 1) {
+      deploymentParsePool = new ForkJoinPool(deploymentParseParallelism);
+    }
+    if (parsedDeploymentBuilderFactory.getParsePool() == null) {
+      parsedDeploymentBuilderFactory.setParsePool(deploymentParsePool);
+    }
+    if (skipValidationOfUnchangedDeploymentResources) {
+      parsedDeploymentBuilderFactory.setSkipValidationOfUnchangedResources(true);
+    }
+    if (bpmnModelSnapshotCache == null && bpmnModelSnapshotDirectory != null) {
+      bpmnModelSnapshotCache = new BpmnModelSnapshotCache(new File(bpmnModelSnapshotDirectory));
+    }
+    if (parsedDeploymentBuilderFactory.getBpmnModelSnapshotCache() == null) {
+      parsedDeploymentBuilderFactory.setBpmnModelSnapshotCache(bpmnModelSnapshotCache);
+    }
 
     if (timerManager == null) {
       timerManager = new TimerManager();
@@ -1694,6 +2053,10 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
     ProcessEventJobHandler processEventJobHandler = new ProcessEventJobHandler();
     jobHandlers.put(processEventJobHandler.getType(), processEventJobHandler);
+    
+    // Always registered, so history queued before async history was disabled is still applied
+    AsyncHistoryJobHandler asyncHistoryJobHandler = new AsyncHistoryJobHandler();
+    jobHandlers.put(asyncHistoryJobHandler.getType(), asyncHistoryJobHandler);
 
     // if we have custom job handlers, register them
     if (getCustomJobHandlers() != null) {
@@ -1724,6 +2087,24 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       }
       defaultAsyncExecutor.setQueueSize(asyncExecutorThreadPoolQueueSize);
 
+      // Acquisition
+      defaultAsyncExecutor.setMaxTimerJobsPerAcquisition(asyncExecutorMaxTimerJobsPerAcquisition);
+      defaultAsyncExecutor.setMaxAsyncJobsDuePerAcquisition(asyncExecutorMaxAsyncJobsDuePerAcquisition);
+      defaultAsyncExecutor.setAsyncJobAcquisitionStrategy(asyncExecutorAsyncJobAcquisitionStrategy);
+      defaultAsyncExecutor.setAdaptiveJobAcquisition(asyncExecutorAdaptiveJobAcquisition);
+      defaultAsyncExecutor.setMaxAdaptiveJobsPerAcquisition(asyncExecutorMaxAdaptiveJobsPerAcquisition);
+      defaultAsyncExecutor.setMinAdaptiveAcquireWaitTimeInMillis(asyncExecutorMinAdaptiveAcquireWaitTime);
+      defaultAsyncExecutor.setMaxAdaptiveAcquireWaitTimeInMillis(asyncExecutorMaxAdaptiveAcquireWaitTime);
+      defaultAsyncExecutor.setTimerWheelEnabled(asyncExecutorTimerWheelEnabled);
+      defaultAsyncExecutor.setTimerWheelLookaheadInMillis(asyncExecutorTimerWheelLookahead);
+      defaultAsyncExecutor.setTimerWheelMaxSize(asyncExecutorTimerWheelMaxSize);
+      
+      // Process instance affinity
+      defaultAsyncExecutor.setProcessInstanceAffinityEnabled(asyncExecutorProcessInstanceAffinity);
+      defaultAsyncExecutor.setProcessInstanceLaneCount(asyncExecutorProcessInstanceLaneCount);
+      defaultAsyncExecutor.setJobPartitionCount(asyncExecutorJobPartitionCount);
+      defaultAsyncExecutor.setJobPartitionLeaseTimeInMillis(asyncExecutorJobPartitionLeaseTime);
+
       // Acquisition wait time
       defaultAsyncExecutor.setDefaultTimerJobAcquireWaitTimeInMillis(asyncExecutorDefaultTimerJobAcquireWaitTime);
       defaultAsyncExecutor.setDefaultAsyncJobAcquireWaitTimeInMillis(asyncExecutorDefaultAsyncJobAcquireWaitTime);
@@ -1788,6 +2169,16 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       dbIdGenerator.setCommandExecutor(idGeneratorCommandExecutor);
       dbIdGenerator.setCommandConfig(getDefaultCommandConfig().transactionRequiresNew());
       idGenerator = dbIdGenerator;
+
+    } else if (idGenerator instanceof SnowflakeIdGenerator) {
+      // leases its node id through this engine, unless configured otherwise
+      SnowflakeIdGenerator snowflakeIdGenerator = (SnowflakeIdGenerator) idGenerator;
+      if (snowflakeIdGenerator.getCommandExecutor() == null) {
+        snowflakeIdGenerator.setCommandExecutor(getCommandExecutor());
+      }
+      if (snowflakeIdGenerator.getCommandConfig() == null) {
+        snowflakeIdGenerator.setCommandConfig(getDefaultCommandConfig().transactionRequiresNew());
+      }
     }
   }
 
@@ -1908,6 +2299,16 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     if (expressionManager == null) {
       expressionManager = new ExpressionManager(beans);
     }
+
+    if (enableExpressionCache && expressionManager.getExpressionCache() == null) {
+      if (expressionCache == null) {
+        expressionCache = ExpressionCache.getSharedInstance();
+      }
+      expressionManager.setExpressionCache(expressionCache);
+    }
+    if (enableExpressionStatistics) {
+      expressionManager.setCollectExpressionStatistics(true);
+    }
   }
 
   public void initBusinessCalendarManager() {
@@ -2309,6 +2710,51 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public int getDeploymentParseParallelism() {
+    return deploymentParseParallelism;
+  }
+
+  public ProcessEngineConfigurationImpl setDeploymentParseParallelism(int deploymentParseParallelism) {
+    this.deploymentParseParallelism = deploymentParseParallelism;
+    return this;
+  }
+
+  public ForkJoinPool getDeploymentParsePool() {
+    return deploymentParsePool;
+  }
+
+  public ProcessEngineConfigurationImpl setDeploymentParsePool(ForkJoinPool deploymentParsePool) {
+    this.deploymentParsePool = deploymentParsePool;
+    return this;
+  }
+
+  public boolean isSkipValidationOfUnchangedDeploymentResources() {
+    return skipValidationOfUnchangedDeploymentResources;
+  }
+
+  public ProcessEngineConfigurationImpl setSkipValidationOfUnchangedDeploymentResources(boolean skipValidationOfUnchangedDeploymentResources) {
+    this.skipValidationOfUnchangedDeploymentResources = skipValidationOfUnchangedDeploymentResources;
+    return this;
+  }
+
+  public String getBpmnModelSnapshotDirectory() {
+    return bpmnModelSnapshotDirectory;
+  }
+
+  public ProcessEngineConfigurationImpl setBpmnModelSnapshotDirectory(String bpmnModelSnapshotDirectory) {
+    this.bpmnModelSnapshotDirectory = bpmnModelSnapshotDirectory;
+    return this;
+  }
+
+  public BpmnModelSnapshotCache getBpmnModelSnapshotCache() {
+    return bpmnModelSnapshotCache;
+  }
+
+  public ProcessEngineConfigurationImpl setBpmnModelSnapshotCache(BpmnModelSnapshotCache bpmnModelSnapshotCache) {
+    this.bpmnModelSnapshotCache = bpmnModelSnapshotCache;
+    return this;
+  }
+
   public TimerManager getTimerManager() {
     return timerManager;
   }
@@ -2459,6 +2905,33 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isEnableExpressionCache() {
+    return enableExpressionCache;
+  }
+
+  public ProcessEngineConfigurationImpl setEnableExpressionCache(boolean enableExpressionCache) {
+    this.enableExpressionCache = enableExpressionCache;
+    return this;
+  }
+
+  public ExpressionCache getExpressionCache() {
+    return expressionCache;
+  }
+
+  public ProcessEngineConfigurationImpl setExpressionCache(ExpressionCache expressionCache) {
+    this.expressionCache = expressionCache;
+    return this;
+  }
+
+  public boolean isEnableExpressionStatistics() {
+    return enableExpressionStatistics;
+  }
+
+  public ProcessEngineConfigurationImpl setEnableExpressionStatistics(boolean enableExpressionStatistics) {
+    this.enableExpressionStatistics = enableExpressionStatistics;
+    return this;
+  }
+
   public BusinessCalendarManager getBusinessCalendarManager() {
     return businessCalendarManager;
   }
@@ -2778,6 +3251,33 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public Map<String, JobRetryPolicy> getJobRetryPolicies() {
+    return jobRetryPolicies;
+  }
+
+  public ProcessEngineConfigurationImpl setJobRetryPolicies(Map<String, JobRetryPolicy> jobRetryPolicies) {
+    this.jobRetryPolicies = jobRetryPolicies;
+    return this;
+  }
+
+  public Map<String, JobRetryPolicy> getExceptionJobRetryPolicies() {
+    return exceptionJobRetryPolicies;
+  }
+
+  public ProcessEngineConfigurationImpl setExceptionJobRetryPolicies(Map<String, JobRetryPolicy> exceptionJobRetryPolicies) {
+    this.exceptionJobRetryPolicies = exceptionJobRetryPolicies;
+    return this;
+  }
+
+  public JobRetryPolicy getDefaultJobRetryPolicy() {
+    return defaultJobRetryPolicy;
+  }
+
+  public ProcessEngineConfigurationImpl setDefaultJobRetryPolicy(JobRetryPolicy defaultJobRetryPolicy) {
+    this.defaultJobRetryPolicy = defaultJobRetryPolicy;
+    return this;
+  }
+
   public DataSource getIdGeneratorDataSource() {
     return idGeneratorDataSource;
   }
@@ -2814,6 +3314,33 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isTaskBatchRetryRolledBackTasks() {
+    return taskBatchRetryRolledBackTasks;
+  }
+
+  public ProcessEngineConfigurationImpl setTaskBatchRetryRolledBackTasks(boolean taskBatchRetryRolledBackTasks) {
+    this.taskBatchRetryRolledBackTasks = taskBatchRetryRolledBackTasks;
+    return this;
+  }
+
+  public int getDeadLetterJobMoveBatchSize() {
+    return deadLetterJobMoveBatchSize;
+  }
+
+  public ProcessEngineConfigurationImpl setDeadLetterJobMoveBatchSize(int deadLetterJobMoveBatchSize) {
+    this.deadLetterJobMoveBatchSize = deadLetterJobMoveBatchSize;
+    return this;
+  }
+
+  public int getDeadLetterJobMoveMaxJobsPerSecond() {
+    return deadLetterJobMoveMaxJobsPerSecond;
+  }
+
+  public ProcessEngineConfigurationImpl setDeadLetterJobMoveMaxJobsPerSecond(int deadLetterJobMoveMaxJobsPerSecond) {
+    this.deadLetterJobMoveMaxJobsPerSecond = deadLetterJobMoveMaxJobsPerSecond;
+    return this;
+  }
+
   public int getProcessDefinitionCacheLimit() {
     return processDefinitionCacheLimit;
   }
@@ -2823,6 +3350,24 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public long getProcessDefinitionCacheMaxWeight() {
+    return processDefinitionCacheMaxWeight;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDefinitionCacheMaxWeight(long processDefinitionCacheMaxWeight) {
+    this.processDefinitionCacheMaxWeight = processDefinitionCacheMaxWeight;
+    return this;
+  }
+
+  public DeploymentCacheWeigher<ProcessDefinitionCacheEntry> getProcessDefinitionCacheWeigher() {
+    return processDefinitionCacheWeigher;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDefinitionCacheWeigher(DeploymentCacheWeigher<ProcessDefinitionCacheEntry> processDefinitionCacheWeigher) {
+    this.processDefinitionCacheWeigher = processDefinitionCacheWeigher;
+    return this;
+  }
+
   public DeploymentCache<ProcessDefinitionCacheEntry> getProcessDefinitionCache() {
     return processDefinitionCache;
   }
@@ -2841,6 +3386,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public DeploymentCacheInvalidationChannel getDeploymentCacheInvalidationChannel() {
+    return deploymentCacheInvalidationChannel;
+  }
+
+  public ProcessEngineConfigurationImpl setDeploymentCacheInvalidationChannel(DeploymentCacheInvalidationChannel deploymentCacheInvalidationChannel) {
+    this.deploymentCacheInvalidationChannel = deploymentCacheInvalidationChannel;
+    return this;
+  }
+
   public DeploymentCache<Object> getKnowledgeBaseCache() {
     return knowledgeBaseCache;
   }
@@ -2850,6 +3404,51 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isEnableSharedEntityCache() {
+    return enableSharedEntityCache;
+  }
+
+  public ProcessEngineConfigurationImpl setEnableSharedEntityCache(boolean enableSharedEntityCache) {
+    this.enableSharedEntityCache = enableSharedEntityCache;
+    return this;
+  }
+
+  public SharedEntityCache getSharedEntityCache() {
+    return sharedEntityCache;
+  }
+
+  public ProcessEngineConfigurationImpl setSharedEntityCache(SharedEntityCache sharedEntityCache) {
+    this.sharedEntityCache = sharedEntityCache;
+    return this;
+  }
+
+  public Map<Class<?>, SharedEntityCachePolicy> getSharedEntityCachePolicies() {
+    return sharedEntityCachePolicies;
+  }
+
+  public ProcessEngineConfigurationImpl setSharedEntityCachePolicies(Map<Class<?>, SharedEntityCachePolicy> sharedEntityCachePolicies) {
+    this.sharedEntityCachePolicies = sharedEntityCachePolicies;
+    return this;
+  }
+
+  public int getSharedEntityCacheLimit() {
+    return sharedEntityCacheLimit;
+  }
+
+  public ProcessEngineConfigurationImpl setSharedEntityCacheLimit(int sharedEntityCacheLimit) {
+    this.sharedEntityCacheLimit = sharedEntityCacheLimit;
+    return this;
+  }
+
+  public SharedEntityCacheEvictionPolicy getSharedEntityCacheEvictionPolicy() {
+    return sharedEntityCacheEvictionPolicy;
+  }
+
+  public ProcessEngineConfigurationImpl setSharedEntityCacheEvictionPolicy(SharedEntityCacheEvictionPolicy sharedEntityCacheEvictionPolicy) {
+    this.sharedEntityCacheEvictionPolicy = sharedEntityCacheEvictionPolicy;
+    return this;
+  }
+
   public boolean isEnableSafeBpmnXml() {
     return enableSafeBpmnXml;
   }
@@ -2940,6 +3539,42 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isBatchFlushEnabled() {
+    return isBatchFlushEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setBatchFlushEnabled(boolean isBatchFlushEnabled) {
+    this.isBatchFlushEnabled = isBatchFlushEnabled;
+    return this;
+  }
+
+  public Boolean getBatchUpdateCountsReported() {
+    return batchUpdateCountsReported;
+  }
+
+  public ProcessEngineConfigurationImpl setBatchUpdateCountsReported(Boolean batchUpdateCountsReported) {
+    this.batchUpdateCountsReported = batchUpdateCountsReported;
+    return this;
+  }
+
+  public int getQueryStreamFetchSize() {
+    return queryStreamFetchSize;
+  }
+
+  public ProcessEngineConfigurationImpl setQueryStreamFetchSize(int queryStreamFetchSize) {
+    this.queryStreamFetchSize = queryStreamFetchSize;
+    return this;
+  }
+
+  public boolean isQueryStreamKeysetPagination() {
+    return isQueryStreamKeysetPagination;
+  }
+
+  public ProcessEngineConfigurationImpl setQueryStreamKeysetPagination(boolean isQueryStreamKeysetPagination) {
+    this.isQueryStreamKeysetPagination = isQueryStreamKeysetPagination;
+    return this;
+  }
+
   public boolean isUsingRelationalDatabase() {
     return usingRelationalDatabase;
   }
@@ -2981,6 +3616,21 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public ProcessEngineConfigurationImpl setEnableTwoPhaseQueryVariablesFetch(boolean enableTwoPhaseQueryVariablesFetch) {
+    this.performanceSettings.setEnableTwoPhaseQueryVariablesFetch(enableTwoPhaseQueryVariablesFetch);
+    return this;
+  }
+
+  public ProcessEngineConfigurationImpl setQueryVariablesFetchChunkSize(int queryVariablesFetchChunkSize) {
+    this.performanceSettings.setQueryVariablesFetchChunkSize(queryVariablesFetchChunkSize);
+    return this;
+  }
+
+  public ProcessEngineConfigurationImpl setExecutionTreePrefetchCollections(Set<ExecutionTreePrefetchCollection> executionTreePrefetchCollections) {
+    this.performanceSettings.setExecutionTreePrefetchCollections(executionTreePrefetchCollections);
+    return this;
+  }
+
   public AttachmentDataManager getAttachmentDataManager() {
     return attachmentDataManager;
   }
@@ -3525,6 +4175,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isEnableAsyncHistory() {
+    return enableAsyncHistory;
+  }
+
+  public ProcessEngineConfigurationImpl setEnableAsyncHistory(boolean enableAsyncHistory) {
+    this.enableAsyncHistory = enableAsyncHistory;
+    return this;
+  }
+
   public JobManager getJobManager() {
     return jobManager;
   }
@@ -3747,6 +4406,123 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public AsyncJobAcquisitionStrategy getAsyncExecutorAsyncJobAcquisitionStrategy() {
+    return asyncExecutorAsyncJobAcquisitionStrategy;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorAsyncJobAcquisitionStrategy(AsyncJobAcquisitionStrategy asyncExecutorAsyncJobAcquisitionStrategy) {
+    this.asyncExecutorAsyncJobAcquisitionStrategy = asyncExecutorAsyncJobAcquisitionStrategy;
+    return this;
+  }
+
+  public Boolean getSkipLockedSupported() {
+    return skipLockedSupported;
+  }
+
+  public ProcessEngineConfigurationImpl setSkipLockedSupported(Boolean skipLockedSupported) {
+    this.skipLockedSupported = skipLockedSupported;
+    return this;
+  }
+
+  public boolean isAsyncExecutorAdaptiveJobAcquisition() {
+    return asyncExecutorAdaptiveJobAcquisition;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorAdaptiveJobAcquisition(boolean asyncExecutorAdaptiveJobAcquisition) {
+    this.asyncExecutorAdaptiveJobAcquisition = asyncExecutorAdaptiveJobAcquisition;
+    return this;
+  }
+
+  public int getAsyncExecutorMaxAdaptiveJobsPerAcquisition() {
+    return asyncExecutorMaxAdaptiveJobsPerAcquisition;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorMaxAdaptiveJobsPerAcquisition(int asyncExecutorMaxAdaptiveJobsPerAcquisition) {
+    this.asyncExecutorMaxAdaptiveJobsPerAcquisition = asyncExecutorMaxAdaptiveJobsPerAcquisition;
+    return this;
+  }
+
+  public int getAsyncExecutorMinAdaptiveAcquireWaitTime() {
+    return asyncExecutorMinAdaptiveAcquireWaitTime;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorMinAdaptiveAcquireWaitTime(int asyncExecutorMinAdaptiveAcquireWaitTime) {
+    this.asyncExecutorMinAdaptiveAcquireWaitTime = asyncExecutorMinAdaptiveAcquireWaitTime;
+    return this;
+  }
+
+  public int getAsyncExecutorMaxAdaptiveAcquireWaitTime() {
+    return asyncExecutorMaxAdaptiveAcquireWaitTime;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorMaxAdaptiveAcquireWaitTime(int asyncExecutorMaxAdaptiveAcquireWaitTime) {
+    this.asyncExecutorMaxAdaptiveAcquireWaitTime = asyncExecutorMaxAdaptiveAcquireWaitTime;
+    return this;
+  }
+
+  public boolean isAsyncExecutorTimerWheelEnabled() {
+    return asyncExecutorTimerWheelEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorTimerWheelEnabled(boolean asyncExecutorTimerWheelEnabled) {
+    this.asyncExecutorTimerWheelEnabled = asyncExecutorTimerWheelEnabled;
+    return this;
+  }
+
+  public int getAsyncExecutorTimerWheelLookahead() {
+    return asyncExecutorTimerWheelLookahead;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorTimerWheelLookahead(int asyncExecutorTimerWheelLookahead) {
+    this.asyncExecutorTimerWheelLookahead = asyncExecutorTimerWheelLookahead;
+    return this;
+  }
+
+  public int getAsyncExecutorTimerWheelMaxSize() {
+    return asyncExecutorTimerWheelMaxSize;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorTimerWheelMaxSize(int asyncExecutorTimerWheelMaxSize) {
+    this.asyncExecutorTimerWheelMaxSize = asyncExecutorTimerWheelMaxSize;
+    return this;
+  }
+
+  public boolean isAsyncExecutorProcessInstanceAffinity() {
+    return asyncExecutorProcessInstanceAffinity;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorProcessInstanceAffinity(boolean asyncExecutorProcessInstanceAffinity) {
+    this.asyncExecutorProcessInstanceAffinity = asyncExecutorProcessInstanceAffinity;
+    return this;
+  }
+
+  public int getAsyncExecutorProcessInstanceLaneCount() {
+    return asyncExecutorProcessInstanceLaneCount;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorProcessInstanceLaneCount(int asyncExecutorProcessInstanceLaneCount) {
+    this.asyncExecutorProcessInstanceLaneCount = asyncExecutorProcessInstanceLaneCount;
+    return this;
+  }
+
+  public int getAsyncExecutorJobPartitionCount() {
+    return asyncExecutorJobPartitionCount;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorJobPartitionCount(int asyncExecutorJobPartitionCount) {
+    this.asyncExecutorJobPartitionCount = asyncExecutorJobPartitionCount;
+    return this;
+  }
+
+  public int getAsyncExecutorJobPartitionLeaseTime() {
+    return asyncExecutorJobPartitionLeaseTime;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncExecutorJobPartitionLeaseTime(int asyncExecutorJobPartitionLeaseTime) {
+    this.asyncExecutorJobPartitionLeaseTime = asyncExecutorJobPartitionLeaseTime;
+    return this;
+  }
+
   public int getAsyncExecutorDefaultTimerJobAcquireWaitTime() {
     return asyncExecutorDefaultTimerJobAcquireWaitTime;
   }
@@ -20,6 +20,7 @@ import org.activiti.engine.ActivitiIllegalArgumentException;
 import org.activiti.engine.ActivitiObjectNotFoundException;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
 import org.activiti.engine.impl.persistence.entity.SuspendedJobEntity;
@@ -95,12 +96,17 @@ public abstract class AbstractSetProcessInstanceStateCmd implements Command<Void
     } else {
       List<TimerJobEntity> timerJobs = commandContext.getTimerJobEntityManager().findJobsByProcessInstanceId(processInstanceId);
       for (TimerJobEntity timerJob : timerJobs) {
-        commandContext.getJobManager().moveJobToSuspendedJob(timerJob);
+        if (!AsyncHistoryJobHandler.TYPE.equals(timerJob.getJobHandlerType())) {
+          commandContext.getJobManager().moveJobToSuspendedJob(timerJob);
+        }
       }
       
+      // The history of the process instance is still applied while it is suspended
       List<JobEntity> jobs = commandContext.getJobEntityManager().findJobsByProcessInstanceId(processInstanceId);
       for (JobEntity job : jobs) {
-        commandContext.getJobManager().moveJobToSuspendedJob(job);
+        if (!AsyncHistoryJobHandler.TYPE.equals(job.getJobHandlerType())) {
+          commandContext.getJobManager().moveJobToSuspendedJob(job);
+        }
       }
     }
 
@@ -0,0 +1,74 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import org.activiti.engine.impl.db.IdNodeLease;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+import org.activiti.engine.impl.persistence.entity.PropertyEntityManager;
+
+/**
+ * Claims or renews the lease of one node id of a {@link org.activiti.engine.impl.db.SnowflakeIdGenerator}.
+ *
+ * A lease is a row in ACT_GE_PROPERTY named {@link #PROPERTY_NAME_PREFIX} followed by the node id, with the owner and
+ * the expiration time as value. Returns null when the node id is leased by another owner. Two owners racing for the
+ * same node id are separated by the primary key of the property on insert and by its revision on update.
+ */
+public class AcquireIdNodeLeaseCmd implements Command<IdNodeLease> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String PROPERTY_NAME_PREFIX = "idgen.node.";
+  protected static final char VALUE_SEPARATOR = '|';
+
+  protected String owner;
+  protected int nodeId;
+  protected long leaseDuration;
+
+  public AcquireIdNodeLeaseCmd(String owner, int nodeId, long leaseDuration) {
+    this.owner = owner;
+    this.nodeId = nodeId;
+    this.leaseDuration = leaseDuration;
+  }
+
+  public IdNodeLease execute(CommandContext commandContext) {
+    PropertyEntityManager propertyEntityManager = commandContext.getPropertyEntityManager();
+    String name = PROPERTY_NAME_PREFIX + nodeId;
+
+    // lease times use the wall clock, not the engine clock, which can be moved around in tests
+    long now = System.currentTimeMillis();
+    long expirationTime = now + leaseDuration;
+    String value = owner + VALUE_SEPARATOR + expirationTime;
+
+    PropertyEntity property = propertyEntityManager.findById(name);
+    if (property == null) {
+      property = propertyEntityManager.create();
+      property.setName(name);
+      property.setValue(value);
+      propertyEntityManager.insert(property);
+
+    } else {
+      String currentValue = property.getValue();
+      int separatorIndex = currentValue.lastIndexOf(VALUE_SEPARATOR);
+      String currentOwner = currentValue.substring(0, separatorIndex);
+      long currentExpirationTime = Long.parseLong(currentValue.substring(separatorIndex + 1));
+      if (!owner.equals(currentOwner) && currentExpirationTime > now) {
+        return null;
+      }
+      property.setValue(value);
+    }
+
+    return new IdNodeLease(nodeId, expirationTime);
+  }
+}
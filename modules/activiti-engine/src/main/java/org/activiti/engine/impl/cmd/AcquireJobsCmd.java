@@ -12,16 +12,23 @@
  */
 package org.activiti.engine.impl.cmd;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
 
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.asyncexecutor.AcquiredJobEntities;
+import org.activiti.engine.impl.asyncexecutor.AcquisitionStrategyAsyncExecutor;
 import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.AsyncJobAcquisitionStrategy;
+import org.activiti.engine.impl.asyncexecutor.DefaultAsyncJobExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobPartitionLeaseRunnable;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityManager;
 
 /**
  * @author Tijs Rademakers
@@ -29,28 +36,114 @@ import org.activiti.engine.impl.persistence.entity.JobEntity;
 public class AcquireJobsCmd implements Command<AcquiredJobEntities> {
 
   private final AsyncExecutor asyncExecutor;
+  private final int maxJobs;
 
   public AcquireJobsCmd(AsyncExecutor asyncExecutor) {
+    this(asyncExecutor, asyncExecutor.getMaxAsyncJobsDuePerAcquisition());
+  }
+
+  public AcquireJobsCmd(AsyncExecutor asyncExecutor, int maxJobs) {
     this.asyncExecutor = asyncExecutor;
+    this.maxJobs = maxJobs;
   }
 
   public AcquiredJobEntities execute(CommandContext commandContext) {
+    Page page = new Page(0, maxJobs);
+    AsyncJobAcquisitionStrategy acquisitionStrategy = getAcquisitionStrategy();
+    if (acquisitionStrategy == AsyncJobAcquisitionStrategy.CLAIM_UPDATE) {
+      return claimJobs(commandContext, page);
+    }
+
     AcquiredJobEntities acquiredJobs = new AcquiredJobEntities();
-    List<JobEntity> jobs = commandContext.getJobEntityManager().findJobsToExecute(new Page(0, asyncExecutor.getMaxAsyncJobsDuePerAcquisition()));
+    List<JobEntity> jobs = null;
+    if (acquisitionStrategy == AsyncJobAcquisitionStrategy.SKIP_LOCKED) {
+      jobs = commandContext.getJobEntityManager().findJobsToExecuteSkipLocked(page);
+    } else {
+      jobs = commandContext.getJobEntityManager().findJobsToExecute(page);
+    }
 
+    JobPartitionLeaseRunnable jobPartitionLeaseRunnable = getJobPartitionLeaseRunnable();
     for (JobEntity job : jobs) {
-      lockJob(commandContext, job, asyncExecutor.getAsyncJobLockTimeInMillis());
-      acquiredJobs.addJob(job);
+      if (!isLeasedByOtherNode(jobPartitionLeaseRunnable, job)) {
+        lockJob(commandContext, job, asyncExecutor.getAsyncJobLockTimeInMillis());
+        acquiredJobs.addJob(job);
+      }
+    }
+
+    return acquiredJobs;
+  }
+
+  protected AsyncJobAcquisitionStrategy getAcquisitionStrategy() {
+    if (asyncExecutor instanceof AcquisitionStrategyAsyncExecutor) {
+      AsyncJobAcquisitionStrategy acquisitionStrategy = ((AcquisitionStrategyAsyncExecutor) asyncExecutor).getAsyncJobAcquisitionStrategy();
+      if (acquisitionStrategy != null) {
+        return acquisitionStrategy;
+      }
+    }
+    return AsyncJobAcquisitionStrategy.OPTIMISTIC_LOCKING;
+  }
+
+  /**
+   * Locks the candidate jobs with one update that skips the jobs locked by other async executors in the meantime,
+   * instead of locking every job with a revision checked update that fails the whole batch on a conflict.
+   */
+  protected AcquiredJobEntities claimJobs(CommandContext commandContext, Page page) {
+    AcquiredJobEntities acquiredJobs = new AcquiredJobEntities();
+    JobEntityManager jobEntityManager = commandContext.getJobEntityManager();
+    JobPartitionLeaseRunnable jobPartitionLeaseRunnable = getJobPartitionLeaseRunnable();
+    List<String> jobIds = null;
+    if (jobPartitionLeaseRunnable == null) {
+      jobIds = jobEntityManager.findJobIdsToExecute(page);
+      
+    } else {
+      // The process instances of the candidate jobs are needed to leave out the partitions of other nodes
+      jobIds = new ArrayList<String>();
+      for (JobEntity job : jobEntityManager.findJobsToExecuteWithoutCache(page)) {
+        if (!isLeasedByOtherNode(jobPartitionLeaseRunnable, job)) {
+          jobIds.add(job.getId());
+        }
+      }
+    }
+    
+    if (jobIds.isEmpty()) {
+      return acquiredJobs;
+    }
+
+    Date lockExpirationTime = getLockExpirationTime(commandContext, asyncExecutor.getAsyncJobLockTimeInMillis());
+    if (jobEntityManager.updateJobLockForAcquisition(jobIds, asyncExecutor.getLockOwner(), lockExpirationTime) > 0) {
+      for (JobEntity job : jobEntityManager.findJobsByIdsAndLockOwner(jobIds, asyncExecutor.getLockOwner())) {
+        acquiredJobs.addJob(job);
+      }
     }
 
     return acquiredJobs;
   }
 
+  protected JobPartitionLeaseRunnable getJobPartitionLeaseRunnable() {
+    if (asyncExecutor instanceof DefaultAsyncJobExecutor) {
+      return ((DefaultAsyncJobExecutor) asyncExecutor).getJobPartitionLeaseRunnable();
+    }
+    return null;
+  }
+
+  /**
+   * Exclusive jobs of a job partition leased by another node are left to that node, which executes them 
+   * on the lane of the partition. They aren't locked, so the other node acquires them with its next query.
+   */
+  protected boolean isLeasedByOtherNode(JobPartitionLeaseRunnable jobPartitionLeaseRunnable, JobEntity job) {
+    return jobPartitionLeaseRunnable != null && job.isExclusive() && job.getProcessInstanceId() != null
+        && jobPartitionLeaseRunnable.isOwnedByOtherNode(jobPartitionLeaseRunnable.getPartition(job.getProcessInstanceId()));
+  }
+
   protected void lockJob(CommandContext commandContext, JobEntity job, int lockTimeInMillis) {
+    job.setLockOwner(asyncExecutor.getLockOwner());
+    job.setLockExpirationTime(getLockExpirationTime(commandContext, lockTimeInMillis));
+  }
+
+  protected Date getLockExpirationTime(CommandContext commandContext, int lockTimeInMillis) {
     GregorianCalendar gregorianCalendar = new GregorianCalendar();
     gregorianCalendar.setTime(commandContext.getProcessEngineConfiguration().getClock().getCurrentTime());
     gregorianCalendar.add(Calendar.MILLISECOND, lockTimeInMillis);
-    job.setLockOwner(asyncExecutor.getLockOwner());
-    job.setLockExpirationTime(gregorianCalendar.getTime());
+    return gregorianCalendar.getTime();
   }
 }
\ No newline at end of file
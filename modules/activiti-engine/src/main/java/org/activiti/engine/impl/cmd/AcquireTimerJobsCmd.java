@@ -29,15 +29,21 @@ import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
 public class AcquireTimerJobsCmd implements Command<AcquiredTimerJobEntities> {
 
   private final AsyncExecutor asyncExecutor;
+  private final int maxJobs;
 
   public AcquireTimerJobsCmd(AsyncExecutor asyncExecutor) {
+    this(asyncExecutor, asyncExecutor.getMaxTimerJobsPerAcquisition());
+  }
+
+  public AcquireTimerJobsCmd(AsyncExecutor asyncExecutor, int maxJobs) {
     this.asyncExecutor = asyncExecutor;
+    this.maxJobs = maxJobs;
   }
 
   public AcquiredTimerJobEntities execute(CommandContext commandContext) {
     AcquiredTimerJobEntities acquiredJobs = new AcquiredTimerJobEntities();
     List<TimerJobEntity> timerJobs = commandContext.getTimerJobEntityManager()
-        .findTimerJobsToExecute(new Page(0, asyncExecutor.getMaxAsyncJobsDuePerAcquisition()));
+        .findTimerJobsToExecute(new Page(0, maxJobs));
 
     for (TimerJobEntity job : timerJobs) {
       lockJob(commandContext, job, asyncExecutor.getAsyncJobLockTimeInMillis());
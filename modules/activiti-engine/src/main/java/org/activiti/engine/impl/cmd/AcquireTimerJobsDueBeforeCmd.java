@@ -0,0 +1,60 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.Date;
+import java.util.List;
+
+import org.activiti.engine.impl.Page;
+import org.activiti.engine.impl.asyncexecutor.AcquiredTimerJobEntities;
+import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+
+/**
+ * Acquires the timer jobs that are due before the given date and aren't locked by another
+ * async executor (or of which the lock has expired). The timer jobs are locked until
+ * their due date plus the timer lock time of the async executor.
+ */
+public class AcquireTimerJobsDueBeforeCmd implements Command<AcquiredTimerJobEntities> {
+
+  protected final AsyncExecutor asyncExecutor;
+  protected final Date dueBefore;
+  protected final int maxJobs;
+
+  public AcquireTimerJobsDueBeforeCmd(AsyncExecutor asyncExecutor, Date dueBefore, int maxJobs) {
+    this.asyncExecutor = asyncExecutor;
+    this.dueBefore = dueBefore;
+    this.maxJobs = maxJobs;
+  }
+
+  public AcquiredTimerJobEntities execute(CommandContext commandContext) {
+    AcquiredTimerJobEntities acquiredJobs = new AcquiredTimerJobEntities();
+    List<TimerJobEntity> timerJobs = commandContext.getTimerJobEntityManager()
+        .findUnlockedTimerJobsDueBefore(dueBefore, new Page(0, maxJobs));
+
+    long now = commandContext.getProcessEngineConfiguration().getClock().getCurrentTime().getTime();
+    for (TimerJobEntity job : timerJobs) {
+      
+      // Will trigger an optimistic locking exception when another executor locks the same timer job
+      long lockedFrom = job.getDuedate() != null ? Math.max(job.getDuedate().getTime(), now) : now;
+      job.setLockOwner(asyncExecutor.getLockOwner());
+      job.setLockExpirationTime(new Date(lockedFrom + asyncExecutor.getTimerLockTimeInMillis()));
+      acquiredJobs.addJob(job);
+    }
+
+    return acquiredJobs;
+  }
+
+}
@@ -0,0 +1,108 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandInterceptor;
+import org.activiti.engine.impl.interceptor.CommandInvoker;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+
+/**
+ * Executes the commands for a chunk of tasks in one {@link CommandContext}, so the whole chunk shares a single
+ * transaction and flush.
+ * 
+ * The tasks of the chunk and the executions of their process instances are fetched upfront with one query each, after
+ * which the task commands find them in the entity cache. The agenda is drained after every task command, so each task
+ * sees the process state left behind by the tasks before it, as if the commands were executed one after another.
+ * 
+ * When one of the commands fails, the exception is propagated and the whole chunk is rolled back.
+ * The index of the failing command is kept (see {@link #getFailedTaskIndex()}), so the caller knows which
+ * tasks were executed before the failure and which ones weren't executed at all.
+ */
+public class ExecuteTaskBatchCmd implements Command<Void>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected List<String> taskIds;
+  protected List<? extends Command<?>> taskCommands;
+  protected int failedTaskIndex = -1;
+
+  /**
+   * @param taskIds the ids of the tasks of the chunk.
+   * @param taskCommands the commands to execute, in order.
+   */
+  public ExecuteTaskBatchCmd(List<String> taskIds, List<? extends Command<?>> taskCommands) {
+    this.taskIds = taskIds;
+    this.taskCommands = taskCommands;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    if (taskIds == null || taskIds.isEmpty()) {
+      throw new ActivitiIllegalArgumentException("taskIds is null or empty");
+    }
+
+    failedTaskIndex = -1;
+    prefetchTasksAndExecutions(commandContext);
+
+    for (int i = 0; i < taskCommands.size(); i++) {
+      try {
+        taskCommands.get(i).execute(commandContext);
+        executeOperations(commandContext);
+        
+      } catch (RuntimeException e) {
+        failedTaskIndex = i;
+        throw e;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return the index of the task command that failed, or -1 when no task command failed 
+   *         (also when the chunk failed after all commands were executed, eg. when flushing).
+   */
+  public int getFailedTaskIndex() {
+    return failedTaskIndex;
+  }
+
+  protected void prefetchTasksAndExecutions(CommandContext commandContext) {
+    List<TaskEntity> tasks = commandContext.getTaskEntityManager().findTasksByIds(taskIds);
+
+    Set<String> processInstanceIds = new HashSet<String>();
+    for (TaskEntity task : tasks) {
+      if (task.getProcessInstanceId() != null) {
+        processInstanceIds.add(task.getProcessInstanceId());
+      }
+    }
+
+    if (!processInstanceIds.isEmpty()) {
+      commandContext.getExecutionEntityManager().findExecutionsByProcessInstanceIds(processInstanceIds);
+    }
+  }
+
+  protected void executeOperations(CommandContext commandContext) {
+    CommandInterceptor commandInvoker = commandContext.getProcessEngineConfiguration().getCommandInvoker();
+    if (commandInvoker instanceof CommandInvoker) {
+      ((CommandInvoker) commandInvoker).executeOperations(commandContext);
+    }
+  }
+
+}
@@ -17,7 +17,10 @@ import java.io.StringWriter;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
 
+import org.activiti.bpmn.model.ExtensionElement;
 import org.activiti.bpmn.model.FlowElement;
 import org.activiti.bpmn.model.ServiceTask;
 import org.activiti.engine.ActivitiException;
@@ -26,8 +29,10 @@ import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.calendar.DurationHelper;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.JobRetryPolicy;
 import org.activiti.engine.impl.persistence.entity.AbstractJobEntity;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
@@ -35,6 +40,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Moves a failed job to the timer jobs to be retried later, or to the dead letter jobs when it has no retries left.
+ * 
+ * When and how often the job is retried is determined by the first of:
+ * <ul>
+ * <li>the {@link JobRetryPolicy} named by the activiti:jobRetryPolicy extension element of the service task,</li>
+ * <li>the {@link JobRetryPolicy} configured for the type of the exception (or one of its causes),</li>
+ * <li>the activiti:failedJobRetryTimeCycle of the service task,</li>
+ * <li>the default {@link JobRetryPolicy} of the engine,</li>
+ * <li>the asyncFailedJobWaitTime or defaultFailedJobWaitTime of the engine.</li>
+ * </ul>
+ * 
  * @author Saeid Mirzaei
  * @author Joram Barrez
  */
@@ -43,6 +59,8 @@ public class JobRetryCmd implements Command<Object> {
 
   private static final Logger log = LoggerFactory.getLogger(JobRetryCmd.class.getName());
 
+  public static final String JOB_RETRY_POLICY_EXTENSION_ELEMENT = "jobRetryPolicy";
+
   protected String jobId;
   protected Throwable exception;
 
@@ -67,8 +85,27 @@ public class JobRetryCmd implements Command<Object> {
       failedJobRetryTimeCycleValue = ((ServiceTask) currentFlowElement).getFailedJobRetryTimeCycleValue();
     }
 
+    JobRetryPolicy jobRetryPolicy = getJobRetryPolicy(commandContext.getProcessEngineConfiguration(), currentFlowElement, failedJobRetryTimeCycleValue);
+
     AbstractJobEntity newJobEntity = null;
-    if (currentFlowElement == null || failedJobRetryTimeCycleValue == null) {
+    if (jobRetryPolicy != null) {
+      int jobRetries = job.getRetries();
+      if (isFirstFailure(job)) {
+        // first failure: the retries of the policy replace the default ones
+        jobRetries = jobRetryPolicy.getMaxAttempts();
+      }
+      
+      if (jobRetries <= 1) {
+        newJobEntity = commandContext.getJobManager().moveJobToDeadLetterJob(job);
+      } else {
+        newJobEntity = commandContext.getJobManager().moveJobToTimerJob(job);
+      }
+      
+      int retryNumber = Math.max(1, jobRetryPolicy.getMaxAttempts() - jobRetries + 1);
+      newJobEntity.setDuedate(jobRetryPolicy.getRetryDate(job, exception, retryNumber, processEngineConfig.getClock().getCurrentTime()));
+      newJobEntity.setRetries(jobRetries - 1);
+      
+    } else if (currentFlowElement == null || failedJobRetryTimeCycleValue == null) {
 
       log.debug("activity or FailedJobRetryTimerCycleValue is null in job " + jobId + ". only decrementing retries.");
       
@@ -91,7 +128,7 @@ public class JobRetryCmd implements Command<Object> {
       try {
         DurationHelper durationHelper = new DurationHelper(failedJobRetryTimeCycleValue, processEngineConfig.getClock());
         int jobRetries = job.getRetries();
-        if (job.getExceptionMessage() == null) {
+        if (isFirstFailure(job)) {
           // change default retries to the ones configured
           jobRetries = durationHelper.getTimes();
         }
@@ -104,7 +141,7 @@ public class JobRetryCmd implements Command<Object> {
         
         newJobEntity.setDuedate(durationHelper.getDateAfter());
 
-        if (job.getExceptionMessage() == null) { // is it the first exception
+        if (isFirstFailure(job)) { // is it the first exception
           log.debug("Applying JobRetryStrategy '" + failedJobRetryTimeCycleValue + "' the first time for job " + 
               job.getId() + " with " + durationHelper.getTimes() + " retries");
 
@@ -134,6 +171,71 @@ public class JobRetryCmd implements Command<Object> {
     return null;
   }
 
+  /**
+   * The exception message alone can't tell whether the job failed before: 
+   * an exception without message would make every failure look like the first one, resetting the retries forever.
+   */
+  protected boolean isFirstFailure(JobEntity job) {
+    return job.getExceptionMessage() == null 
+        && (job.getExceptionByteArrayRef() == null || job.getExceptionByteArrayRef().getId() == null);
+  }
+
+  protected JobRetryPolicy getJobRetryPolicy(ProcessEngineConfigurationImpl processEngineConfiguration, FlowElement currentFlowElement, String failedJobRetryTimeCycleValue) {
+    if (currentFlowElement instanceof ServiceTask) {
+      String jobRetryPolicyName = getJobRetryPolicyName((ServiceTask) currentFlowElement);
+      if (jobRetryPolicyName != null) {
+        Map<String, JobRetryPolicy> jobRetryPolicies = processEngineConfiguration.getJobRetryPolicies();
+        if (jobRetryPolicies != null && jobRetryPolicies.containsKey(jobRetryPolicyName)) {
+          return jobRetryPolicies.get(jobRetryPolicyName);
+        }
+        log.warn("No job retry policy named '{}' is configured, used by {}", jobRetryPolicyName, currentFlowElement.getId());
+      }
+    }
+    
+    JobRetryPolicy exceptionJobRetryPolicy = getExceptionJobRetryPolicy(processEngineConfiguration.getExceptionJobRetryPolicies());
+    if (exceptionJobRetryPolicy != null) {
+      return exceptionJobRetryPolicy;
+    }
+    
+    if (failedJobRetryTimeCycleValue != null) {
+      return null;
+    }
+    return processEngineConfiguration.getDefaultJobRetryPolicy();
+  }
+  
+  protected String getJobRetryPolicyName(ServiceTask serviceTask) {
+    List<ExtensionElement> extensionElements = serviceTask.getExtensionElements().get(JOB_RETRY_POLICY_EXTENSION_ELEMENT);
+    if (extensionElements == null || extensionElements.isEmpty() || extensionElements.get(0).getElementText() == null) {
+      return null;
+    }
+    String jobRetryPolicyName = extensionElements.get(0).getElementText().trim();
+    return jobRetryPolicyName.length() > 0 ? jobRetryPolicyName : null;
+  }
+  
+  /**
+   * Looks up the exception and its causes, from the outer exception to the root cause, 
+   * and for every exception its class and superclasses, from the most specific one.
+   */
+  protected JobRetryPolicy getExceptionJobRetryPolicy(Map<String, JobRetryPolicy> exceptionJobRetryPolicies) {
+    if (exceptionJobRetryPolicies == null || exceptionJobRetryPolicies.isEmpty()) {
+      return null;
+    }
+    
+    Throwable currentException = exception;
+    while (currentException != null) {
+      Class<?> exceptionClass = currentException.getClass();
+      while (exceptionClass != null) {
+        JobRetryPolicy jobRetryPolicy = exceptionJobRetryPolicies.get(exceptionClass.getName());
+        if (jobRetryPolicy != null) {
+          return jobRetryPolicy;
+        }
+        exceptionClass = exceptionClass.getSuperclass();
+      }
+      currentException = currentException.getCause() != currentException ? currentException.getCause() : null;
+    }
+    return null;
+  }
+
   protected Date calculateDueDate(CommandContext commandContext, int waitTimeInSeconds, Date oldDate) {
     Calendar newDateCal = new GregorianCalendar();
     if (oldDate != null) {
@@ -0,0 +1,120 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.DeadLetterJobEntity;
+import org.activiti.engine.impl.persistence.entity.DeadLetterJobEntityManager;
+import org.activiti.engine.impl.util.ExceptionFingerprintUtil;
+import org.activiti.engine.runtime.DeadLetterJobGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves at most maxJobs dead letter jobs of a {@link DeadLetterJobGroup} to the executable jobs, 
+ * looking only at the jobs with an id higher than lastJobId (when not null). 
+ * 
+ * Returns the ids of the moved jobs, in ascending order. When less than maxJobs ids are returned, 
+ * all the jobs of the group have been moved.
+ */
+public class MoveDeadLetterJobsToExecutableJobsCmd implements Command<List<String>>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static Logger log = LoggerFactory.getLogger(MoveDeadLetterJobsToExecutableJobsCmd.class);
+
+  protected DeadLetterJobGroup jobGroup;
+  protected int retries;
+  protected String lastJobId;
+  protected int maxJobs;
+
+  public MoveDeadLetterJobsToExecutableJobsCmd(DeadLetterJobGroup jobGroup, int retries, String lastJobId, int maxJobs) {
+    this.jobGroup = jobGroup;
+    this.retries = retries;
+    this.lastJobId = lastJobId;
+    this.maxJobs = maxJobs;
+  }
+
+  public List<String> execute(CommandContext commandContext) {
+    if (jobGroup == null) {
+      throw new ActivitiIllegalArgumentException("jobGroup is null");
+    }
+    if (maxJobs <= 0) {
+      throw new ActivitiIllegalArgumentException("maxJobs must be greater than 0");
+    }
+
+    DeadLetterJobEntityManager deadLetterJobEntityManager = commandContext.getDeadLetterJobEntityManager();
+    String exceptionFingerprint = jobGroup.getExceptionFingerprint() != null ? jobGroup.getExceptionFingerprint() : "";
+    
+    List<DeadLetterJobEntity> jobs = new ArrayList<DeadLetterJobEntity>();
+    List<String> jobIds = new ArrayList<String>();
+    
+    // The fingerprint can't be matched in the query, so jobs of the process definition and activity are fetched until enough of them match
+    String scannedJobId = lastJobId;
+    while (jobIds.size() < maxJobs) {
+      List<DeadLetterJobEntity> candidateJobs = deadLetterJobEntityManager.findJobsByGroup(jobGroup.getProcessDefinitionId(), 
+          jobGroup.getActivityId(), scannedJobId, maxJobs);
+      
+      for (DeadLetterJobEntity candidateJob : candidateJobs) {
+        if (jobIds.size() == maxJobs) {
+          break;
+        }
+        if (exceptionFingerprint.equals(ExceptionFingerprintUtil.fingerprint(candidateJob.getExceptionMessage()))) {
+          jobs.add(candidateJob);
+          jobIds.add(candidateJob.getId());
+        }
+      }
+      
+      if (candidateJobs.size() < maxJobs) {
+        break;
+      }
+      scannedJobId = candidateJobs.get(candidateJobs.size() - 1).getId();
+    }
+    
+    if (jobIds.isEmpty()) {
+      return jobIds;
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug("Moving {} deadletter jobs of {} to executable job table", jobIds.size(), jobGroup);
+    }
+    
+    if (isBulkMoveAllowed(commandContext.getProcessEngineConfiguration())) {
+      deadLetterJobEntityManager.moveJobsToExecutableJobs(jobs, retries);
+      
+    } else {
+      for (DeadLetterJobEntity job : jobs) {
+        commandContext.getJobManager().moveDeadLetterJobToExecutableJob(job, retries);
+      }
+    }
+    
+    return jobIds;
+  }
+
+  /**
+   * The bulk statements don't send the jobs to a message queue and don't update the execution related entity counts,
+   * the jobs are moved one by one through the {@link org.activiti.engine.impl.asyncexecutor.JobManager} when either is needed.
+   */
+  protected boolean isBulkMoveAllowed(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    return !processEngineConfiguration.isAsyncExecutorIsMessageQueueMode() 
+        && !processEngineConfiguration.getPerformanceSettings().isEnableExecutionRelationshipCounts();
+  }
+
+}
@@ -0,0 +1,67 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves the given timer jobs to executable jobs in one transaction. 
+ * 
+ * Timer jobs that no longer exist (for example because the execution was removed), 
+ * or that are locked by another lock owner than the given one, are skipped.
+ */
+public class MoveTimerJobsToExecutableJobsCmd implements Command<List<JobEntity>> {
+
+  private static Logger log = LoggerFactory.getLogger(MoveTimerJobsToExecutableJobsCmd.class);
+
+  protected final List<String> timerJobIds;
+  protected final String lockOwner;
+
+  public MoveTimerJobsToExecutableJobsCmd(List<String> timerJobIds, String lockOwner) {
+    this.timerJobIds = timerJobIds;
+    this.lockOwner = lockOwner;
+  }
+
+  public List<JobEntity> execute(CommandContext commandContext) {
+    Date now = commandContext.getProcessEngineConfiguration().getClock().getCurrentTime();
+    List<JobEntity> executableJobs = new ArrayList<JobEntity>(timerJobIds.size());
+    for (String timerJobId : timerJobIds) {
+      TimerJobEntity timerJob = commandContext.getTimerJobEntityManager().findById(timerJobId);
+      if (timerJob == null) {
+        continue;
+      }
+      
+      if (timerJob.getLockOwner() != null && !timerJob.getLockOwner().equals(lockOwner) 
+          && timerJob.getLockExpirationTime() != null && timerJob.getLockExpirationTime().after(now)) {
+        log.debug("Timer job {} is locked by {}, not moving it", timerJobId, timerJob.getLockOwner());
+        continue;
+      }
+
+      JobEntity executableJob = commandContext.getJobManager().moveTimerJobToExecutableJob(timerJob);
+      if (executableJob != null) {
+        executableJobs.add(executableJob);
+      }
+    }
+    return executableJobs;
+  }
+
+}
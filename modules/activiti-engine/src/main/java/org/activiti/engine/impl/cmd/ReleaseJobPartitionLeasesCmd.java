@@ -0,0 +1,49 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.ArrayList;
+
+import org.activiti.engine.impl.asyncexecutor.JobPartitionLease;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+import org.activiti.engine.impl.persistence.entity.PropertyEntityManager;
+
+/**
+ * Removes the job partition leases and the heartbeat of the given lock owner,
+ * so other nodes can claim the partitions right away.
+ */
+public class ReleaseJobPartitionLeasesCmd implements Command<Void> {
+
+  protected final String lockOwner;
+
+  public ReleaseJobPartitionLeasesCmd(String lockOwner) {
+    this.lockOwner = lockOwner;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    PropertyEntityManager propertyEntityManager = commandContext.getPropertyEntityManager();
+    for (PropertyEntity property : new ArrayList<PropertyEntity>(propertyEntityManager.findByNamePrefix(JobPartitionLease.PROPERTY_PREFIX))) {
+      if (property.getName().startsWith(JobPartitionLease.LEASE_PROPERTY_PREFIX) 
+          || property.getName().startsWith(JobPartitionLease.NODE_PROPERTY_PREFIX)) {
+        JobPartitionLease lease = JobPartitionLease.parse(property.getValue());
+        if (lease != null && lockOwner.equals(lease.getLockOwner())) {
+          propertyEntityManager.delete(property);
+        }
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,146 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.activiti.engine.impl.asyncexecutor.JobPartitionLease;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+import org.activiti.engine.impl.persistence.entity.PropertyEntityManager;
+
+/**
+ * Renews the job partition leases of a node and claims free or expired partitions,
+ * up to an equal share of the partitions over the live nodes.
+ * 
+ * Every node keeps a heartbeat property, which is used to count the live nodes. A node owning
+ * more partitions than its share doesn't renew the extra leases, so other nodes can claim them
+ * once they have expired. Concurrent claims of the same partition fail with an optimistic
+ * locking exception (or a duplicate key when inserting), in which case the command is retried later.
+ * 
+ * Returns the current leases by partition. Leases this node no longer renews are left out.
+ */
+public class RenewJobPartitionLeasesCmd implements Command<Map<Integer, JobPartitionLease>> {
+
+  protected final String lockOwner;
+  protected final int partitionCount;
+  protected final int leaseTimeInMillis;
+
+  public RenewJobPartitionLeasesCmd(String lockOwner, int partitionCount, int leaseTimeInMillis) {
+    this.lockOwner = lockOwner;
+    this.partitionCount = partitionCount;
+    this.leaseTimeInMillis = leaseTimeInMillis;
+  }
+
+  public Map<Integer, JobPartitionLease> execute(CommandContext commandContext) {
+    PropertyEntityManager propertyEntityManager = commandContext.getPropertyEntityManager();
+    long now = commandContext.getProcessEngineConfiguration().getClock().getCurrentTime().getTime();
+    JobPartitionLease renewedLease = new JobPartitionLease(lockOwner, now + leaseTimeInMillis);
+
+    Map<Integer, PropertyEntity> leaseProperties = new HashMap<Integer, PropertyEntity>();
+    PropertyEntity nodeProperty = null;
+    int liveNodes = 1;
+    
+    List<PropertyEntity> properties = propertyEntityManager.findByNamePrefix(JobPartitionLease.PROPERTY_PREFIX);
+    for (PropertyEntity property : properties) {
+      if (property.getName().startsWith(JobPartitionLease.LEASE_PROPERTY_PREFIX)) {
+        Integer partition = parsePartition(property.getName());
+        if (partition != null && partition < partitionCount) {
+          leaseProperties.put(partition, property);
+        }
+        
+      } else if (property.getName().startsWith(JobPartitionLease.NODE_PROPERTY_PREFIX)) {
+        JobPartitionLease node = JobPartitionLease.parse(property.getValue());
+        if (node != null && lockOwner.equals(node.getLockOwner())) {
+          nodeProperty = property;
+        } else if (node == null || node.isExpired(now)) {
+          propertyEntityManager.delete(property);
+        } else {
+          liveNodes++;
+        }
+      }
+    }
+    
+    if (nodeProperty == null) {
+      insertProperty(propertyEntityManager, getNodePropertyName(lockOwner), renewedLease);
+    } else {
+      nodeProperty.setValue(renewedLease.toValue());
+    }
+    
+    int maxOwnedPartitions = (partitionCount + liveNodes - 1) / liveNodes;
+    int ownedPartitions = 0;
+    Map<Integer, JobPartitionLease> leases = new HashMap<Integer, JobPartitionLease>();
+    
+    // Renew the leases of this node first, so partitions only move to another node when needed
+    for (Map.Entry<Integer, PropertyEntity> entry : leaseProperties.entrySet()) {
+      JobPartitionLease lease = JobPartitionLease.parse(entry.getValue().getValue());
+      if (lease != null && !lease.isExpired(now)) {
+        if (!lockOwner.equals(lease.getLockOwner())) {
+          leases.put(entry.getKey(), lease);
+          
+        } else if (ownedPartitions < maxOwnedPartitions) {
+          entry.getValue().setValue(renewedLease.toValue());
+          leases.put(entry.getKey(), renewedLease);
+          ownedPartitions++;
+        }
+      }
+    }
+    
+    for (int partition = 0; partition < partitionCount && ownedPartitions < maxOwnedPartitions; partition++) {
+      PropertyEntity leaseProperty = leaseProperties.get(partition);
+      if (leaseProperty == null) {
+        insertProperty(propertyEntityManager, JobPartitionLease.LEASE_PROPERTY_PREFIX + partition, renewedLease);
+        leases.put(partition, renewedLease);
+        ownedPartitions++;
+        
+      } else if (!leases.containsKey(partition)) {
+        JobPartitionLease lease = JobPartitionLease.parse(leaseProperty.getValue());
+        if (lease == null || lease.isExpired(now)) {
+          leaseProperty.setValue(renewedLease.toValue());
+          leases.put(partition, renewedLease);
+          ownedPartitions++;
+        }
+      }
+    }
+    
+    return leases;
+  }
+  
+  protected void insertProperty(PropertyEntityManager propertyEntityManager, String name, JobPartitionLease lease) {
+    PropertyEntity property = propertyEntityManager.create();
+    property.setName(name);
+    property.setValue(lease.toValue());
+    propertyEntityManager.insert(property);
+  }
+
+  protected Integer parsePartition(String propertyName) {
+    try {
+      return Integer.valueOf(propertyName.substring(JobPartitionLease.LEASE_PROPERTY_PREFIX.length()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The lock owner can be any string, so a name based uuid keeps the property name within the column size.
+   */
+  protected String getNodePropertyName(String lockOwner) {
+    return JobPartitionLease.NODE_PROPERTY_PREFIX + UUID.nameUUIDFromBytes(lockOwner.getBytes(Charset.forName("UTF-8")));
+  }
+
+}
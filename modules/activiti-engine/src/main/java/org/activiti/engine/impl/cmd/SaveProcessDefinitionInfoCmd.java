@@ -18,6 +18,7 @@ import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCacheInvalidation;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntity;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntityManager;
 
@@ -66,6 +67,9 @@ public class SaveProcessDefinitionInfoCmd implements Command<Void>, Serializable
       }
     }
     
+    commandContext.getProcessEngineConfiguration().getDeploymentManager().invalidateAfterCommit(
+        new DeploymentCacheInvalidation(DeploymentCacheInvalidation.Type.PROCESS_DEFINITION_INFO, processDefinitionId));
+    
     return null;
   }
 
@@ -69,6 +69,15 @@ public class StartProcessInstanceCmd<T> implements Command<ProcessInstance>, Ser
   }
 
   public ProcessInstance execute(CommandContext commandContext) {
+    ProcessDefinition processDefinition = findProcessDefinition(commandContext);
+
+    processInstanceHelper = commandContext.getProcessEngineConfiguration().getProcessInstanceHelper();
+    ProcessInstance processInstance = createAndStartProcessInstance(processDefinition, businessKey, processInstanceName, variables, transientVariables);
+
+    return processInstance;
+  }
+
+  protected ProcessDefinition findProcessDefinition(CommandContext commandContext) {
     DeploymentManager deploymentCache = commandContext.getProcessEngineConfiguration().getDeploymentManager();
 
     // Find the process definition
@@ -98,10 +107,7 @@ public class StartProcessInstanceCmd<T> implements Command<ProcessInstance>, Ser
       throw new ActivitiIllegalArgumentException("processDefinitionKey and processDefinitionId are null");
     }
 
-    processInstanceHelper = commandContext.getProcessEngineConfiguration().getProcessInstanceHelper();
-    ProcessInstance processInstance = createAndStartProcessInstance(processDefinition, businessKey, processInstanceName, variables, transientVariables);
-
-    return processInstance;
+    return processDefinition;
   }
 
   protected ProcessInstance createAndStartProcessInstance(ProcessDefinition processDefinition, String businessKey, String processInstanceName, 
@@ -0,0 +1,99 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandInterceptor;
+import org.activiti.engine.impl.interceptor.CommandInvoker;
+import org.activiti.engine.impl.runtime.ProcessInstanceBuilderImpl;
+import org.activiti.engine.impl.util.ProcessInstanceHelper;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.runtime.ProcessInstance;
+
+/**
+ * Starts a chunk of process instances in one {@link CommandContext}: the chunk is started atomically and all its
+ * entities are written in a single flush, which groups the inserts per entity type into bulk inserts.
+ * 
+ * Process definitions are resolved once per chunk for every distinct id or key and tenant. The agenda is drained after
+ * every started process instance, so the process instances are started one after another as with separate commands.
+ */
+public class StartProcessInstancesBatchCmd implements Command<List<ProcessInstance>>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected List<ProcessInstanceBuilderImpl> processInstanceBuilders;
+
+  public StartProcessInstancesBatchCmd(List<ProcessInstanceBuilderImpl> processInstanceBuilders) {
+    this.processInstanceBuilders = processInstanceBuilders;
+  }
+
+  public List<ProcessInstance> execute(CommandContext commandContext) {
+    if (processInstanceBuilders == null) {
+      throw new ActivitiIllegalArgumentException("processInstanceBuilders is null");
+    }
+
+    ProcessInstanceHelper processInstanceHelper = commandContext.getProcessEngineConfiguration().getProcessInstanceHelper();
+    Map<String, ProcessDefinition> processDefinitions = new HashMap<String, ProcessDefinition>();
+    List<ProcessInstance> processInstances = new ArrayList<ProcessInstance>(processInstanceBuilders.size());
+
+    for (ProcessInstanceBuilderImpl processInstanceBuilder : processInstanceBuilders) {
+      ProcessInstance processInstance = null;
+      if (processInstanceBuilder.getProcessDefinitionId() != null || processInstanceBuilder.getProcessDefinitionKey() != null) {
+
+        String processDefinitionCacheKey = getProcessDefinitionCacheKey(processInstanceBuilder);
+        ProcessDefinition processDefinition = processDefinitions.get(processDefinitionCacheKey);
+        if (processDefinition == null) {
+          processDefinition = new StartProcessInstanceCmd<ProcessInstance>(processInstanceBuilder).findProcessDefinition(commandContext);
+          processDefinitions.put(processDefinitionCacheKey, processDefinition);
+        }
+
+        processInstance = processInstanceHelper.createAndStartProcessInstance(processDefinition, processInstanceBuilder.getBusinessKey(),
+            processInstanceBuilder.getProcessInstanceName(), processInstanceBuilder.getVariables(), processInstanceBuilder.getTransientVariables());
+
+      } else if (processInstanceBuilder.getMessageName() != null) {
+        processInstance = new StartProcessInstanceByMessageCmd(processInstanceBuilder).execute(commandContext);
+
+      } else {
+        throw new ActivitiIllegalArgumentException("No processDefinitionId, processDefinitionKey nor messageName provided");
+      }
+
+      executeOperations(commandContext);
+      processInstances.add(processInstance);
+    }
+
+    return processInstances;
+  }
+
+  protected String getProcessDefinitionCacheKey(ProcessInstanceBuilderImpl processInstanceBuilder) {
+    if (processInstanceBuilder.getProcessDefinitionId() != null) {
+      return "id:" + processInstanceBuilder.getProcessDefinitionId();
+    }
+    return "key:" + processInstanceBuilder.getProcessDefinitionKey() + ":" + processInstanceBuilder.getTenantId();
+  }
+
+  protected void executeOperations(CommandContext commandContext) {
+    CommandInterceptor commandInvoker = commandContext.getProcessEngineConfiguration().getCommandInvoker();
+    if (commandInvoker instanceof CommandInvoker) {
+      ((CommandInvoker) commandInvoker).executeOperations(commandContext);
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+
+/**
+ * Releases the lock of the given lock owner on the given timer jobs,
+ * so they can be acquired by another async executor right away.
+ */
+public class UnlockTimerJobsCmd implements Command<Void> {
+
+  protected final List<String> timerJobIds;
+  protected final String lockOwner;
+
+  public UnlockTimerJobsCmd(List<String> timerJobIds, String lockOwner) {
+    this.timerJobIds = timerJobIds;
+    this.lockOwner = lockOwner;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    for (String timerJobId : timerJobIds) {
+      TimerJobEntity timerJob = commandContext.getTimerJobEntityManager().findById(timerJobId);
+      if (timerJob != null && lockOwner.equals(timerJob.getLockOwner())) {
+        timerJob.setLockOwner(null);
+        timerJob.setLockExpirationTime(null);
+      }
+    }
+    return null;
+  }
+
+}
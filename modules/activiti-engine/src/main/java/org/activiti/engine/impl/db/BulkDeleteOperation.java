@@ -36,6 +36,10 @@ public class BulkDeleteOperation  {
     sqlSession.delete(statement, parameter);
   }
 
+  public void execute(DbSqlSessionBatch batch) {
+    batch.delete(statement, parameter, false);
+  }
+
   @Override
   public String toString() {
     return "bulk delete: " + statement + "(" + parameter + ")";
@@ -19,6 +19,7 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -61,11 +62,14 @@ import org.activiti.engine.impl.db.upgrade.DbUpgradeStep;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.persistence.cache.CachedEntity;
 import org.activiti.engine.impl.persistence.cache.EntityCache;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCache;
 import org.activiti.engine.impl.persistence.entity.Entity;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.PropertyEntity;
 import org.activiti.engine.impl.util.IoUtil;
 import org.activiti.engine.impl.util.ReflectUtil;
+import org.activiti.engine.query.QueryResultHandler;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.SqlSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -155,6 +159,13 @@ public class DbSqlSession implements Session {
   protected Map<Class<? extends Entity>, List<BulkDeleteOperation>> bulkDeleteOperations
     = new HashMap<Class<? extends Entity>, List<BulkDeleteOperation>>();
   protected List<Entity> updatedObjects = new ArrayList<Entity>();
+  
+  /** Only set during a flush, when batch flushing is enabled */
+  protected DbSqlSessionBatch batch;
+  
+  /** Entities (by type and id) and entity types to invalidate in the {@link SharedEntityCache} */
+  protected Map<Class<?>, Set<String>> sharedEntityCacheInvalidations = new HashMap<Class<?>, Set<String>>();
+  protected Set<Class<?>> sharedEntityCacheRegionInvalidations = new HashSet<Class<?>>();
  
   protected String connectionMetadataDefaultCatalog;
   protected String connectionMetadataDefaultSchema;
@@ -197,6 +208,16 @@ public class DbSqlSession implements Session {
   // update
   // ///////////////////////////////////////////////////////////////////
 
+  /**
+   * Executes the given insert statement right away, unlike {@link #insert(Entity)} which inserts the entity when flushing.
+   * Meant for statements that insert rows that aren't known as entities in this session (eg. INSERT ... SELECT):
+   * the inserted rows are therefore in the database before the inserts, updates and deletes of this session are flushed.
+   */
+  public int insert(String statement, Object parameters) {
+    String insertStatement = dbSqlSessionFactory.mapStatement(statement);
+    return getSqlSession().insert(insertStatement, parameters);
+  }
+
   public void update(Entity entity) {
     entityCache.put(entity, false); // false -> we don't store state, meaning it will always be seen as changed 
     entity.setUpdated(true);
@@ -207,6 +228,18 @@ public class DbSqlSession implements Session {
     return getSqlSession().update(updateStatement, parameters);
   }
 
+  /**
+   * Same as {@link #update(String, Object)}, for statements that update entities of the passed class:
+   * all entities of that class are removed from the {@link SharedEntityCache}.
+   */
+  public int update(String statement, Object parameters, Class<? extends Entity> entityClass) {
+    if (dbSqlSessionFactory.getSharedEntityCache() != null) {
+      sharedEntityCacheRegionInvalidations.add(entityClass);
+      dbSqlSessionFactory.getSharedEntityCache().invalidateAll(entityClass);
+    }
+    return update(statement, parameters);
+  }
+
   // delete
   // ///////////////////////////////////////////////////////////////////
 
@@ -334,6 +367,76 @@ public class DbSqlSession implements Session {
     return sqlSession.selectList(statement, parameter);
   }
 
+  /**
+   * Executes the select and passes the results one by one to the handler, without collecting them in a list. 
+   * The results are not added to the entity cache, so they are not flushed when changed.
+   * 
+   * By default the results are read through a cursor with the {@link DbSqlSessionFactory#getQueryStreamFetchSize()}. 
+   * When {@link DbSqlSessionFactory#isQueryStreamKeysetPagination()} is true, they are read in pages of that size instead,
+   * ordered by id: this needs a statement that takes {@link ListQueryParameterObject#getKeysetLastId()} into account,
+   * and ignores the first and max results of the parameter.
+   */
+  public <T> void selectForEach(String statement, ListQueryParameterObject parameter, QueryResultHandler<T> resultHandler) {
+    statement = dbSqlSessionFactory.mapStatement(statement);
+    if (parameter.getFirstResult() == -1 || parameter.getMaxResults() == -1) {
+      return;
+    }
+    
+    if (dbSqlSessionFactory.isQueryStreamKeysetPagination()) {
+      selectForEachWithKeysetPagination(statement, parameter, resultHandler);
+    } else {
+      selectForEachWithCursor(statement, parameter, resultHandler);
+    }
+  }
+
+  protected <T> void selectForEachWithCursor(String statement, ListQueryParameterObject parameter, QueryResultHandler<T> resultHandler) {
+    Cursor<T> cursor = sqlSession.selectCursor(dbSqlSessionFactory.getStreamStatement(statement), parameter);
+    try {
+      for (T result : cursor) {
+        resultHandler.handleResult(result);
+      }
+    } finally {
+      try {
+        cursor.close();
+      } catch (IOException e) {
+        log.warn("Could not close cursor of statement {}", statement, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected <T> void selectForEachWithKeysetPagination(String statement, ListQueryParameterObject parameter, QueryResultHandler<T> resultHandler) {
+    int pageSize = dbSqlSessionFactory.getQueryStreamFetchSize();
+    int firstResult = parameter.getFirstResult();
+    int maxResults = parameter.getMaxResults();
+    
+    parameter.setKeysetPagination(true);
+    parameter.setFirstResult(0);
+    parameter.setMaxResults(pageSize);
+    try {
+      List<Object> page = null;
+      do {
+        page = sqlSession.selectList(statement, parameter);
+        
+        // The results are only used once, don't keep them in the local cache of MyBatis
+        sqlSession.clearCache();
+        
+        for (Object result : page) {
+          resultHandler.handleResult((T) result);
+        }
+        if (!page.isEmpty()) {
+          parameter.setKeysetLastId(((Entity) page.get(page.size() - 1)).getId());
+        }
+      } while (page.size() == pageSize);
+      
+    } finally {
+      parameter.setKeysetPagination(false);
+      parameter.setKeysetLastId(null);
+      parameter.setFirstResult(firstResult);
+      parameter.setMaxResults(maxResults);
+    }
+  }
+
   public Object selectOne(String statement, Object parameter) {
     statement = dbSqlSessionFactory.mapStatement(statement);
     Object result = sqlSession.selectOne(statement, parameter);
@@ -357,6 +460,11 @@ public class DbSqlSession implements Session {
       if (entity != null) {
         return entity;
       }
+      
+      entity = entityCache.findInSharedCache(entityClass, id);
+      if (entity != null) {
+        return entity;
+      }
     }
     
     String selectStatement = dbSqlSessionFactory.getSelectStatement(entityClass);
@@ -413,10 +521,95 @@ public class DbSqlSession implements Session {
     if (log.isDebugEnabled()) {
       debugFlush();
     }
+    
+    if (dbSqlSessionFactory.getSharedEntityCache() != null) {
+      determineSharedEntityCacheInvalidations();
+      invalidateSharedEntityCache();
+    }
 
-    flushInserts();
-    flushUpdates();
-    flushDeletes();
+    if (dbSqlSessionFactory.isBatchFlushEnabled()) {
+      flushBatched();
+    } else {
+      flushInserts();
+      flushUpdates();
+      flushDeletes();
+    }
+  }
+  
+  /**
+   * Collects the updated and deleted entities that need to be removed from the {@link SharedEntityCache}.
+   */
+  protected void determineSharedEntityCacheInvalidations() {
+    for (Entity updatedObject : updatedObjects) {
+      addSharedEntityCacheInvalidation(updatedObject.getClass(), updatedObject.getId());
+    }
+    for (Map<String, Entity> deletedObjectsOfClass : deletedObjects.values()) {
+      for (Entity deletedObject : deletedObjectsOfClass.values()) {
+        addSharedEntityCacheInvalidation(deletedObject.getClass(), deletedObject.getId());
+      }
+    }
+    sharedEntityCacheRegionInvalidations.addAll(bulkDeleteOperations.keySet());
+  }
+  
+  protected void addSharedEntityCacheInvalidation(Class<?> entityClass, String id) {
+    Set<String> ids = sharedEntityCacheInvalidations.get(entityClass);
+    if (ids == null) {
+      ids = new HashSet<String>();
+      sharedEntityCacheInvalidations.put(entityClass, ids);
+    }
+    ids.add(id);
+  }
+  
+  /**
+   * Removes the changed entities from the {@link SharedEntityCache}. This happens when flushing,
+   * and again when closing (after the transaction is committed): a command that loads the old version
+   * of an entity before the commit will otherwise be able to put it in the cache after it was invalidated.
+   */
+  protected void invalidateSharedEntityCache() {
+    SharedEntityCache sharedEntityCache = dbSqlSessionFactory.getSharedEntityCache();
+    for (Map.Entry<Class<?>, Set<String>> invalidation : sharedEntityCacheInvalidations.entrySet()) {
+      for (String id : invalidation.getValue()) {
+        sharedEntityCache.invalidate(invalidation.getKey(), id);
+      }
+    }
+    for (Class<?> entityClass : sharedEntityCacheRegionInvalidations) {
+      sharedEntityCache.invalidateAll(entityClass);
+    }
+  }
+  
+  /**
+   * Sends all inserts, updates and deletes of this flush as JDBC batches 
+   * instead of one round trip per statement. See {@link DbSqlSessionBatch}.
+   */
+  protected void flushBatched() {
+    
+    // Creating the batch gets a connection, which should not happen when there is nothing to flush 
+    if (insertedObjects.isEmpty() && updatedObjects.isEmpty() && deletedObjects.isEmpty() && bulkDeleteOperations.isEmpty()) {
+      return;
+    }
+    
+    batch = new DbSqlSessionBatch(sqlSession, dbSqlSessionFactory.isBatchUpdateCountsReported());
+    try {
+      flushInserts();
+      flushUpdates();
+      flushDeletes();
+      
+      if (log.isDebugEnabled()) {
+        log.debug("executing batch of {} statements", batch.getNrOfStatements());
+      }
+      batch.flush();
+      
+    } finally {
+      if (!batch.isUpdateCountsReported() && dbSqlSessionFactory.isBatchUpdateCountsReported()) {
+        log.warn("The JDBC driver doesn't return the update counts of batched statements: statements with an optimistic locking check will not be batched anymore");
+        dbSqlSessionFactory.setBatchUpdateCountsReported(false);
+      }
+      batch.close();
+      batch = null;
+      
+      // The batch executor bypasses the local cache of the sql session
+      sqlSession.clearCache();
+    }
   }
 
   /**
@@ -646,7 +839,11 @@ public class DbSqlSession implements Session {
      }
      
      log.debug("inserting: {}", entity);
-     sqlSession.insert(insertStatement, entity);
+     if (batch != null) {
+       batch.insert(insertStatement, entity);
+     } else {
+       sqlSession.insert(insertStatement, entity);
+     }
      
      // See https://activiti.atlassian.net/browse/ACT-1290
      if (entity instanceof HasRevision) {
@@ -677,7 +874,11 @@ public class DbSqlSession implements Session {
         }
         index++;
       }
-      sqlSession.insert(insertStatement, subList);
+      if (batch != null) {
+        batch.insert(insertStatement, subList);
+      } else {
+        sqlSession.insert(insertStatement, subList);
+      }
     }
     
     if (hasRevision != null && hasRevision) {
@@ -707,9 +908,13 @@ public class DbSqlSession implements Session {
       }
 
       log.debug("updating: {}", updatedObject);
-      int updatedRecords = sqlSession.update(updateStatement, updatedObject);
-      if (updatedRecords == 0) {
-        throw new ActivitiOptimisticLockingException(updatedObject + " was updated by another transaction concurrently");
+      if (batch != null) {
+        batch.update(updateStatement, updatedObject, true);
+      } else {
+        int updatedRecords = sqlSession.update(updateStatement, updatedObject);
+        if (updatedRecords == 0) {
+          throw new ActivitiOptimisticLockingException(updatedObject + " was updated by another transaction concurrently");
+        }
       }
 
       // See https://activiti.atlassian.net/browse/ACT-1290
@@ -751,7 +956,11 @@ public class DbSqlSession implements Session {
     // Bulk deletes
     if (bulkDeleteOperations.containsKey(entityClass)) {
       for (BulkDeleteOperation bulkDeleteOperation : bulkDeleteOperations.get(entityClass)) {
-        bulkDeleteOperation.execute(sqlSession);
+        if (batch != null) {
+          bulkDeleteOperation.execute(batch);
+        } else {
+          bulkDeleteOperation.execute(sqlSession);
+        }
       }
     }
   }
@@ -766,7 +975,9 @@ public class DbSqlSession implements Session {
 
       // It only makes sense to check for optimistic locking exceptions
       // for objects that actually have a revision
-      if (entity instanceof HasRevision) {
+      if (batch != null) {
+        batch.delete(deleteStatement, entity, entity instanceof HasRevision);
+      } else if (entity instanceof HasRevision) {
         int nrOfRowsDeleted = sqlSession.delete(deleteStatement, entity);
         if (nrOfRowsDeleted == 0) {
           throw new ActivitiOptimisticLockingException(entity + " was updated by another transaction concurrently");
@@ -778,15 +989,20 @@ public class DbSqlSession implements Session {
   }
 
   public void close() {
+    if (dbSqlSessionFactory.getSharedEntityCache() != null) {
+      invalidateSharedEntityCache();
+    }
     sqlSession.close();
   }
 
   public void commit() {
-    sqlSession.commit();
+    // Statements sent through a batch executor are not tracked by the SqlSession,
+    // so commit and rollback need to be forced when batch flushing is enabled
+    sqlSession.commit(dbSqlSessionFactory.isBatchFlushEnabled());
   }
 
   public void rollback() {
-    sqlSession.rollback();
+    sqlSession.rollback(dbSqlSessionFactory.isBatchFlushEnabled());
   }
 
   // schema operations
@@ -1319,6 +1535,36 @@ public class DbSqlSession implements Session {
     }
   }
 
+  /**
+   * Sends a JDBC batch with one update that doesn't change anything and checks whether the driver returns its update count,
+   * or {@link Statement#SUCCESS_NO_INFO}. Done once when the process engine is built, so no transaction has to fail
+   * to find out that the statements with an optimistic locking check can't be batched (see {@link DbSqlSessionFactory#isBatchUpdateCountsReported()}).
+   */
+  public void detectBatchUpdateCountsReported() {
+    boolean updateCountsReported = false;
+    if (isTablePresent("ACT_GE_PROPERTY")) {
+      try {
+        PreparedStatement statement = sqlSession.getConnection().prepareStatement(
+            "update " + prependDatabaseTablePrefix("ACT_GE_PROPERTY") + " set REV_ = REV_ where NAME_ = ?");
+        try {
+          statement.setString(1, "schema.version");
+          statement.addBatch();
+          int[] updateCounts = statement.executeBatch();
+          updateCountsReported = updateCounts.length == 1 && updateCounts[0] != Statement.SUCCESS_NO_INFO;
+        } finally {
+          statement.close();
+        }
+      } catch (Exception e) {
+        log.warn("Could not detect whether the JDBC driver returns the update counts of batched statements", e);
+      }
+    }
+    
+    if (!updateCountsReported) {
+      log.info("The update counts of batched statements are not known: statements with an optimistic locking check will not be batched");
+    }
+    dbSqlSessionFactory.setBatchUpdateCountsReported(updateCountsReported);
+  }
+
   public void performSchemaOperationsProcessEngineClose() {
     String databaseSchemaUpdate = Context.getProcessEngineConfiguration().getDatabaseSchemaUpdate();
     if (org.activiti.engine.ProcessEngineConfiguration.DB_SCHEMA_UPDATE_CREATE_DROP.equals(databaseSchemaUpdate)) {
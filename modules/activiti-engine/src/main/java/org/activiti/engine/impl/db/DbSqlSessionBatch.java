@@ -0,0 +1,221 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Collects the insert, update and delete statements of one {@link DbSqlSession#flush()} 
+ * in JDBC batches, using a MyBatis {@link ExecutorType#BATCH} executor on the connection of the {@link SqlSession}.
+ * 
+ * Statements are sent to the database in the order they were added: consecutive executions of the same statement 
+ * end up in one JDBC batch. When {@link #flush()} is called, the update count of every statement that was added
+ * with an optimistic locking check is verified, exactly like {@link DbSqlSession} does for non-batched statements.
+ * 
+ * Some JDBC drivers return {@link Statement#SUCCESS_NO_INFO} instead of the update count of batched statements.
+ * This is detected when the process engine is built (see {@link DbSqlSessionFactory#isBatchUpdateCountsReported()}).
+ * Statements with an optimistic locking check are then not batched: they are executed one by one on the {@link SqlSession}, 
+ * after sending the statements batched before them, to keep the order. Only when the detection is overruled by configuration 
+ * and the driver returns {@link Statement#SUCCESS_NO_INFO} anyway, the flush fails, as the check can't be done.
+ * 
+ * Transaction handling (commit, rollback and closing the connection) stays with the {@link SqlSession}.
+ * 
+ * @see DbSqlSessionFactory#isBatchFlushEnabled()
+ */
+public class DbSqlSessionBatch {
+
+  protected SqlSession sqlSession;
+  protected Configuration configuration;
+  protected Executor executor;
+  
+  /** When false, statements with an optimistic locking check are executed without batching */
+  protected boolean batchOptimisticLockChecks;
+  
+  /** Set to false when the driver returned {@link Statement#SUCCESS_NO_INFO} for a statement with an optimistic locking check */
+  protected boolean updateCountsReported = true;
+  
+  /** For every added statement, in order: true when the update count must be checked */
+  protected List<Boolean> optimisticLockChecks = new ArrayList<Boolean>();
+
+  public DbSqlSessionBatch(SqlSession sqlSession, boolean batchOptimisticLockChecks) {
+    this.sqlSession = sqlSession;
+    this.configuration = sqlSession.getConfiguration();
+    this.executor = configuration.newExecutor(new SqlSessionConnectionTransaction(sqlSession.getConnection()), ExecutorType.BATCH);
+    this.batchOptimisticLockChecks = batchOptimisticLockChecks;
+  }
+
+  public void insert(String statement, Object parameter) {
+    add(statement, parameter, false);
+  }
+
+  /**
+   * @param checkOptimisticLock when true, an {@link ActivitiOptimisticLockingException} is thrown on {@link #flush()}
+   *                            if the statement did not update any row.
+   */
+  public void update(String statement, Object parameter, boolean checkOptimisticLock) {
+    add(statement, parameter, checkOptimisticLock);
+  }
+
+  /**
+   * @param checkOptimisticLock when true, an {@link ActivitiOptimisticLockingException} is thrown on {@link #flush()}
+   *                            if the statement did not delete any row.
+   */
+  public void delete(String statement, Object parameter, boolean checkOptimisticLock) {
+    add(statement, parameter, checkOptimisticLock);
+  }
+
+  protected void add(String statement, Object parameter, boolean checkOptimisticLock) {
+    if (checkOptimisticLock && !batchOptimisticLockChecks) {
+      executeWithoutBatching(statement, parameter);
+      return;
+    }
+    
+    try {
+      MappedStatement mappedStatement = configuration.getMappedStatement(statement);
+      executor.update(mappedStatement, wrapCollection(parameter));
+      optimisticLockChecks.add(checkOptimisticLock);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error adding statement " + statement + " to the batch.  Cause: " + e, e);
+    }
+  }
+
+  protected void executeWithoutBatching(String statement, Object parameter) {
+    // The statements added before this one must be executed first
+    flush();
+    
+    int updateCount = sqlSession.update(statement, parameter);
+    if (updateCount == 0) {
+      throw new ActivitiOptimisticLockingException(parameter + " was updated by another transaction concurrently");
+    }
+  }
+
+  /**
+   * Sends all batched statements to the database and verifies the update counts.
+   */
+  public void flush() {
+    List<BatchResult> batchResults = null;
+    try {
+      batchResults = executor.flushStatements();
+    } catch (SQLException e) {
+      throw ExceptionFactory.wrapException("Error flushing statements.  Cause: " + e, e);
+    }
+
+    int statementIndex = 0;
+    for (BatchResult batchResult : batchResults) {
+      int[] updateCounts = batchResult.getUpdateCounts();
+      List<Object> parameterObjects = batchResult.getParameterObjects();
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (optimisticLockChecks.get(statementIndex)) {
+          if (updateCounts[i] == 0) {
+            throw new ActivitiOptimisticLockingException(parameterObjects.get(i) + " was updated by another transaction concurrently");
+            
+          } else if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+            // Returned by drivers that don't report the count of batched statements: the optimistic lock can't be verified
+            updateCountsReported = false;
+            throw new ActivitiException("The JDBC driver did not return the update count of the batched statement for " + parameterObjects.get(i) 
+                + ", so concurrent modifications can't be detected. Statements with an optimistic locking check will not be batched anymore.");
+          }
+        }
+        statementIndex++;
+      }
+    }
+    optimisticLockChecks.clear();
+  }
+
+  /**
+   * Releases the JDBC statements. The connection is left open.
+   */
+  public void close() {
+    executor.close(false);
+  }
+
+  public int getNrOfStatements() {
+    return optimisticLockChecks.size();
+  }
+
+  public boolean isUpdateCountsReported() {
+    return updateCountsReported;
+  }
+
+  /**
+   * Same as the parameter wrapping done by the default {@link SqlSession}, 
+   * so bulk statements can refer to a collection parameter as <code>list</code>.
+   */
+  protected Object wrapCollection(Object parameter) {
+    if (parameter instanceof Collection) {
+      Map<String, Object> map = new HashMap<String, Object>();
+      map.put("collection", parameter);
+      if (parameter instanceof List) {
+        map.put("list", parameter);
+      }
+      return map;
+    } else if (parameter != null && parameter.getClass().isArray()) {
+      Map<String, Object> map = new HashMap<String, Object>();
+      map.put("array", parameter);
+      return map;
+    }
+    return parameter;
+  }
+
+  /**
+   * Gives the batch executor the connection of the {@link SqlSession}, 
+   * without taking over its transaction boundaries.
+   */
+  protected static class SqlSessionConnectionTransaction implements Transaction {
+
+    protected Connection connection;
+
+    public SqlSessionConnectionTransaction(Connection connection) {
+      this.connection = connection;
+    }
+
+    public Connection getConnection() throws SQLException {
+      return connection;
+    }
+
+    public void commit() throws SQLException {
+      // Done by the SqlSession
+    }
+
+    public void rollback() throws SQLException {
+      // Done by the SqlSession
+    }
+
+    public void close() throws SQLException {
+      // Done by the SqlSession
+    }
+
+    public Integer getTimeout() throws SQLException {
+      return null;
+    }
+  }
+
+}
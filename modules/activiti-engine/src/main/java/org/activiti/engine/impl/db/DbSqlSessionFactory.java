@@ -14,8 +14,11 @@
 package org.activiti.engine.impl.db;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.activiti.engine.ActivitiException;
@@ -23,8 +26,11 @@ import org.activiti.engine.impl.cfg.IdGenerator;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.interceptor.SessionFactory;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCache;
 import org.activiti.engine.impl.persistence.entity.Entity;
 import org.activiti.engine.impl.persistence.entity.EventLogEntryEntityImpl;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
 
 /**
@@ -32,6 +38,8 @@ import org.apache.ibatis.session.SqlSessionFactory;
  * @author Joram Barrez
  */
 public class DbSqlSessionFactory implements SessionFactory {
+
+  public static final String STREAM_STATEMENT_SUFFIX = "ForStream";
   
   protected static final Map<String, Map<String, String>> databaseSpecificStatements = new HashMap<String, Map<String, String>>();
 
@@ -67,6 +75,16 @@ public class DbSqlSessionFactory implements SessionFactory {
   protected boolean isDbIdentityUsed = true;
   protected boolean isDbHistoryUsed = true;
   protected int maxNrOfStatementsInBulkInsert = 100;
+  protected boolean isBatchFlushEnabled;
+  protected volatile boolean isBatchUpdateCountsReported = true;
+  protected SharedEntityCache sharedEntityCache;
+  protected int queryStreamFetchSize = 500;
+  protected boolean isQueryStreamKeysetPagination;
+  protected boolean isSkipLockedSupported;
+  
+  /** The select statements that get a copy with the {@link #queryStreamFetchSize}, see {@link #initStreamStatements()} */
+  protected Set<String> streamStatements = new HashSet<String>(Arrays.asList(
+      "selectHistoricProcessInstancesByQueryCriteria", "selectHistoricVariableInstanceByQueryCriteria"));
   
   public Class<?> getSessionType() {
     return DbSqlSession.class;
@@ -139,6 +157,55 @@ public class DbSqlSessionFactory implements SessionFactory {
     return statement;
   }
 
+  // streaming selects
+  // /////////////////////////////////////////////////////
+
+  /**
+   * Adds a copy of every statement in {@link #streamStatements} to the MyBatis configuration, 
+   * that uses the {@link #queryStreamFetchSize} as JDBC fetch size. 
+   * Must be called once the sql session factory is set, before the factory is used: statements can't be 
+   * safely added to the MyBatis configuration while it is being used by other threads.
+   */
+  public void initStreamStatements() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    for (String statement : streamStatements) {
+      String mappedStatement = mapStatement(statement);
+      if (!configuration.hasStatement(mappedStatement) || configuration.hasStatement(mappedStatement + STREAM_STATEMENT_SUFFIX)) {
+        continue;
+      }
+      
+      MappedStatement original = configuration.getMappedStatement(mappedStatement);
+      MappedStatement streamStatement = new MappedStatement.Builder(configuration, original.getId() + STREAM_STATEMENT_SUFFIX, 
+          original.getSqlSource(), original.getSqlCommandType())
+        .resource(original.getResource())
+        .databaseId(original.getDatabaseId())
+        .lang(original.getLang())
+        .statementType(original.getStatementType())
+        .parameterMap(original.getParameterMap())
+        .resultMaps(original.getResultMaps())
+        .resultOrdered(original.isResultOrdered())
+        .resultSetType(original.getResultSetType())
+        .timeout(original.getTimeout())
+        .fetchSize(queryStreamFetchSize)
+        .flushCacheRequired(false)
+        .useCache(false)
+        .build();
+      configuration.addMappedStatement(streamStatement);
+    }
+  }
+
+  /**
+   * Returns the statement to use when reading the results of the given (mapped) statement through a cursor:
+   * the copy created by {@link #initStreamStatements()}, or the statement itself if it has no such copy.
+   */
+  public String getStreamStatement(String mappedStatement) {
+    String streamStatement = mappedStatement + STREAM_STATEMENT_SUFFIX;
+    if (sqlSessionFactory.getConfiguration().hasStatement(streamStatement, false)) {
+      return streamStatement;
+    }
+    return mappedStatement;
+  }
+
   // db specific mappings
   // /////////////////////////////////////////////////////
 
@@ -328,4 +395,79 @@ public class DbSqlSessionFactory implements SessionFactory {
     this.maxNrOfStatementsInBulkInsert = maxNrOfStatementsInBulkInsert;
   }
 
+  /**
+   * When true, {@link DbSqlSession#flush()} sends its statements as JDBC batches (see {@link DbSqlSessionBatch}).
+   */
+  public boolean isBatchFlushEnabled() {
+    return isBatchFlushEnabled;
+  }
+
+  public void setBatchFlushEnabled(boolean isBatchFlushEnabled) {
+    this.isBatchFlushEnabled = isBatchFlushEnabled;
+  }
+
+  /**
+   * When false, the updates and deletes that are checked for optimistic locking are not batched by {@link DbSqlSessionBatch},
+   * because the JDBC driver doesn't return their update counts. Detected when the process engine is built,
+   * see {@link DbSqlSession#detectBatchUpdateCountsReported()}.
+   */
+  public boolean isBatchUpdateCountsReported() {
+    return isBatchUpdateCountsReported;
+  }
+
+  public void setBatchUpdateCountsReported(boolean isBatchUpdateCountsReported) {
+    this.isBatchUpdateCountsReported = isBatchUpdateCountsReported;
+  }
+
+  /**
+   * The process engine wide entity cache in which {@link DbSqlSession} invalidates the entities it changes,
+   * or null if no such cache is used.
+   */
+  public SharedEntityCache getSharedEntityCache() {
+    return sharedEntityCache;
+  }
+
+  public void setSharedEntityCache(SharedEntityCache sharedEntityCache) {
+    this.sharedEntityCache = sharedEntityCache;
+  }
+
+  /**
+   * The JDBC fetch size of the cursors opened by {@link DbSqlSession#selectForEach(String, ListQueryParameterObject, org.activiti.engine.query.QueryResultHandler)},
+   * and the page size when {@link #isQueryStreamKeysetPagination()} is true.
+   */
+  public int getQueryStreamFetchSize() {
+    return queryStreamFetchSize;
+  }
+
+  public void setQueryStreamFetchSize(int queryStreamFetchSize) {
+    this.queryStreamFetchSize = queryStreamFetchSize;
+  }
+
+  public boolean isQueryStreamKeysetPagination() {
+    return isQueryStreamKeysetPagination;
+  }
+
+  public void setQueryStreamKeysetPagination(boolean isQueryStreamKeysetPagination) {
+    this.isQueryStreamKeysetPagination = isQueryStreamKeysetPagination;
+  }
+
+  /**
+   * Whether the 'selectJobsToExecuteSkipLocked' statement can be used on this database.
+   */
+  public boolean isSkipLockedSupported() {
+    return isSkipLockedSupported;
+  }
+
+  public void setSkipLockedSupported(boolean isSkipLockedSupported) {
+    this.isSkipLockedSupported = isSkipLockedSupported;
+  }
+
+  public Set<String> getStreamStatements() {
+    return streamStatements;
+  }
+
+  public void setStreamStatements(Set<String> streamStatements) {
+    this.streamStatements = streamStatements;
+  }
+
 }
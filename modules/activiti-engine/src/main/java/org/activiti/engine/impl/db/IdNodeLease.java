@@ -0,0 +1,35 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.db;
+
+/**
+ * A node id of a {@link SnowflakeIdGenerator}, leased until the given time.
+ */
+public class IdNodeLease {
+
+  protected int nodeId;
+  protected long expirationTime;
+
+  public IdNodeLease(int nodeId, long expirationTime) {
+    this.nodeId = nodeId;
+    this.expirationTime = expirationTime;
+  }
+
+  public int getNodeId() {
+    return nodeId;
+  }
+
+  public long getExpirationTime() {
+    return expirationTime;
+  }
+}
@@ -23,6 +23,10 @@ public class ListQueryParameterObject {
   protected Object parameter;
   protected String databaseType;
 
+  /** Set while the results are read in pages ordered by id, see {@link DbSqlSession#selectForEach(String, ListQueryParameterObject, org.activiti.engine.query.QueryResultHandler)} */
+  protected boolean keysetPagination;
+  protected String keysetLastId;
+
   public ListQueryParameterObject() {
   }
 
@@ -84,4 +88,24 @@ public class ListQueryParameterObject {
     return databaseType;
   }
 
+  public boolean isKeysetPagination() {
+    return keysetPagination;
+  }
+
+  public void setKeysetPagination(boolean keysetPagination) {
+    this.keysetPagination = keysetPagination;
+  }
+
+  /**
+   * The id of the last result of the previous page when reading in pages ordered by id,
+   * only results with a higher id must be selected.
+   */
+  public String getKeysetLastId() {
+    return keysetLastId;
+  }
+
+  public void setKeysetLastId(String keysetLastId) {
+    this.keysetLastId = keysetLastId;
+  }
+
 }
@@ -0,0 +1,235 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.db;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.cfg.IdGenerator;
+import org.activiti.engine.impl.cmd.AcquireIdNodeLeaseCmd;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates time ordered 64 bit ids without a database round trip per id block, so engines in a cluster don't contend
+ * on the next.dbid property.
+ *
+ * An id consists of 41 bits of milliseconds since {@link #getEpoch()}, 10 bits of node id and a 12 bit sequence number
+ * within the millisecond. It is rendered as 13 characters of Crockford base32, which keeps the lexicographical order of
+ * the ids equal to their numerical (and thus time) order.
+ *
+ * The timestamp and sequence are kept in one {@link AtomicLong} and allocated with compare-and-set. When the sequence of
+ * a millisecond is exhausted, it runs on into the next millisecond, and a clock that goes backwards keeps the last
+ * timestamp, so ids are never handed out twice by one generator.
+ *
+ * Unless a fixed {@link #setNodeId(int) node id} is configured, the node id is leased through ACT_GE_PROPERTY with
+ * {@link AcquireIdNodeLeaseCmd}, in its own transaction. The lease is renewed when half of its duration has passed, by
+ * one thread while the others keep generating. Only when the lease has expired, e.g. after the engine has been idle,
+ * does generating an id wait for a new lease. The clocks of the nodes must not differ by more than half the lease
+ * duration.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+  /** 2016-01-01T00:00:00Z */
+  public static final long DEFAULT_EPOCH = 1451606400000L;
+  public static final long DEFAULT_LEASE_DURATION = 10 * 60 * 1000L;
+
+  public static final int NODE_ID_BITS = 10;
+  public static final int SEQUENCE_BITS = 12;
+  public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+  protected static final int ENCODED_LENGTH = 13;
+  protected static final char[] ENCODING_CHARS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+  protected long epoch = DEFAULT_EPOCH;
+  protected long leaseDuration = DEFAULT_LEASE_DURATION;
+  protected String owner = UUID.randomUUID().toString();
+
+  protected CommandExecutor commandExecutor;
+  protected CommandConfig commandConfig;
+
+  /** (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last generated id */
+  protected final AtomicLong state = new AtomicLong();
+
+  protected volatile int nodeId = -1;
+  protected volatile boolean fixedNodeId;
+  protected volatile long leaseRenewalTime;
+  protected volatile long leaseExpirationTime;
+  protected final AtomicBoolean leaseRenewing = new AtomicBoolean();
+
+  public String getNextId() {
+    int currentNodeId = ensureNodeLease();
+    long next = nextState();
+    long timestamp = next >>> SEQUENCE_BITS;
+    long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+    return encode((timestamp << (NODE_ID_BITS + SEQUENCE_BITS)) | ((long) currentNodeId << SEQUENCE_BITS) | sequence);
+  }
+
+  protected long nextState() {
+    long now = System.currentTimeMillis() - epoch;
+    while (true) {
+      long current = state.get();
+      long next = (current >>> SEQUENCE_BITS) < now ? now << SEQUENCE_BITS : current + 1;
+      if (state.compareAndSet(current, next)) {
+        return next;
+      }
+    }
+  }
+
+  protected static String encode(long id) {
+    char[] chars = new char[ENCODED_LENGTH];
+    for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+      chars[i] = ENCODING_CHARS[(int) (id & 31)];
+      id >>>= 5;
+    }
+    return new String(chars);
+  }
+
+  // node id lease ////////////////////////////////////////////////////////////
+
+  protected int ensureNodeLease() {
+    if (fixedNodeId) {
+      return nodeId;
+    }
+
+    long now = System.currentTimeMillis();
+    if (now < leaseRenewalTime) {
+      return nodeId;
+    }
+
+    if (now < leaseExpirationTime) {
+      if (leaseRenewing.compareAndSet(false, true)) {
+        try {
+          renewNodeLease();
+        } finally {
+          leaseRenewing.set(false);
+        }
+      }
+      return nodeId;
+    }
+
+    synchronized (this) {
+      if (System.currentTimeMillis() >= leaseExpirationTime) {
+        acquireNodeLease();
+      }
+      return nodeId;
+    }
+  }
+
+  protected void renewNodeLease() {
+    try {
+      IdNodeLease lease = commandExecutor.execute(commandConfig, new AcquireIdNodeLeaseCmd(owner, nodeId, leaseDuration));
+      if (lease != null) {
+        setNodeLease(lease);
+      } else {
+        log.warn("Lease of id generator node id {} was taken over by another owner, acquiring a new one", nodeId);
+        leaseExpirationTime = 0L;
+      }
+    } catch (RuntimeException e) {
+      // the current lease is still valid, the next id retries the renewal
+      log.warn("Could not renew lease of id generator node id {}", nodeId, e);
+    }
+  }
+
+  protected void acquireNodeLease() {
+    // prefer the previous node id, else start at a random one so that booting nodes don't race for the same ids
+    int start = nodeId >= 0 ? nodeId : new Random().nextInt(MAX_NODE_ID + 1);
+    RuntimeException lastException = null;
+    for (int i = 0; i <= MAX_NODE_ID; i++) {
+      int candidate = (start + i) & MAX_NODE_ID;
+      try {
+        IdNodeLease lease = commandExecutor.execute(commandConfig, new AcquireIdNodeLeaseCmd(owner, candidate, leaseDuration));
+        if (lease != null) {
+          setNodeLease(lease);
+          log.debug("Leased id generator node id {}", candidate);
+          return;
+        }
+      } catch (RuntimeException e) {
+        // another node claimed the same node id concurrently
+        log.debug("Could not lease id generator node id {}", candidate, e);
+        lastException = e;
+      }
+    }
+    throw new ActivitiException("No free id generator node id, all " + (MAX_NODE_ID + 1) + " are leased", lastException);
+  }
+
+  protected void setNodeLease(IdNodeLease lease) {
+    nodeId = lease.getNodeId();
+    leaseRenewalTime = lease.getExpirationTime() - (leaseDuration / 2);
+    leaseExpirationTime = lease.getExpirationTime();
+  }
+
+  // getters and setters //////////////////////////////////////////////////////
+
+  public int getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Uses the given node id instead of leasing one. The caller is responsible for it being unique in the cluster.
+   */
+  public void setNodeId(int nodeId) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new ActivitiException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+    }
+    this.nodeId = nodeId;
+    this.fixedNodeId = true;
+  }
+
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public void setEpoch(long epoch) {
+    this.epoch = epoch;
+  }
+
+  public long getLeaseDuration() {
+    return leaseDuration;
+  }
+
+  public void setLeaseDuration(long leaseDuration) {
+    this.leaseDuration = leaseDuration;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public CommandExecutor getCommandExecutor() {
+    return commandExecutor;
+  }
+
+  public void setCommandExecutor(CommandExecutor commandExecutor) {
+    this.commandExecutor = commandExecutor;
+  }
+
+  public CommandConfig getCommandConfig() {
+    return commandConfig;
+  }
+
+  public void setCommandConfig(CommandConfig commandConfig) {
+    this.commandConfig = commandConfig;
+  }
+}
@@ -23,6 +23,8 @@ import javax.el.VariableMapper;
  */
 public class ActivitiElContext extends ELContext {
 
+  protected static final FunctionMapper FUNCTION_MAPPER = new ActivitiFunctionMapper();
+
   protected ELResolver elResolver;
 
   public ActivitiElContext(ELResolver elResolver) {
@@ -34,7 +36,7 @@ public class ActivitiElContext extends ELContext {
   }
 
   public FunctionMapper getFunctionMapper() {
-    return new ActivitiFunctionMapper();
+    return FUNCTION_MAPPER;
   }
 
   public VariableMapper getVariableMapper() {
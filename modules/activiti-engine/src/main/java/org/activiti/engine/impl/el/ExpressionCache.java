@@ -0,0 +1,236 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.el;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+/**
+ * Bounded cache of the {@link ValueExpression}s created by the {@link ExpressionManager}, 
+ * keyed by the expression text and the expected type.
+ * 
+ * Parsed expressions are immutable and thread-safe, so one instance can be shared between
+ * process engines (see {@link #getSharedInstance()}). Entries are scoped to the {@link ExpressionFactory}
+ * that created them: engines configured with a different factory never see each other's expressions.
+ * 
+ * Lookups don't lock: the entries are kept in a {@link ConcurrentHashMap} and every entry remembers when it was last used.
+ * When the cache is full, the least recently used entries are evicted by the thread that added an entry,
+ * unless another thread is already evicting. The eviction order is therefore approximate under concurrent use, 
+ * and the cache can briefly hold a few more entries than its maximum size.
+ * 
+ * Every entry also keeps the {@link ExpressionStatistics} of the expression, which are only
+ * updated when the {@link ExpressionManager} has statistics enabled.
+ */
+public class ExpressionCache {
+
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  protected static final ExpressionCache SHARED_INSTANCE = new ExpressionCache(DEFAULT_MAX_SIZE);
+
+  protected volatile int maxSize;
+
+  protected ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+  /** Source of the last access stamps of the entries: a higher stamp means a more recent use */
+  protected AtomicLong accessClock = new AtomicLong();
+
+  protected ReentrantLock evictionLock = new ReentrantLock();
+
+  protected AtomicLong hitCount = new AtomicLong();
+  protected AtomicLong missCount = new AtomicLong();
+  protected AtomicLong evictionCount = new AtomicLong();
+
+  public ExpressionCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * The cache that is used by all process engines that don't configure one of their own.
+   */
+  public static ExpressionCache getSharedInstance() {
+    return SHARED_INSTANCE;
+  }
+
+  /**
+   * Returns the cached entry for the given expression, or null if it isn't cached.
+   */
+  public Entry get(ExpressionFactory expressionFactory, String expressionText, Class<?> expectedType) {
+    Entry entry = entries.get(new Key(expressionFactory, expressionText, expectedType));
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    touch(entry);
+    return entry;
+  }
+
+  /**
+   * Caches the given expression, evicting the least recently used ones when the cache is full.
+   * When another thread cached the same expression in the meantime, that entry is kept and returned.
+   */
+  public Entry put(ExpressionFactory expressionFactory, String expressionText, Class<?> expectedType, ValueExpression valueExpression) {
+    Key key = new Key(expressionFactory, expressionText, expectedType);
+    Entry entry = new Entry(valueExpression, new ExpressionStatistics(expressionText));
+    entry.lastAccess = accessClock.incrementAndGet();
+    Entry existingEntry = entries.putIfAbsent(key, entry);
+    if (existingEntry != null) {
+      touch(existingEntry);
+      return existingEntry;
+    }
+    evict();
+    return entry;
+  }
+
+  protected void touch(Entry entry) {
+    // The shared clock is only advanced when the entry isn't already the most recently used one
+    if (entry.lastAccess != accessClock.get()) {
+      entry.lastAccess = accessClock.incrementAndGet();
+    }
+  }
+
+  protected void evict() {
+    if (entries.size() <= maxSize || !evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      while (entries.size() > maxSize) {
+        Key leastRecentlyUsedKey = null;
+        Entry leastRecentlyUsedEntry = null;
+        long leastRecentAccess = Long.MAX_VALUE;
+        for (Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+          long lastAccess = mapEntry.getValue().lastAccess;
+          if (lastAccess < leastRecentAccess) {
+            leastRecentAccess = lastAccess;
+            leastRecentlyUsedKey = mapEntry.getKey();
+            leastRecentlyUsedEntry = mapEntry.getValue();
+          }
+        }
+        if (leastRecentlyUsedKey == null) {
+          break;
+        }
+        if (entries.remove(leastRecentlyUsedKey, leastRecentlyUsedEntry)) {
+          evictionCount.incrementAndGet();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the statistics of all cached expressions, the most recently used ones last.
+   */
+  public List<ExpressionStatistics> getStatistics() {
+    // Every stamp is handed out once, so no two entries share one
+    TreeMap<Long, ExpressionStatistics> statisticsByLastAccess = new TreeMap<Long, ExpressionStatistics>();
+    for (Entry entry : entries.values()) {
+      statisticsByLastAccess.put(entry.lastAccess, entry.getStatistics());
+    }
+    return new ArrayList<ExpressionStatistics>(statisticsByLastAccess.values());
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    evict();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public static class Entry {
+
+    protected ValueExpression valueExpression;
+    protected ExpressionStatistics statistics;
+    protected volatile long lastAccess;
+
+    public Entry(ValueExpression valueExpression, ExpressionStatistics statistics) {
+      this.valueExpression = valueExpression;
+      this.statistics = statistics;
+    }
+
+    public ValueExpression getValueExpression() {
+      return valueExpression;
+    }
+
+    public ExpressionStatistics getStatistics() {
+      return statistics;
+    }
+
+  }
+
+  protected static class Key {
+
+    protected ExpressionFactory expressionFactory;
+    protected String expressionText;
+    protected Class<?> expectedType;
+    protected int hashCode;
+
+    public Key(ExpressionFactory expressionFactory, String expressionText, Class<?> expectedType) {
+      this.expressionFactory = expressionFactory;
+      this.expressionText = expressionText;
+      this.expectedType = expectedType;
+      this.hashCode = 31 * (31 * System.identityHashCode(expressionFactory) + expressionText.hashCode()) + expectedType.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key otherKey = (Key) other;
+      return expressionFactory == otherKey.expressionFactory 
+          && expectedType == otherKey.expectedType
+          && expressionText.equals(otherKey.expressionText);
+    }
+
+  }
+
+}
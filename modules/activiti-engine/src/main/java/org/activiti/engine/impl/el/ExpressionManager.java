@@ -48,11 +48,21 @@ import de.odysseus.el.ExpressionFactoryImpl;
  */
 public class ExpressionManager {
 
+  /** The factory is thread-safe, sharing it lets all engines share its cache of parsed expression trees */
+  protected static final ExpressionFactory DEFAULT_EXPRESSION_FACTORY = new ExpressionFactoryImpl();
+
   protected ExpressionFactory expressionFactory;
   // Default implementation (does nothing)
   protected ELContext parsingElContext = new ParsingElContext();
   protected Map<Object, Object> beans;
 
+  /** Optional cache of the created expressions, see {@link #createExpression(String)} */
+  protected ExpressionCache expressionCache;
+  protected boolean collectExpressionStatistics;
+
+  /** The resolvers that don't depend on the variable scope, shared by all EL contexts of this manager */
+  protected volatile ELResolver sharedElResolver;
+
   public ExpressionManager() {
     this(null);
   }
@@ -68,13 +78,35 @@ public class ExpressionManager {
   public ExpressionManager(Map<Object, Object> beans, boolean initFactory) {
     // Use the ExpressionFactoryImpl in activiti build in version of juel,
     // with parametrised method expressions enabled
-    expressionFactory = new ExpressionFactoryImpl();
+    expressionFactory = DEFAULT_EXPRESSION_FACTORY;
     this.beans = beans;
   }
 
+  /**
+   * Creates an expression for the given text. When an {@link ExpressionCache} is set, 
+   * the parsed expression is looked up in (or added to) the cache first.
+   */
   public Expression createExpression(String expression) {
-    ValueExpression valueExpression = expressionFactory.createValueExpression(parsingElContext, expression.trim(), Object.class);
-    return new JuelExpression(valueExpression, expression);
+    String expressionText = expression.trim();
+    if (expressionCache == null || !isParsingElContextCacheable()) {
+      ValueExpression valueExpression = expressionFactory.createValueExpression(parsingElContext, expressionText, Object.class);
+      return new JuelExpression(valueExpression, expression);
+    }
+
+    ExpressionCache.Entry entry = expressionCache.get(expressionFactory, expressionText, Object.class);
+    if (entry == null) {
+      ValueExpression valueExpression = expressionFactory.createValueExpression(parsingElContext, expressionText, Object.class);
+      entry = expressionCache.put(expressionFactory, expressionText, Object.class, valueExpression);
+    }
+    return new JuelExpression(entry.getValueExpression(), expression, collectExpressionStatistics ? entry.getStatistics() : null);
+  }
+
+  /**
+   * Expressions are bound to the functions and variables of the parsing context, 
+   * so they can only be shared when the parsing context doesn't provide any.
+   */
+  protected boolean isParsingElContextCacheable() {
+    return parsingElContext.getFunctionMapper() == null && parsingElContext.getVariableMapper() == null;
   }
 
   public void setExpressionFactory(ExpressionFactory expressionFactory) {
@@ -106,7 +138,21 @@ public class ExpressionManager {
   protected ELResolver createElResolver(VariableScope variableScope) {
     CompositeELResolver elResolver = new CompositeELResolver();
     elResolver.add(new VariableScopeElResolver(variableScope));
+    elResolver.add(getSharedElResolver());
+    return elResolver;
+  }
 
+  protected ELResolver getSharedElResolver() {
+    ELResolver elResolver = sharedElResolver;
+    if (elResolver == null) {
+      elResolver = createSharedElResolver();
+      sharedElResolver = elResolver;
+    }
+    return elResolver;
+  }
+
+  protected ELResolver createSharedElResolver() {
+    CompositeELResolver elResolver = new CompositeELResolver();
     if (beans != null) {
       // ACT-1102: Also expose all beans in configuration when using
       // standalone activiti, not
@@ -129,6 +175,26 @@ public class ExpressionManager {
 
   public void setBeans(Map<Object, Object> beans) {
     this.beans = beans;
+    this.sharedElResolver = null;
+  }
+
+  public ExpressionCache getExpressionCache() {
+    return expressionCache;
+  }
+
+  public void setExpressionCache(ExpressionCache expressionCache) {
+    this.expressionCache = expressionCache;
+  }
+
+  public boolean isCollectExpressionStatistics() {
+    return collectExpressionStatistics;
+  }
+
+  /**
+   * Only expressions created from the {@link ExpressionCache} collect statistics.
+   */
+  public void setCollectExpressionStatistics(boolean collectExpressionStatistics) {
+    this.collectExpressionStatistics = collectExpressionStatistics;
   }
 
 }
@@ -0,0 +1,88 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.el;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluation counters of one cached expression, see {@link ExpressionCache#getStatistics()}.
+ * 
+ * The counters are shared by every {@link JuelExpression} created for the same expression text,
+ * and cover both {@link JuelExpression#getValue(org.activiti.engine.delegate.VariableScope) getValue}
+ * and {@link JuelExpression#setValue(Object, org.activiti.engine.delegate.VariableScope) setValue} calls.
+ */
+public class ExpressionStatistics {
+
+  protected String expressionText;
+  protected AtomicLong evaluationCount = new AtomicLong();
+  protected AtomicLong failureCount = new AtomicLong();
+  protected AtomicLong totalEvaluationTimeInNanos = new AtomicLong();
+  protected AtomicLong maxEvaluationTimeInNanos = new AtomicLong();
+
+  public ExpressionStatistics(String expressionText) {
+    this.expressionText = expressionText;
+  }
+
+  public void evaluated(long evaluationTimeInNanos, boolean failed) {
+    evaluationCount.incrementAndGet();
+    if (failed) {
+      failureCount.incrementAndGet();
+    }
+    totalEvaluationTimeInNanos.addAndGet(evaluationTimeInNanos);
+
+    long max = maxEvaluationTimeInNanos.get();
+    while (evaluationTimeInNanos > max && !maxEvaluationTimeInNanos.compareAndSet(max, evaluationTimeInNanos)) {
+      max = maxEvaluationTimeInNanos.get();
+    }
+  }
+
+  public void reset() {
+    evaluationCount.set(0);
+    failureCount.set(0);
+    totalEvaluationTimeInNanos.set(0);
+    maxEvaluationTimeInNanos.set(0);
+  }
+
+  public String getExpressionText() {
+    return expressionText;
+  }
+
+  public long getEvaluationCount() {
+    return evaluationCount.get();
+  }
+
+  /** The number of evaluations that threw an exception. */
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  public long getTotalEvaluationTimeInNanos() {
+    return totalEvaluationTimeInNanos.get();
+  }
+
+  public long getMaxEvaluationTimeInNanos() {
+    return maxEvaluationTimeInNanos.get();
+  }
+
+  public long getAverageEvaluationTimeInNanos() {
+    long count = evaluationCount.get();
+    return count > 0 ? totalEvaluationTimeInNanos.get() / count : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ExpressionStatistics[" + expressionText + ", evaluations=" + getEvaluationCount() 
+        + ", failures=" + getFailureCount() + ", averageNanos=" + getAverageEvaluationTimeInNanos() + "]";
+  }
+
+}
@@ -37,12 +37,52 @@ public class JuelExpression implements Expression {
   protected String expressionText;
   protected ValueExpression valueExpression;
 
+  /** Only set when the {@link ExpressionManager} collects expression statistics */
+  protected ExpressionStatistics statistics;
+
   public JuelExpression(ValueExpression valueExpression, String expressionText) {
     this.valueExpression = valueExpression;
     this.expressionText = expressionText;
   }
 
+  public JuelExpression(ValueExpression valueExpression, String expressionText, ExpressionStatistics statistics) {
+    this(valueExpression, expressionText);
+    this.statistics = statistics;
+  }
+
   public Object getValue(VariableScope variableScope) {
+    if (statistics == null) {
+      return doGetValue(variableScope);
+    }
+
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      Object value = doGetValue(variableScope);
+      failed = false;
+      return value;
+    } finally {
+      statistics.evaluated(System.nanoTime() - start, failed);
+    }
+  }
+
+  public void setValue(Object value, VariableScope variableScope) {
+    if (statistics == null) {
+      doSetValue(value, variableScope);
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      doSetValue(value, variableScope);
+      failed = false;
+    } finally {
+      statistics.evaluated(System.nanoTime() - start, failed);
+    }
+  }
+
+  protected Object doGetValue(VariableScope variableScope) {
     ELContext elContext = Context.getProcessEngineConfiguration().getExpressionManager().getElContext(variableScope);
     try {
       ExpressionGetInvocation invocation = new ExpressionGetInvocation(valueExpression, elContext);
@@ -59,7 +99,7 @@ public class JuelExpression implements Expression {
     }
   }
 
-  public void setValue(Object value, VariableScope variableScope) {
+  protected void doSetValue(Object value, VariableScope variableScope) {
     ELContext elContext = Context.getProcessEngineConfiguration().getExpressionManager().getElContext(variableScope);
     try {
       ExpressionSetInvocation invocation = new ExpressionSetInvocation(valueExpression, elContext, value);
@@ -80,4 +120,8 @@ public class JuelExpression implements Expression {
   public String getExpressionText() {
     return expressionText;
   }
+
+  public ExpressionStatistics getStatistics() {
+    return statistics;
+  }
 }
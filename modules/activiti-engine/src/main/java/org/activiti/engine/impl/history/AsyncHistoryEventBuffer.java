@@ -0,0 +1,248 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.impl.history;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandContextCloseListener;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler.HistoryJobPayload;
+import org.activiti.engine.impl.persistence.entity.AbstractJobEntity;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntityManager;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityManager;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+import org.activiti.engine.runtime.Clock;
+import org.activiti.engine.runtime.Job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Collects the history events produced by the {@link AsyncHistoryManager} during one command.
+ * 
+ * When the command context is closing (and no exception happened), the events of every process instance are 
+ * written as one {@link AsyncHistoryJobHandler} job, with the events serialized in a byte array. 
+ * The job and byte array are flushed together with the runtime changes of the command.
+ * 
+ * Next to the events, the byte array holds a sequence number, by which the jobs of a process instance are applied.
+ * It is taken from the system time when the command context is closing, and increases with every job written by this JVM.
+ * A command that depends on the changes of another one reads them after they were committed, so on the same node 
+ * its sequence number is always higher. Across nodes, the sequence numbers are only ordered up to the clock skew: 
+ * the {@link AsyncHistoryJobHandler} tolerates events that refer to history which isn't recorded yet.
+ * 
+ * The jobs refer to their process instance, so the pending jobs of a process instance are found by an indexed query.
+ * As the jobs can't refer to a process instance that is deleted, the pending jobs of a process instance that ends 
+ * are merged into the last job, which doesn't refer to the process instance anymore.
+ */
+public class AsyncHistoryEventBuffer implements CommandContextCloseListener {
+
+  public static final String ATTRIBUTE_KEY = "asyncHistoryEventBuffer";
+  
+  /** The last sequence number handed out in this JVM, see {@link #nextSequence()} */
+  protected static final AtomicLong lastSequence = new AtomicLong();
+
+  protected ObjectMapper objectMapper;
+  protected Clock clock;
+  
+  protected Map<String, ArrayNode> eventsPerProcessInstance = new LinkedHashMap<String, ArrayNode>();
+  protected Map<String, String> startedActivityInstanceIds = new HashMap<String, String>();
+  protected Set<String> endedProcessInstanceIds = new HashSet<String>();
+
+  public AsyncHistoryEventBuffer(ObjectMapper objectMapper, Clock clock) {
+    this.objectMapper = objectMapper;
+    this.clock = clock;
+  }
+
+  /**
+   * Adds a new event of the given type for the given process instance and returns it, so the caller can add the event data. 
+   */
+  public ObjectNode addEvent(String processInstanceId, String type) {
+    ArrayNode events = eventsPerProcessInstance.get(processInstanceId);
+    if (events == null) {
+      events = objectMapper.createArrayNode();
+      eventsPerProcessInstance.put(processInstanceId, events);
+    }
+    
+    ObjectNode event = events.addObject();
+    event.put(AsyncHistoryManager.FIELD_TYPE, type);
+    event.put(AsyncHistoryManager.FIELD_TIME, clock.getCurrentTime().getTime());
+    return event;
+  }
+
+  public void activityInstanceStarted(String executionId, String activityId, String activityInstanceId) {
+    startedActivityInstanceIds.put(executionId + ":" + activityId, activityInstanceId);
+  }
+
+  /**
+   * Registers that the given process instance ends in the current command, so its pending history jobs are merged into the last one.
+   */
+  public void processInstanceEnded(String processInstanceId) {
+    endedProcessInstanceIds.add(processInstanceId);
+  }
+
+  /**
+   * Returns the id of the historic activity instance started in the current command for the given execution and activity, if any.
+   */
+  public String getStartedActivityInstanceId(String executionId, String activityId) {
+    return startedActivityInstanceIds.get(executionId + ":" + activityId);
+  }
+
+  @Override
+  public void closing(CommandContext commandContext) {
+    if (commandContext.getException() != null) {
+      return; // The runtime changes are rolled back, so are the history events
+    }
+    
+    ByteArrayEntityManager byteArrayEntityManager = commandContext.getByteArrayEntityManager();
+    JobEntityManager jobEntityManager = commandContext.getJobEntityManager();
+    
+    Set<String> processInstanceIds = new LinkedHashSet<String>(eventsPerProcessInstance.keySet());
+    processInstanceIds.addAll(endedProcessInstanceIds);
+    for (String processInstanceId : processInstanceIds) {
+      ArrayNode events = eventsPerProcessInstance.get(processInstanceId);
+      if (events == null) {
+        events = objectMapper.createArrayNode();
+      }
+      
+      String jobProcessInstanceId = getJobProcessInstanceId(processInstanceId, commandContext);
+      if (jobProcessInstanceId == null) {
+        events = mergePendingEvents(processInstanceId, events, commandContext);
+      }
+      if (events.size() == 0) {
+        continue;
+      }
+      
+      ObjectNode payload = objectMapper.createObjectNode();
+      payload.put(AsyncHistoryManager.FIELD_SEQUENCE, nextSequence());
+      payload.set(AsyncHistoryManager.FIELD_EVENTS, events);
+      
+      ByteArrayEntity byteArray = byteArrayEntityManager.create();
+      byteArray.setName(AsyncHistoryJobHandler.TYPE);
+      try {
+        byteArray.setBytes(objectMapper.writeValueAsBytes(payload));
+      } catch (JsonProcessingException e) {
+        throw new ActivitiException("Could not serialize history events of process instance " + processInstanceId, e);
+      }
+      byteArrayEntityManager.insert(byteArray);
+      
+      JobEntity job = jobEntityManager.create();
+      job.setJobType(Job.JOB_TYPE_MESSAGE);
+      job.setJobHandlerType(AsyncHistoryJobHandler.TYPE);
+      job.setJobHandlerConfiguration(AsyncHistoryJobHandler.createConfiguration(processInstanceId, byteArray.getId()));
+      job.setProcessInstanceId(jobProcessInstanceId);
+      job.setExclusive(false);
+      job.setRetries(commandContext.getProcessEngineConfiguration().getAsyncExecutorNumberOfRetries());
+      job.setDuedate(clock.getCurrentTime());
+      
+      jobEntityManager.insert(job);
+    }
+    
+    eventsPerProcessInstance.clear();
+    endedProcessInstanceIds.clear();
+  }
+
+  /**
+   * Returns the process instance id the history job can refer to: null when the process instance 
+   * doesn't exist anymore after the current transaction.
+   */
+  protected String getJobProcessInstanceId(String processInstanceId, CommandContext commandContext) {
+    if (endedProcessInstanceIds.contains(processInstanceId)) {
+      return null;
+    }
+    ExecutionEntity processInstance = commandContext.getExecutionEntityManager().findById(processInstanceId);
+    if (processInstance == null || commandContext.getDbSqlSession().isEntityToBeDeleted(processInstance)) {
+      return null;
+    }
+    return processInstance.getId();
+  }
+
+  /**
+   * Deletes the pending history jobs of the given process instance (including the ones waiting for a retry) 
+   * and returns their events, in the order of their sequence numbers, followed by the given events.
+   */
+  protected ArrayNode mergePendingEvents(String processInstanceId, ArrayNode events, CommandContext commandContext) {
+    List<AbstractJobEntity> historyJobs = new ArrayList<AbstractJobEntity>();
+    for (JobEntity job : commandContext.getJobEntityManager().findJobsByProcessInstanceId(processInstanceId)) {
+      if (AsyncHistoryJobHandler.TYPE.equals(job.getJobHandlerType())) {
+        historyJobs.add(job);
+      }
+    }
+    for (TimerJobEntity timerJob : commandContext.getTimerJobEntityManager().findJobsByProcessInstanceId(processInstanceId)) {
+      if (AsyncHistoryJobHandler.TYPE.equals(timerJob.getJobHandlerType())) {
+        historyJobs.add(timerJob);
+      }
+    }
+    if (historyJobs.isEmpty()) {
+      return events;
+    }
+    
+    ArrayNode mergedEvents = objectMapper.createArrayNode();
+    for (HistoryJobPayload payload : AsyncHistoryJobHandler.readPayloads(historyJobs, commandContext)) {
+      if (payload.getByteArray() != null) {
+        mergedEvents.addAll((ArrayNode) payload.getEvents());
+        commandContext.getByteArrayEntityManager().delete(payload.getByteArray());
+      }
+      if (payload.getJob() instanceof TimerJobEntity) {
+        commandContext.getTimerJobEntityManager().delete((TimerJobEntity) payload.getJob());
+      } else {
+        commandContext.getJobEntityManager().delete((JobEntity) payload.getJob());
+      }
+    }
+    mergedEvents.addAll(events);
+    return mergedEvents;
+  }
+
+  /**
+   * Returns the system time in microseconds, or the last sequence number plus one when that is higher,
+   * so the sequence numbers handed out in this JVM always increase.
+   */
+  protected static long nextSequence() {
+    long timeSequence = System.currentTimeMillis() * 1000L;
+    while (true) {
+      long last = lastSequence.get();
+      long next = Math.max(timeSequence, last + 1);
+      if (lastSequence.compareAndSet(last, next)) {
+        return next;
+      }
+    }
+  }
+
+  @Override
+  public void afterSessionsFlush(CommandContext commandContext) {
+  }
+
+  @Override
+  public void closed(CommandContext commandContext) {
+  }
+
+  @Override
+  public void closeFailure(CommandContext commandContext) {
+  }
+
+}
@@ -0,0 +1,288 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.impl.history;
+
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricActivityInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+import org.activiti.engine.impl.persistence.entity.VariableInstanceEntity;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link HistoryManager} that takes the high-volume part of the history out of the runtime transaction.
+ * 
+ * Historic activity instances, historic variable instances and historic variable details are not written
+ * when the runtime state changes. Instead, every change is turned into a compact history event, and at the end 
+ * of the command the events of each process instance are stored as one job of type {@link AsyncHistoryJobHandler#TYPE}.
+ * The async executor applies those jobs later on, all pending jobs of a process instance at once and in the order 
+ * they were created.
+ * 
+ * The historic process instance and task data, comments, identity links and form properties are still written
+ * synchronously by the {@link DefaultHistoryManager}. Form properties are not linked to an activity instance 
+ * in this mode, as the activity instances are not known in the runtime transaction. Variables that do not belong 
+ * to a process instance (eg. variables of standalone tasks) are written synchronously too.
+ * 
+ * Note that queries on the asynchronously written history only see the changes of which the jobs were executed.
+ */
+public class AsyncHistoryManager extends DefaultHistoryManager {
+
+  public static final String EVENT_ACTIVITY_START = "activity-start";
+  public static final String EVENT_ACTIVITY_END = "activity-end";
+  public static final String EVENT_ACTIVITY_UPDATE = "activity-update";
+  public static final String EVENT_VARIABLE_CREATE = "variable-create";
+  public static final String EVENT_VARIABLE_UPDATE = "variable-update";
+  public static final String EVENT_VARIABLE_REMOVE = "variable-remove";
+  public static final String EVENT_VARIABLE_DETAIL = "variable-detail";
+
+  public static final String FIELD_SEQUENCE = "sequence";
+  public static final String FIELD_EVENTS = "events";
+  public static final String FIELD_TYPE = "type";
+  public static final String FIELD_TIME = "time";
+  public static final String FIELD_ID = "id";
+  public static final String FIELD_ACTIVITY_INSTANCE_ID = "activityInstanceId";
+  public static final String FIELD_ACTIVITY_ID = "activityId";
+  public static final String FIELD_ACTIVITY_NAME = "activityName";
+  public static final String FIELD_ACTIVITY_TYPE = "activityType";
+  public static final String FIELD_EXECUTION_ID = "executionId";
+  public static final String FIELD_EXECUTION_IDS = "executionIds";
+  public static final String FIELD_PROCESS_INSTANCE_ID = "processInstanceId";
+  public static final String FIELD_PROCESS_DEFINITION_ID = "processDefinitionId";
+  public static final String FIELD_TENANT_ID = "tenantId";
+  public static final String FIELD_DELETE_REASON = "deleteReason";
+  public static final String FIELD_ASSIGNEE = "assignee";
+  public static final String FIELD_TASK_ID = "taskId";
+  public static final String FIELD_CALLED_PROCESS_INSTANCE_ID = "calledProcessInstanceId";
+  public static final String FIELD_NAME = "name";
+  public static final String FIELD_VARIABLE_TYPE = "variableType";
+  public static final String FIELD_REVISION = "revision";
+  public static final String FIELD_TEXT_VALUE = "textValue";
+  public static final String FIELD_TEXT_VALUE2 = "textValue2";
+  public static final String FIELD_LONG_VALUE = "longValue";
+  public static final String FIELD_DOUBLE_VALUE = "doubleValue";
+  public static final String FIELD_BYTES = "bytes";
+
+  public AsyncHistoryManager(ProcessEngineConfigurationImpl processEngineConfiguration, HistoryLevel historyLevel) {
+    super(processEngineConfiguration, historyLevel);
+  }
+
+  // Process instance related history
+
+  @Override
+  public void recordProcessInstanceEnd(String processInstanceId, String deleteReason, String activityId) {
+    super.recordProcessInstanceEnd(processInstanceId, deleteReason, activityId);
+    if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      getEventBuffer().processInstanceEnded(processInstanceId);
+    }
+  }
+
+  // Activity related history
+
+  @Override
+  public void recordActivityStart(ExecutionEntity executionEntity) {
+    if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      if (executionEntity.getActivityId() != null && executionEntity.getCurrentFlowElement() != null) {
+        String activityInstanceId = getProcessEngineConfiguration().getIdGenerator().getNextId();
+        
+        AsyncHistoryEventBuffer eventBuffer = getEventBuffer();
+        ObjectNode event = eventBuffer.addEvent(executionEntity.getProcessInstanceId(), EVENT_ACTIVITY_START);
+        event.put(FIELD_ID, activityInstanceId);
+        event.put(FIELD_PROCESS_DEFINITION_ID, executionEntity.getProcessDefinitionId());
+        event.put(FIELD_PROCESS_INSTANCE_ID, executionEntity.getProcessInstanceId());
+        event.put(FIELD_EXECUTION_ID, executionEntity.getId());
+        event.put(FIELD_ACTIVITY_ID, executionEntity.getActivityId());
+        
+        FlowElement currentFlowElement = executionEntity.getCurrentFlowElement();
+        event.put(FIELD_ACTIVITY_NAME, currentFlowElement.getName());
+        event.put(FIELD_ACTIVITY_TYPE, parseActivityType(currentFlowElement));
+        event.put(FIELD_TENANT_ID, executionEntity.getTenantId());
+        
+        eventBuffer.activityInstanceStarted(executionEntity.getId(), executionEntity.getActivityId(), activityInstanceId);
+      }
+    }
+  }
+
+  @Override
+  public void recordActivityEnd(ExecutionEntity executionEntity, String deleteReason) {
+    if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      String activityId = getHistoricActivityId(executionEntity);
+      if (activityId != null) {
+        AsyncHistoryEventBuffer eventBuffer = getEventBuffer();
+        ObjectNode event = eventBuffer.addEvent(executionEntity.getProcessInstanceId(), EVENT_ACTIVITY_END);
+        addActivityInstanceReference(eventBuffer, event, executionEntity, activityId);
+        event.put(FIELD_DELETE_REASON, deleteReason);
+      }
+    }
+  }
+
+  @Override
+  public void recordSubProcessInstanceStart(ExecutionEntity parentExecution, ExecutionEntity subProcessInstance, FlowElement initialElement) {
+    super.recordSubProcessInstanceStart(parentExecution, subProcessInstance, initialElement);
+    
+    ObjectNode event = addActivityUpdateEvent(parentExecution);
+    if (event != null) {
+      event.put(FIELD_CALLED_PROCESS_INSTANCE_ID, subProcessInstance.getProcessInstanceId());
+    }
+  }
+
+  /**
+   * Historic activity instances are not available in the runtime transaction, so there is never one to be found.
+   */
+  @Override
+  public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execution, boolean createOnNotFound, boolean endTimeMustBeNull) {
+    return null;
+  }
+
+  @Override
+  public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execution, String activityId, boolean createOnNotFound, boolean endTimeMustBeNull) {
+    return null;
+  }
+
+  // Task related history
+
+  @Override
+  public void recordTaskAssignment(TaskEntity task) {
+    if (task.getExecution() != null) {
+      ObjectNode event = addActivityUpdateEvent(task.getExecution());
+      if (event != null) {
+        event.put(FIELD_ASSIGNEE, task.getAssignee());
+      }
+    }
+  }
+
+  @Override
+  public void recordTaskId(TaskEntity task) {
+    if (task.getExecution() != null) {
+      ObjectNode event = addActivityUpdateEvent(task.getExecution());
+      if (event != null) {
+        event.put(FIELD_TASK_ID, task.getId());
+      }
+    }
+  }
+
+  // Variables related history
+
+  @Override
+  public void recordVariableCreate(VariableInstanceEntity variable) {
+    if (variable.getProcessInstanceId() == null) {
+      super.recordVariableCreate(variable);
+    } else if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      addVariableEvent(EVENT_VARIABLE_CREATE, variable);
+    }
+  }
+
+  @Override
+  public void recordVariableUpdate(VariableInstanceEntity variable) {
+    if (variable.getProcessInstanceId() == null) {
+      super.recordVariableUpdate(variable);
+    } else if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      addVariableEvent(EVENT_VARIABLE_UPDATE, variable);
+    }
+  }
+
+  @Override
+  public void recordVariableRemoved(VariableInstanceEntity variable) {
+    if (variable.getProcessInstanceId() == null) {
+      super.recordVariableRemoved(variable);
+    } else if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      ObjectNode event = getEventBuffer().addEvent(variable.getProcessInstanceId(), EVENT_VARIABLE_REMOVE);
+      event.put(FIELD_ID, variable.getId());
+    }
+  }
+
+  @Override
+  public void recordHistoricDetailVariableCreate(VariableInstanceEntity variable, ExecutionEntity sourceActivityExecution, boolean useActivityId) {
+    if (variable.getProcessInstanceId() == null) {
+      super.recordHistoricDetailVariableCreate(variable, sourceActivityExecution, useActivityId);
+    } else if (isHistoryLevelAtLeast(HistoryLevel.FULL)) {
+      ObjectNode event = addVariableEvent(EVENT_VARIABLE_DETAIL, variable);
+      if (useActivityId && sourceActivityExecution != null) {
+        String activityId = getHistoricActivityId(sourceActivityExecution);
+        if (activityId != null) {
+          addActivityInstanceReference(getEventBuffer(), event, sourceActivityExecution, activityId);
+        }
+      }
+    }
+  }
+
+  protected ObjectNode addVariableEvent(String type, VariableInstanceEntity variable) {
+    ObjectNode event = getEventBuffer().addEvent(variable.getProcessInstanceId(), type);
+    event.put(FIELD_ID, variable.getId());
+    event.put(FIELD_NAME, variable.getName());
+    event.put(FIELD_VARIABLE_TYPE, variable.getType().getTypeName());
+    event.put(FIELD_REVISION, variable.getRevision());
+    event.put(FIELD_PROCESS_INSTANCE_ID, variable.getProcessInstanceId());
+    event.put(FIELD_EXECUTION_ID, variable.getExecutionId());
+    event.put(FIELD_TASK_ID, variable.getTaskId());
+    event.put(FIELD_TEXT_VALUE, variable.getTextValue());
+    event.put(FIELD_TEXT_VALUE2, variable.getTextValue2());
+    event.put(FIELD_LONG_VALUE, variable.getLongValue());
+    event.put(FIELD_DOUBLE_VALUE, variable.getDoubleValue());
+    if (variable.getByteArrayRef() != null) {
+      event.put(FIELD_BYTES, variable.getBytes());
+    }
+    return event;
+  }
+
+  protected ObjectNode addActivityUpdateEvent(ExecutionEntity execution) {
+    if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
+      String activityId = getHistoricActivityId(execution);
+      if (activityId != null) {
+        AsyncHistoryEventBuffer eventBuffer = getEventBuffer();
+        ObjectNode event = eventBuffer.addEvent(execution.getProcessInstanceId(), EVENT_ACTIVITY_UPDATE);
+        addActivityInstanceReference(eventBuffer, event, execution, activityId);
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds the information needed to find back the historic activity instance when the event is applied:
+   * its id when it was started in the current command, otherwise the activity id together with the ids of 
+   * the execution and its parents (the same lookup as {@link DefaultHistoryManager#findActivityInstance(ExecutionEntity, String, boolean, boolean)}).
+   */
+  protected void addActivityInstanceReference(AsyncHistoryEventBuffer eventBuffer, ObjectNode event, ExecutionEntity execution, String activityId) {
+    event.put(FIELD_ACTIVITY_ID, activityId);
+    
+    String activityInstanceId = eventBuffer.getStartedActivityInstanceId(execution.getId(), activityId);
+    if (activityInstanceId != null) {
+      event.put(FIELD_ACTIVITY_INSTANCE_ID, activityInstanceId);
+    } else {
+      ArrayNode executionIds = event.putArray(FIELD_EXECUTION_IDS);
+      ExecutionEntity currentExecution = execution;
+      while (currentExecution != null) {
+        executionIds.add(currentExecution.getId());
+        currentExecution = currentExecution.getParentId() != null ? (ExecutionEntity) currentExecution.getParent() : null;
+      }
+    }
+  }
+
+  protected AsyncHistoryEventBuffer getEventBuffer() {
+    CommandContext commandContext = getCommandContext();
+    AsyncHistoryEventBuffer eventBuffer = (AsyncHistoryEventBuffer) commandContext.getAttribute(AsyncHistoryEventBuffer.ATTRIBUTE_KEY);
+    if (eventBuffer == null) {
+      eventBuffer = new AsyncHistoryEventBuffer(getProcessEngineConfiguration().getObjectMapper(), getClock());
+      commandContext.addAttribute(AsyncHistoryEventBuffer.ATTRIBUTE_KEY, eventBuffer);
+      commandContext.addCloseListener(eventBuffer);
+    }
+    return eventBuffer;
+  }
+
+}
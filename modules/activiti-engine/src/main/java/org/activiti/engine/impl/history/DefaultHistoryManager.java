@@ -243,6 +243,19 @@ public class DefaultHistoryManager extends AbstractManager implements HistoryMan
 
   @Override
   public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execution, boolean createOnNotFound, boolean endTimeMustBeNull) {
+    String activityId = getHistoricActivityId(execution);
+    if (activityId != null) {
+      return findActivityInstance(execution, activityId, createOnNotFound, endTimeMustBeNull);
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Returns the id of the activity the historic activity instance of the given execution is recorded for,
+   * or null when the execution is currently not at an activity for which history is kept.
+   */
+  protected String getHistoricActivityId(ExecutionEntity execution) {
     String activityId = null;
     if (execution.getCurrentFlowElement() instanceof FlowNode) {
       activityId = execution.getCurrentFlowElement().getId();
@@ -250,12 +263,7 @@ public class DefaultHistoryManager extends AbstractManager implements HistoryMan
         && execution.getCurrentActivitiListener() == null) { // while executing sequence flow listeners, we don't want historic activities
       activityId = ( (SequenceFlow) (execution.getCurrentFlowElement())).getSourceFlowElement().getId();
     } 
-    
-    if (activityId != null) {
-      return findActivityInstance(execution, activityId, createOnNotFound, endTimeMustBeNull);
-    }
-    
-    return null;
+    return activityId;
   }
     
     
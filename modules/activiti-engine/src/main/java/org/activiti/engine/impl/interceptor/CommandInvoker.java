@@ -51,7 +51,7 @@ public class CommandInvoker extends AbstractCommandInterceptor {
     return (T) commandContext.getResult();
   }
 
-  protected void executeOperations(final CommandContext commandContext) {
+  public void executeOperations(final CommandContext commandContext) {
     while (!commandContext.getAgenda().isEmpty()) {
       Runnable runnable = commandContext.getAgenda().getNextOperation();
       executeOperation(runnable);
@@ -0,0 +1,432 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
+import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.history.AsyncHistoryEventBuffer;
+import org.activiti.engine.impl.history.AsyncHistoryManager;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.cache.EntityCache;
+import org.activiti.engine.impl.persistence.entity.AbstractJobEntity;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntityManager;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricActivityInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricActivityInstanceEntityManager;
+import org.activiti.engine.impl.persistence.entity.HistoricDetailVariableInstanceUpdateEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntityManager;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityManager;
+import org.activiti.engine.impl.variable.ValueFields;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Applies the history events written by the {@link AsyncHistoryManager}.
+ * 
+ * The configuration of the job is the process instance id and the id of the byte array holding the events.
+ * When a job is executed, all pending history jobs of the same process instance (found by their process instance id) 
+ * are applied in one go, ordered by the sequence number stored with their events (see {@link AsyncHistoryEventBuffer}).
+ * When two of those jobs are executed concurrently, the job deletes make one of both transactions fail 
+ * with an optimistic locking exception, after which it is retried (and typically finds nothing left to do). 
+ * 
+ * The sequence numbers of jobs written by different nodes are only ordered up to the clock skew between the nodes, 
+ * so events that refer to a historic activity or variable instance that isn't recorded yet are applied after the others.
+ * The events of which the historic instance is still missing after that are ignored.
+ */
+public class AsyncHistoryJobHandler implements JobHandler {
+
+  public static final String TYPE = "async-history";
+  
+  protected static final String CONFIGURATION_SEPARATOR = ":";
+
+  public String getType() {
+    return TYPE;
+  }
+  
+  public static String createConfiguration(String processInstanceId, String byteArrayId) {
+    return processInstanceId + CONFIGURATION_SEPARATOR + byteArrayId;
+  }
+  
+  public static String getProcessInstanceIdFromConfiguration(String configuration) {
+    return configuration.substring(0, configuration.lastIndexOf(CONFIGURATION_SEPARATOR));
+  }
+  
+  public static String getByteArrayIdFromConfiguration(String configuration) {
+    return configuration.substring(configuration.lastIndexOf(CONFIGURATION_SEPARATOR) + 1);
+  }
+
+  public void execute(JobEntity job, String configuration, ExecutionEntity execution, CommandContext commandContext) {
+    JobEntityManager jobEntityManager = commandContext.getJobEntityManager();
+    ByteArrayEntityManager byteArrayEntityManager = commandContext.getByteArrayEntityManager();
+    
+    List<AbstractJobEntity> historyJobs = new ArrayList<AbstractJobEntity>();
+    historyJobs.add(job);
+    if (job.getProcessInstanceId() != null) {
+      for (JobEntity processInstanceJob : jobEntityManager.findJobsByProcessInstanceId(job.getProcessInstanceId())) {
+        if (TYPE.equals(processInstanceJob.getJobHandlerType()) && !processInstanceJob.getId().equals(job.getId())) {
+          historyJobs.add(processInstanceJob);
+        }
+      }
+    }
+    
+    List<JsonNode> events = new ArrayList<JsonNode>();
+    for (HistoryJobPayload payload : readPayloads(historyJobs, commandContext)) {
+      if (payload.byteArray != null) {
+        for (JsonNode event : payload.events) {
+          events.add(event);
+        }
+        byteArrayEntityManager.delete(payload.byteArray);
+      }
+      
+      // The job that is being executed is deleted by the job manager
+      if (payload.job != job) {
+        jobEntityManager.delete((JobEntity) payload.job);
+      }
+    }
+    
+    // Events of which the historic instance isn't recorded yet are retried after the others, as long as that makes progress
+    while (!events.isEmpty()) {
+      List<JsonNode> deferredEvents = new ArrayList<JsonNode>();
+      for (JsonNode event : events) {
+        if (!applyEvent(event, commandContext)) {
+          deferredEvents.add(event);
+        }
+      }
+      if (deferredEvents.size() == events.size()) {
+        break;
+      }
+      events = deferredEvents;
+    }
+  }
+  
+  /**
+   * Reads the events of the given history jobs and returns them ordered by their sequence numbers.
+   */
+  public static List<HistoryJobPayload> readPayloads(List<? extends AbstractJobEntity> historyJobs, CommandContext commandContext) {
+    ByteArrayEntityManager byteArrayEntityManager = commandContext.getByteArrayEntityManager();
+    List<HistoryJobPayload> payloads = new ArrayList<HistoryJobPayload>(historyJobs.size());
+    for (AbstractJobEntity historyJob : historyJobs) {
+      ByteArrayEntity byteArray = byteArrayEntityManager.findById(getByteArrayIdFromConfiguration(historyJob.getJobHandlerConfiguration()));
+      JsonNode payload = null;
+      if (byteArray != null) {
+        try {
+          payload = commandContext.getProcessEngineConfiguration().getObjectMapper().readTree(byteArray.getBytes());
+        } catch (IOException e) {
+          throw new ActivitiException("Could not read history events of job " + historyJob.getId(), e);
+        }
+      }
+      payloads.add(new HistoryJobPayload(historyJob, byteArray, payload));
+    }
+    Collections.sort(payloads, new Comparator<HistoryJobPayload>() {
+      public int compare(HistoryJobPayload payload1, HistoryJobPayload payload2) {
+        return payload1.sequence < payload2.sequence ? -1 : (payload1.sequence == payload2.sequence ? 0 : 1);
+      }
+    });
+    return payloads;
+  }
+  
+  /**
+   * A history job with its events and their sequence number. Jobs of which the events were already applied have no byte array.
+   */
+  public static class HistoryJobPayload {
+    
+    protected AbstractJobEntity job;
+    protected ByteArrayEntity byteArray;
+    protected long sequence;
+    protected JsonNode events;
+    
+    public HistoryJobPayload(AbstractJobEntity job, ByteArrayEntity byteArray, JsonNode payload) {
+      this.job = job;
+      this.byteArray = byteArray;
+      if (payload != null) {
+        this.sequence = payload.path(AsyncHistoryManager.FIELD_SEQUENCE).asLong();
+        this.events = payload.path(AsyncHistoryManager.FIELD_EVENTS);
+      }
+    }
+
+    public AbstractJobEntity getJob() {
+      return job;
+    }
+
+    public ByteArrayEntity getByteArray() {
+      return byteArray;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public JsonNode getEvents() {
+      return events;
+    }
+  }
+  
+  /**
+   * Applies the given event. Returns false when the historic instance the event refers to isn't recorded (yet).
+   */
+  protected boolean applyEvent(JsonNode event, CommandContext commandContext) {
+    String type = getString(event, AsyncHistoryManager.FIELD_TYPE);
+    if (AsyncHistoryManager.EVENT_ACTIVITY_START.equals(type)) {
+      applyActivityStart(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_ACTIVITY_END.equals(type)) {
+      return applyActivityEnd(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_ACTIVITY_UPDATE.equals(type)) {
+      return applyActivityUpdate(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_VARIABLE_CREATE.equals(type)) {
+      applyVariableCreate(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_VARIABLE_UPDATE.equals(type)) {
+      applyVariableUpdate(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_VARIABLE_REMOVE.equals(type)) {
+      return applyVariableRemove(event, commandContext);
+    } else if (AsyncHistoryManager.EVENT_VARIABLE_DETAIL.equals(type)) {
+      applyVariableDetail(event, commandContext);
+    } else {
+      throw new ActivitiException("Unknown history event type " + type);
+    }
+    return true;
+  }
+  
+  // Activities
+  
+  protected void applyActivityStart(JsonNode event, CommandContext commandContext) {
+    HistoricActivityInstanceEntityManager historicActivityInstanceEntityManager = commandContext.getHistoricActivityInstanceEntityManager();
+    HistoricActivityInstanceEntity historicActivityInstance = historicActivityInstanceEntityManager.create();
+    historicActivityInstance.setId(getString(event, AsyncHistoryManager.FIELD_ID));
+    historicActivityInstance.setProcessDefinitionId(getString(event, AsyncHistoryManager.FIELD_PROCESS_DEFINITION_ID));
+    historicActivityInstance.setProcessInstanceId(getString(event, AsyncHistoryManager.FIELD_PROCESS_INSTANCE_ID));
+    historicActivityInstance.setExecutionId(getString(event, AsyncHistoryManager.FIELD_EXECUTION_ID));
+    historicActivityInstance.setActivityId(getString(event, AsyncHistoryManager.FIELD_ACTIVITY_ID));
+    historicActivityInstance.setActivityName(getString(event, AsyncHistoryManager.FIELD_ACTIVITY_NAME));
+    historicActivityInstance.setActivityType(getString(event, AsyncHistoryManager.FIELD_ACTIVITY_TYPE));
+    historicActivityInstance.setStartTime(getTime(event));
+    
+    String tenantId = getString(event, AsyncHistoryManager.FIELD_TENANT_ID);
+    if (tenantId != null) {
+      historicActivityInstance.setTenantId(tenantId);
+    }
+    
+    historicActivityInstanceEntityManager.insert(historicActivityInstance);
+    
+    dispatchEvent(ActivitiEventType.HISTORIC_ACTIVITY_INSTANCE_CREATED, historicActivityInstance, commandContext);
+  }
+  
+  protected boolean applyActivityEnd(JsonNode event, CommandContext commandContext) {
+    HistoricActivityInstanceEntity historicActivityInstance = findActivityInstance(event, true, commandContext);
+    if (historicActivityInstance == null) {
+      return false;
+    }
+    if (historicActivityInstance.getEndTime() == null) {
+      Date endTime = getTime(event);
+      historicActivityInstance.setDeleteReason(getString(event, AsyncHistoryManager.FIELD_DELETE_REASON));
+      historicActivityInstance.setEndTime(endTime);
+      historicActivityInstance.setDurationInMillis(endTime.getTime() - historicActivityInstance.getStartTime().getTime());
+      
+      dispatchEvent(ActivitiEventType.HISTORIC_ACTIVITY_INSTANCE_ENDED, historicActivityInstance, commandContext);
+    }
+    return true;
+  }
+  
+  protected boolean applyActivityUpdate(JsonNode event, CommandContext commandContext) {
+    HistoricActivityInstanceEntity historicActivityInstance = findActivityInstance(event, true, commandContext);
+    if (historicActivityInstance == null) {
+      return false;
+    }
+    if (event.has(AsyncHistoryManager.FIELD_ASSIGNEE)) {
+      historicActivityInstance.setAssignee(getString(event, AsyncHistoryManager.FIELD_ASSIGNEE));
+    }
+    if (event.has(AsyncHistoryManager.FIELD_TASK_ID)) {
+      historicActivityInstance.setTaskId(getString(event, AsyncHistoryManager.FIELD_TASK_ID));
+    }
+    if (event.has(AsyncHistoryManager.FIELD_CALLED_PROCESS_INSTANCE_ID)) {
+      historicActivityInstance.setCalledProcessInstanceId(getString(event, AsyncHistoryManager.FIELD_CALLED_PROCESS_INSTANCE_ID));
+    }
+    return true;
+  }
+  
+  /**
+   * Finds the historic activity instance an event refers to: directly by id when it was started in the same command 
+   * as the event, otherwise by activity id for the recorded execution and its parents (first in the entity cache, 
+   * as it can have been started by an event applied in the current batch, then in the database).
+   */
+  protected HistoricActivityInstanceEntity findActivityInstance(JsonNode event, boolean endTimeMustBeNull, CommandContext commandContext) {
+    HistoricActivityInstanceEntityManager historicActivityInstanceEntityManager = commandContext.getHistoricActivityInstanceEntityManager();
+    
+    String activityInstanceId = getString(event, AsyncHistoryManager.FIELD_ACTIVITY_INSTANCE_ID);
+    if (activityInstanceId != null) {
+      return historicActivityInstanceEntityManager.findById(activityInstanceId);
+    }
+    
+    String activityId = getString(event, AsyncHistoryManager.FIELD_ACTIVITY_ID);
+    JsonNode executionIds = event.get(AsyncHistoryManager.FIELD_EXECUTION_IDS);
+    if (activityId == null || executionIds == null) {
+      return null;
+    }
+    
+    List<HistoricActivityInstanceEntity> cachedHistoricActivityInstances = commandContext.getEntityCache().findInCache(HistoricActivityInstanceEntity.class);
+    for (JsonNode executionIdNode : executionIds) {
+      String executionId = executionIdNode.asText();
+      
+      for (HistoricActivityInstanceEntity cachedHistoricActivityInstance : cachedHistoricActivityInstances) {
+        if (executionId.equals(cachedHistoricActivityInstance.getExecutionId()) 
+            && activityId.equals(cachedHistoricActivityInstance.getActivityId())
+            && (!endTimeMustBeNull || cachedHistoricActivityInstance.getEndTime() == null)) {
+          return cachedHistoricActivityInstance;
+        }
+      }
+      
+      List<HistoricActivityInstanceEntity> historicActivityInstances = historicActivityInstanceEntityManager
+          .findUnfinishedHistoricActivityInstancesByExecutionAndActivityId(executionId, activityId);
+      for (HistoricActivityInstanceEntity historicActivityInstance : historicActivityInstances) {
+        // The cached instance is returned when it was already loaded, which can have been ended in the meantime
+        if (historicActivityInstance.getEndTime() == null) {
+          return historicActivityInstance;
+        }
+      }
+    }
+    return null;
+  }
+  
+  // Variables
+  
+  protected void applyVariableCreate(JsonNode event, CommandContext commandContext) {
+    HistoricVariableInstanceEntityManager historicVariableInstanceEntityManager = commandContext.getHistoricVariableInstanceEntityManager();
+    if (findHistoricVariableInstance(event, commandContext) != null) {
+      return; // Created by an update of which the events were applied first
+    }
+    
+    HistoricVariableInstanceEntity historicVariableInstance = historicVariableInstanceEntityManager.create();
+    historicVariableInstance.setId(getString(event, AsyncHistoryManager.FIELD_ID));
+    historicVariableInstance.setProcessInstanceId(getString(event, AsyncHistoryManager.FIELD_PROCESS_INSTANCE_ID));
+    historicVariableInstance.setExecutionId(getString(event, AsyncHistoryManager.FIELD_EXECUTION_ID));
+    historicVariableInstance.setTaskId(getString(event, AsyncHistoryManager.FIELD_TASK_ID));
+    historicVariableInstance.setRevision(event.get(AsyncHistoryManager.FIELD_REVISION).asInt());
+    historicVariableInstance.setName(getString(event, AsyncHistoryManager.FIELD_NAME));
+    copyVariableValue(event, historicVariableInstance, commandContext);
+    
+    Date time = getTime(event);
+    historicVariableInstance.setCreateTime(time);
+    historicVariableInstance.setLastUpdatedTime(time);
+    
+    historicVariableInstanceEntityManager.insert(historicVariableInstance);
+  }
+  
+  protected void applyVariableUpdate(JsonNode event, CommandContext commandContext) {
+    HistoricVariableInstanceEntity historicVariableInstance = findHistoricVariableInstance(event, commandContext);
+    if (historicVariableInstance != null) {
+      copyVariableValue(event, historicVariableInstance, commandContext);
+      historicVariableInstance.setLastUpdatedTime(getTime(event));
+    } else {
+      applyVariableCreate(event, commandContext);
+    }
+  }
+  
+  protected boolean applyVariableRemove(JsonNode event, CommandContext commandContext) {
+    HistoricVariableInstanceEntityManager historicVariableInstanceEntityManager = commandContext.getHistoricVariableInstanceEntityManager();
+    HistoricVariableInstanceEntity historicVariableInstance = findHistoricVariableInstance(event, commandContext);
+    if (historicVariableInstance == null) {
+      return false;
+    }
+    historicVariableInstanceEntityManager.delete(historicVariableInstance);
+    return true;
+  }
+  
+  /**
+   * Finds the historic variable instance of the event, first in the cache (it can have been created by an event
+   * applied in the current batch), then in the database.
+   */
+  protected HistoricVariableInstanceEntity findHistoricVariableInstance(JsonNode event, CommandContext commandContext) {
+    String id = getString(event, AsyncHistoryManager.FIELD_ID);
+    HistoricVariableInstanceEntity historicVariableInstance = commandContext.getSession(EntityCache.class).findInCache(HistoricVariableInstanceEntity.class, id);
+    if (historicVariableInstance == null) {
+      historicVariableInstance = commandContext.getHistoricVariableInstanceEntityManager().findHistoricVariableInstanceByVariableInstanceId(id);
+    }
+    return historicVariableInstance;
+  }
+  
+  protected void applyVariableDetail(JsonNode event, CommandContext commandContext) {
+    HistoricDetailVariableInstanceUpdateEntity historicVariableUpdate = commandContext.getHistoricDetailEntityManager().createHistoricDetailVariableInstanceUpdate();
+    historicVariableUpdate.setProcessInstanceId(getString(event, AsyncHistoryManager.FIELD_PROCESS_INSTANCE_ID));
+    historicVariableUpdate.setExecutionId(getString(event, AsyncHistoryManager.FIELD_EXECUTION_ID));
+    historicVariableUpdate.setTaskId(getString(event, AsyncHistoryManager.FIELD_TASK_ID));
+    historicVariableUpdate.setTime(getTime(event));
+    historicVariableUpdate.setRevision(event.get(AsyncHistoryManager.FIELD_REVISION).asInt());
+    historicVariableUpdate.setName(getString(event, AsyncHistoryManager.FIELD_NAME));
+    historicVariableUpdate.setVariableType(commandContext.getProcessEngineConfiguration().getVariableTypes()
+        .getVariableType(getString(event, AsyncHistoryManager.FIELD_VARIABLE_TYPE)));
+    copyValueFields(event, historicVariableUpdate);
+    
+    if (event.has(AsyncHistoryManager.FIELD_ACTIVITY_ID)) {
+      HistoricActivityInstanceEntity historicActivityInstance = findActivityInstance(event, false, commandContext);
+      if (historicActivityInstance != null) {
+        historicVariableUpdate.setActivityInstanceId(historicActivityInstance.getId());
+      }
+    }
+    
+    commandContext.getHistoricDetailEntityManager().insert(historicVariableUpdate);
+  }
+  
+  protected void copyVariableValue(JsonNode event, HistoricVariableInstanceEntity historicVariableInstance, CommandContext commandContext) {
+    historicVariableInstance.setVariableType(commandContext.getProcessEngineConfiguration().getVariableTypes()
+        .getVariableType(getString(event, AsyncHistoryManager.FIELD_VARIABLE_TYPE)));
+    copyValueFields(event, historicVariableInstance);
+  }
+  
+  protected void copyValueFields(JsonNode event, ValueFields valueFields) {
+    valueFields.setTextValue(getString(event, AsyncHistoryManager.FIELD_TEXT_VALUE));
+    valueFields.setTextValue2(getString(event, AsyncHistoryManager.FIELD_TEXT_VALUE2));
+    valueFields.setLongValue(event.hasNonNull(AsyncHistoryManager.FIELD_LONG_VALUE) ? event.get(AsyncHistoryManager.FIELD_LONG_VALUE).asLong() : null);
+    valueFields.setDoubleValue(event.hasNonNull(AsyncHistoryManager.FIELD_DOUBLE_VALUE) ? event.get(AsyncHistoryManager.FIELD_DOUBLE_VALUE).asDouble() : null);
+    
+    if (event.hasNonNull(AsyncHistoryManager.FIELD_BYTES)) {
+      try {
+        valueFields.setBytes(event.get(AsyncHistoryManager.FIELD_BYTES).binaryValue());
+      } catch (IOException e) {
+        throw new ActivitiException("Could not read bytes of variable " + getString(event, AsyncHistoryManager.FIELD_NAME), e);
+      }
+    }
+  }
+  
+  // Helpers
+  
+  protected String getString(JsonNode event, String field) {
+    JsonNode node = event.get(field);
+    if (node == null || node.isNull()) {
+      return null;
+    }
+    return node.asText();
+  }
+  
+  protected Date getTime(JsonNode event) {
+    return new Date(event.get(AsyncHistoryManager.FIELD_TIME).asLong());
+  }
+  
+  protected void dispatchEvent(ActivitiEventType type, HistoricActivityInstanceEntity historicActivityInstance, CommandContext commandContext) {
+    ActivitiEventDispatcher eventDispatcher = commandContext.getProcessEngineConfiguration().getEventDispatcher();
+    if (eventDispatcher != null && eventDispatcher.isEnabled()) {
+      eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(type, historicActivityInstance));
+    }
+  }
+
+}
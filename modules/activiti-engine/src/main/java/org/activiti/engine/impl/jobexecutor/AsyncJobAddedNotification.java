@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.jobexecutor;
 
+import org.activiti.engine.impl.asyncexecutor.AdaptiveAsyncExecutor;
 import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
 import org.activiti.engine.impl.cfg.TransactionPropagation;
 import org.activiti.engine.impl.interceptor.Command;
@@ -51,6 +52,11 @@ public class AsyncJobAddedNotification implements CommandContextCloseListener {
         return null;
       }
     });
+    
+    // The job is committed now: an acquisition thread that is backing off can pick up work again
+    if (asyncExecutor instanceof AdaptiveAsyncExecutor) {
+      ((AdaptiveAsyncExecutor) asyncExecutor).wakeUpJobAcquisition();
+    }
   }
 
   @Override
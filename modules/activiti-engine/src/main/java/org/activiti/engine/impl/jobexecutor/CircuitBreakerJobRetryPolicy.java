@@ -0,0 +1,127 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+import org.activiti.engine.runtime.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps another {@link JobRetryPolicy} and stops retrying jobs for a while when too many of them fail.
+ * 
+ * Use one instance per external system the jobs depend on. When failureThreshold jobs fail within failureWindowMillis, 
+ * the circuit opens for openMillis: jobs failing while it's open are only retried after it closes again, 
+ * plus the delay of the wrapped policy so they don't all run at the moment it closes.
+ * 
+ * The failures are counted per process engine, not across a cluster.
+ */
+public class CircuitBreakerJobRetryPolicy implements JobRetryPolicy {
+
+  private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerJobRetryPolicy.class);
+
+  protected JobRetryPolicy jobRetryPolicy;
+  protected int failureThreshold = 10;
+  protected long failureWindowMillis = 60000L;
+  protected long openMillis = 300000L;
+
+  protected Deque<Long> failureTimes = new ArrayDeque<Long>();
+  protected long openUntil;
+
+  public CircuitBreakerJobRetryPolicy() {
+
+  }
+
+  public CircuitBreakerJobRetryPolicy(JobRetryPolicy jobRetryPolicy, int failureThreshold, long failureWindowMillis, long openMillis) {
+    this.jobRetryPolicy = jobRetryPolicy;
+    this.failureThreshold = failureThreshold;
+    this.failureWindowMillis = failureWindowMillis;
+    this.openMillis = openMillis;
+  }
+
+  @Override
+  public int getMaxAttempts() {
+    return jobRetryPolicy.getMaxAttempts();
+  }
+
+  @Override
+  public Date getRetryDate(Job job, Throwable exception, int retryNumber, Date currentTime) {
+    Date retryDate = jobRetryPolicy.getRetryDate(job, exception, retryNumber, currentTime);
+    long closeTime = registerFailure(currentTime.getTime());
+    if (closeTime > currentTime.getTime()) {
+      return new Date(closeTime + (retryDate.getTime() - currentTime.getTime()));
+    }
+    return retryDate;
+  }
+
+  /**
+   * Registers a failure at the given time and returns until when the circuit is open.
+   */
+  protected synchronized long registerFailure(long time) {
+    if (time < openUntil) {
+      return openUntil;
+    }
+    
+    failureTimes.addLast(time);
+    while (!failureTimes.isEmpty() && failureTimes.peekFirst() <= time - failureWindowMillis) {
+      failureTimes.removeFirst();
+    }
+    
+    if (failureTimes.size() >= failureThreshold) {
+      openUntil = time + openMillis;
+      failureTimes.clear();
+      logger.warn("{} jobs failed within {} ms, failed jobs are not retried for {} ms", failureThreshold, failureWindowMillis, openMillis);
+    }
+    return openUntil;
+  }
+
+  public synchronized boolean isOpen(Date currentTime) {
+    return currentTime.getTime() < openUntil;
+  }
+
+  public JobRetryPolicy getJobRetryPolicy() {
+    return jobRetryPolicy;
+  }
+
+  public void setJobRetryPolicy(JobRetryPolicy jobRetryPolicy) {
+    this.jobRetryPolicy = jobRetryPolicy;
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  public void setFailureThreshold(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+  }
+
+  public long getFailureWindowMillis() {
+    return failureWindowMillis;
+  }
+
+  public void setFailureWindowMillis(long failureWindowMillis) {
+    this.failureWindowMillis = failureWindowMillis;
+  }
+
+  public long getOpenMillis() {
+    return openMillis;
+  }
+
+  public void setOpenMillis(long openMillis) {
+    this.openMillis = openMillis;
+  }
+
+}
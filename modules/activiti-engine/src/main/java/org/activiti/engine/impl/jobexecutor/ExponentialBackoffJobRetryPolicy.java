@@ -0,0 +1,100 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.activiti.engine.runtime.Job;
+
+/**
+ * Retries a failed job after a delay that is multiplied for every next retry, up to a maximum delay.
+ * 
+ * A random part of the delay (the jitter, 0.2 meaning up to 20% of the delay) is added or subtracted, 
+ * so jobs that failed at the same time, eg. because an external system was down, aren't all retried at the same time.
+ */
+public class ExponentialBackoffJobRetryPolicy implements JobRetryPolicy {
+
+  protected int maxAttempts = 5;
+  protected long initialDelayMillis = 10000L;
+  protected double multiplier = 2.0;
+  protected long maxDelayMillis = 3600000L;
+  protected double jitter = 0.2;
+
+  public ExponentialBackoffJobRetryPolicy() {
+
+  }
+
+  public ExponentialBackoffJobRetryPolicy(int maxAttempts, long initialDelayMillis, double multiplier, long maxDelayMillis) {
+    this.maxAttempts = maxAttempts;
+    this.initialDelayMillis = initialDelayMillis;
+    this.multiplier = multiplier;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Override
+  public Date getRetryDate(Job job, Throwable exception, int retryNumber, Date currentTime) {
+    return new Date(currentTime.getTime() + getDelayMillis(retryNumber));
+  }
+
+  protected long getDelayMillis(int retryNumber) {
+    double delay = initialDelayMillis * Math.pow(multiplier, Math.max(retryNumber - 1, 0));
+    delay = Math.min(delay, maxDelayMillis);
+    if (jitter > 0) {
+      delay += delay * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+    }
+    return Math.max(0L, (long) delay);
+  }
+
+  @Override
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public long getInitialDelayMillis() {
+    return initialDelayMillis;
+  }
+
+  public void setInitialDelayMillis(long initialDelayMillis) {
+    this.initialDelayMillis = initialDelayMillis;
+  }
+
+  public double getMultiplier() {
+    return multiplier;
+  }
+
+  public void setMultiplier(double multiplier) {
+    this.multiplier = multiplier;
+  }
+
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  public void setMaxDelayMillis(long maxDelayMillis) {
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  public double getJitter() {
+    return jitter;
+  }
+
+  public void setJitter(double jitter) {
+    this.jitter = jitter;
+  }
+
+}
@@ -0,0 +1,52 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.Date;
+
+import org.activiti.engine.runtime.Job;
+
+/**
+ * Decides how often and when a failed job is executed again. Until the job has no retries left, it is moved to the timer jobs
+ * with the due date returned by {@link #getRetryDate(Job, Throwable, int, Date)}, afterwards it is moved to the dead letter jobs.
+ * 
+ * Policies are registered by name with {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#setJobRetryPolicies(java.util.Map)}.
+ * A service task selects one with an activiti:jobRetryPolicy extension element, and a policy can be selected for exception types 
+ * with {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#setExceptionJobRetryPolicies(java.util.Map)}. 
+ * See {@link org.activiti.engine.impl.cmd.JobRetryCmd} for the order in which they are looked up.
+ * 
+ * Policies are shared by all jobs of the engine and must be thread-safe.
+ */
+public interface JobRetryPolicy {
+
+  /**
+   * The number of times a job is executed before it is moved to the dead letter jobs, 
+   * like the repeat count of an activiti:failedJobRetryTimeCycle. It's set on the job when it fails for the first time.
+   */
+  int getMaxAttempts();
+
+  /**
+   * Returns when the failed job is executed again.
+   * 
+   * @param job
+   *          the failed job.
+   * @param exception
+   *          the exception the job failed with, can be null.
+   * @param retryNumber
+   *          1 for the first retry of the job, 2 for the second, ...
+   * @param currentTime
+   *          the current time of the engine clock.
+   */
+  Date getRetryDate(Job job, Throwable exception, int retryNumber, Date currentTime);
+
+}
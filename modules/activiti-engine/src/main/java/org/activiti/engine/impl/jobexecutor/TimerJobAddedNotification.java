@@ -0,0 +1,50 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import org.activiti.engine.impl.asyncexecutor.TimerWheelAsyncExecutor;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandContextCloseListener;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+
+/**
+ * Notifies the {@link TimerWheelAsyncExecutor} of a new timer job once it is committed.
+ */
+public class TimerJobAddedNotification implements CommandContextCloseListener {
+
+  protected TimerJobEntity timerJob;
+  protected TimerWheelAsyncExecutor asyncExecutor;
+
+  public TimerJobAddedNotification(TimerJobEntity timerJob, TimerWheelAsyncExecutor asyncExecutor) {
+    this.timerJob = timerJob;
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  @Override
+  public void closed(CommandContext commandContext) {
+    asyncExecutor.timerJobScheduled(timerJob);
+  }
+
+  @Override
+  public void closing(CommandContext commandContext) {
+  }
+
+  @Override
+  public void afterSessionsFlush(CommandContext commandContext) {
+  }
+
+  @Override
+  public void closeFailure(CommandContext commandContext) {
+  }
+
+}
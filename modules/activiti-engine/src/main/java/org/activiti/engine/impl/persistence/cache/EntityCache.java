@@ -48,6 +48,13 @@ public interface EntityCache extends Session {
    * Returns null if such a {@link Entity} cannot be found. 
    */
   <T> T findInCache(Class<T> entityClass, String id);
+
+  /**
+   * Returns a copy of the {@link Entity} of the given class with the provided id from the process engine wide
+   * {@link SharedEntityCache}, after adding it to this cache. 
+   * Returns null if no shared cache is used or if such a {@link Entity} is not in it.
+   */
+  <T> T findInSharedCache(Class<T> entityClass, String id);
   
   /**
    * Returns all cached {@link Entity} instances of a given type.
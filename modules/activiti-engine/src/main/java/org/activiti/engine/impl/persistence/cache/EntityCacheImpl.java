@@ -28,8 +28,34 @@ public class EntityCacheImpl implements EntityCache {
   
   protected Map<Class<?>, Map<String, CachedEntity>> cachedObjects = new HashMap<Class<?>, Map<String,CachedEntity>>();
   
+  protected SharedEntityCache sharedEntityCache;
+  
+  /** Taken before anything is loaded by the command, see {@link SharedEntityCache#getInvalidationStamps()} */
+  protected long[] sharedEntityCacheInvalidationStamps;
+  
+  public EntityCacheImpl() {
+    
+  }
+  
+  public EntityCacheImpl(SharedEntityCache sharedEntityCache) {
+    this.sharedEntityCache = sharedEntityCache;
+    if (sharedEntityCache != null) {
+      this.sharedEntityCacheInvalidationStamps = sharedEntityCache.getInvalidationStamps();
+    }
+  }
+  
   @Override
   public CachedEntity put(Entity entity, boolean storeState) {
+    
+    // Storing the state means the entity was just loaded from the database
+    if (storeState && sharedEntityCache != null) {
+      sharedEntityCache.put(entity, sharedEntityCacheInvalidationStamps);
+    }
+    
+    return putInternal(entity, storeState);
+  }
+  
+  protected CachedEntity putInternal(Entity entity, boolean storeState) {
     Map<String, CachedEntity> classCache = cachedObjects.get(entity.getClass());
     if (classCache == null) {
       classCache = new HashMap<String, CachedEntity>();
@@ -61,6 +87,19 @@ public class EntityCacheImpl implements EntityCache {
     return null;
   }
   
+  @Override
+  public <T> T findInSharedCache(Class<T> entityClass, String id) {
+    if (sharedEntityCache == null) {
+      return null;
+    }
+    
+    T entity = sharedEntityCache.get(entityClass, id);
+    if (entity != null) {
+      putInternal((Entity) entity, true);
+    }
+    return entity;
+  }
+  
   protected Map<String, CachedEntity> findClassCacheByCheckingSubclasses(Class<?> entityClass) {
     for (Class<?> clazz : cachedObjects.keySet()) {
       if (entityClass.isAssignableFrom(clazz)) {
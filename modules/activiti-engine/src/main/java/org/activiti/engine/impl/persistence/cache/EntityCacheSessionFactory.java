@@ -0,0 +1,42 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.cache;
+
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.Session;
+import org.activiti.engine.impl.interceptor.SessionFactory;
+
+/**
+ * Creates the {@link EntityCache} of a command, backed by the given {@link SharedEntityCache}.
+ */
+public class EntityCacheSessionFactory implements SessionFactory {
+
+  protected SharedEntityCache sharedEntityCache;
+
+  public EntityCacheSessionFactory(SharedEntityCache sharedEntityCache) {
+    this.sharedEntityCache = sharedEntityCache;
+  }
+
+  public Class<?> getSessionType() {
+    return EntityCache.class;
+  }
+
+  public Session openSession(CommandContext commandContext) {
+    return new EntityCacheImpl(sharedEntityCache);
+  }
+
+  public SharedEntityCache getSharedEntityCache() {
+    return sharedEntityCache;
+  }
+
+}
@@ -0,0 +1,247 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.cache;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.db.HasRevision;
+import org.activiti.engine.impl.persistence.entity.ByteArrayRef;
+import org.activiti.engine.impl.persistence.entity.DeploymentEntityImpl;
+import org.activiti.engine.impl.persistence.entity.Entity;
+import org.activiti.engine.impl.persistence.entity.GroupEntityImpl;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntityImpl;
+import org.activiti.engine.impl.persistence.entity.ResourceEntityImpl;
+import org.activiti.engine.impl.persistence.entity.UserEntityImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process engine wide (second level) cache of entities, shared by the {@link EntityCache} instances of all commands.
+ * 
+ * Only entity types that have a {@link SharedEntityCachePolicy} are cached, each type in its own bounded
+ * {@link SharedEntityCacheRegion}. Entities are looked up by id (see {@link EntityCache#findInSharedCache(Class, String)}),
+ * when a command selects an entity by id that isn't in its own {@link EntityCache} yet.
+ * 
+ * The cache never hands out the instances it stores: entities are copied when they are put in the cache and 
+ * every lookup returns a new copy, so commands can change the entities they get without affecting other commands. 
+ * Only the column values of an entity are copied (fields of a primitive, wrapper, {@link String}, {@link Date}, 
+ * enum, byte array or {@link ByteArrayRef} type): lazily initialized fields are initialized again by the copy.
+ * 
+ * Entities are invalidated when a {@link org.activiti.engine.impl.db.DbSqlSession} flushes an update or delete of them.
+ * Changes made by other process engines sharing the same database are not seen, so the cache should only be enabled
+ * when this engine is the only one changing the cached entity types.
+ */
+public class SharedEntityCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedEntityCache.class);
+
+  protected List<SharedEntityCacheRegion> regions = new ArrayList<SharedEntityCacheRegion>();
+  protected Map<Class<?>, SharedEntityCacheRegion> regionsByConfiguredClass = new HashMap<Class<?>, SharedEntityCacheRegion>();
+
+  /** Resolved regions of actual entity classes, which can be subclasses of the configured ones */
+  protected Map<Class<?>, SharedEntityCacheRegion> regionsByEntityClass = new ConcurrentHashMap<Class<?>, SharedEntityCacheRegion>();
+  
+  /** Marks entity classes that are not cached, as null can't be stored in {@link #regionsByEntityClass} */
+  protected SharedEntityCacheRegion noRegion = new SharedEntityCacheRegion(Object.class, SharedEntityCachePolicy.DISABLED, SharedEntityCacheEvictionPolicy.LRU, 0);
+
+  protected Map<Class<?>, List<Field>> copiedFields = new ConcurrentHashMap<Class<?>, List<Field>>();
+
+  public SharedEntityCache(Map<Class<?>, SharedEntityCachePolicy> policies, SharedEntityCacheEvictionPolicy evictionPolicy, int maxSizePerRegion) {
+    for (Map.Entry<Class<?>, SharedEntityCachePolicy> policy : policies.entrySet()) {
+      if (policy.getValue() != SharedEntityCachePolicy.DISABLED) {
+        SharedEntityCacheRegion region = new SharedEntityCacheRegion(policy.getKey(), policy.getValue(), evictionPolicy, maxSizePerRegion);
+        regions.add(region);
+        regionsByConfiguredClass.put(policy.getKey(), region);
+      }
+    }
+  }
+
+  /**
+   * The policies used when none are configured: process definitions, deployments, users and groups are read-mostly,
+   * deployment resources are read-only. 
+   * 
+   * Properties are not cached: the id block property is updated every time a new block of ids is fetched.
+   */
+  public static Map<Class<?>, SharedEntityCachePolicy> getDefaultPolicies() {
+    Map<Class<?>, SharedEntityCachePolicy> policies = new LinkedHashMap<Class<?>, SharedEntityCachePolicy>();
+    policies.put(ProcessDefinitionEntityImpl.class, SharedEntityCachePolicy.READ_MOSTLY);
+    policies.put(DeploymentEntityImpl.class, SharedEntityCachePolicy.READ_MOSTLY);
+    policies.put(ResourceEntityImpl.class, SharedEntityCachePolicy.READ_ONLY);
+    policies.put(UserEntityImpl.class, SharedEntityCachePolicy.READ_MOSTLY);
+    policies.put(GroupEntityImpl.class, SharedEntityCachePolicy.READ_MOSTLY);
+    return policies;
+  }
+
+  /**
+   * Returns the region for the given entity class, or null if the entity class isn't cached.
+   */
+  public SharedEntityCacheRegion getRegion(Class<?> entityClass) {
+    SharedEntityCacheRegion region = regionsByEntityClass.get(entityClass);
+    if (region == null) {
+      region = regionsByConfiguredClass.get(entityClass);
+      if (region == null) {
+        for (Class<?> configuredClass : regionsByConfiguredClass.keySet()) {
+          if (configuredClass.isAssignableFrom(entityClass)) {
+            region = regionsByConfiguredClass.get(configuredClass);
+            break;
+          }
+        }
+      }
+      if (region == null) {
+        region = noRegion;
+      }
+      regionsByEntityClass.put(entityClass, region);
+    }
+    return region != noRegion ? region : null;
+  }
+
+  public List<SharedEntityCacheRegion> getRegions() {
+    return Collections.unmodifiableList(regions);
+  }
+
+  /**
+   * Returns the invalidation stamps of all regions. An {@link EntityCache} takes them when it is created 
+   * and passes them when it offers a loaded entity to {@link #put(Entity, long[])}.
+   */
+  public long[] getInvalidationStamps() {
+    long[] invalidationStamps = new long[regions.size()];
+    for (int i = 0; i < invalidationStamps.length; i++) {
+      invalidationStamps[i] = regions.get(i).getInvalidationStamp();
+    }
+    return invalidationStamps;
+  }
+
+  /**
+   * Returns a copy of the cached entity, or null if it isn't cached. 
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Class<T> entityClass, String id) {
+    SharedEntityCacheRegion region = getRegion(entityClass);
+    if (region == null) {
+      return null;
+    }
+    Entity entity = region.get(id);
+    if (entity == null) {
+      return null;
+    }
+    return (T) copy(entity);
+  }
+
+  /**
+   * Offers an entity that was just loaded from the database to the cache.
+   * 
+   * @param invalidationStamps The stamps taken by {@link #getInvalidationStamps()} before the entity was loaded
+   * @return true if the entity was cached
+   */
+  public boolean put(Entity entity, long[] invalidationStamps) {
+    SharedEntityCacheRegion region = getRegion(entity.getClass());
+    if (region == null || entity.getId() == null) {
+      return false;
+    }
+    
+    int revision = entity instanceof HasRevision ? ((HasRevision) entity).getRevision() : -1;
+    return region.put(entity.getId(), copy(entity), revision, invalidationStamps[regions.indexOf(region)]);
+  }
+
+  public void invalidate(Class<?> entityClass, String id) {
+    SharedEntityCacheRegion region = getRegion(entityClass);
+    if (region != null) {
+      region.invalidate(id);
+    }
+  }
+
+  public void invalidateAll(Class<?> entityClass) {
+    SharedEntityCacheRegion region = getRegion(entityClass);
+    if (region != null) {
+      region.invalidateAll();
+    }
+  }
+
+  public void clear() {
+    for (SharedEntityCacheRegion region : regions) {
+      region.clear();
+    }
+  }
+
+  // copying ///////////////////////////////////////////////////////////////////
+
+  protected Entity copy(Entity entity) {
+    try {
+      Constructor<? extends Entity> constructor = entity.getClass().getDeclaredConstructor();
+      constructor.setAccessible(true);
+      Entity copy = constructor.newInstance();
+      for (Field field : getCopiedFields(entity.getClass())) {
+        field.set(copy, copyValue(field.get(entity)));
+      }
+      return copy;
+      
+    } catch (Exception e) {
+      throw new ActivitiException("Couldn't copy " + entity.getClass().getName() + " for the shared entity cache", e);
+    }
+  }
+
+  protected List<Field> getCopiedFields(Class<?> entityClass) {
+    List<Field> fields = copiedFields.get(entityClass);
+    if (fields == null) {
+      fields = new ArrayList<Field>();
+      Class<?> clazz = entityClass;
+      while (clazz != null && clazz != Object.class) {
+        for (Field field : clazz.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && isCopiedType(field.getType())) {
+            field.setAccessible(true);
+            fields.add(field);
+          } else if (!Modifier.isStatic(field.getModifiers()) && logger.isDebugEnabled()) {
+            logger.debug("Field {} of {} is not copied by the shared entity cache", field.getName(), entityClass.getName());
+          }
+        }
+        clazz = clazz.getSuperclass();
+      }
+      copiedFields.put(entityClass, fields);
+    }
+    return fields;
+  }
+
+  protected boolean isCopiedType(Class<?> type) {
+    return type.isPrimitive() 
+        || type.isEnum()
+        || type == String.class
+        || type == Boolean.class
+        || Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang.")
+        || type == Date.class
+        || type == byte[].class
+        || type == ByteArrayRef.class;
+  }
+
+  protected Object copyValue(Object value) {
+    if (value instanceof Date) {
+      return new Date(((Date) value).getTime());
+    } else if (value instanceof ByteArrayRef) {
+      return new ByteArrayRef(((ByteArrayRef) value).getId());
+    }
+    
+    // Immutable, or in the case of byte arrays: never changed in place by the engine
+    return value;
+  }
+
+}
@@ -0,0 +1,30 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.cache;
+
+/**
+ * Determines which entry of a {@link SharedEntityCacheRegion} is removed when the region is full.
+ */
+public enum SharedEntityCacheEvictionPolicy {
+
+  /**
+   * Least recently used: the entry that wasn't accessed for the longest time is removed.
+   */
+  LRU,
+
+  /**
+   * Least frequently used: the entry with the lowest number of hits is removed.
+   */
+  LFU;
+
+}
@@ -0,0 +1,39 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.cache;
+
+/**
+ * Determines if and how instances of an entity type are kept in the {@link SharedEntityCache}.
+ */
+public enum SharedEntityCachePolicy {
+
+  /**
+   * For entities that are never updated once inserted (eg. deployment resources).
+   * Cached instances are only removed when the entity is deleted or evicted.
+   */
+  READ_ONLY,
+
+  /**
+   * For entities that are rarely updated (eg. process definitions, users, groups).
+   * Cached instances are removed when the entity is updated or deleted, and an instance loaded
+   * by a command is only cached if no entity of the same type was changed since that command started
+   * and if it is not older than the revision that is already cached.
+   */
+  READ_MOSTLY,
+
+  /**
+   * Instances are never cached.
+   */
+  DISABLED;
+
+}
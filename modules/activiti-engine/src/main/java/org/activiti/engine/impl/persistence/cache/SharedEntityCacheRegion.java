@@ -0,0 +1,230 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.impl.persistence.entity.Entity;
+
+/**
+ * The part of the {@link SharedEntityCache} that holds the instances of one entity type,
+ * bounded to a maximum number of entries.
+ * 
+ * The region stores the entities as they were loaded from the database: 
+ * copying them in and out is done by the {@link SharedEntityCache}.
+ */
+public class SharedEntityCacheRegion {
+
+  protected Class<?> entityClass;
+  protected SharedEntityCachePolicy policy;
+  protected SharedEntityCacheEvictionPolicy evictionPolicy;
+  protected int maxSize;
+  
+  /** Access ordered, so the first entry is always the least recently used one */
+  protected LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+  /** Incremented on every invalidation, see {@link #getInvalidationStamp()} */
+  protected volatile long invalidationStamp;
+
+  protected AtomicLong hitCount = new AtomicLong();
+  protected AtomicLong missCount = new AtomicLong();
+  protected AtomicLong putCount = new AtomicLong();
+  protected AtomicLong rejectedPutCount = new AtomicLong();
+  protected AtomicLong evictionCount = new AtomicLong();
+  protected AtomicLong invalidationCount = new AtomicLong();
+
+  public SharedEntityCacheRegion(Class<?> entityClass, SharedEntityCachePolicy policy, 
+      SharedEntityCacheEvictionPolicy evictionPolicy, int maxSize) {
+    this.entityClass = entityClass;
+    this.policy = policy;
+    this.evictionPolicy = evictionPolicy;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the cached entity with the given id, or null if it isn't cached.
+   * The returned instance is shared and must never be modified.
+   */
+  public synchronized Entity get(String id) {
+    Entry entry = entries.get(id);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    entry.hits++;
+    hitCount.incrementAndGet();
+    return entry.entity;
+  }
+
+  /**
+   * Caches the given entity, unless the {@link SharedEntityCachePolicy} of this region forbids it.
+   * 
+   * @param entity An instance that isn't used anywhere else
+   * @param revision The revision of the entity, or -1 if the entity has no revision
+   * @param invalidationStamp The {@link #getInvalidationStamp()} at the moment the command that loaded the entity was started
+   * @return true if the entity was cached
+   */
+  public synchronized boolean put(String id, Entity entity, int revision, long invalidationStamp) {
+    if (policy == SharedEntityCachePolicy.DISABLED) {
+      return false;
+    }
+    
+    if (policy == SharedEntityCachePolicy.READ_MOSTLY) {
+      
+      // The entity could have been changed (and the change committed) after it was loaded 
+      if (invalidationStamp != this.invalidationStamp) {
+        rejectedPutCount.incrementAndGet();
+        return false;
+      }
+      
+      Entry existingEntry = entries.get(id);
+      if (existingEntry != null && existingEntry.revision > revision) {
+        rejectedPutCount.incrementAndGet();
+        return false;
+      }
+    }
+    
+    // Evicting before adding, so the new entry (without any hits yet) is never the one evicted
+    if (!entries.containsKey(id) && entries.size() >= maxSize) {
+      evict();
+    }
+    
+    entries.put(id, new Entry(entity, revision));
+    putCount.incrementAndGet();
+    return true;
+  }
+
+  protected void evict() {
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    if (evictionPolicy == SharedEntityCacheEvictionPolicy.LFU) {
+      String leastFrequentlyUsedId = null;
+      long leastHits = Long.MAX_VALUE;
+      
+      // Iterating from least to most recently used, so ties are broken by recency
+      while (iterator.hasNext()) {
+        Map.Entry<String, Entry> mapEntry = iterator.next();
+        if (mapEntry.getValue().hits < leastHits) {
+          leastHits = mapEntry.getValue().hits;
+          leastFrequentlyUsedId = mapEntry.getKey();
+        }
+      }
+      entries.remove(leastFrequentlyUsedId);
+      
+    } else {
+      iterator.next();
+      iterator.remove();
+    }
+    evictionCount.incrementAndGet();
+  }
+
+  /**
+   * Removes the entity with the given id. 
+   * Entities of this type loaded by commands that are still running won't be cached anymore.
+   */
+  public synchronized void invalidate(String id) {
+    invalidationStamp++;
+    entries.remove(id);
+    invalidationCount.incrementAndGet();
+  }
+
+  /**
+   * Removes all entities of this region. 
+   * Entities of this type loaded by commands that are still running won't be cached anymore.
+   */
+  public synchronized void invalidateAll() {
+    invalidationStamp++;
+    entries.clear();
+    invalidationCount.incrementAndGet();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+  
+  /**
+   * Returns a value that changes whenever an entity of this region is invalidated.
+   */
+  public long getInvalidationStamp() {
+    return invalidationStamp;
+  }
+
+  public Class<?> getEntityClass() {
+    return entityClass;
+  }
+
+  public SharedEntityCachePolicy getPolicy() {
+    return policy;
+  }
+
+  public SharedEntityCacheEvictionPolicy getEvictionPolicy() {
+    return evictionPolicy;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getPutCount() {
+    return putCount.get();
+  }
+
+  public long getRejectedPutCount() {
+    return rejectedPutCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  public void resetStatistics() {
+    hitCount.set(0);
+    missCount.set(0);
+    putCount.set(0);
+    rejectedPutCount.set(0);
+    evictionCount.set(0);
+    invalidationCount.set(0);
+  }
+
+  protected static class Entry {
+
+    protected Entity entity;
+    protected int revision;
+    protected long hits;
+
+    public Entry(Entity entity, int revision) {
+      this.entity = entity;
+      this.revision = revision;
+    }
+
+  }
+
+}
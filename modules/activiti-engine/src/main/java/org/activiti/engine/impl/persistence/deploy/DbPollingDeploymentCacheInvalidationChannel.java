@@ -0,0 +1,167 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DeploymentCacheInvalidationChannel} for engines that only share the database. 
+ * 
+ * Every poll interval, a change marker is read: the number of process definitions, the deploy time of the latest deployment,
+ * the number of process definition infos and the sum of their revisions. Only when the marker differs from the previous poll,
+ * the ids of the process definitions and the revisions of their infos are read, and compared with the previous poll: 
+ * deleted process definitions and changed infos are delivered as invalidations. Changes made by the engine itself are 
+ * delivered too, which only evicts objects that are evicted already. Nothing needs to be published, as the changes are in the database.
+ * 
+ * Peers see a change at most one poll interval after it was committed.
+ */
+public class DbPollingDeploymentCacheInvalidationChannel implements DeploymentCacheInvalidationChannel {
+
+  private static final Logger logger = LoggerFactory.getLogger(DbPollingDeploymentCacheInvalidationChannel.class);
+
+  protected long pollInterval = 5000L;
+
+  protected CommandExecutor commandExecutor;
+  protected DeploymentCacheInvalidationListener listener;
+  protected ScheduledExecutorService pollExecutor;
+
+  protected List<Map<String, Object>> changeMarker;
+  protected Set<String> processDefinitionIds;
+  protected Map<String, Integer> infoRevisions;
+
+  public DbPollingDeploymentCacheInvalidationChannel() {
+  }
+
+  public DbPollingDeploymentCacheInvalidationChannel(long pollInterval) {
+    this.pollInterval = pollInterval;
+  }
+
+  public synchronized void start(CommandExecutor commandExecutor, DeploymentCacheInvalidationListener listener) {
+    this.commandExecutor = commandExecutor;
+    this.listener = listener;
+
+    // The first poll reads the state the others are compared with
+    pollSafely();
+
+    pollExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "activiti-deployment-cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    pollExecutor.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        pollSafely();
+      }
+    }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stop() {
+    if (pollExecutor != null) {
+      pollExecutor.shutdownNow();
+      pollExecutor = null;
+    }
+  }
+
+  public void publish(DeploymentCacheInvalidation invalidation) {
+    // The change is in the database, where the other engines will find it
+  }
+
+  /**
+   * Compares the process definitions and their infos with the previous poll, delivering the invalidations. The first poll, done 
+   * when the channel is started, only reads the current state, as the caches of a starting engine hold nothing older.
+   */
+  public synchronized void poll() {
+    List<Map<String, Object>> currentChangeMarker = commandExecutor.execute(new Command<List<Map<String, Object>>>() {
+      public List<Map<String, Object>> execute(CommandContext commandContext) {
+        return Arrays.asList(commandContext.getProcessDefinitionEntityManager().findProcessDefinitionChangeMarker(), 
+            commandContext.getProcessDefinitionInfoEntityManager().findProcessDefinitionInfoChangeMarker());
+      }
+    });
+    if (currentChangeMarker.equals(changeMarker)) {
+      return;
+    }
+
+    final Set<String> currentProcessDefinitionIds = new HashSet<String>();
+    final Map<String, Integer> currentInfoRevisions = new HashMap<String, Integer>();
+    commandExecutor.execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        currentProcessDefinitionIds.addAll(commandContext.getProcessDefinitionEntityManager().findProcessDefinitionIds());
+        currentInfoRevisions.putAll(commandContext.getProcessDefinitionInfoEntityManager().findProcessDefinitionInfoRevisions());
+        return null;
+      }
+    });
+
+    if (processDefinitionIds != null) {
+      for (String processDefinitionId : processDefinitionIds) {
+        if (!currentProcessDefinitionIds.contains(processDefinitionId)) {
+          deliver(new DeploymentCacheInvalidation(DeploymentCacheInvalidation.Type.PROCESS_DEFINITION, processDefinitionId));
+        }
+      }
+
+      Set<String> infoProcessDefinitionIds = new HashSet<String>(infoRevisions.keySet());
+      infoProcessDefinitionIds.addAll(currentInfoRevisions.keySet());
+      for (String processDefinitionId : infoProcessDefinitionIds) {
+        Integer revision = infoRevisions.get(processDefinitionId);
+        Integer currentRevision = currentInfoRevisions.get(processDefinitionId);
+        if (currentProcessDefinitionIds.contains(processDefinitionId) && (revision == null || !revision.equals(currentRevision))) {
+          deliver(new DeploymentCacheInvalidation(DeploymentCacheInvalidation.Type.PROCESS_DEFINITION_INFO, processDefinitionId));
+        }
+      }
+    }
+
+    // The marker was read before the ids and revisions, so a change in between is seen again by the next poll
+    changeMarker = currentChangeMarker;
+    processDefinitionIds = currentProcessDefinitionIds;
+    infoRevisions = currentInfoRevisions;
+  }
+
+  protected void pollSafely() {
+    try {
+      poll();
+    } catch (Throwable e) {
+      // Keeps polling, a failing poll would stop the schedule
+      logger.warn("Could not poll for deployment cache invalidations", e);
+    }
+  }
+
+  protected void deliver(DeploymentCacheInvalidation invalidation) {
+    logger.debug("Delivering deployment cache invalidation {}", invalidation);
+    listener.onInvalidation(invalidation);
+  }
+
+  public long getPollInterval() {
+    return pollInterval;
+  }
+
+  public void setPollInterval(long pollInterval) {
+    this.pollInterval = pollInterval;
+  }
+
+}
@@ -0,0 +1,55 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+import java.io.Serializable;
+
+/**
+ * Tells the engines sharing a database that a cached object changed, so they evict it from their caches.
+ */
+public class DeploymentCacheInvalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public enum Type {
+
+    /** The process definition with the key as id was deleted: evict it from all caches. */
+    PROCESS_DEFINITION,
+
+    /** The info of the process definition with the key as id was changed, eg. through the DynamicBpmnService. */
+    PROCESS_DEFINITION_INFO
+
+  }
+
+  protected Type type;
+  protected String key;
+
+  public DeploymentCacheInvalidation(Type type, String key) {
+    this.type = type;
+    this.key = key;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  @Override
+  public String toString() {
+    return type + "[" + key + "]";
+  }
+
+}
@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * Carries {@link DeploymentCacheInvalidation}s between the process engines that share a database,
+ * so every engine evicts exactly the changed objects from its deployment caches.
+ * 
+ * When a channel is configured, the process definition info cache trusts the invalidations and 
+ * no longer checks the revision in the database on every access.
+ */
+public interface DeploymentCacheInvalidationChannel {
+
+  /**
+   * Starts delivering the invalidations of the other engines to the given listener. Called when the process engine is built.
+   */
+  void start(CommandExecutor commandExecutor, DeploymentCacheInvalidationListener listener);
+
+  /**
+   * Stops delivering invalidations. Called when the process engine is closed.
+   */
+  void stop();
+
+  /**
+   * Sends the invalidation of a change made by this engine to the other engines. Called after the change is committed.
+   */
+  void publish(DeploymentCacheInvalidation invalidation);
+
+}
@@ -15,6 +15,7 @@ package org.activiti.engine.impl.persistence.deploy;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.engine.ActivitiException;
@@ -26,6 +27,8 @@ import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.ProcessDefinitionQueryImpl;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cfg.TransactionState;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
@@ -40,7 +43,7 @@ import org.activiti.engine.repository.ProcessDefinition;
  * @author Falko Menge
  * @author Joram Barrez
  */
-public class DeploymentManager {
+public class DeploymentManager implements DeploymentCacheInvalidationListener {
 
   protected DeploymentCache<ProcessDefinitionCacheEntry> processDefinitionCache;
   protected ProcessDefinitionInfoCache processDefinitionInfoCache;
@@ -126,18 +129,38 @@ public class DeploymentManager {
         return Activiti5Util.getActiviti5CompatibilityHandler().resolveProcessDefinition(processDefinition);
       }
       
-      DeploymentEntity deployment = deploymentEntityManager.findById(deploymentId);
-      deployment.setNew(false);
-      deploy(deployment, null);
-      cachedProcessDefinition = processDefinitionCache.get(processDefinitionId);
-
-      if (cachedProcessDefinition == null) {
-        throw new ActivitiException("deployment '" + deploymentId + "' didn't put process definition '" + processDefinitionId + "' in the cache");
+      if (processDefinitionCache instanceof ConcurrentDeploymentCache) {
+        // Concurrent misses for the same process definition wait for a single redeploy
+        final String id = processDefinitionId;
+        final String parentDeploymentId = deploymentId;
+        cachedProcessDefinition = ((ConcurrentDeploymentCache<ProcessDefinitionCacheEntry>) processDefinitionCache).get(processDefinitionId, 
+            new Callable<ProcessDefinitionCacheEntry>() {
+              public ProcessDefinitionCacheEntry call() {
+                return redeployProcessDefinition(id, parentDeploymentId);
+              }
+            });
+      } else {
+        cachedProcessDefinition = redeployProcessDefinition(processDefinitionId, deploymentId);
       }
     }
     return cachedProcessDefinition;
   }
 
+  /**
+   * Deploys the given deployment again, which puts its process definitions in the cache.
+   */
+  protected ProcessDefinitionCacheEntry redeployProcessDefinition(String processDefinitionId, String deploymentId) {
+    DeploymentEntity deployment = deploymentEntityManager.findById(deploymentId);
+    deployment.setNew(false);
+    deploy(deployment, null);
+    ProcessDefinitionCacheEntry cachedProcessDefinition = processDefinitionCache.get(processDefinitionId);
+
+    if (cachedProcessDefinition == null) {
+      throw new ActivitiException("deployment '" + deploymentId + "' didn't put process definition '" + processDefinitionId + "' in the cache");
+    }
+    return cachedProcessDefinition;
+  }
+
   public void removeDeployment(String deploymentId, boolean cascade) {
 
     DeploymentEntity deployment = deploymentEntityManager.findById(deploymentId);
@@ -175,6 +198,40 @@ public class DeploymentManager {
     for (ProcessDefinition processDefinition : processDefinitions) {
       processDefinitionCache.remove(processDefinition.getId());
     }
+
+    if (processEngineConfiguration.getBpmnModelSnapshotCache() != null) {
+      processEngineConfiguration.getBpmnModelSnapshotCache().remove(deploymentId);
+    }
+
+    for (ProcessDefinition processDefinition : processDefinitions) {
+      invalidateAfterCommit(new DeploymentCacheInvalidation(DeploymentCacheInvalidation.Type.PROCESS_DEFINITION, processDefinition.getId()));
+    }
+  }
+
+  /**
+   * Evicts the changed object from the caches of this engine and publishes the invalidation to the other engines, 
+   * once the current transaction is committed. Does nothing when no {@link DeploymentCacheInvalidationChannel} is configured.
+   */
+  public void invalidateAfterCommit(final DeploymentCacheInvalidation invalidation) {
+    final DeploymentCacheInvalidationChannel channel = processEngineConfiguration.getDeploymentCacheInvalidationChannel();
+    if (channel == null) {
+      return;
+    }
+
+    Context.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+      public void execute(CommandContext commandContext) {
+        onInvalidation(invalidation);
+        channel.publish(invalidation);
+      }
+    });
+  }
+
+  public void onInvalidation(DeploymentCacheInvalidation invalidation) {
+    String processDefinitionId = invalidation.getKey();
+    if (invalidation.getType() == DeploymentCacheInvalidation.Type.PROCESS_DEFINITION) {
+      processDefinitionCache.remove(processDefinitionId);
+    }
+    processDefinitionInfoCache.remove(processDefinitionId);
   }
 
   // getters and setters
@@ -0,0 +1,69 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * {@link DeploymentCacheInvalidationChannel} between process engines in the same JVM, eg. for tests.
+ * The engines that should see each others invalidations each get a channel created with {@link #createPeer()} from the same channel.
+ */
+public class InMemoryDeploymentCacheInvalidationChannel implements DeploymentCacheInvalidationChannel {
+
+  protected List<InMemoryDeploymentCacheInvalidationChannel> peers;
+  protected volatile DeploymentCacheInvalidationListener listener;
+
+  public InMemoryDeploymentCacheInvalidationChannel() {
+    this.peers = new CopyOnWriteArrayList<InMemoryDeploymentCacheInvalidationChannel>();
+    this.peers.add(this);
+  }
+
+  protected InMemoryDeploymentCacheInvalidationChannel(List<InMemoryDeploymentCacheInvalidationChannel> peers) {
+    this.peers = peers;
+    this.peers.add(this);
+  }
+
+  /**
+   * Returns a new channel that receives the invalidations published on this channel and its other peers, and vice versa.
+   */
+  public InMemoryDeploymentCacheInvalidationChannel createPeer() {
+    return new InMemoryDeploymentCacheInvalidationChannel(peers);
+  }
+
+  public void start(CommandExecutor commandExecutor, DeploymentCacheInvalidationListener listener) {
+    this.listener = listener;
+  }
+
+  public void stop() {
+    this.listener = null;
+  }
+
+  public void publish(DeploymentCacheInvalidation invalidation) {
+    for (InMemoryDeploymentCacheInvalidationChannel peer : peers) {
+      if (peer != this) {
+        peer.deliver(invalidation);
+      }
+    }
+  }
+
+  protected void deliver(DeploymentCacheInvalidation invalidation) {
+    DeploymentCacheInvalidationListener currentListener = listener;
+    if (currentListener != null) {
+      currentListener.onInvalidation(invalidation);
+    }
+  }
+
+}
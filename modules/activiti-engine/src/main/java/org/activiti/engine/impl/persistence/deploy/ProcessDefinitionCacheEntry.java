@@ -16,6 +16,7 @@ import java.io.Serializable;
 
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.Process;
+import org.activiti.engine.impl.agenda.ProcessExecutionPlan;
 import org.activiti.engine.repository.ProcessDefinition;
 
 /**
@@ -28,6 +29,7 @@ public class ProcessDefinitionCacheEntry implements Serializable {
   protected ProcessDefinition processDefinition;
   protected BpmnModel bpmnModel;
   protected Process process;
+  protected transient ProcessExecutionPlan executionPlan;
 
   public ProcessDefinitionCacheEntry(ProcessDefinition processDefinition, BpmnModel bpmnModel, Process process) {
     this.processDefinition = processDefinition;
@@ -59,4 +61,12 @@ public class ProcessDefinitionCacheEntry implements Serializable {
     this.process = process;
   }
 
+  public ProcessExecutionPlan getExecutionPlan() {
+    return executionPlan;
+  }
+
+  public void setExecutionPlan(ProcessExecutionPlan executionPlan) {
+    this.executionPlan = executionPlan;
+  }
+
 }
@@ -0,0 +1,50 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+import java.util.Collection;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.Process;
+
+/**
+ * Weighs a {@link ProcessDefinitionCacheEntry} by the number of flow elements and artifacts of its {@link BpmnModel}, 
+ * as these (with their listeners, extension elements and behaviors) take most of the memory of a parsed process definition.
+ */
+public class ProcessDefinitionCacheEntryWeigher implements DeploymentCacheWeigher<ProcessDefinitionCacheEntry> {
+
+  public long weigh(String id, ProcessDefinitionCacheEntry processDefinitionCacheEntry) {
+    long weight = 1;
+    BpmnModel bpmnModel = processDefinitionCacheEntry.getBpmnModel();
+    if (bpmnModel != null) {
+      for (Process process : bpmnModel.getProcesses()) {
+        weight += weigh(process);
+      }
+    }
+    return weight;
+  }
+
+  protected long weigh(FlowElementsContainer container) {
+    Collection<FlowElement> flowElements = container.getFlowElements();
+    long weight = flowElements.size() + container.getArtifacts().size();
+    for (FlowElement flowElement : flowElements) {
+      if (flowElement instanceof FlowElementsContainer) {
+        weight += weigh((FlowElementsContainer) flowElement);
+      }
+    }
+    return weight;
+  }
+
+}
@@ -16,6 +16,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.impl.context.Context;
@@ -42,6 +43,18 @@ public class ProcessDefinitionInfoCache {
   protected Map<String, ProcessDefinitionInfoCacheObject> cache;
   protected CommandExecutor commandExecutor;
   
+  /** 
+   * When true (the default), the revision of the info is checked in the database on every access. Can be disabled when 
+   * changes are delivered as {@link DeploymentCacheInvalidation}s, which remove the changed infos from this cache.
+   */
+  protected boolean revisionCheckEnabled = true;
+  
+  /** 
+   * Incremented on every removal, so an info loaded on a cache miss isn't cached when it was invalidated
+   * while it was being loaded (it can have been read before the change was committed).
+   */
+  protected AtomicLong invalidationCount = new AtomicLong();
+  
   /** Cache with no limit */
   public ProcessDefinitionInfoCache(CommandExecutor commandExecutor) {
     this.commandExecutor = commandExecutor;
@@ -70,6 +83,14 @@ public class ProcessDefinitionInfoCache {
   
   public ProcessDefinitionInfoCacheObject get(final String processDefinitionId) {
     ProcessDefinitionInfoCacheObject infoCacheObject = null;
+    if (!revisionCheckEnabled) {
+      infoCacheObject = cache.get(processDefinitionId);
+      if (infoCacheObject != null) {
+        return infoCacheObject;
+      }
+    }
+    
+    final long invalidationCountBeforeLoad = invalidationCount.get();
     Command<ProcessDefinitionInfoCacheObject> cacheCommand = new Command<ProcessDefinitionInfoCacheObject>() {
 
       @Override
@@ -84,6 +105,14 @@ public class ProcessDefinitionInfoCache {
       infoCacheObject = commandExecutor.execute(cacheCommand);
     } 
     
+    if (!revisionCheckEnabled) {
+      synchronized (cache) {
+        if (invalidationCount.get() == invalidationCountBeforeLoad) {
+          cache.put(processDefinitionId, infoCacheObject);
+        }
+      }
+    }
+    
     return infoCacheObject;
   }
   
@@ -92,11 +121,17 @@ public class ProcessDefinitionInfoCache {
   }
   
   public void remove(String id) {
-    cache.remove(id);
+    synchronized (cache) {
+      invalidationCount.incrementAndGet();
+      cache.remove(id);
+    }
   }
   
   public void clear() {
-    cache.clear();
+    synchronized (cache) {
+      invalidationCount.incrementAndGet();
+      cache.clear();
+    }
   }
   
   // For testing purposes only
@@ -104,6 +139,14 @@ public class ProcessDefinitionInfoCache {
     return cache.size();
   }
   
+  public boolean isRevisionCheckEnabled() {
+    return revisionCheckEnabled;
+  }
+
+  public void setRevisionCheckEnabled(boolean revisionCheckEnabled) {
+    this.revisionCheckEnabled = revisionCheckEnabled;
+  }
+  
   protected ProcessDefinitionInfoCacheObject retrieveProcessDefinitionInfoCacheObject(String processDefinitionId, CommandContext commandContext) {
     ProcessDefinitionInfoEntityManager infoEntityManager = commandContext.getProcessDefinitionInfoEntityManager();
     ObjectMapper objectMapper = commandContext.getProcessEngineConfiguration().getObjectMapper();
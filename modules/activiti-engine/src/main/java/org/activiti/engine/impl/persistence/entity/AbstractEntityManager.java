@@ -15,6 +15,7 @@ package org.activiti.engine.impl.persistence.entity;
 import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.AbstractManager;
 import org.activiti.engine.impl.persistence.CountingExecutionEntity;
@@ -54,9 +55,13 @@ public abstract class AbstractEntityManager<EntityImpl extends Entity> extends A
     getDataManager().insert(entity);
 
     ActivitiEventDispatcher eventDispatcher = getEventDispatcher();
-    if (fireCreateEvent && eventDispatcher.isEnabled()) {
-      eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, entity));
-      eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, entity));
+    if (fireCreateEvent) {
+      if (ActivitiEventDispatcherImpl.hasEventListeners(eventDispatcher, ActivitiEventType.ENTITY_CREATED, entity)) {
+        eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, entity));
+      }
+      if (ActivitiEventDispatcherImpl.hasEventListeners(eventDispatcher, ActivitiEventType.ENTITY_INITIALIZED, entity)) {
+        eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, entity));
+      }
     }
   }
   
@@ -69,7 +74,7 @@ public abstract class AbstractEntityManager<EntityImpl extends Entity> extends A
   public EntityImpl update(EntityImpl entity, boolean fireUpdateEvent) {
     EntityImpl updatedEntity = getDataManager().update(entity);
     
-    if (fireUpdateEvent && getEventDispatcher().isEnabled()) {
+    if (fireUpdateEvent && ActivitiEventDispatcherImpl.hasEventListeners(getEventDispatcher(), ActivitiEventType.ENTITY_UPDATED, entity)) {
       getEventDispatcher().dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, entity));
     }
     
@@ -91,7 +96,7 @@ public abstract class AbstractEntityManager<EntityImpl extends Entity> extends A
   public void delete(EntityImpl entity, boolean fireDeleteEvent) {
     getDataManager().delete(entity);
 
-    if (fireDeleteEvent && getEventDispatcher().isEnabled()) {
+    if (fireDeleteEvent && ActivitiEventDispatcherImpl.hasEventListeners(getEventDispatcher(), ActivitiEventType.ENTITY_DELETED, entity)) {
       getEventDispatcher().dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, entity));
     }
   }
@@ -14,6 +14,7 @@ package org.activiti.engine.impl.persistence.entity;
 
 import java.util.List;
 
+import org.activiti.engine.impl.DeadLetterJobGroupImpl;
 import org.activiti.engine.impl.DeadLetterJobQueryImpl;
 import org.activiti.engine.impl.JobQueryImpl;
 import org.activiti.engine.impl.Page;
@@ -44,4 +45,23 @@ public interface DeadLetterJobEntityManager extends EntityManager<DeadLetterJobE
    * Changes the tenantId for all jobs related to a given {@link DeploymentEntity}.
    */
   void updateJobTenantIdForDeployment(String deploymentId, String newTenantId);
+  
+  /**
+   * Returns the dead letter jobs grouped by process definition, activity and exception message fingerprint,
+   * largest groups first.
+   */
+  List<DeadLetterJobGroupImpl> findJobGroups();
+  
+  /**
+   * Returns at most maxResults jobs of the given process definition and activity (both can be null), ordered by id.
+   * When lastJobId is not null, only the jobs with a higher id are returned.
+   */
+  List<DeadLetterJobEntity> findJobsByGroup(String processDefinitionId, String activityId, String lastJobId, int maxResults);
+  
+  /**
+   * Moves the given dead letter jobs to the executable jobs, with one insert and one delete statement. The executable jobs keep the ids of the dead letter jobs.
+   * Like {@link org.activiti.engine.impl.asyncexecutor.JobManager#moveDeadLetterJobToExecutableJob(DeadLetterJobEntity, int)}, the entity created and 
+   * deleted events are dispatched, but the jobs aren't passed to the async executor and the execution related entity counts aren't updated.
+   */
+  void moveJobsToExecutableJobs(List<DeadLetterJobEntity> jobs, int retries);
 }
\ No newline at end of file
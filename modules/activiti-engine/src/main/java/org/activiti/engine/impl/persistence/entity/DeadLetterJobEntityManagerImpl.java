@@ -13,15 +13,24 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
+import org.activiti.engine.impl.DeadLetterJobGroupImpl;
 import org.activiti.engine.impl.DeadLetterJobQueryImpl;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CountingExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.data.DeadLetterJobDataManager;
+import org.activiti.engine.impl.util.ExceptionFingerprintUtil;
 import org.activiti.engine.runtime.Job;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +69,60 @@ public class DeadLetterJobEntityManagerImpl extends AbstractEntityManager<DeadLe
     jobDataManager.updateJobTenantIdForDeployment(deploymentId, newTenantId);
   }
   
+  @Override
+  public List<DeadLetterJobGroupImpl> findJobGroups() {
+    Map<String, DeadLetterJobGroupImpl> groups = new LinkedHashMap<String, DeadLetterJobGroupImpl>();
+    for (DeadLetterJobGroupImpl messageGroup : jobDataManager.findJobGroupsByExceptionMessage()) {
+      String fingerprint = ExceptionFingerprintUtil.fingerprint(messageGroup.getExceptionMessage());
+      String key = messageGroup.getProcessDefinitionId() + "|" + messageGroup.getActivityId() + "|" + fingerprint;
+      
+      DeadLetterJobGroupImpl group = groups.get(key);
+      if (group == null) {
+        group = new DeadLetterJobGroupImpl(fingerprint, messageGroup.getProcessDefinitionId(), messageGroup.getActivityId());
+        group.setExceptionMessage(messageGroup.getExceptionMessage());
+        groups.put(key, group);
+      }
+      group.setJobCount(group.getJobCount() + messageGroup.getJobCount());
+    }
+    
+    List<DeadLetterJobGroupImpl> result = new ArrayList<DeadLetterJobGroupImpl>(groups.values());
+    Collections.sort(result, new Comparator<DeadLetterJobGroupImpl>() {
+      public int compare(DeadLetterJobGroupImpl group1, DeadLetterJobGroupImpl group2) {
+        return Long.compare(group2.getJobCount(), group1.getJobCount());
+      }
+    });
+    return result;
+  }
+  
+  @Override
+  public List<DeadLetterJobEntity> findJobsByGroup(String processDefinitionId, String activityId, String lastJobId, int maxResults) {
+    return jobDataManager.findJobsByGroup(processDefinitionId, activityId, lastJobId, maxResults);
+  }
+  
+  @Override
+  public void moveJobsToExecutableJobs(List<DeadLetterJobEntity> jobs, int retries) {
+    List<String> jobIds = new ArrayList<String>(jobs.size());
+    for (DeadLetterJobEntity job : jobs) {
+      jobIds.add(job.getId());
+    }
+    jobDataManager.moveJobsToExecutableJobs(jobIds, retries);
+
+    ActivitiEventDispatcher eventDispatcher = getEventDispatcher();
+    if (eventDispatcher.isEnabled()) {
+      for (DeadLetterJobEntity job : jobs) {
+        // The executable job is inserted by the statement, the entity only carries its values for the listeners
+        JobEntity executableJob = createExecutableJob(job, retries);
+        if (ActivitiEventDispatcherImpl.hasEventListeners(eventDispatcher, ActivitiEventType.ENTITY_CREATED, executableJob)) {
+          eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, executableJob));
+        }
+        if (ActivitiEventDispatcherImpl.hasEventListeners(eventDispatcher, ActivitiEventType.ENTITY_INITIALIZED, executableJob)) {
+          eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, executableJob));
+        }
+        eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, job));
+      }
+    }
+  }
+  
   @Override
   public void insert(DeadLetterJobEntity jobEntity, boolean fireCreateEvent) {
 
@@ -136,6 +199,25 @@ public class DeadLetterJobEntityManagerImpl extends AbstractEntityManager<DeadLe
     return newJobEntity;
   }
 
+  protected JobEntity createExecutableJob(DeadLetterJobEntity job, int retries) {
+    JobEntity newJobEntity = getJobEntityManager().create();
+    newJobEntity.setId(job.getId());
+    newJobEntity.setRevision(job.getRevision());
+    newJobEntity.setJobHandlerConfiguration(job.getJobHandlerConfiguration());
+    newJobEntity.setJobHandlerType(job.getJobHandlerType());
+    newJobEntity.setExclusive(job.isExclusive());
+    newJobEntity.setRepeat(job.getRepeat());
+    newJobEntity.setRetries(retries);
+    newJobEntity.setDuedate(job.getDuedate());
+    newJobEntity.setExceptionMessage(job.getExceptionMessage());
+    newJobEntity.setExecutionId(job.getExecutionId());
+    newJobEntity.setProcessInstanceId(job.getProcessInstanceId());
+    newJobEntity.setProcessDefinitionId(job.getProcessDefinitionId());
+    newJobEntity.setTenantId(job.getTenantId());
+    newJobEntity.setJobType(job.getJobType());
+    return newJobEntity;
+  }
+
   protected DeadLetterJobDataManager getDataManager() {
     return jobDataManager;
   }
@@ -212,7 +212,7 @@ public class ExecutionEntityImpl extends VariableScopeImpl implements ExecutionE
     ExecutionEntityImpl execution = new ExecutionEntityImpl();
     execution.executions = new ArrayList<ExecutionEntityImpl>(1);
     execution.tasks = new ArrayList<TaskEntity>(1);
-    execution.variableInstances = new HashMap<String, VariableInstanceEntity>(1);
+    execution.variableInstances = new VariableInstanceMap<VariableInstanceEntity>();
     execution.jobs = new ArrayList<JobEntity>(1);
     execution.timerJobs = new ArrayList<TimerJobEntity>(1);
     execution.eventSubscriptions = new ArrayList<EventSubscriptionEntity>(1);
@@ -402,6 +402,7 @@ public class ExecutionEntityImpl extends VariableScopeImpl implements ExecutionE
 
   public void setParent(ExecutionEntity parent) {
     this.parent = (ExecutionEntityImpl) parent;
+    variableScopeChanged();
 
     if (parent != null) {
       this.parentId = parent.getId();
@@ -644,6 +645,50 @@ public class ExecutionEntityImpl extends VariableScopeImpl implements ExecutionE
     }
   }
 
+  // prefetched collections ///////////////////////////////////////////////////
+  
+  // Used when the execution tree is fetched together with the related collections:
+  // a collection that was already initialized (and possibly changed) is left untouched.
+
+  public void initializeVariableInstances(Collection<VariableInstanceEntity> variableInstancesList) {
+    if (variableInstances == null) {
+      variableInstances = new VariableInstanceMap<VariableInstanceEntity>(variableInstancesList.size());
+      for (VariableInstanceEntity variableInstance : variableInstancesList) {
+        variableInstances.put(variableInstance.getName(), variableInstance);
+      }
+    }
+  }
+
+  public void initializeEventSubscriptions(List<EventSubscriptionEntity> eventSubscriptions) {
+    if (this.eventSubscriptions == null) {
+      this.eventSubscriptions = eventSubscriptions;
+    }
+  }
+
+  public void initializeJobs(List<JobEntity> jobs) {
+    if (this.jobs == null) {
+      this.jobs = jobs;
+    }
+  }
+
+  public void initializeTimerJobs(List<TimerJobEntity> timerJobs) {
+    if (this.timerJobs == null) {
+      this.timerJobs = timerJobs;
+    }
+  }
+
+  public void initializeTasks(List<TaskEntity> tasks) {
+    if (this.tasks == null) {
+      this.tasks = tasks;
+    }
+  }
+
+  public void initializeIdentityLinks(List<IdentityLinkEntity> identityLinks) {
+    if (this.identityLinks == null) {
+      this.identityLinks = identityLinks;
+    }
+  }
+
   // getters and setters //////////////////////////////////////////////////////
 
   public String getProcessInstanceId() {
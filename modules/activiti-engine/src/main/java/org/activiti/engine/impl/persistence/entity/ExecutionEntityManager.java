@@ -46,6 +46,8 @@ public interface ExecutionEntityManager extends EntityManager<ExecutionEntity> {
 
   List<ExecutionEntity> findChildExecutionsByProcessInstanceId(String processInstanceId);
 
+  List<ExecutionEntity> findExecutionsByProcessInstanceIds(Collection<String> processInstanceIds);
+
   List<ExecutionEntity> findExecutionsByParentExecutionAndActivityIds(String parentExecutionId, Collection<String> activityIds);
 
   long findExecutionCountByQueryCriteria(ExecutionQueryImpl executionQuery);
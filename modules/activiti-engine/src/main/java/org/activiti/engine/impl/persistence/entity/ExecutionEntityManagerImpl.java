@@ -19,8 +19,11 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.ActivitiObjectNotFoundException;
 import org.activiti.engine.delegate.event.ActivitiEventType;
@@ -35,6 +38,7 @@ import org.activiti.engine.impl.identity.Authentication;
 import org.activiti.engine.impl.persistence.CountingExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.ExecutionDataManager;
+import org.activiti.engine.impl.util.CollectionUtil;
 import org.activiti.engine.repository.ProcessDefinition;
 import org.activiti.engine.runtime.Execution;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -92,6 +96,11 @@ public class ExecutionEntityManagerImpl extends AbstractEntityManager<ExecutionE
     return executionDataManager.findChildExecutionsByProcessInstanceId(processInstanceId);
   }
 
+  @Override
+  public List<ExecutionEntity> findExecutionsByProcessInstanceIds(Collection<String> processInstanceIds) {
+    return executionDataManager.findExecutionsByProcessInstanceIds(processInstanceIds);
+  }
+
   @Override
   public List<ExecutionEntity> findExecutionsByParentExecutionAndActivityIds(final String parentExecutionId, final Collection<String> activityIds) {
     return executionDataManager.findExecutionsByParentExecutionAndActivityIds(parentExecutionId, activityIds);
@@ -175,9 +184,49 @@ public class ExecutionEntityManagerImpl extends AbstractEntityManager<ExecutionE
   
   @Override
   public List<ProcessInstance> findProcessInstanceAndVariablesByQueryCriteria(ProcessInstanceQueryImpl executionQuery) {
+    if (getProcessEngineConfiguration().getPerformanceSettings().isEnableTwoPhaseQueryVariablesFetch()) {
+      List<ProcessInstance> processInstances = executionDataManager.findProcessInstanceByQueryCriteria(executionQuery);
+      fetchQueryVariables(processInstances);
+      return processInstances;
+    }
     return executionDataManager.findProcessInstanceAndVariablesByQueryCriteria(executionQuery);
   }
 
+  /**
+   * Sets the query variables of the process instances, fetched with one query per chunk of process instance ids.
+   */
+  protected void fetchQueryVariables(List<ProcessInstance> processInstances) {
+    if (processInstances.isEmpty()) {
+      return;
+    }
+
+    Set<String> processInstanceIds = new LinkedHashSet<String>();
+    for (ProcessInstance processInstance : processInstances) {
+      processInstanceIds.add(processInstance.getId());
+    }
+
+    int chunkSize = getProcessEngineConfiguration().getPerformanceSettings().getQueryVariablesFetchChunkSize();
+    Map<String, List<VariableInstanceEntity>> variablesByProcessInstanceId = new HashMap<String, List<VariableInstanceEntity>>();
+    for (List<String> chunk : CollectionUtil.partition(processInstanceIds, chunkSize)) {
+      for (VariableInstanceEntity variable : getVariableInstanceEntityManager().findVariableInstancesByExecutionIds(new HashSet<String>(chunk))) {
+        List<VariableInstanceEntity> variables = variablesByProcessInstanceId.get(variable.getExecutionId());
+        if (variables == null) {
+          variables = new ArrayList<VariableInstanceEntity>();
+          variablesByProcessInstanceId.put(variable.getExecutionId(), variables);
+        }
+        variables.add(variable);
+      }
+    }
+
+    for (ProcessInstance processInstance : processInstances) {
+      List<VariableInstanceEntity> queryVariables = new VariableInitializingList();
+      if (variablesByProcessInstanceId.containsKey(processInstance.getId())) {
+        queryVariables.addAll(variablesByProcessInstanceId.get(processInstance.getId()));
+      }
+      ((ExecutionEntityImpl) processInstance).setQueryVariables(queryVariables);
+    }
+  }
+
   @Override
   public Collection<ExecutionEntity> findInactiveExecutionsByProcessInstanceId(final String processInstanceId) {
     return executionDataManager.findInactiveExecutionsByProcessInstanceId(processInstanceId);
@@ -28,6 +28,8 @@ public interface HistoricDetailEntityManager extends EntityManager<HistoricDetai
 
   HistoricDetailVariableInstanceUpdateEntity copyAndInsertHistoricDetailVariableInstanceUpdateEntity(VariableInstanceEntity variableInstance);
 
+  HistoricDetailVariableInstanceUpdateEntity createHistoricDetailVariableInstanceUpdate();
+
   
   long findHistoricDetailCountByQueryCriteria(HistoricDetailQueryImpl historicVariableUpdateQuery);
 
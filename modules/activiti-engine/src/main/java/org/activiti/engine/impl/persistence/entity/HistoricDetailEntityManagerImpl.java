@@ -63,6 +63,11 @@ public class HistoricDetailEntityManagerImpl extends AbstractEntityManager<Histo
     return historicFormPropertyEntity;
   }
   
+  @Override
+  public HistoricDetailVariableInstanceUpdateEntity createHistoricDetailVariableInstanceUpdate() {
+    return historicDetailDataManager.createHistoricDetailVariableInstanceUpdate();
+  }
+  
   @Override
   public HistoricDetailVariableInstanceUpdateEntity copyAndInsertHistoricDetailVariableInstanceUpdateEntity(VariableInstanceEntity variableInstance) {
     HistoricDetailVariableInstanceUpdateEntity historicVariableUpdate = historicDetailDataManager.createHistoricDetailVariableInstanceUpdate();
@@ -17,6 +17,7 @@ import java.util.Map;
 
 import org.activiti.engine.history.HistoricProcessInstance;
 import org.activiti.engine.impl.HistoricProcessInstanceQueryImpl;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Joram Barrez
@@ -29,6 +30,11 @@ public interface HistoricProcessInstanceEntityManager extends EntityManager<Hist
 
   List<HistoricProcessInstance> findHistoricProcessInstancesByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery);
 
+  /**
+   * Passes the results of the query one by one to the handler, without adding them to the entity cache.
+   */
+  void streamHistoricProcessInstancesByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery, QueryResultHandler<HistoricProcessInstance> resultHandler);
+
   List<HistoricProcessInstance> findHistoricProcessInstancesAndVariablesByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery);
 
   List<HistoricProcessInstance> findHistoricProcessInstancesByNativeQuery(Map<String, Object> parameterMap, int firstResult, int maxResults);
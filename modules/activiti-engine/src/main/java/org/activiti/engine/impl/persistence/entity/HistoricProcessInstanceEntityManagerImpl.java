@@ -22,6 +22,7 @@ import org.activiti.engine.impl.HistoricProcessInstanceQueryImpl;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.HistoricProcessInstanceDataManager;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Tom Baeyens
@@ -96,6 +97,13 @@ public class HistoricProcessInstanceEntityManagerImpl extends AbstractEntityMana
     return Collections.EMPTY_LIST;
   }
 
+  @Override
+  public void streamHistoricProcessInstancesByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery, QueryResultHandler<HistoricProcessInstance> resultHandler) {
+    if (getHistoryManager().isHistoryEnabled()) {
+      historicProcessInstanceDataManager.streamHistoricProcessInstancesByQueryCriteria(historicProcessInstanceQuery, resultHandler);
+    }
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public List<HistoricProcessInstance> findHistoricProcessInstancesAndVariablesByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery) {
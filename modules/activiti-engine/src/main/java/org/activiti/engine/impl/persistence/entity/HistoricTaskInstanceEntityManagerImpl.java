@@ -13,9 +13,14 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.compatibility.Activiti5CompatibilityHandler;
 import org.activiti.engine.history.HistoricTaskInstance;
@@ -25,6 +30,7 @@ import org.activiti.engine.impl.history.HistoryLevel;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.HistoricTaskInstanceDataManager;
 import org.activiti.engine.impl.util.Activiti5Util;
+import org.activiti.engine.impl.util.CollectionUtil;
 
 /**
  * @author Tom Baeyens
@@ -80,11 +86,73 @@ public class HistoricTaskInstanceEntityManagerImpl extends AbstractEntityManager
   @SuppressWarnings("unchecked")
   public List<HistoricTaskInstance> findHistoricTaskInstancesAndVariablesByQueryCriteria(HistoricTaskInstanceQueryImpl historicTaskInstanceQuery) {
     if (getHistoryManager().isHistoryEnabled()) {
+      if (getProcessEngineConfiguration().getPerformanceSettings().isEnableTwoPhaseQueryVariablesFetch()) {
+        List<HistoricTaskInstance> historicTaskInstances = historicTaskInstanceDataManager.findHistoricTaskInstancesByQueryCriteria(historicTaskInstanceQuery);
+        fetchQueryVariables(historicTaskInstances, historicTaskInstanceQuery.isIncludeTaskLocalVariables(), historicTaskInstanceQuery.isIncludeProcessVariables());
+        return historicTaskInstances;
+      }
      return historicTaskInstanceDataManager.findHistoricTaskInstancesAndVariablesByQueryCriteria(historicTaskInstanceQuery);
     }
     return Collections.EMPTY_LIST;
   }
 
+  /**
+   * Sets the query variables of the historic task instances, fetched with one query per chunk of task and process instance ids.
+   */
+  protected void fetchQueryVariables(List<HistoricTaskInstance> historicTaskInstances, boolean includeTaskLocalVariables, boolean includeProcessVariables) {
+    if (historicTaskInstances.isEmpty()) {
+      return;
+    }
+
+    int chunkSize = getProcessEngineConfiguration().getPerformanceSettings().getQueryVariablesFetchChunkSize();
+    Set<String> taskIds = new LinkedHashSet<String>();
+    Set<String> processInstanceIds = new LinkedHashSet<String>();
+    for (HistoricTaskInstance historicTaskInstance : historicTaskInstances) {
+      taskIds.add(historicTaskInstance.getId());
+      if (historicTaskInstance.getProcessInstanceId() != null) {
+        processInstanceIds.add(historicTaskInstance.getProcessInstanceId());
+      }
+    }
+
+    Map<String, List<HistoricVariableInstanceEntity>> variablesByTaskId = new HashMap<String, List<HistoricVariableInstanceEntity>>();
+    if (includeTaskLocalVariables) {
+      for (List<String> chunk : CollectionUtil.partition(taskIds, chunkSize)) {
+        for (HistoricVariableInstanceEntity variable : getHistoricVariableInstanceEntityManager().findHistoricVariableInstancesByTaskIds(new HashSet<String>(chunk))) {
+          addQueryVariable(variablesByTaskId, variable.getTaskId(), variable);
+        }
+      }
+    }
+
+    Map<String, List<HistoricVariableInstanceEntity>> variablesByProcessInstanceId = new HashMap<String, List<HistoricVariableInstanceEntity>>();
+    if (includeProcessVariables) {
+      for (List<String> chunk : CollectionUtil.partition(processInstanceIds, chunkSize)) {
+        for (HistoricVariableInstanceEntity variable : getHistoricVariableInstanceEntityManager().findHistoricVariableInstancesByExecutionIds(new HashSet<String>(chunk))) {
+          addQueryVariable(variablesByProcessInstanceId, variable.getExecutionId(), variable);
+        }
+      }
+    }
+
+    for (HistoricTaskInstance historicTaskInstance : historicTaskInstances) {
+      List<HistoricVariableInstanceEntity> queryVariables = new HistoricVariableInitializingList();
+      if (variablesByTaskId.containsKey(historicTaskInstance.getId())) {
+        queryVariables.addAll(variablesByTaskId.get(historicTaskInstance.getId()));
+      }
+      if (historicTaskInstance.getProcessInstanceId() != null && variablesByProcessInstanceId.containsKey(historicTaskInstance.getProcessInstanceId())) {
+        queryVariables.addAll(variablesByProcessInstanceId.get(historicTaskInstance.getProcessInstanceId()));
+      }
+      ((HistoricTaskInstanceEntity) historicTaskInstance).setQueryVariables(queryVariables);
+    }
+  }
+
+  protected void addQueryVariable(Map<String, List<HistoricVariableInstanceEntity>> variables, String key, HistoricVariableInstanceEntity variable) {
+    List<HistoricVariableInstanceEntity> keyVariables = variables.get(key);
+    if (keyVariables == null) {
+      keyVariables = new ArrayList<HistoricVariableInstanceEntity>();
+      variables.put(key, keyVariables);
+    }
+    keyVariables.add(variable);
+  }
+
   @Override
   public void delete(String id) {
     if (getHistoryManager().isHistoryEnabled()) {
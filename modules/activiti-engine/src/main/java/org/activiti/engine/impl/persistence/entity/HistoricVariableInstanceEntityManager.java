@@ -14,10 +14,12 @@ package org.activiti.engine.impl.persistence.entity;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.history.HistoricVariableInstance;
 import org.activiti.engine.impl.HistoricVariableInstanceQueryImpl;
 import org.activiti.engine.impl.Page;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Joram Barrez
@@ -30,8 +32,20 @@ public interface HistoricVariableInstanceEntityManager extends EntityManager<His
 
   List<HistoricVariableInstance> findHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, Page page);
 
+  /**
+   * Passes the results of the query one by one to the handler, without adding them to the entity cache.
+   */
+  void streamHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, QueryResultHandler<HistoricVariableInstance> resultHandler);
+
   HistoricVariableInstanceEntity findHistoricVariableInstanceByVariableInstanceId(String variableInstanceId);
 
+  List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskIds(Set<String> taskIds);
+
+  /**
+   * Returns the variables of the given executions that are not task local.
+   */
+  List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByExecutionIds(Set<String> executionIds);
+
   long findHistoricVariableInstanceCountByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery);
 
   List<HistoricVariableInstance> findHistoricVariableInstancesByNativeQuery(Map<String, Object> parameterMap, int firstResult, int maxResults);
@@ -16,6 +16,7 @@ package org.activiti.engine.impl.persistence.entity;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.history.HistoricVariableInstance;
 import org.activiti.engine.impl.HistoricVariableInstanceQueryImpl;
@@ -24,6 +25,7 @@ import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.history.HistoryLevel;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.HistoricVariableInstanceDataManager;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Christian Lipphardt (camunda)
@@ -109,11 +111,26 @@ public class HistoricVariableInstanceEntityManagerImpl extends AbstractEntityMan
     return historicVariableInstanceDataManager.findHistoricVariableInstancesByQueryCriteria(historicProcessVariableQuery, page);
   }
 
+  @Override
+  public void streamHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, QueryResultHandler<HistoricVariableInstance> resultHandler) {
+    historicVariableInstanceDataManager.streamHistoricVariableInstancesByQueryCriteria(historicProcessVariableQuery, resultHandler);
+  }
+
   @Override
   public HistoricVariableInstanceEntity findHistoricVariableInstanceByVariableInstanceId(String variableInstanceId) {
     return historicVariableInstanceDataManager.findHistoricVariableInstanceByVariableInstanceId(variableInstanceId);
   }
 
+  @Override
+  public List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskIds(Set<String> taskIds) {
+    return historicVariableInstanceDataManager.findHistoricVariableInstancesByTaskIds(taskIds);
+  }
+
+  @Override
+  public List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByExecutionIds(Set<String> executionIds) {
+    return historicVariableInstanceDataManager.findHistoricVariableInstancesByExecutionIds(executionIds);
+  }
+
   @Override
   public void deleteHistoricVariableInstancesByTaskId(String taskId) {
     if (getHistoryManager().isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Date;
 import java.util.List;
 
 import org.activiti.engine.impl.JobQueryImpl;
@@ -42,6 +43,35 @@ public interface JobEntityManager extends EntityManager<JobEntity> {
    * that can be executed.
    */
   List<JobEntity> findJobsToExecute(Page page);
+  
+  /**
+   * Same as {@link #findJobsToExecute(Page)}, but the returned jobs are row locked, skipping the rows
+   * that are locked by other transactions. On databases that don't support this, it is the same as {@link #findJobsToExecute(Page)}.
+   */
+  List<JobEntity> findJobsToExecuteSkipLocked(Page page);
+  
+  /**
+   * Returns the ids of the {@link JobEntity} instances that are eligible to be executed,
+   * without putting the job instances in the cache.
+   */
+  List<String> findJobIdsToExecute(Page page);
+  
+  /**
+   * Same as {@link #findJobsToExecute(Page)}, but the returned jobs are not put in the cache,
+   * so they can't be used to change the jobs.
+   */
+  List<JobEntity> findJobsToExecuteWithoutCache(Page page);
+  
+  /**
+   * Locks the {@link JobEntity} instances with the given ids for the given lock owner, 
+   * but only if they are not locked yet. Returns the number of jobs that were locked.
+   */
+  int updateJobLockForAcquisition(List<String> jobIds, String lockOwner, Date lockExpirationTime);
+  
+  /**
+   * Returns the {@link JobEntity} instances with the given ids that are locked by the given lock owner.
+   */
+  List<JobEntity> findJobsByIdsAndLockOwner(List<String> jobIds, String lockOwner);
 
   /**
    * Returns all {@link JobEntity} instances related to on {@link ExecutionEntity}. 
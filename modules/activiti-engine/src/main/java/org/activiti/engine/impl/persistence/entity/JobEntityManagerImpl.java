@@ -13,6 +13,7 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Date;
 import java.util.List;
 
 import org.activiti.engine.delegate.event.ActivitiEventType;
@@ -87,6 +88,31 @@ public class JobEntityManagerImpl extends AbstractEntityManager<JobEntity> imple
   public List<JobEntity> findJobsToExecute(Page page) {
     return jobDataManager.findJobsToExecute(page); 
   }
+  
+  @Override
+  public List<JobEntity> findJobsToExecuteSkipLocked(Page page) {
+    return jobDataManager.findJobsToExecuteSkipLocked(page);
+  }
+  
+  @Override
+  public List<String> findJobIdsToExecute(Page page) {
+    return jobDataManager.findJobIdsToExecute(page);
+  }
+  
+  @Override
+  public List<JobEntity> findJobsToExecuteWithoutCache(Page page) {
+    return jobDataManager.findJobsToExecuteWithoutCache(page);
+  }
+  
+  @Override
+  public int updateJobLockForAcquisition(List<String> jobIds, String lockOwner, Date lockExpirationTime) {
+    return jobDataManager.updateJobLockForAcquisition(jobIds, lockOwner, lockExpirationTime);
+  }
+  
+  @Override
+  public List<JobEntity> findJobsByIdsAndLockOwner(List<String> jobIds, String lockOwner) {
+    return jobDataManager.findJobsByIdsAndLockOwner(jobIds, lockOwner);
+  }
 
   @Override
   public List<JobEntity> findJobsByExecutionId(String executionId) {
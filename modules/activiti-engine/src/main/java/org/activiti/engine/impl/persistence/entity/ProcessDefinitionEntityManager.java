@@ -26,6 +26,14 @@ public interface ProcessDefinitionEntityManager extends EntityManager<ProcessDef
 
   ProcessDefinitionEntity findLatestProcessDefinitionByKey(String processDefinitionKey);
 
+  List<String> findProcessDefinitionIds();
+
+  /**
+   * Returns values that change whenever a process definition is added or deleted: the number of process definitions 
+   * and the deploy time of the latest deployment with a process definition. 
+   */
+  Map<String, Object> findProcessDefinitionChangeMarker();
+
   ProcessDefinitionEntity findLatestProcessDefinitionByKeyAndTenantId(String processDefinitionKey, String tenantId);
 
   List<ProcessDefinition> findProcessDefinitionsByQueryCriteria(ProcessDefinitionQueryImpl processDefinitionQuery, Page page);
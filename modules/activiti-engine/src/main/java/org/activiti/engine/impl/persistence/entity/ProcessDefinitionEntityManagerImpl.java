@@ -49,6 +49,16 @@ public class ProcessDefinitionEntityManagerImpl extends AbstractEntityManager<Pr
     return processDefinitionDataManager.findLatestProcessDefinitionByKey(processDefinitionKey);
   }
 
+  @Override
+  public List<String> findProcessDefinitionIds() {
+    return processDefinitionDataManager.findProcessDefinitionIds();
+  }
+
+  @Override
+  public Map<String, Object> findProcessDefinitionChangeMarker() {
+    return processDefinitionDataManager.findProcessDefinitionChangeMarker();
+  }
+
   @Override
   public ProcessDefinitionEntity findLatestProcessDefinitionByKeyAndTenantId(String processDefinitionKey, String tenantId) {
    return processDefinitionDataManager.findLatestProcessDefinitionByKeyAndTenantId(processDefinitionKey, tenantId);
@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Map;
 
 /**
  * @author Tijs Rademakers
@@ -31,6 +32,17 @@ public interface ProcessDefinitionInfoEntityManager extends EntityManager<Proces
   ProcessDefinitionInfoEntity findById(String id);
   
   ProcessDefinitionInfoEntity findProcessDefinitionInfoByProcessDefinitionId(String processDefinitionId);
+
+  /**
+   * Returns the revision of every process definition info by process definition id. The infos aren't loaded as entities.
+   */
+  Map<String, Integer> findProcessDefinitionInfoRevisions();
+
+  /**
+   * Returns values that change whenever a process definition info is added, updated or deleted: 
+   * the number of infos and the sum of their revisions.
+   */
+  Map<String, Object> findProcessDefinitionInfoChangeMarker();
   
   byte[] findInfoJsonById(String infoJsonId);
 
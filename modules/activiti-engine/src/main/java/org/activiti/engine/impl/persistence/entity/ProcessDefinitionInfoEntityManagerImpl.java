@@ -13,6 +13,8 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Map;
+
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.ProcessDefinitionInfoDataManager;
@@ -62,8 +64,10 @@ public class ProcessDefinitionInfoEntityManagerImpl extends
       
       if (processDefinitionInfo.getInfoJsonId() == null) {
         processDefinitionInfo.setInfoJsonId(ref.getId());
-        updateProcessDefinitionInfo(processDefinitionInfo);
       }
+      
+      // Always updated, so every change of the json is visible from the revision of the info
+      updateProcessDefinitionInfo(processDefinitionInfo);
     }
   }
   
@@ -77,6 +81,14 @@ public class ProcessDefinitionInfoEntityManagerImpl extends
   public ProcessDefinitionInfoEntity findProcessDefinitionInfoByProcessDefinitionId(String processDefinitionId) {
     return processDefinitionInfoDataManager.findProcessDefinitionInfoByProcessDefinitionId(processDefinitionId);
   }
+
+  public Map<String, Integer> findProcessDefinitionInfoRevisions() {
+    return processDefinitionInfoDataManager.findProcessDefinitionInfoRevisions();
+  }
+
+  public Map<String, Object> findProcessDefinitionInfoChangeMarker() {
+    return processDefinitionInfoDataManager.findProcessDefinitionInfoChangeMarker();
+  }
   
   public byte[] findInfoJsonById(String infoJsonId) {
     ByteArrayRef ref = new ByteArrayRef(infoJsonId);
@@ -20,5 +20,10 @@ import java.util.List;
 public interface PropertyEntityManager extends EntityManager<PropertyEntity> {
   
   List<PropertyEntity> findAll();
+  
+  /**
+   * Returns the properties of which the name starts with the given prefix, which must not contain wildcards.
+   */
+  List<PropertyEntity> findByNamePrefix(String namePrefix);
 
 }
\ No newline at end of file
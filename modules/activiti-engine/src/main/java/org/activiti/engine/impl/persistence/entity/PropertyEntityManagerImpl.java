@@ -42,4 +42,9 @@ public class PropertyEntityManagerImpl extends AbstractEntityManager<PropertyEnt
     return propertyDataManager.findAll();
   }
   
+  @Override
+  public List<PropertyEntity> findByNamePrefix(String namePrefix) {
+    return propertyDataManager.findByNamePrefix(namePrefix);
+  }
+  
 }
@@ -482,6 +482,7 @@ public class TaskEntityImpl extends VariableScopeImpl implements TaskEntity, Ser
 
   public void setExecution(ExecutionEntity execution) {
     this.execution = execution;
+    variableScopeChanged();
   }
 
   public void setProcessInstanceId(String processInstanceId) {
@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +31,8 @@ public interface TaskEntityManager extends EntityManager<TaskEntity> {
 
   List<TaskEntity> findTasksByProcessInstanceId(String processInstanceId);
 
+  List<TaskEntity> findTasksByIds(Collection<String> taskIds);
+
   List<Task> findTasksByQueryCriteria(TaskQueryImpl taskQuery);
 
   List<Task> findTasksAndVariablesByQueryCriteria(TaskQueryImpl taskQuery);
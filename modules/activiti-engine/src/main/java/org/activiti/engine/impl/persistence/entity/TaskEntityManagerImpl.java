@@ -13,8 +13,14 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.compatibility.Activiti5CompatibilityHandler;
@@ -27,6 +33,7 @@ import org.activiti.engine.impl.persistence.CountingExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.data.DataManager;
 import org.activiti.engine.impl.persistence.entity.data.TaskDataManager;
 import org.activiti.engine.impl.util.Activiti5Util;
+import org.activiti.engine.impl.util.CollectionUtil;
 import org.activiti.engine.task.IdentityLinkType;
 import org.activiti.engine.task.Task;
 
@@ -244,6 +251,11 @@ public class TaskEntityManagerImpl extends AbstractEntityManager<TaskEntity> imp
     return taskDataManager.findTasksByProcessInstanceId(processInstanceId);
   }
 
+  @Override
+  public List<TaskEntity> findTasksByIds(Collection<String> taskIds) {
+    return taskDataManager.findTasksByIds(taskIds);
+  }
+
   @Override
   public List<Task> findTasksByQueryCriteria(TaskQueryImpl taskQuery) {
     return taskDataManager.findTasksByQueryCriteria(taskQuery);
@@ -251,9 +263,71 @@ public class TaskEntityManagerImpl extends AbstractEntityManager<TaskEntity> imp
 
   @Override
   public List<Task> findTasksAndVariablesByQueryCriteria(TaskQueryImpl taskQuery) {
+    if (getProcessEngineConfiguration().getPerformanceSettings().isEnableTwoPhaseQueryVariablesFetch()) {
+      List<Task> tasks = taskDataManager.findTasksByQueryCriteria(taskQuery);
+      fetchQueryVariables(tasks, taskQuery.isIncludeTaskLocalVariables(), taskQuery.isIncludeProcessVariables());
+      return tasks;
+    }
     return taskDataManager.findTasksAndVariablesByQueryCriteria(taskQuery);
   }
 
+  /**
+   * Sets the query variables of the tasks, fetched with one query per chunk of task and process instance ids.
+   */
+  protected void fetchQueryVariables(List<Task> tasks, boolean includeTaskLocalVariables, boolean includeProcessVariables) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    int chunkSize = getProcessEngineConfiguration().getPerformanceSettings().getQueryVariablesFetchChunkSize();
+    Set<String> taskIds = new LinkedHashSet<String>();
+    Set<String> processInstanceIds = new LinkedHashSet<String>();
+    for (Task task : tasks) {
+      taskIds.add(task.getId());
+      if (task.getProcessInstanceId() != null) {
+        processInstanceIds.add(task.getProcessInstanceId());
+      }
+    }
+
+    Map<String, List<VariableInstanceEntity>> variablesByTaskId = new HashMap<String, List<VariableInstanceEntity>>();
+    if (includeTaskLocalVariables) {
+      for (List<String> chunk : CollectionUtil.partition(taskIds, chunkSize)) {
+        for (VariableInstanceEntity variable : getVariableInstanceEntityManager().findVariableInstancesByTaskIds(new HashSet<String>(chunk))) {
+          addQueryVariable(variablesByTaskId, variable.getTaskId(), variable);
+        }
+      }
+    }
+
+    Map<String, List<VariableInstanceEntity>> variablesByProcessInstanceId = new HashMap<String, List<VariableInstanceEntity>>();
+    if (includeProcessVariables) {
+      for (List<String> chunk : CollectionUtil.partition(processInstanceIds, chunkSize)) {
+        for (VariableInstanceEntity variable : getVariableInstanceEntityManager().findVariableInstancesByExecutionIds(new HashSet<String>(chunk))) {
+          addQueryVariable(variablesByProcessInstanceId, variable.getExecutionId(), variable);
+        }
+      }
+    }
+
+    for (Task task : tasks) {
+      List<VariableInstanceEntity> queryVariables = new VariableInitializingList();
+      if (variablesByTaskId.containsKey(task.getId())) {
+        queryVariables.addAll(variablesByTaskId.get(task.getId()));
+      }
+      if (task.getProcessInstanceId() != null && variablesByProcessInstanceId.containsKey(task.getProcessInstanceId())) {
+        queryVariables.addAll(variablesByProcessInstanceId.get(task.getProcessInstanceId()));
+      }
+      ((TaskEntityImpl) task).setQueryVariables(queryVariables);
+    }
+  }
+
+  protected void addQueryVariable(Map<String, List<VariableInstanceEntity>> variables, String key, VariableInstanceEntity variable) {
+    List<VariableInstanceEntity> keyVariables = variables.get(key);
+    if (keyVariables == null) {
+      keyVariables = new ArrayList<VariableInstanceEntity>();
+      variables.put(key, keyVariables);
+    }
+    keyVariables.add(variable);
+  }
+
   @Override
   public long findTaskCountByQueryCriteria(TaskQueryImpl taskQuery) {
     return taskDataManager.findTaskCountByQueryCriteria(taskQuery);
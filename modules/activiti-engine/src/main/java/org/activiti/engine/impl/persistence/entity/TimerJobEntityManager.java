@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Date;
 import java.util.List;
 
 import org.activiti.engine.delegate.VariableScope;
@@ -42,6 +43,12 @@ public interface TimerJobEntityManager extends EntityManager<TimerJobEntity> {
    */
   List<TimerJobEntity> findTimerJobsToExecute(Page page);
 
+  /**
+   * Returns the {@link TimerJobEntity} instances with a due date before the given date
+   * that aren't locked, or of which the lock has expired.
+   */
+  List<TimerJobEntity> findUnlockedTimerJobsDueBefore(Date dueBefore, Page page);
+
   /**
    * Returns the {@link TimerJobEntity} for a given process definition.
    * 
@@ -22,11 +22,14 @@ import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.TimerJobQueryImpl;
+import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.TimerWheelAsyncExecutor;
 import org.activiti.engine.impl.calendar.BusinessCalendar;
 import org.activiti.engine.impl.calendar.CycleBusinessCalendar;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.jobexecutor.TimerEventHandler;
+import org.activiti.engine.impl.jobexecutor.TimerJobAddedNotification;
 import org.activiti.engine.impl.persistence.CountingExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.data.TimerJobDataManager;
 import org.activiti.engine.runtime.Job;
@@ -70,6 +73,11 @@ public class TimerJobEntityManagerImpl extends AbstractEntityManager<TimerJobEnt
     return jobDataManager.findTimerJobsToExecute(page);
   }
 
+  @Override
+  public List<TimerJobEntity> findUnlockedTimerJobsDueBefore(Date dueBefore, Page page) {
+    return jobDataManager.findUnlockedTimerJobsDueBefore(dueBefore, page);
+  }
+
   @Override
   public List<TimerJobEntity> findJobsByTypeAndProcessDefinitionId(String jobHandlerType, String processDefinitionId) {
     return jobDataManager.findJobsByTypeAndProcessDefinitionId(jobHandlerType, processDefinitionId);
@@ -151,6 +159,13 @@ public class TimerJobEntityManagerImpl extends AbstractEntityManager<TimerJobEnt
     }
 
     super.insert(jobEntity, fireCreateEvent);
+    
+    // With a timer wheel, the timer job can be due before the wheel is refilled from the database
+    AsyncExecutor asyncExecutor = getProcessEngineConfiguration().getAsyncExecutor();
+    if (asyncExecutor instanceof TimerWheelAsyncExecutor && asyncExecutor.isActive() 
+        && ((TimerWheelAsyncExecutor) asyncExecutor).isTimerWheelEnabled()) {
+      Context.getCommandContext().addCloseListener(new TimerJobAddedNotification(jobEntity, (TimerWheelAsyncExecutor) asyncExecutor));
+    }
     return true;
   }
 
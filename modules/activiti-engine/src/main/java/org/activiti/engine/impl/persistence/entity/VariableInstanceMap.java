@@ -0,0 +1,401 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.entity;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact map of the variables of a {@link VariableScopeImpl}, by variable name.
+ *
+ * The names and variables are kept in two dense arrays, found through an open-addressing (linear probing) index of array slots.
+ * Unlike a {@link java.util.HashMap}, no entry object is allocated per variable: the {@link Map.Entry}, key and value views
+ * are created on first use and iterate the arrays directly.
+ * Iteration order is unspecified, removing a variable moves the last variable into its slot.
+ */
+class VariableInstanceMap<V extends VariableInstance> extends AbstractMap<String, V> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected static final int MIN_CAPACITY = 2;
+
+  protected String[] names;
+  protected Object[] variables;
+  protected int size;
+
+  // Slot + 1 of the variable with a name hashing to (or probed from) that position, 0 for a free position.
+  // Its length is a power of two that is at least twice the capacity of the dense arrays.
+  protected int[] index;
+
+  protected transient Set<Map.Entry<String, V>> entrySet;
+  protected transient Set<String> nameSet;
+  protected transient Collection<V> variableCollection;
+
+  VariableInstanceMap() {
+    this(MIN_CAPACITY);
+  }
+
+  VariableInstanceMap(int expectedSize) {
+    int capacity = Math.max(expectedSize, MIN_CAPACITY);
+    names = new String[capacity];
+    variables = new Object[capacity];
+    index = new int[indexLength(capacity)];
+  }
+
+  protected static int indexLength(int capacity) {
+    return Integer.highestOneBit(capacity - 1) << 2;
+  }
+
+  protected static int hash(Object name) {
+    int h = name.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the position in the index that holds the slot of the given name, or -1 if the name isn't in this map.
+   */
+  protected int findPosition(Object name) {
+    if (name == null) {
+      return -1;
+    }
+    int mask = index.length - 1;
+    int position = hash(name) & mask;
+    int slot;
+    while ((slot = index[position]) != 0) {
+      if (name.equals(names[slot - 1])) {
+        return position;
+      }
+      position = (position + 1) & mask;
+    }
+    return -1;
+  }
+
+  protected int findSlot(Object name) {
+    int position = findPosition(name);
+    return position >= 0 ? index[position] - 1 : -1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object name) {
+    return findPosition(name) >= 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object name) {
+    int slot = findSlot(name);
+    return slot >= 0 ? (V) variables[slot] : null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(String name, V variable) {
+    if (name == null) {
+      throw new NullPointerException("variable name is null");
+    }
+    int slot = findSlot(name);
+    if (slot >= 0) {
+      V previous = (V) variables[slot];
+      variables[slot] = variable;
+      return previous;
+    }
+
+    if (size == names.length) {
+      grow();
+    }
+    names[size] = name;
+    variables[size] = variable;
+    size++;
+    insertInIndex(name, size);
+    return null;
+  }
+
+  protected void grow() {
+    int capacity = names.length << 1;
+    String[] newNames = new String[capacity];
+    Object[] newVariables = new Object[capacity];
+    System.arraycopy(names, 0, newNames, 0, size);
+    System.arraycopy(variables, 0, newVariables, 0, size);
+    names = newNames;
+    variables = newVariables;
+
+    int newIndexLength = indexLength(capacity);
+    if (newIndexLength != index.length) {
+      index = new int[newIndexLength];
+      for (int slot = 0; slot < size; slot++) {
+        insertInIndex(names[slot], slot + 1);
+      }
+    }
+  }
+
+  protected void insertInIndex(String name, int slotPlusOne) {
+    int mask = index.length - 1;
+    int position = hash(name) & mask;
+    while (index[position] != 0) {
+      position = (position + 1) & mask;
+    }
+    index[position] = slotPlusOne;
+  }
+
+  @Override
+  public V remove(Object name) {
+    int position = findPosition(name);
+    if (position < 0) {
+      return null;
+    }
+    return removeAt(position);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected V removeAt(int position) {
+    int slot = index[position] - 1;
+    V removed = (V) variables[slot];
+    removeFromIndex(position);
+
+    // Keep the arrays dense: the last variable takes the freed slot
+    int last = size - 1;
+    if (slot != last) {
+      index[findPosition(names[last])] = slot + 1;
+      names[slot] = names[last];
+      variables[slot] = variables[last];
+    }
+    names[last] = null;
+    variables[last] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Frees the given index position, shifting back the entries of the same probe sequence so that no lookup stops early.
+   */
+  protected void removeFromIndex(int position) {
+    int mask = index.length - 1;
+    int free = position;
+    int current = (position + 1) & mask;
+    int slot;
+    while ((slot = index[current]) != 0) {
+      int home = hash(names[slot - 1]) & mask;
+      // Move the entry if its home position isn't cyclically in (free, current]
+      if (((current - home) & mask) >= ((current - free) & mask)) {
+        index[free] = slot;
+        free = current;
+      }
+      current = (current + 1) & mask;
+    }
+    index[free] = 0;
+  }
+
+  @Override
+  public void clear() {
+    for (int slot = 0; slot < size; slot++) {
+      names[slot] = null;
+      variables[slot] = null;
+    }
+    for (int position = 0; position < index.length; position++) {
+      index[position] = 0;
+    }
+    size = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  @Override
+  public Set<String> keySet() {
+    if (nameSet == null) {
+      nameSet = new NameSet();
+    }
+    return nameSet;
+  }
+
+  @Override
+  public Collection<V> values() {
+    if (variableCollection == null) {
+      variableCollection = new VariableCollection();
+    }
+    return variableCollection;
+  }
+
+  // views /////////////////////////////////////////////////////////////////////
+
+  protected abstract class SlotIterator<T> implements Iterator<T> {
+
+    protected int next;
+    protected int current = -1;
+
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    public T next() {
+      if (next >= size) {
+        throw new NoSuchElementException();
+      }
+      current = next++;
+      return get(current);
+    }
+
+    public void remove() {
+      if (current < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(findPosition(names[current]));
+      // The last variable was moved into the current slot and still needs to be visited
+      next = current;
+      current = -1;
+    }
+
+    protected abstract T get(int slot);
+  }
+
+  protected class SlotEntry implements Map.Entry<String, V> {
+
+    protected final String name;
+
+    protected SlotEntry(String name) {
+      this.name = name;
+    }
+
+    public String getKey() {
+      return name;
+    }
+
+    public V getValue() {
+      return VariableInstanceMap.this.get(name);
+    }
+
+    public V setValue(V variable) {
+      return put(name, variable);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      V variable = getValue();
+      return name.equals(other.getKey()) && (variable == null ? other.getValue() == null : variable.equals(other.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      V variable = getValue();
+      return name.hashCode() ^ (variable == null ? 0 : variable.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return name + "=" + getValue();
+    }
+  }
+
+  protected class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+
+    public Iterator<Map.Entry<String, V>> iterator() {
+      return new SlotIterator<Map.Entry<String, V>>() {
+        protected Map.Entry<String, V> get(int slot) {
+          return new SlotEntry(names[slot]);
+        }
+      };
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      VariableInstanceMap.this.clear();
+    }
+  }
+
+  protected class NameSet extends AbstractSet<String> {
+
+    public Iterator<String> iterator() {
+      return new SlotIterator<String>() {
+        protected String get(int slot) {
+          return names[slot];
+        }
+      };
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object name) {
+      return containsKey(name);
+    }
+
+    @Override
+    public boolean remove(Object name) {
+      int position = findPosition(name);
+      if (position < 0) {
+        return false;
+      }
+      removeAt(position);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      VariableInstanceMap.this.clear();
+    }
+  }
+
+  protected class VariableCollection extends AbstractCollection<V> {
+
+    public Iterator<V> iterator() {
+      return new SlotIterator<V>() {
+        @SuppressWarnings("unchecked")
+        protected V get(int slot) {
+          return (V) variables[slot];
+        }
+      };
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      VariableInstanceMap.this.clear();
+    }
+  }
+
+}
@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.el.ELContext;
 
@@ -51,6 +52,14 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
   protected ELContext cachedElContext;
 
+  // Variables found in a parent scope by getVariableInstance(name, true), only valid for the generation they were found in
+  protected transient Map<String, VariableInstance> parentVariableInstances;
+  protected transient long parentVariableInstancesGeneration;
+
+  // Incremented whenever a variable is created, removed or cached on any scope, or the scope hierarchy changes:
+  // a scope doesn't know its child scopes, so this is what invalidates their parentVariableInstances
+  protected static final AtomicLong variableScopeGeneration = new AtomicLong();
+
   protected abstract Collection<VariableInstanceEntity> loadVariableInstances();
 
   protected abstract VariableScopeImpl getParentVariableScope();
@@ -59,13 +68,12 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
   protected void ensureVariableInstancesInitialized() {
     if (variableInstances == null) {
-      variableInstances = new HashMap<String, VariableInstanceEntity>();
-
       CommandContext commandContext = Context.getCommandContext();
       if (commandContext == null) {
         throw new ActivitiException("lazy loading outside command context");
       }
       Collection<VariableInstanceEntity> variableInstancesList = loadVariableInstances();
+      variableInstances = new VariableInstanceMap<VariableInstanceEntity>(variableInstancesList.size());
       for (VariableInstanceEntity variableInstance : variableInstancesList) {
         variableInstances.put(variableInstance.getName(), variableInstance);
       }
@@ -97,22 +105,20 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     // Transient variables 'shadow' any existing variables.
     // The values in the fetch-cache will be more recent, so they can override any existing ones
     for (String variableName : variableNames) {
-      if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-        requestedVariables.put(variableName, transientVariabes.get(variableName).getValue());
-        variableNamesToFetch.remove(variableName);
-      } else if (usedVariablesCache.containsKey(variableName)) {
-        requestedVariables.put(variableName, usedVariablesCache.get(variableName).getValue());
+      VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+      if (cachedVariable != null) {
+        requestedVariables.put(variableName, cachedVariable.getValue());
         variableNamesToFetch.remove(variableName);
       }
     }
 
     if (fetchAllVariables == true) {
 
-      // getVariables() will go up the execution hierarchy, no need to do
-      // it here also, the cached values will already be applied too
-      Map<String, Object> allVariables = getVariables();
+      // Resolve the remaining variables one by one: getVariableInstance() goes up the execution hierarchy
+      // with the same precedence as getVariables(), without materializing all variables of all scopes
       for (String variableName : variableNamesToFetch) {
-        requestedVariables.put(variableName, allVariables.get(variableName));
+        VariableInstance variableInstance = getVariableInstance(variableName, true);
+        requestedVariables.put(variableName, variableInstance != null ? variableInstance.getValue() : null);
       }
       return requestedVariables;
 
@@ -143,22 +149,18 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
     // The values in the fetch-cache will be more recent, so they can override any existing ones
     for (String variableName : variableNames) {
-      if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-        requestedVariables.put(variableName, transientVariabes.get(variableName));
-        variableNamesToFetch.remove(variableName);
-      } else if (usedVariablesCache.containsKey(variableName)) {
-        requestedVariables.put(variableName, usedVariablesCache.get(variableName));
+      VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+      if (cachedVariable != null) {
+        requestedVariables.put(variableName, cachedVariable);
         variableNamesToFetch.remove(variableName);
       }
     }
 
     if (fetchAllVariables == true) {
 
-      // getVariables() will go up the execution hierarchy, no need to do it here
-      // also, the cached values will already be applied too
-      Map<String, VariableInstance> allVariables = getVariableInstances();
+      // See getVariables(Collection, boolean)
       for (String variableName : variableNamesToFetch) {
-        requestedVariables.put(variableName, allVariables.get(variableName));
+        requestedVariables.put(variableName, getVariableInstance(variableName, true));
       }
       return requestedVariables;
 
@@ -182,24 +184,31 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
   }
 
+  /**
+   * Initial capacity for a {@link HashMap} that holds the given number of entries without rehashing.
+   */
+  protected static int getMapCapacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+  }
+
   protected Map<String, Object> collectVariables(HashMap<String, Object> variables) {
     ensureVariableInstancesInitialized();
     VariableScopeImpl parentScope = getParentVariableScope();
     if (parentScope != null) {
-      variables.putAll(parentScope.collectVariables(variables));
+      parentScope.collectVariables(variables);
     }
 
     for (VariableInstanceEntity variableInstance : variableInstances.values()) {
       variables.put(variableInstance.getName(), variableInstance.getValue());
     }
 
-    for (String variableName : usedVariablesCache.keySet()) {
-      variables.put(variableName, usedVariablesCache.get(variableName).getValue());
+    for (Map.Entry<String, VariableInstanceEntity> usedVariable : usedVariablesCache.entrySet()) {
+      variables.put(usedVariable.getKey(), usedVariable.getValue().getValue());
     }
     
     if (transientVariabes != null) {
-      for (String variableName : transientVariabes.keySet()) {
-        variables.put(variableName, transientVariabes.get(variableName).getValue());
+      for (Map.Entry<String, VariableInstance> transientVariable : transientVariabes.entrySet()) {
+        variables.put(transientVariable.getKey(), transientVariable.getValue().getValue());
       }
     }
 
@@ -210,16 +219,14 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     ensureVariableInstancesInitialized();
     VariableScopeImpl parentScope = getParentVariableScope();
     if (parentScope != null) {
-      variables.putAll(parentScope.collectVariableInstances(variables));
+      parentScope.collectVariableInstances(variables);
     }
 
     for (VariableInstance variableInstance : variableInstances.values()) {
       variables.put(variableInstance.getName(), variableInstance);
     }
 
-    for (String variableName : usedVariablesCache.keySet()) {
-      variables.put(variableName, usedVariablesCache.get(variableName));
-    }
+    variables.putAll(usedVariablesCache);
     
     if (transientVariabes != null) {
       variables.putAll(transientVariabes);
@@ -258,14 +265,10 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
   public VariableInstance getVariableInstance(String variableName, boolean fetchAllVariables) {
     
-    // Transient variable
-    if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-      return transientVariabes.get(variableName);
-    }
-
-    // Check the local single-fetch cache
-    if (usedVariablesCache.containsKey(variableName)) {
-      return usedVariablesCache.get(variableName);
+    // Transient variable or local single-fetch cache
+    VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+    if (cachedVariable != null) {
+      return cachedVariable;
     }
     
     if (fetchAllVariables == true) {
@@ -276,22 +279,26 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
       }
 
       // Go up the hierarchy
-      VariableScope parentScope = getParentVariableScope();
+      VariableScopeImpl parentScope = getParentVariableScope();
       if (parentScope != null) {
-        return parentScope.getVariableInstance(variableName, true);
+        return getParentVariableInstance(parentScope, variableName);
       }
 
       return null;
 
     } else {
       
-      if (variableInstances != null && variableInstances.containsKey(variableName)) {
-        return variableInstances.get(variableName);
+      if (variableInstances != null) {
+        VariableInstanceEntity variableInstance = variableInstances.get(variableName);
+        if (variableInstance != null) {
+          return variableInstance;
+        }
       }
 
       VariableInstanceEntity variable = getSpecificVariable(variableName);
       if (variable != null) {
         usedVariablesCache.put(variableName, variable);
+        variableScopeChanged();
         return variable;
       }
 
@@ -306,6 +313,56 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     }
   }
 
+  /**
+   * Resolves a variable that isn't defined on this scope in the parent scopes, remembering where it was found:
+   * repeated lookups of the same variable skip the walk up the hierarchy until {@link #variableScopeGeneration} changes.
+   */
+  protected VariableInstance getParentVariableInstance(VariableScopeImpl parentScope, String variableName) {
+    long generation = variableScopeGeneration.get();
+    if (parentVariableInstances != null) {
+      if (parentVariableInstancesGeneration == generation) {
+        VariableInstance variableInstance = parentVariableInstances.get(variableName);
+        if (variableInstance != null && !variableInstance.isDeleted()) {
+          return variableInstance;
+        }
+      } else {
+        parentVariableInstances.clear();
+        parentVariableInstancesGeneration = generation;
+      }
+    }
+
+    VariableInstance variableInstance = parentScope.getVariableInstance(variableName, true);
+    if (variableInstance != null && variableScopeGeneration.get() == generation) {
+      if (parentVariableInstances == null) {
+        parentVariableInstances = new VariableInstanceMap<VariableInstance>();
+        parentVariableInstancesGeneration = generation;
+      }
+      parentVariableInstances.put(variableName, variableInstance);
+    }
+    return variableInstance;
+  }
+
+  /**
+   * Invalidates the parent variable lookups remembered by all scopes, see {@link #getParentVariableInstance(VariableScopeImpl, String)}.
+   */
+  protected static void variableScopeChanged() {
+    variableScopeGeneration.incrementAndGet();
+  }
+
+  /**
+   * Returns the transient variable with the given name, or otherwise the variable from the single-fetch cache (if any), 
+   * with one map lookup each.
+   */
+  protected VariableInstance getTransientOrUsedVariable(String variableName) {
+    if (transientVariabes != null) {
+      VariableInstance transientVariable = transientVariabes.get(variableName);
+      if (transientVariable != null) {
+        return transientVariable;
+      }
+    }
+    return usedVariablesCache.get(variableName);
+  }
+
   protected abstract VariableInstanceEntity getSpecificVariable(String variableName);
 
   public Object getVariableLocal(String variableName) {
@@ -327,12 +384,9 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
   public VariableInstance getVariableInstanceLocal(String variableName, boolean fetchAllVariables) {
     
-    if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-      return transientVariabes.get(variableName);
-    }
-    
-    if (usedVariablesCache.containsKey(variableName)) {
-      return usedVariablesCache.get(variableName);
+    VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+    if (cachedVariable != null) {
+      return cachedVariable;
     }
     
     if (fetchAllVariables == true) {
@@ -347,16 +401,17 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
     } else {
 
-      if (variableInstances != null && variableInstances.containsKey(variableName)) {
+      if (variableInstances != null) {
         VariableInstanceEntity variable = variableInstances.get(variableName);
         if (variable != null) {
-          return variableInstances.get(variableName);
+          return variable;
         }
       }
 
       VariableInstanceEntity variable = getSpecificVariable(variableName);
       if (variable != null) {
         usedVariablesCache.put(variableName, variable);
+        variableScopeChanged();
         return variable;
       }
 
@@ -415,7 +470,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     ensureVariableInstancesInitialized();
     VariableScopeImpl parentScope = getParentVariableScope();
     if (parentScope != null) {
-      variableNames.addAll(parentScope.collectVariableNames(variableNames));
+      parentScope.collectVariableNames(variableNames);
     }
     for (VariableInstanceEntity variableInstance : variableInstances.values()) {
       variableNames.add(variableInstance.getName());
@@ -428,31 +483,29 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
   }
 
   public Map<String, Object> getVariablesLocal() {
-    Map<String, Object> variables = new HashMap<String, Object>();
     ensureVariableInstancesInitialized();
+    Map<String, Object> variables = new HashMap<String, Object>(getMapCapacity(variableInstances.size()));
     for (VariableInstanceEntity variableInstance : variableInstances.values()) {
       variables.put(variableInstance.getName(), variableInstance.getValue());
     }
-    for (String variableName : usedVariablesCache.keySet()) {
-      variables.put(variableName, usedVariablesCache.get(variableName).getValue());
+    for (Map.Entry<String, VariableInstanceEntity> usedVariable : usedVariablesCache.entrySet()) {
+      variables.put(usedVariable.getKey(), usedVariable.getValue().getValue());
     }
     if (transientVariabes != null) {
-      for (String variableName : transientVariabes.keySet()) {
-        variables.put(variableName, transientVariabes.get(variableName).getValue());
+      for (Map.Entry<String, VariableInstance> transientVariable : transientVariabes.entrySet()) {
+        variables.put(transientVariable.getKey(), transientVariable.getValue().getValue());
       }
     }
     return variables;
   }
 
   public Map<String, VariableInstance> getVariableInstancesLocal() {
-    Map<String, VariableInstance> variables = new HashMap<String, VariableInstance>();
     ensureVariableInstancesInitialized();
+    Map<String, VariableInstance> variables = new HashMap<String, VariableInstance>(getMapCapacity(variableInstances.size()));
     for (VariableInstanceEntity variableInstance : variableInstances.values()) {
       variables.put(variableInstance.getName(), variableInstance);
     }
-    for (String variableName : usedVariablesCache.keySet()) {
-      variables.put(variableName, usedVariablesCache.get(variableName));
-    }
+    variables.putAll(usedVariablesCache);
     if (transientVariabes != null) {
       variables.putAll(transientVariabes);
     }
@@ -473,20 +526,18 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     // The values in the fetch-cache will be more recent, so they can override any existing ones
     Set<String> variableNamesToFetch = new HashSet<String>(variableNames);
     for (String variableName : variableNames) {
-      if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-        requestedVariables.put(variableName, transientVariabes.get(variableName).getValue());
-        variableNamesToFetch.remove(variableName);
-      } else if (usedVariablesCache.containsKey(variableName)) {
-        requestedVariables.put(variableName, usedVariablesCache.get(variableName).getValue());
+      VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+      if (cachedVariable != null) {
+        requestedVariables.put(variableName, cachedVariable.getValue());
         variableNamesToFetch.remove(variableName);
       }
     }
 
     if (fetchAllVariables == true) {
 
-      Map<String, Object> allVariables = getVariablesLocal();
       for (String variableName : variableNamesToFetch) {
-        requestedVariables.put(variableName, allVariables.get(variableName));
+        VariableInstance variableInstance = getVariableInstanceLocal(variableName, true);
+        requestedVariables.put(variableName, variableInstance != null ? variableInstance.getValue() : null);
       }
 
     } else {
@@ -507,20 +558,17 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     // The values in the fetch-cache will be more recent, so they can override any existing ones
     Set<String> variableNamesToFetch = new HashSet<String>(variableNames);
     for (String variableName : variableNames) {
-      if (transientVariabes != null && transientVariabes.containsKey(variableName)) {
-        requestedVariables.put(variableName, transientVariabes.get(variableName));
-        variableNamesToFetch.remove(variableName);
-      } else if (usedVariablesCache.containsKey(variableName)) {
-        requestedVariables.put(variableName, usedVariablesCache.get(variableName));
+      VariableInstance cachedVariable = getTransientOrUsedVariable(variableName);
+      if (cachedVariable != null) {
+        requestedVariables.put(variableName, cachedVariable);
         variableNamesToFetch.remove(variableName);
       }
     }
 
     if (fetchAllVariables == true) {
 
-      Map<String, VariableInstance> allVariables = getVariableInstancesLocal();
       for (String variableName : variableNamesToFetch) {
-        requestedVariables.put(variableName, allVariables.get(variableName));
+        requestedVariables.put(variableName, getVariableInstanceLocal(variableName, true));
       }
 
     } else {
@@ -687,6 +735,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
         if (variable != null) {
           updateVariableInstance(variable, value, sourceExecution);
           usedVariablesCache.put(variableName, variable);
+          variableScopeChanged();
         } else {
 
           VariableScopeImpl parent = getParentVariableScope();
@@ -702,6 +751,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
 
           variable = createVariableInstance(variableName, value, sourceExecution);
           usedVariablesCache.put(variableName, variable);
+          variableScopeChanged();
 
         }
 
@@ -764,6 +814,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
           variable = createVariableInstance(variableName, value, sourceActivityExecution);
         }
         usedVariablesCache.put(variableName, variable);
+        variableScopeChanged();
 
       }
 
@@ -821,6 +872,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     ensureVariableInstancesInitialized();
     VariableInstanceEntity variableInstance = variableInstances.remove(variableName);
     if (variableInstance != null) {
+      variableScopeChanged();
       deleteVariableInstanceForExplicitUserCall(variableInstance, sourceActivityExecution);
     }
   }
@@ -877,6 +929,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
     if (variableInstances != null) {
       variableInstances.put(variableName, variableInstance);
     }
+    variableScopeChanged();
 
     // Record historic variable
     Context.getCommandContext().getHistoryManager().recordVariableCreate(variableInstance);
@@ -903,6 +956,7 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
       transientVariabes = new HashMap<String, VariableInstance>();
     }
     transientVariabes.put(variableName, new TransientVariableInstance(variableName, variableValue));
+    variableScopeChanged();
   }
   
   public void setTransientVariables(Map<String, Object> transientVariables) {
@@ -930,8 +984,8 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
   public Map<String, Object> getTransientVariablesLocal() {
     if (transientVariabes != null) {
       Map<String, Object> variables = new HashMap<String, Object>();
-      for (String variableName : transientVariabes.keySet()) {
-        variables.put(variableName, transientVariabes.get(variableName).getValue());
+      for (Map.Entry<String, VariableInstance> transientVariable : transientVariabes.entrySet()) {
+        variables.put(transientVariable.getKey(), transientVariable.getValue().getValue());
       }
       return variables;
     } else {
@@ -959,12 +1013,12 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
   protected Map<String, Object> collectTransientVariables(HashMap<String, Object> variables) {
     VariableScopeImpl parentScope = getParentVariableScope();
     if (parentScope != null) {
-      variables.putAll(parentScope.collectVariables(variables));
+      parentScope.collectVariables(variables);
     }
     
     if (transientVariabes != null) {
-      for (String variableName : transientVariabes.keySet()) {
-        variables.put(variableName, transientVariabes.get(variableName).getValue());
+      for (Map.Entry<String, VariableInstance> transientVariable : transientVariabes.entrySet()) {
+        variables.put(transientVariable.getKey(), transientVariable.getValue().getValue());
       }
     }
 
@@ -974,12 +1028,14 @@ public abstract class VariableScopeImpl extends AbstractEntity implements Serial
   public void removeTransientVariableLocal(String variableName) {
     if (transientVariabes != null) {
       transientVariabes.remove(variableName);
+      variableScopeChanged();
     }
   }
   
   public void removeTransientVariablesLocal() {
     if (transientVariabes != null) {
       transientVariabes.clear();
+      variableScopeChanged();
     }
   }
   
@@ -15,23 +15,32 @@ package org.activiti.engine.impl.persistence.entity.data;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
+import org.activiti.engine.impl.cfg.PerformanceSettings;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.db.DbSqlSession;
+import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.AbstractManager;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.SingleCachedEntityMatcher;
 import org.activiti.engine.impl.persistence.cache.CachedEntity;
 import org.activiti.engine.impl.persistence.cache.EntityCache;
 import org.activiti.engine.impl.persistence.entity.Entity;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 
 /**
  * @author Joram Barrez
  */
 public abstract class AbstractDataManager<EntityImpl extends Entity> extends AbstractManager implements DataManager<EntityImpl> {
   
+  /** Command context attribute holding the root process instance ids of the execution trees whose collections were prefetched */
+  protected static final String PREFETCHED_EXECUTION_TREES_ATTRIBUTE = AbstractDataManager.class.getName() + ".prefetchedExecutionTrees";
+  
   public AbstractDataManager(ProcessEngineConfigurationImpl processEngineConfiguration) {
     super(processEngineConfiguration);
   }
@@ -62,8 +71,16 @@ public abstract class AbstractDataManager<EntityImpl extends Entity> extends Abs
       return cachedEntity;
     }
     
+    // Shared cache: the DbSqlSession is needed even if the entity is found, 
+    // as changes to the entity are detected when the DbSqlSession is flushed
+    DbSqlSession dbSqlSession = getDbSqlSession();
+    cachedEntity = getEntityCache().findInSharedCache(getManagedEntityClass(), entityId);
+    if (cachedEntity != null) {
+      return cachedEntity;
+    }
+    
     // Database
-    return getDbSqlSession().selectById(getManagedEntityClass(), entityId, false);
+    return dbSqlSession.selectById(getManagedEntityClass(), entityId, false);
   }
 
   @Override
@@ -177,12 +194,44 @@ public abstract class AbstractDataManager<EntityImpl extends Entity> extends Abs
     return new ArrayList<EntityImpl>(result);
   }
   
+  /**
+   * Returns true if the given collection of the execution was fetched together with the execution tree
+   * (see {@link PerformanceSettings#getExecutionTreePrefetchCollections()}), in which case all its entities
+   * are in the cache and can be retrieved with {@link #getListFromCache(CachedEntityMatcher, Object)}.
+   */
+  protected boolean isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection collection, String executionId) {
+    PerformanceSettings performanceSettings = getProcessEngineConfiguration().getPerformanceSettings();
+    if (executionId != null && performanceSettings.isEnableEagerExecutionTreeFetching() 
+        && performanceSettings.getExecutionTreePrefetchCollections().contains(collection)) {
+      // Fetches the tree and its collections if that hasn't happened yet
+      ExecutionEntity execution = getProcessEngineConfiguration().getExecutionDataManager().findById(executionId);
+      return execution != null && getPrefetchedExecutionTrees().contains(execution.getRootProcessInstanceId());
+    }
+    return false;
+  }
+  
+  /**
+   * Returns the root process instance ids of the execution trees of which the collections were prefetched in the current command context.
+   * Executions can be in the cache without their tree having been fetched (for example when fetched by a query), 
+   * so the presence of an execution in the cache can't be used for this.
+   */
+  @SuppressWarnings("unchecked")
+  protected Set<String> getPrefetchedExecutionTrees() {
+    CommandContext commandContext = getCommandContext();
+    Set<String> prefetchedExecutionTrees = (Set<String>) commandContext.getAttribute(PREFETCHED_EXECUTION_TREES_ATTRIBUTE);
+    if (prefetchedExecutionTrees == null) {
+      prefetchedExecutionTrees = new HashSet<String>();
+      commandContext.addAttribute(PREFETCHED_EXECUTION_TREES_ATTRIBUTE, prefetchedExecutionTrees);
+    }
+    return prefetchedExecutionTrees;
+  }
+  
   protected List<EntityImpl> getListFromCache(CachedEntityMatcher<EntityImpl> entityMatcher, Object parameter) {
     Collection<CachedEntity> cachedObjects = getEntityCache().findInCacheAsCachedObjects(getManagedEntityClass());
     
     DbSqlSession dbSqlSession = getDbSqlSession();
     
-    List<EntityImpl> result = new ArrayList<EntityImpl>(cachedObjects.size());
+    List<EntityImpl> result = new ArrayList<EntityImpl>(cachedObjects != null ? cachedObjects.size() : 0);
     if (cachedObjects != null && entityMatcher != null) {
       for (CachedEntity cachedObject : cachedObjects) {
         EntityImpl cachedEntity = (EntityImpl) cachedObject.getEntity();
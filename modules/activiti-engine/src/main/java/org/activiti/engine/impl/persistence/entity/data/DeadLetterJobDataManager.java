@@ -14,6 +14,7 @@ package org.activiti.engine.impl.persistence.entity.data;
 
 import java.util.List;
 
+import org.activiti.engine.impl.DeadLetterJobGroupImpl;
 import org.activiti.engine.impl.DeadLetterJobQueryImpl;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.persistence.entity.DeadLetterJobEntity;
@@ -31,4 +32,10 @@ public interface DeadLetterJobDataManager extends DataManager<DeadLetterJobEntit
   long findJobCountByQueryCriteria(DeadLetterJobQueryImpl jobQuery);
   
   void updateJobTenantIdForDeployment(String deploymentId, String newTenantId);
+  
+  List<DeadLetterJobGroupImpl> findJobGroupsByExceptionMessage();
+  
+  List<DeadLetterJobEntity> findJobsByGroup(String processDefinitionId, String activityId, String lastJobId, int maxResults);
+  
+  void moveJobsToExecutableJobs(List<String> jobIds, int retries);
 }
@@ -49,6 +49,8 @@ public interface ExecutionDataManager extends DataManager<ExecutionEntity> {
   
   List<ExecutionEntity> findExecutionsByProcessInstanceId(String processInstanceId);
   
+  List<ExecutionEntity> findExecutionsByProcessInstanceIds(Collection<String> processInstanceIds);
+  
   List<ProcessInstance> findProcessInstanceAndVariablesByQueryCriteria(ProcessInstanceQueryImpl executionQuery);
 
   Collection<ExecutionEntity> findInactiveExecutionsByProcessInstanceId(final String processInstanceId);
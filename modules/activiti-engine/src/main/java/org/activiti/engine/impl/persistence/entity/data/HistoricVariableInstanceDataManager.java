@@ -14,11 +14,13 @@ package org.activiti.engine.impl.persistence.entity.data;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.history.HistoricVariableInstance;
 import org.activiti.engine.impl.HistoricVariableInstanceQueryImpl;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntity;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Joram Barrez
@@ -28,11 +30,17 @@ public interface HistoricVariableInstanceDataManager extends DataManager<Histori
   List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByProcessInstanceId(String processInstanceId);
   
   List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskId(String taskId);
+
+  List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskIds(Set<String> taskIds);
+
+  List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByExecutionIds(Set<String> executionIds);
   
   long findHistoricVariableInstanceCountByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery);
 
   List<HistoricVariableInstance> findHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, Page page);
 
+  void streamHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, QueryResultHandler<HistoricVariableInstance> resultHandler);
+
   HistoricVariableInstanceEntity findHistoricVariableInstanceByVariableInstanceId(String variableInstanceId);
   
   List<HistoricVariableInstance> findHistoricVariableInstancesByNativeQuery(Map<String, Object> parameterMap, int firstResult, int maxResults);
@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity.data;
 
+import java.util.Date;
 import java.util.List;
 
 import org.activiti.engine.impl.JobQueryImpl;
@@ -26,6 +27,16 @@ public interface JobDataManager extends DataManager<JobEntity> {
 
   List<JobEntity> findJobsToExecute(Page page);
 
+  List<JobEntity> findJobsToExecuteSkipLocked(Page page);
+
+  List<String> findJobIdsToExecute(Page page);
+
+  List<JobEntity> findJobsToExecuteWithoutCache(Page page);
+
+  int updateJobLockForAcquisition(List<String> jobIds, String lockOwner, Date lockExpirationTime);
+
+  List<JobEntity> findJobsByIdsAndLockOwner(List<String> jobIds, String lockOwner);
+
   List<JobEntity> findJobsByExecutionId(final String executionId);
 
   List<JobEntity> findJobsByProcessDefinitionId(final String processDefinitionId);
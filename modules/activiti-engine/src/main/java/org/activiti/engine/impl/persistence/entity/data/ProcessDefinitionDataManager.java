@@ -27,6 +27,10 @@ public interface ProcessDefinitionDataManager extends DataManager<ProcessDefinit
 
   ProcessDefinitionEntity findLatestProcessDefinitionByKey(String processDefinitionKey);
 
+  List<String> findProcessDefinitionIds();
+
+  Map<String, Object> findProcessDefinitionChangeMarker();
+
   ProcessDefinitionEntity findLatestProcessDefinitionByKeyAndTenantId(String processDefinitionKey, String tenantId);
 
   void deleteProcessDefinitionsByDeploymentId(String deploymentId);
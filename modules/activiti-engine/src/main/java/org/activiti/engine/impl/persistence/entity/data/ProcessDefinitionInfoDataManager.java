@@ -12,6 +12,8 @@
  */
 package org.activiti.engine.impl.persistence.entity.data;
 
+import java.util.Map;
+
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntity;
 
 /**
@@ -20,4 +22,8 @@ import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntity;
 public interface ProcessDefinitionInfoDataManager extends DataManager<ProcessDefinitionInfoEntity> {
 
   ProcessDefinitionInfoEntity findProcessDefinitionInfoByProcessDefinitionId(String processDefinitionId);
+
+  Map<String, Integer> findProcessDefinitionInfoRevisions();
+
+  Map<String, Object> findProcessDefinitionInfoChangeMarker();
 }
@@ -22,5 +22,7 @@ import org.activiti.engine.impl.persistence.entity.PropertyEntity;
 public interface PropertyDataManager extends DataManager<PropertyEntity> {
   
   List<PropertyEntity> findAll();
+  
+  List<PropertyEntity> findByNamePrefix(String namePrefix);
 
 }
@@ -12,6 +12,7 @@
  */
 package org.activiti.engine.impl.persistence.entity.data;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,8 @@ public interface TaskDataManager extends DataManager<TaskEntity> {
 
   List<TaskEntity> findTasksByProcessInstanceId(String processInstanceId);
 
+  List<TaskEntity> findTasksByIds(Collection<String> taskIds);
+
   List<Task> findTasksByQueryCriteria(TaskQueryImpl taskQuery);
   
   List<Task> findTasksAndVariablesByQueryCriteria(TaskQueryImpl taskQuery);
@@ -14,7 +14,9 @@ package org.activiti.engine.impl.persistence.entity.data.impl;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.activiti.engine.impl.DeadLetterJobGroupImpl;
 import org.activiti.engine.impl.DeadLetterJobQueryImpl;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
@@ -76,5 +78,33 @@ public class MybatisDeadLetterJobDataManager extends AbstractDataManager<DeadLet
     params.put("tenantId", newTenantId);
     getDbSqlSession().update("updateDeadLetterJobTenantIdForDeployment", params);
   }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<DeadLetterJobGroupImpl> findJobGroupsByExceptionMessage() {
+    return getDbSqlSession().selectList("selectDeadLetterJobGroups");
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<DeadLetterJobEntity> findJobsByGroup(String processDefinitionId, String activityId, String lastJobId, int maxResults) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("processDefinitionId", processDefinitionId);
+    params.put("activityId", activityId);
+    params.put("lastJobId", lastJobId);
+    return getDbSqlSession().selectList("selectDeadLetterJobsByGroup", params, 0, maxResults);
+  }
+  
+  @Override
+  public void moveJobsToExecutableJobs(List<String> jobIds, int retries) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("jobIds", jobIds);
+    params.put("retries", retries);
+    
+    // The executable jobs are inserted right away, the dead letter jobs are deleted when flushing (in the same transaction).
+    // Until then both rows exist, which isn't visible outside of this transaction: the ids are the same, but in different tables.
+    getDbSqlSession().insert("insertJobsFromDeadLetterJobs", params);
+    getDbSqlSession().delete("bulkDeleteDeadLetterJobsByIds", jobIds, DeadLetterJobEntityImpl.class);
+  }
 
 }
@@ -20,6 +20,7 @@ import java.util.Map;
 import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.impl.EventSubscriptionQueryImpl;
 import org.activiti.engine.impl.Page;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.CompensateEventSubscriptionEntity;
@@ -185,6 +186,9 @@ public class MybatisEventSubscriptionDataManager extends AbstractDataManager<Eve
 
   @Override
   public List<EventSubscriptionEntity> findEventSubscriptionsByExecution(final String executionId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.EVENT_SUBSCRIPTIONS, executionId)) {
+      return getListFromCache(eventSubscritionsByExecutionIdMatcher, executionId);
+    }
     return getList("selectEventSubscriptionsByExecution", executionId, eventSubscritionsByExecutionIdMatcher, true);
   }
 
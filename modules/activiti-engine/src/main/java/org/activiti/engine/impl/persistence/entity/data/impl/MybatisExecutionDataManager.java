@@ -12,23 +12,32 @@
  */
 package org.activiti.engine.impl.persistence.entity.data.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.ActivitiOptimisticLockingException;
 import org.activiti.engine.impl.ExecutionQueryImpl;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.ProcessInstanceQueryImpl;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.PerformanceSettings;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.SingleCachedEntityMatcher;
+import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntity;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntityImpl;
+import org.activiti.engine.impl.persistence.entity.IdentityLinkEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+import org.activiti.engine.impl.persistence.entity.VariableInstanceEntity;
 import org.activiti.engine.impl.persistence.entity.data.AbstractDataManager;
 import org.activiti.engine.impl.persistence.entity.data.ExecutionDataManager;
 import org.activiti.engine.impl.persistence.entity.data.impl.cachematcher.ExecutionByProcessInstanceMatcher;
@@ -111,9 +120,10 @@ public class MybatisExecutionDataManager extends AbstractDataManager<ExecutionEn
   
   protected ExecutionEntity findByIdAndFetchExecutionTree(final String executionId) {
     
-    // If it's in the cache, the tree must have been fetched before
+    // An execution can be in the cache without its tree having been fetched (e.g. when it was returned by a query),
+    // so the fetched trees are tracked explicitly
     ExecutionEntity cachedEntity = getEntityCache().findInCache(getManagedEntityClass(), executionId);
-    if (cachedEntity != null) {
+    if (cachedEntity != null && isExecutionTreeFetched(cachedEntity)) {
       return cachedEntity;
     }
     
@@ -121,12 +131,122 @@ public class MybatisExecutionDataManager extends AbstractDataManager<ExecutionEn
     List<ExecutionEntity> executionEntities = getList("selectExecutionsWithSameRootProcessInstanceId", executionId, 
         executionsWithSameRootProcessInstanceIdMatcher, true);
     
+    if (!executionEntities.isEmpty()) {
+      if (!performanceSettings.getExecutionTreePrefetchCollections().isEmpty()) {
+        prefetchExecutionTreeCollections(executionEntities);
+      }
+      getPrefetchedExecutionTrees().add(executionEntities.get(0).getRootProcessInstanceId());
+    }
+    
     for (ExecutionEntity executionEntity : executionEntities) {
       if (executionId.equals(executionEntity.getId())) {
         return executionEntity;
       }
     }
-    return null;
+    return cachedEntity;
+  }
+  
+  /**
+   * Returns true when the tree of the given cached execution was fetched in the current command context,
+   * or when its root process instance was created in it (nothing of it can be in the database then).
+   */
+  protected boolean isExecutionTreeFetched(ExecutionEntity cachedExecution) {
+    String rootProcessInstanceId = cachedExecution.getRootProcessInstanceId();
+    if (rootProcessInstanceId == null) {
+      return getDbSqlSession().isEntityInserted(cachedExecution);
+    }
+    
+    Set<String> prefetchedExecutionTrees = getPrefetchedExecutionTrees();
+    if (prefetchedExecutionTrees.contains(rootProcessInstanceId)) {
+      return true;
+    }
+    
+    ExecutionEntity rootProcessInstance = getEntityCache().findInCache(getManagedEntityClass(), rootProcessInstanceId);
+    if (rootProcessInstance != null && getDbSqlSession().isEntityInserted(rootProcessInstance)) {
+      prefetchedExecutionTrees.add(rootProcessInstanceId);
+      return true;
+    }
+    return false;
+  }
+  
+  /**
+   * Fetches the configured collections for all executions of the tree with one query per collection type 
+   * (storing the entities in the cache) and initializes the collections on the executions with them.
+   */
+  @SuppressWarnings("unchecked")
+  protected void prefetchExecutionTreeCollections(List<ExecutionEntity> executionEntities) {
+    Set<ExecutionTreePrefetchCollection> prefetchCollections = performanceSettings.getExecutionTreePrefetchCollections();
+    String rootProcessInstanceId = executionEntities.get(0).getRootProcessInstanceId();
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.VARIABLES)) {
+      Map<String, List<VariableInstanceEntity>> variablesByExecution = new HashMap<String, List<VariableInstanceEntity>>();
+      for (VariableInstanceEntity variable : (List<VariableInstanceEntity>) getDbSqlSession().selectList("selectVariablesByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(variablesByExecution, variable.getExecutionId()).add(variable);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeVariableInstances(getOrCreateList(variablesByExecution, executionEntity.getId()));
+      }
+    }
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.TASKS)) {
+      Map<String, List<TaskEntity>> tasksByExecution = new HashMap<String, List<TaskEntity>>();
+      for (TaskEntity task : (List<TaskEntity>) getDbSqlSession().selectList("selectTasksByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(tasksByExecution, task.getExecutionId()).add(task);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeTasks(getOrCreateList(tasksByExecution, executionEntity.getId()));
+      }
+    }
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.JOBS)) {
+      Map<String, List<JobEntity>> jobsByExecution = new HashMap<String, List<JobEntity>>();
+      for (JobEntity job : (List<JobEntity>) getDbSqlSession().selectList("selectJobsByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(jobsByExecution, job.getExecutionId()).add(job);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeJobs(getOrCreateList(jobsByExecution, executionEntity.getId()));
+      }
+    }
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.TIMER_JOBS)) {
+      Map<String, List<TimerJobEntity>> timerJobsByExecution = new HashMap<String, List<TimerJobEntity>>();
+      for (TimerJobEntity timerJob : (List<TimerJobEntity>) getDbSqlSession().selectList("selectTimerJobsByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(timerJobsByExecution, timerJob.getExecutionId()).add(timerJob);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeTimerJobs(getOrCreateList(timerJobsByExecution, executionEntity.getId()));
+      }
+    }
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.EVENT_SUBSCRIPTIONS)) {
+      Map<String, List<EventSubscriptionEntity>> eventSubscriptionsByExecution = new HashMap<String, List<EventSubscriptionEntity>>();
+      for (EventSubscriptionEntity eventSubscription : (List<EventSubscriptionEntity>) getDbSqlSession().selectList("selectEventSubscriptionsByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(eventSubscriptionsByExecution, eventSubscription.getExecutionId()).add(eventSubscription);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeEventSubscriptions(getOrCreateList(eventSubscriptionsByExecution, executionEntity.getId()));
+      }
+    }
+    
+    if (prefetchCollections.contains(ExecutionTreePrefetchCollection.IDENTITY_LINKS)) {
+      // Identity links are stored on the process instance, not on the execution
+      Map<String, List<IdentityLinkEntity>> identityLinksByProcessInstance = new HashMap<String, List<IdentityLinkEntity>>();
+      for (IdentityLinkEntity identityLink : (List<IdentityLinkEntity>) getDbSqlSession().selectList("selectIdentityLinksByExecutionTree", rootProcessInstanceId)) {
+        getOrCreateList(identityLinksByProcessInstance, identityLink.getProcessInstanceId()).add(identityLink);
+      }
+      for (ExecutionEntity executionEntity : executionEntities) {
+        ((ExecutionEntityImpl) executionEntity).initializeIdentityLinks(getOrCreateList(identityLinksByProcessInstance, executionEntity.getId()));
+      }
+    }
+  }
+  
+  protected static <T> List<T> getOrCreateList(Map<String, List<T>> map, String key) {
+    List<T> list = map.get(key);
+    if (list == null) {
+      list = new ArrayList<T>();
+      map.put(key, list);
+    }
+    return list;
   }
   
   @Override
@@ -195,6 +315,11 @@ public class MybatisExecutionDataManager extends AbstractDataManager<ExecutionEn
     }
   }
   
+  @Override
+  public List<ExecutionEntity> findExecutionsByProcessInstanceIds(Collection<String> processInstanceIds) {
+    return getDbSqlSession().selectList("selectExecutionsByProcessInstanceIds", processInstanceIds);
+  }
+  
   @Override
   public Collection<ExecutionEntity> findInactiveExecutionsByProcessInstanceId(final String processInstanceId) {
     HashMap<String, Object> params = new HashMap<String, Object>(2);
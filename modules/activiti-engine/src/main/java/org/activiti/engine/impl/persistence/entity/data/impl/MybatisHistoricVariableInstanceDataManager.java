@@ -14,6 +14,7 @@ package org.activiti.engine.impl.persistence.entity.data.impl;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.history.HistoricVariableInstance;
 import org.activiti.engine.impl.HistoricVariableInstanceQueryImpl;
@@ -26,6 +27,7 @@ import org.activiti.engine.impl.persistence.entity.data.AbstractDataManager;
 import org.activiti.engine.impl.persistence.entity.data.HistoricVariableInstanceDataManager;
 import org.activiti.engine.impl.persistence.entity.data.impl.cachematcher.HistoricVariableInstanceByProcInstMatcher;
 import org.activiti.engine.impl.persistence.entity.data.impl.cachematcher.HistoricVariableInstanceByTaskIdMatcher;
+import org.activiti.engine.query.QueryResultHandler;
 
 /**
  * @author Joram Barrez
@@ -64,6 +66,18 @@ public class MybatisHistoricVariableInstanceDataManager extends AbstractDataMana
   public List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskId(final String taskId) {
     return getList("selectHistoricVariableInstanceByTaskId", taskId, historicVariableInstanceByTaskIdMatcher, true);
   }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByTaskIds(Set<String> taskIds) {
+    return getDbSqlSession().selectList("selectHistoricVariableInstancesByTaskIds", taskIds);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<HistoricVariableInstanceEntity> findHistoricVariableInstancesByExecutionIds(Set<String> executionIds) {
+    return getDbSqlSession().selectList("selectHistoricVariableInstancesByExecutionIds", executionIds);
+  }
   
   @Override
   public long findHistoricVariableInstanceCountByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery) {
@@ -76,6 +90,11 @@ public class MybatisHistoricVariableInstanceDataManager extends AbstractDataMana
     return getDbSqlSession().selectList("selectHistoricVariableInstanceByQueryCriteria", historicProcessVariableQuery, page);
   }
 
+  @Override
+  public void streamHistoricVariableInstancesByQueryCriteria(HistoricVariableInstanceQueryImpl historicProcessVariableQuery, QueryResultHandler<HistoricVariableInstance> resultHandler) {
+    getDbSqlSession().selectForEach("selectHistoricVariableInstanceByQueryCriteria", historicProcessVariableQuery, resultHandler);
+  }
+
   @Override
   public HistoricVariableInstanceEntity findHistoricVariableInstanceByVariableInstanceId(String variableInstanceId) {
     return (HistoricVariableInstanceEntity) getDbSqlSession().selectOne("selectHistoricVariableInstanceByVariableInstanceId", variableInstanceId);
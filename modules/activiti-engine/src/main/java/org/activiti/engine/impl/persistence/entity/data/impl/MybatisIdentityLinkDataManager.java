@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.IdentityLinkEntity;
@@ -54,6 +55,9 @@ public class MybatisIdentityLinkDataManager extends AbstractDataManager<Identity
   @Override
   @SuppressWarnings("unchecked")
   public List<IdentityLinkEntity> findIdentityLinksByProcessInstanceId(String processInstanceId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.IDENTITY_LINKS, processInstanceId)) {
+      return getListFromCache(identityLinkByProcessInstanceMatcher, processInstanceId);
+    }
     return getList("selectIdentityLinksByProcessInstance", processInstanceId, identityLinkByProcessInstanceMatcher, true);
   }
 
@@ -19,6 +19,7 @@ import java.util.Map;
 
 import org.activiti.engine.impl.JobQueryImpl;
 import org.activiti.engine.impl.Page;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
@@ -55,9 +56,52 @@ public class MybatisJobDataManager extends AbstractDataManager<JobEntity> implem
   public List<JobEntity> findJobsToExecute(Page page) {
     return getDbSqlSession().selectList("selectJobsToExecute", null, page);
   }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findJobsToExecuteSkipLocked(Page page) {
+    // Determined from the database type and version at startup, see ProcessEngineConfigurationImpl#initSkipLockedSupported()
+    if (!getDbSqlSession().getDbSqlSessionFactory().isSkipLockedSupported()) {
+      return findJobsToExecute(page);
+    }
+    return getDbSqlSession().selectList("selectJobsToExecuteSkipLocked", null, page);
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> findJobIdsToExecute(Page page) {
+    return getDbSqlSession().selectList("selectJobIdsToExecute", null, page);
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findJobsToExecuteWithoutCache(Page page) {
+    return getDbSqlSession().selectList("selectJobsToExecute", null, page, false);
+  }
+  
+  @Override
+  public int updateJobLockForAcquisition(List<String> jobIds, String lockOwner, Date lockExpirationTime) {
+    Map<String, Object> params = new HashMap<String, Object>(3);
+    params.put("jobIds", jobIds);
+    params.put("lockOwner", lockOwner);
+    params.put("lockExpirationTime", lockExpirationTime);
+    return getDbSqlSession().update("updateJobLockForAcquisition", params);
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findJobsByIdsAndLockOwner(List<String> jobIds, String lockOwner) {
+    Map<String, Object> params = new HashMap<String, Object>(2);
+    params.put("jobIds", jobIds);
+    params.put("lockOwner", lockOwner);
+    return getDbSqlSession().selectList("selectJobsByIdsAndLockOwner", params);
+  }
 
   @Override
   public List<JobEntity> findJobsByExecutionId(final String executionId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.JOBS, executionId)) {
+      return getListFromCache(jobsByExecutionIdMatcher, executionId);
+    }
     return getList("selectJobsByExecutionId", executionId, jobsByExecutionIdMatcher, true);
   }
 
@@ -50,6 +50,18 @@ public class MybatisProcessDefinitionDataManager extends AbstractDataManager<Pro
     return (ProcessDefinitionEntity) getDbSqlSession().selectOne("selectLatestProcessDefinitionByKey", processDefinitionKey);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> findProcessDefinitionIds() {
+    return getDbSqlSession().selectList("selectProcessDefinitionIds");
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> findProcessDefinitionChangeMarker() {
+    return (Map<String, Object>) getDbSqlSession().selectOne("selectProcessDefinitionChangeMarker", null);
+  }
+
   @Override
   public ProcessDefinitionEntity findLatestProcessDefinitionByKeyAndTenantId(String processDefinitionKey, String tenantId) {
     Map<String, Object> params = new HashMap<String, Object>(2);
@@ -153,7 +165,7 @@ public class MybatisProcessDefinitionDataManager extends AbstractDataManager<Pro
     HashMap<String, Object> params = new HashMap<String, Object>();
     params.put("deploymentId", deploymentId);
     params.put("tenantId", newTenantId);
-    getDbSqlSession().update("updateProcessDefinitionTenantIdForDeploymentId", params);
+    getDbSqlSession().update("updateProcessDefinitionTenantIdForDeploymentId", params, ProcessDefinitionEntityImpl.class);
   }
   
 }
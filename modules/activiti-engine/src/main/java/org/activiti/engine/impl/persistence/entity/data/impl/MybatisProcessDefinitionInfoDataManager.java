@@ -12,6 +12,10 @@
  */
 package org.activiti.engine.impl.persistence.entity.data.impl;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntity;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionInfoEntityImpl;
@@ -41,4 +45,21 @@ public class MybatisProcessDefinitionInfoDataManager extends AbstractDataManager
   public ProcessDefinitionInfoEntity findProcessDefinitionInfoByProcessDefinitionId(String processDefinitionId) {
     return (ProcessDefinitionInfoEntity) getDbSqlSession().selectOne("selectProcessDefinitionInfoByProcessDefinitionId", processDefinitionId);
   }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Integer> findProcessDefinitionInfoRevisions() {
+    List<Map<String, Object>> rows = getDbSqlSession().selectList("selectProcessDefinitionInfoRevisions");
+    Map<String, Integer> revisions = new HashMap<String, Integer>(rows.size());
+    for (Map<String, Object> row : rows) {
+      revisions.put((String) row.get("processDefinitionId"), (Integer) row.get("revision"));
+    }
+    return revisions;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> findProcessDefinitionInfoChangeMarker() {
+    return (Map<String, Object>) getDbSqlSession().selectOne("selectProcessDefinitionInfoChangeMarker", null);
+  }
 }
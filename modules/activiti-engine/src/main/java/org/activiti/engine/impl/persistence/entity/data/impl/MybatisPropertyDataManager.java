@@ -45,4 +45,10 @@ public class MybatisPropertyDataManager extends AbstractDataManager<PropertyEnti
     return getDbSqlSession().selectList("selectProperties");
   }
   
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<PropertyEntity> findByNamePrefix(String namePrefix) {
+    return getDbSqlSession().selectList("selectPropertiesByNamePrefix", namePrefix + "%");
+  }
+  
 }
@@ -12,12 +12,14 @@
  */
 package org.activiti.engine.impl.persistence.entity.data.impl;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.activiti.engine.impl.TaskQueryImpl;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.TaskEntity;
@@ -50,6 +52,9 @@ public class MybatisTaskDataManager extends AbstractDataManager<TaskEntity> impl
   
   @Override
   public List<TaskEntity> findTasksByExecutionId(final String executionId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.TASKS, executionId)) {
+      return getListFromCache(tasksByExecutionIdMatcher, executionId);
+    }
     return getList("selectTasksByExecutionId", executionId, tasksByExecutionIdMatcher, true);
   }
 
@@ -59,6 +64,11 @@ public class MybatisTaskDataManager extends AbstractDataManager<TaskEntity> impl
     return getDbSqlSession().selectList("selectTasksByProcessInstanceId", processInstanceId);
   }
 
+  @Override
+  public List<TaskEntity> findTasksByIds(Collection<String> taskIds) {
+    return getDbSqlSession().selectList("selectTasksByIds", taskIds);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public List<Task> findTasksByQueryCriteria(TaskQueryImpl taskQuery) {
@@ -19,7 +19,9 @@ import java.util.Map;
 
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.TimerJobQueryImpl;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.db.ListQueryParameterObject;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
 import org.activiti.engine.impl.persistence.entity.TimerJobEntityImpl;
@@ -68,6 +70,23 @@ public class MybatisTimerJobDataManager extends AbstractDataManager<TimerJobEnti
     Date now = getClock().getCurrentTime();
     return getDbSqlSession().selectList("selectTimerJobsToExecute", now, page);
   }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<TimerJobEntity> findUnlockedTimerJobsDueBefore(Date dueBefore, Page page) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("dueBefore", dueBefore);
+    params.put("now", getClock().getCurrentTime());
+    
+    // The timer jobs that are due first are fetched first, the others are left for the next query
+    ListQueryParameterObject parameter = new ListQueryParameterObject(params, page.getFirstResult(), page.getMaxResults()) {
+      @Override
+      public String getOrderBy() {
+        return "RES.DUEDATE_ asc, RES.ID_ asc";
+      }
+    };
+    return getDbSqlSession().selectList("selectUnlockedTimerJobsDueBefore", parameter, page);
+  }
   
   @Override
   @SuppressWarnings("unchecked")
@@ -81,6 +100,9 @@ public class MybatisTimerJobDataManager extends AbstractDataManager<TimerJobEnti
 
   @Override
   public List<TimerJobEntity> findJobsByExecutionId(final String executionId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.TIMER_JOBS, executionId)) {
+      return getListFromCache(timerJobsByExecutionIdMatcher, executionId);
+    }
     return getList("selectTimerJobsByExecutionId", executionId, timerJobsByExecutionIdMatcher, true);
   }
   
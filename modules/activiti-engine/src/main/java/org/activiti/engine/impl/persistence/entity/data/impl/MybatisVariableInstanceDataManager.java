@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.CachedEntityMatcher;
 import org.activiti.engine.impl.persistence.entity.VariableInstanceEntity;
@@ -63,6 +64,9 @@ public class MybatisVariableInstanceDataManager extends AbstractDataManager<Vari
   
   @Override
   public List<VariableInstanceEntity> findVariableInstancesByExecutionId(final String executionId) {
+    if (isPrefetchedWithExecutionTree(ExecutionTreePrefetchCollection.VARIABLES, executionId)) {
+      return getListFromCache(variableInstanceEntity, executionId);
+    }
     return getList("selectVariablesByExecutionId", executionId, variableInstanceEntity, true);
   }
   
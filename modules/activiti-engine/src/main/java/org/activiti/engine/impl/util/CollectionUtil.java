@@ -12,8 +12,10 @@
  */
 package org.activiti.engine.impl.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
@@ -67,4 +69,25 @@ public class CollectionUtil {
     return !isEmpty(collection);
   }
 
+  /**
+   * Splits the collection, in iteration order, into lists of at most the given size, e.g. to keep the number of
+   * parameters of an 'in' clause within the limits of the database.
+   */
+  public static <T> List<List<T>> partition(Collection<T> collection, int partitionSize) {
+    if (partitionSize <= 0) {
+      throw new ActivitiIllegalArgumentException("The partition size should be positive: " + partitionSize);
+    }
+
+    List<List<T>> partitions = new ArrayList<List<T>>((collection.size() + partitionSize - 1) / partitionSize);
+    List<T> partition = null;
+    for (T element : collection) {
+      if (partition == null || partition.size() == partitionSize) {
+        partition = new ArrayList<T>(Math.min(partitionSize, collection.size()));
+        partitions.add(partition);
+      }
+      partition.add(element);
+    }
+    return partitions;
+  }
+
 }
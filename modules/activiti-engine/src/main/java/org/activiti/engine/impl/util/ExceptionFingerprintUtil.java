@@ -0,0 +1,43 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Creates fingerprints of exception messages, used to group failed jobs that failed for the same reason.
+ * 
+ * @see org.activiti.engine.runtime.DeadLetterJobGroup
+ */
+public class ExceptionFingerprintUtil {
+
+  public static final String PLACEHOLDER = "?";
+
+  protected static final Pattern QUOTED_VALUE = Pattern.compile("'[^']*'|\"[^\"]*\"");
+  protected static final Pattern WORD_WITH_DIGITS = Pattern.compile("[\\w.:-]*\\d[\\w.:-]*");
+  protected static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  /**
+   * Replaces the quoted values and every word containing a digit (numbers, ids, dates, ...) by a placeholder
+   * and collapses whitespace. Returns an empty string for a null message.
+   */
+  public static String fingerprint(String exceptionMessage) {
+    if (exceptionMessage == null) {
+      return "";
+    }
+    String fingerprint = QUOTED_VALUE.matcher(exceptionMessage).replaceAll(PLACEHOLDER);
+    fingerprint = WORD_WITH_DIGITS.matcher(fingerprint).replaceAll(PLACEHOLDER);
+    return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+  }
+
+}
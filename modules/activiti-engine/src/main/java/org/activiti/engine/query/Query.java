@@ -48,4 +48,14 @@ public interface Query<T extends Query<?, ?>, U extends Object> {
 
   /** Executes the query and get a list of entities as the result. */
   List<U> listPage(int firstResult, int maxResults);
+
+  /**
+   * Executes the query and passes the results one by one to the given handler, instead of returning them as a list.
+   * 
+   * Queries that support streaming (currently the historic process instance and historic variable instance queries)
+   * read their results through a database cursor, so the memory use doesn't depend on the number of results.
+   * Those results are not added to the entity cache: changes made to them are not persisted.
+   * Other queries pass the results of {@link #list()} to the handler.
+   */
+  void forEach(QueryResultHandler<? super U> resultHandler);
 }
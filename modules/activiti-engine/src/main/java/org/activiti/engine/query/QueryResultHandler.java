@@ -0,0 +1,26 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.query;
+
+/**
+ * Receives the results of {@link Query#forEach(QueryResultHandler)}, one at a time.
+ */
+public interface QueryResultHandler<U> {
+
+  /**
+   * Called for every result of the query, in the order of the query.
+   * Exceptions thrown here end the query and are rethrown by {@link Query#forEach(QueryResultHandler)}.
+   */
+  void handleResult(U result);
+
+}
@@ -0,0 +1,46 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.runtime;
+
+/**
+ * Dead letter jobs that failed in the same way: they belong to the same process definition, were created for the same activity
+ * and have the same exception message fingerprint. See {@link org.activiti.engine.ManagementService#getDeadLetterJobGroups()}.
+ * 
+ * The fingerprint is the exception message with the numbers, ids and quoted values replaced by a placeholder,
+ * so messages that only differ in eg. a business key or an order id end up in the same group.
+ */
+public interface DeadLetterJobGroup {
+
+  /**
+   * @return the exception message with its variable parts replaced, or an empty string for jobs without exception message.
+   */
+  String getExceptionFingerprint();
+
+  /**
+   * @return the exception message of one of the jobs of the group, as an example.
+   */
+  String getExceptionMessage();
+
+  String getProcessDefinitionId();
+
+  /**
+   * @return the id of the activity of the execution the jobs belong to, or null for jobs without execution.
+   */
+  String getActivityId();
+
+  /**
+   * @return the number of dead letter jobs in the group when the groups were fetched.
+   */
+  long getJobCount();
+
+}
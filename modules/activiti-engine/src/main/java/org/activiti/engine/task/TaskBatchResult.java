@@ -0,0 +1,45 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.task;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch task operation such as {@link org.activiti.engine.TaskService#completeBatch(java.util.Collection, Map)}.
+ * 
+ * A failing task does not prevent the other tasks of the batch from being handled: every task id passed to the batch
+ * operation is either reported as succeeded or as failed, together with the exception that caused the failure.
+ * 
+ * The tasks are handled in chunks, one transaction per chunk. The tasks handled before a failing task in the same chunk are rolled back 
+ * and handled again, one transaction per task. When {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#isTaskBatchRetryRolledBackTasks()} 
+ * is disabled, they are reported as failed with the exception of the failing task instead, so they can be handled again by the caller.
+ */
+public interface TaskBatchResult {
+
+  /**
+   * @return the ids of the tasks on which the operation was executed successfully, in the order they were passed.
+   */
+  List<String> getSucceededTaskIds();
+
+  /**
+   * @return the ids of the tasks on which the operation failed, mapped to the exception that was thrown for the task.
+   */
+  Map<String, RuntimeException> getFailures();
+
+  /**
+   * @return true if the operation failed for at least one task.
+   */
+  boolean hasFailures();
+
+}
@@ -0,0 +1,100 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.entity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class VariableInstanceMapTest extends TestCase {
+
+  public void testPutGetRemove() {
+    VariableInstanceMap<VariableInstance> map = new VariableInstanceMap<VariableInstance>();
+    VariableInstance a = new TransientVariableInstance("a", 1);
+    VariableInstance b = new TransientVariableInstance("b", 2);
+
+    assertTrue(map.isEmpty());
+    assertNull(map.put("a", a));
+    assertNull(map.put("b", b));
+    assertSame(a, map.put("a", a));
+    assertEquals(2, map.size());
+    assertSame(a, map.get("a"));
+    assertSame(b, map.get("b"));
+    assertNull(map.get("c"));
+    assertNull(map.get(null));
+    assertFalse(map.containsKey("c"));
+
+    assertSame(a, map.remove("a"));
+    assertNull(map.remove("a"));
+    assertEquals(1, map.size());
+    assertSame(b, map.get("b"));
+    assertEquals(map.keySet().iterator().next(), "b");
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get("b"));
+  }
+
+  public void testSameAsHashMap() {
+    Random random = new Random(42L);
+    VariableInstanceMap<VariableInstance> map = new VariableInstanceMap<VariableInstance>(3);
+    Map<String, VariableInstance> expected = new HashMap<String, VariableInstance>();
+
+    for (int i = 0; i < 20000; i++) {
+      // Few distinct names, so that removals often hit probe sequences of colliding names
+      String name = "var" + random.nextInt(200);
+      if (random.nextInt(3) == 0) {
+        assertSame(expected.remove(name), map.remove(name));
+      } else {
+        VariableInstance variable = new TransientVariableInstance(name, i);
+        assertSame(expected.put(name, variable), map.put(name, variable));
+      }
+      assertSame(expected.get(name), map.get(name));
+    }
+
+    assertEquals(expected, map);
+    assertEquals(expected.keySet(), map.keySet());
+    assertEquals(expected.size(), map.values().size());
+    for (String name : expected.keySet()) {
+      assertSame(expected.get(name), map.get(name));
+    }
+  }
+
+  public void testIteratorRemove() {
+    VariableInstanceMap<VariableInstance> map = new VariableInstanceMap<VariableInstance>();
+    for (int i = 0; i < 10; i++) {
+      map.put("var" + i, new TransientVariableInstance("var" + i, i));
+    }
+
+    int visited = 0;
+    Iterator<Map.Entry<String, VariableInstance>> iterator = map.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, VariableInstance> entry = iterator.next();
+      assertEquals(entry.getKey(), entry.getValue().getName());
+      if ((Integer) entry.getValue().getValue() % 2 == 0) {
+        iterator.remove();
+      }
+      visited++;
+    }
+
+    assertEquals(10, visited);
+    assertEquals(5, map.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i % 2 == 1, map.containsKey("var" + i));
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.api.event;
+
+import org.activiti.engine.delegate.event.ActivitiEvent;
+import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
+import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
+import org.activiti.engine.delegate.event.impl.ActivitiEventImpl;
+import org.activiti.engine.delegate.event.impl.ActivitiEventSupport;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.CommentEntityImpl;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+import org.activiti.engine.impl.persistence.entity.TaskEntityImpl;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class ActivitiEventSupportTest extends PluggableActivitiTestCase {
+
+  protected ActivitiEventDispatcherImpl dispatcher;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dispatcher = new ActivitiEventDispatcherImpl();
+  }
+
+  public void testHasEventListeners() {
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+
+    TestActivitiEventListener typedListener = new TestActivitiEventListener();
+    dispatcher.addEventListener(typedListener, ActivitiEventType.TASK_CREATED, ActivitiEventType.TASK_COMPLETED);
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.TASK_COMPLETED));
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_CREATED));
+
+    TestActivitiEventListener listener = new TestActivitiEventListener();
+    dispatcher.addEventListener(listener);
+    for (ActivitiEventType type : ActivitiEventType.values()) {
+      assertTrue(dispatcher.hasEventListeners(type));
+    }
+
+    dispatcher.setEnabled(false);
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+    dispatcher.setEnabled(true);
+
+    dispatcher.removeEventListener(listener);
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_CREATED));
+
+    dispatcher.removeEventListener(typedListener);
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+  }
+
+  public void testDispatchOrder() {
+    final StringBuilder calls = new StringBuilder();
+    dispatcher.addEventListener(new TestActivitiEventListener() {
+      public void onEvent(ActivitiEvent event) {
+        calls.append("typed ");
+      }
+    }, ActivitiEventType.CUSTOM);
+    dispatcher.addEventListener(new TestActivitiEventListener() {
+      public void onEvent(ActivitiEvent event) {
+        calls.append("all ");
+      }
+    });
+
+    // Listeners for all events are notified first, like before
+    dispatcher.dispatchEvent(new ActivitiEventImpl(ActivitiEventType.CUSTOM));
+    assertEquals("all typed ", calls.toString());
+
+    calls.setLength(0);
+    dispatcher.dispatchEvent(new ActivitiEventImpl(ActivitiEventType.ENGINE_CREATED));
+    assertEquals("all ", calls.toString());
+  }
+
+  public void testProcessDefinitionListenersAreKnownByDispatcher() {
+    ActivitiEventSupport processDefinitionEventSupport = dispatcher.createProcessDefinitionEventSupport();
+    processDefinitionEventSupport.addEventListener(new TestActivitiEventListener(), ActivitiEventType.TASK_ASSIGNED);
+    assertTrue(processDefinitionEventSupport.hasListeners(ActivitiEventType.TASK_ASSIGNED));
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.TASK_ASSIGNED));
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+
+    processDefinitionEventSupport.addEventListener(new TestActivitiEventListener());
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.TASK_CREATED));
+  }
+
+  public void testEntityOfUnparsedProcessDefinition() {
+    TaskEntityImpl task = new TaskEntityImpl();
+    task.setProcessDefinitionId("unparsed:1:1");
+
+    // Its process definition could have listeners for any type
+    assertTrue(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_UPDATED, task));
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_UPDATED, new CommentEntityImpl()));
+
+    dispatcher.addParsedProcessDefinition("unparsed:1:1");
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_UPDATED, task));
+
+    dispatcher.setEnabled(false);
+    dispatcher.addParsedProcessDefinition("other:1:1");
+    task.setProcessDefinitionId("other:1:2");
+    assertFalse(dispatcher.hasEventListeners(ActivitiEventType.ENTITY_UPDATED, task));
+  }
+
+  @Deployment
+  public void testProcessDefinitionListenerAfterReboot() {
+    runtimeService.startProcessInstanceByKey("processDefinitionListenerAfterReboot");
+    final String taskId = taskService.createTaskQuery().singleResult().getId();
+    // Most task operations resolve the process definition first, this one doesn't
+    Command<Void> updateTask = new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        TaskEntity task = commandContext.getTaskEntityManager().findById(taskId);
+        task.setDescription("updated");
+        commandContext.getTaskEntityManager().update(task);
+        return null;
+      }
+    };
+
+    // A rebooted engine didn't parse the process definition yet
+    ActivitiEventDispatcher eventDispatcher = processEngineConfiguration.getEventDispatcher();
+    processEngineConfiguration.setEventDispatcher(new ActivitiEventDispatcherImpl());
+    processEngineConfiguration.getProcessDefinitionCache().clear();
+    StaticTestActivitiEventListener.clearEventsReceived();
+    try {
+      managementService.executeCommand(updateTask);
+      assertEquals(1, StaticTestActivitiEventListener.getEventsReceived().size());
+      assertEquals(ActivitiEventType.ENTITY_UPDATED, StaticTestActivitiEventListener.getEventsReceived().get(0).getType());
+
+      managementService.executeCommand(updateTask);
+      assertEquals(2, StaticTestActivitiEventListener.getEventsReceived().size());
+
+    } finally {
+      processEngineConfiguration.setEventDispatcher(eventDispatcher);
+      processEngineConfiguration.getProcessDefinitionCache().clear();
+      StaticTestActivitiEventListener.clearEventsReceived();
+    }
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testEntityEventsOnlyForListenedTypes() {
+    TestActivitiEventListener listener = new TestActivitiEventListener();
+    processEngineConfiguration.getEventDispatcher().addEventListener(listener, ActivitiEventType.TASK_CREATED);
+    try {
+      runtimeService.startProcessInstanceByKey("oneTaskProcess");
+      assertEquals(1, listener.getEventsReceived().size());
+      assertEquals(ActivitiEventType.TASK_CREATED, listener.getEventsReceived().get(0).getType());
+
+      Task task = taskService.createTaskQuery().singleResult();
+      taskService.complete(task.getId());
+      assertEquals(1, listener.getEventsReceived().size());
+
+    } finally {
+      processEngineConfiguration.getEventDispatcher().removeEventListener(listener);
+    }
+  }
+
+}
@@ -0,0 +1,192 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.api.mgmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.JavaDelegate;
+import org.activiti.engine.delegate.event.ActivitiEntityEvent;
+import org.activiti.engine.delegate.event.ActivitiEvent;
+import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.impl.persistence.entity.DeadLetterJobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.impl.util.ExceptionFingerprintUtil;
+import org.activiti.engine.runtime.DeadLetterJobGroup;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.test.Deployment;
+import org.activiti.engine.test.api.event.TestActivitiEntityEventListener;
+
+public class DeadLetterJobGroupTest extends PluggableActivitiTestCase {
+
+  public static class SendOrderDelegate implements JavaDelegate {
+
+    @Override
+    public void execute(DelegateExecution execution) {
+      Boolean fail = (Boolean) execution.getVariable("fail");
+      if (fail != null && fail) {
+        throw new ActivitiException((String) execution.getVariable("errorPrefix") + " for order " + execution.getVariable("orderId"));
+      }
+    }
+
+  }
+
+  protected int originalBatchSize;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    originalBatchSize = processEngineConfiguration.getDeadLetterJobMoveBatchSize();
+    processEngineConfiguration.setDeadLetterJobMoveBatchSize(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setDeadLetterJobMoveBatchSize(originalBatchSize);
+    super.tearDown();
+  }
+
+  public void testExceptionFingerprint() {
+    assertEquals("", ExceptionFingerprintUtil.fingerprint(null));
+    assertEquals("Connection refused for order ?", ExceptionFingerprintUtil.fingerprint("Connection refused for order 12345"));
+    assertEquals(ExceptionFingerprintUtil.fingerprint("Unknown customer 'Kermit' (id abc-123)"), 
+        ExceptionFingerprintUtil.fingerprint("Unknown customer  'Gonzo' (id abc-456)"));
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/mgmt/DeadLetterJobGroupTest.bpmn20.xml")
+  public void testGroupAndMoveDeadLetterJobs() {
+    for (int i = 0; i < 5; i++) {
+      startFailingInstance("Connection refused", i);
+    }
+    for (int i = 0; i < 2; i++) {
+      startFailingInstance("Invalid address", 100 + i);
+    }
+    assertEquals(7, managementService.createDeadLetterJobQuery().count());
+
+    List<DeadLetterJobGroup> groups = managementService.getDeadLetterJobGroups();
+    assertEquals(2, groups.size());
+
+    DeadLetterJobGroup connectionGroup = groups.get(0);
+    assertEquals(5, connectionGroup.getJobCount());
+    assertEquals("Connection refused for order ?", connectionGroup.getExceptionFingerprint());
+    assertEquals("sendOrderTask", connectionGroup.getActivityId());
+    assertEquals(repositoryService.createProcessDefinitionQuery().processDefinitionKey("sendOrder").singleResult().getId(), 
+        connectionGroup.getProcessDefinitionId());
+    assertTrue(connectionGroup.getExceptionMessage().startsWith("Connection refused for order "));
+
+    DeadLetterJobGroup addressGroup = groups.get(1);
+    assertEquals(2, addressGroup.getJobCount());
+    assertEquals("Invalid address for order ?", addressGroup.getExceptionFingerprint());
+
+    // The connection is back: the jobs of the group are moved in batches of 2
+    List<String> deadLetterJobIds = new ArrayList<String>();
+    for (Job job : managementService.createDeadLetterJobQuery().list()) {
+      if (job.getExceptionMessage().startsWith("Connection refused")) {
+        deadLetterJobIds.add(job.getId());
+      }
+    }
+    
+    assertEquals(5, managementService.moveDeadLetterJobGroupToExecutableJobs(connectionGroup, 3));
+    assertEquals(2, managementService.createDeadLetterJobQuery().count());
+    
+    List<Job> jobs = managementService.createJobQuery().list();
+    assertEquals(5, jobs.size());
+    List<String> jobIds = new ArrayList<String>();
+    for (Job job : jobs) {
+      assertEquals(3, job.getRetries());
+      assertTrue(job.getExceptionMessage().startsWith("Connection refused"));
+      assertNotNull(managementService.getJobExceptionStacktrace(job.getId()));
+      jobIds.add(job.getId());
+    }
+    Collections.sort(deadLetterJobIds);
+    Collections.sort(jobIds);
+    assertEquals(deadLetterJobIds, jobIds);
+
+    groups = managementService.getDeadLetterJobGroups();
+    assertEquals(1, groups.size());
+    assertEquals("Invalid address for order ?", groups.get(0).getExceptionFingerprint());
+
+    // The moved jobs can be executed again
+    for (Job job : jobs) {
+      runtimeService.setVariable(job.getProcessInstanceId(), "fail", false);
+      managementService.executeJob(job.getId());
+    }
+    assertEquals(2, runtimeService.createProcessInstanceQuery().count());
+
+    // Moving a group without jobs left
+    assertEquals(0, managementService.moveDeadLetterJobGroupToExecutableJobs(connectionGroup, 3));
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/mgmt/DeadLetterJobGroupTest.bpmn20.xml")
+  public void testMoveDeadLetterJobsDispatchesEntityEvents() {
+    for (int i = 0; i < 3; i++) {
+      startFailingInstance("Connection refused", i);
+    }
+    List<String> deadLetterJobIds = new ArrayList<String>();
+    for (Job job : managementService.createDeadLetterJobQuery().list()) {
+      deadLetterJobIds.add(job.getId());
+    }
+
+    TestActivitiEntityEventListener listener = new TestActivitiEntityEventListener(Job.class);
+    processEngineConfiguration.getEventDispatcher().addEventListener(listener, ActivitiEventType.ENTITY_CREATED, ActivitiEventType.ENTITY_DELETED);
+    try {
+      assertEquals(3, managementService.moveDeadLetterJobGroupToExecutableJobs(managementService.getDeadLetterJobGroups().get(0), 3));
+
+      List<String> createdJobIds = new ArrayList<String>();
+      List<String> deletedJobIds = new ArrayList<String>();
+      for (ActivitiEvent event : listener.getEventsReceived()) {
+        Object entity = ((ActivitiEntityEvent) event).getEntity();
+        if (event.getType() == ActivitiEventType.ENTITY_CREATED) {
+          assertTrue(entity instanceof JobEntity);
+          assertEquals(3, ((JobEntity) entity).getRetries());
+          createdJobIds.add(((JobEntity) entity).getId());
+        } else {
+          assertTrue(entity instanceof DeadLetterJobEntity);
+          deletedJobIds.add(((DeadLetterJobEntity) entity).getId());
+        }
+      }
+      Collections.sort(deadLetterJobIds);
+      Collections.sort(createdJobIds);
+      Collections.sort(deletedJobIds);
+      assertEquals(deadLetterJobIds, createdJobIds);
+      assertEquals(deadLetterJobIds, deletedJobIds);
+
+    } finally {
+      processEngineConfiguration.getEventDispatcher().removeEventListener(listener);
+    }
+  }
+
+  protected void startFailingInstance(String errorPrefix, int orderId) {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("fail", true);
+    variables.put("errorPrefix", errorPrefix);
+    variables.put("orderId", orderId);
+    String processInstanceId = runtimeService.startProcessInstanceByKey("sendOrder", variables).getId();
+
+    Job job = managementService.createJobQuery().processInstanceId(processInstanceId).singleResult();
+    managementService.setJobRetries(job.getId(), 1);
+    try {
+      managementService.executeJob(job.getId());
+      fail();
+    } catch (ActivitiException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,99 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.api.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.ActivitiObjectNotFoundException;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.runtime.ProcessInstanceBuilder;
+import org.activiti.engine.test.Deployment;
+
+public class StartProcessInstancesBatchTest extends PluggableActivitiTestCase {
+
+  protected int originalBatchSizeProcessInstances;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    originalBatchSizeProcessInstances = processEngineConfiguration.getBatchSizeProcessInstances();
+    processEngineConfiguration.setBatchSizeProcessInstances(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setBatchSizeProcessInstances(originalBatchSizeProcessInstances);
+    super.tearDown();
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testStartProcessInstancesBatch() {
+    List<ProcessInstanceBuilder> builders = new ArrayList<ProcessInstanceBuilder>();
+    for (int i = 0; i < 5; i++) {
+      builders.add(runtimeService.createProcessInstanceBuilder()
+          .processDefinitionKey("oneTaskProcess")
+          .businessKey("order-" + i)
+          .variable("index", i));
+    }
+
+    List<ProcessInstance> processInstances = runtimeService.startProcessInstancesBatch(builders);
+    assertEquals(5, processInstances.size());
+    for (int i = 0; i < 5; i++) {
+      ProcessInstance processInstance = processInstances.get(i);
+      assertEquals("order-" + i, processInstance.getBusinessKey());
+      assertEquals(i, runtimeService.getVariable(processInstance.getId(), "index"));
+      assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+    }
+    assertEquals(5, runtimeService.createProcessInstanceQuery().processDefinitionKey("oneTaskProcess").count());
+  }
+
+  @Deployment(resources = {
+      "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml",
+      "org/activiti/engine/test/bpmn/event/message/MessageStartEventTest.testSingleMessageStartEvent.bpmn20.xml" })
+  public void testStartProcessInstancesBatchByIdAndMessage() {
+    String processDefinitionId = repositoryService.createProcessDefinitionQuery().processDefinitionKey("oneTaskProcess").singleResult().getId();
+
+    List<ProcessInstanceBuilder> builders = new ArrayList<ProcessInstanceBuilder>();
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionId(processDefinitionId));
+    builders.add(runtimeService.createProcessInstanceBuilder().messageName("newInvoiceMessage"));
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionId(processDefinitionId));
+
+    List<ProcessInstance> processInstances = runtimeService.startProcessInstancesBatch(builders);
+    assertEquals(3, processInstances.size());
+    assertEquals(processDefinitionId, processInstances.get(0).getProcessDefinitionId());
+    assertEquals("singleMessageStartEvent", processInstances.get(1).getProcessDefinitionKey());
+    assertEquals(processDefinitionId, processInstances.get(2).getProcessDefinitionId());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testFailingChunkIsRolledBack() {
+    List<ProcessInstanceBuilder> builders = new ArrayList<ProcessInstanceBuilder>();
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionKey("oneTaskProcess"));
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionKey("oneTaskProcess"));
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionKey("oneTaskProcess"));
+    builders.add(runtimeService.createProcessInstanceBuilder().processDefinitionKey("unexistingProcess"));
+
+    try {
+      runtimeService.startProcessInstancesBatch(builders);
+      fail("ActivitiObjectNotFoundException expected");
+    } catch (ActivitiObjectNotFoundException e) {
+      assertTextPresent("unexistingProcess", e.getMessage());
+    }
+
+    // The first chunk was committed, the second one rolled back
+    assertEquals(2, runtimeService.createProcessInstanceQuery().processDefinitionKey("oneTaskProcess").count());
+  }
+
+}
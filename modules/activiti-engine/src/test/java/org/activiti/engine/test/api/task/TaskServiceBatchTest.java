@@ -0,0 +1,173 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.api.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.activiti.engine.ActivitiObjectNotFoundException;
+import org.activiti.engine.ActivitiTaskAlreadyClaimedException;
+import org.activiti.engine.history.HistoricVariableInstance;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.task.TaskBatchResult;
+import org.activiti.engine.test.Deployment;
+
+public class TaskServiceBatchTest extends PluggableActivitiTestCase {
+
+  protected int originalBatchSizeTasks;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    originalBatchSizeTasks = processEngineConfiguration.getBatchSizeTasks();
+    processEngineConfiguration.setBatchSizeTasks(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setBatchSizeTasks(originalBatchSizeTasks);
+    super.tearDown();
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testCompleteBatch() {
+    List<String> taskIds = startOneTaskProcesses(5);
+
+    TaskBatchResult result = taskService.completeBatch(taskIds, CollectionUtil.singletonMap("approved", (Object) true));
+    assertFalse(result.hasFailures());
+    assertEquals(taskIds, result.getSucceededTaskIds());
+
+    assertEquals(0, taskService.createTaskQuery().count());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+    List<HistoricVariableInstance> variables = historyService.createHistoricVariableInstanceQuery().variableName("approved").list();
+    assertEquals(5, variables.size());
+    for (HistoricVariableInstance variable : variables) {
+      assertEquals(Boolean.TRUE, variable.getValue());
+    }
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testCompleteBatchReportsFailedTasks() {
+    List<String> taskIds = startOneTaskProcesses(4);
+
+    Task suspendedTask = taskService.createTaskQuery().taskId(taskIds.get(1)).singleResult();
+    runtimeService.suspendProcessInstanceById(suspendedTask.getProcessInstanceId());
+
+    List<String> batchTaskIds = new ArrayList<String>(taskIds);
+    batchTaskIds.add(2, "unexisting");
+
+    // The first task is completed in the same chunk as the suspended one: it's rolled back and completed again on its own
+    TaskBatchResult result = taskService.completeBatch(batchTaskIds, null);
+    assertTrue(result.hasFailures());
+    assertEquals(Arrays.asList(taskIds.get(0), taskIds.get(2), taskIds.get(3)), result.getSucceededTaskIds());
+    assertEquals(2, result.getFailures().size());
+    assertTrue(result.getFailures().get("unexisting") instanceof ActivitiObjectNotFoundException);
+    assertNotNull(result.getFailures().get(suspendedTask.getId()));
+
+    List<Task> remainingTasks = taskService.createTaskQuery().list();
+    assertEquals(1, remainingTasks.size());
+    assertEquals(suspendedTask.getId(), remainingTasks.get(0).getId());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testCompleteBatchWithoutRetryingRolledBackTasks() {
+    List<String> taskIds = startOneTaskProcesses(4);
+
+    Task suspendedTask = taskService.createTaskQuery().taskId(taskIds.get(1)).singleResult();
+    runtimeService.suspendProcessInstanceById(suspendedTask.getProcessInstanceId());
+
+    // The first task is rolled back together with the suspended one and reported as failed, not executed again
+    processEngineConfiguration.setTaskBatchRetryRolledBackTasks(false);
+    try {
+      TaskBatchResult result = taskService.completeBatch(taskIds, null);
+      assertEquals(Arrays.asList(taskIds.get(2), taskIds.get(3)), result.getSucceededTaskIds());
+      assertEquals(2, result.getFailures().size());
+      assertNotNull(result.getFailures().get(suspendedTask.getId()));
+      assertSame(result.getFailures().get(suspendedTask.getId()), result.getFailures().get(taskIds.get(0)));
+
+    } finally {
+      processEngineConfiguration.setTaskBatchRetryRolledBackTasks(true);
+    }
+
+    List<String> remainingTaskIds = new ArrayList<String>();
+    for (Task task : taskService.createTaskQuery().list()) {
+      remainingTaskIds.add(task.getId());
+    }
+    assertEquals(2, remainingTaskIds.size());
+    assertTrue(remainingTaskIds.contains(taskIds.get(0)));
+    assertTrue(remainingTaskIds.contains(suspendedTask.getId()));
+  }
+
+  @Deployment
+  public void testCompleteBatchOfJoiningTasks() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("forkJoin");
+    List<String> taskIds = new ArrayList<String>();
+    for (Task task : taskService.createTaskQuery().processInstanceId(processInstance.getId()).orderByTaskName().asc().list()) {
+      taskIds.add(task.getId());
+    }
+    assertEquals(2, taskIds.size());
+
+    TaskBatchResult result = taskService.completeBatch(taskIds, null);
+    assertFalse(result.hasFailures());
+
+    Task afterJoinTask = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    assertEquals("afterJoin", afterJoinTask.getTaskDefinitionKey());
+    assertEquals(2, runtimeService.createExecutionQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testClaimBatch() {
+    List<String> taskIds = startOneTaskProcesses(3);
+    taskService.claim(taskIds.get(2), "fozzie");
+
+    TaskBatchResult result = taskService.claimBatch(taskIds, "kermit");
+    assertEquals(Arrays.asList(taskIds.get(0), taskIds.get(1)), result.getSucceededTaskIds());
+    assertEquals(1, result.getFailures().size());
+    assertTrue(result.getFailures().get(taskIds.get(2)) instanceof ActivitiTaskAlreadyClaimedException);
+
+    assertEquals(2, taskService.createTaskQuery().taskAssignee("kermit").count());
+    assertEquals(1, taskService.createTaskQuery().taskAssignee("fozzie").count());
+
+    result = taskService.claimBatch(taskIds.subList(0, 2), null);
+    assertFalse(result.hasFailures());
+    assertEquals(2, taskService.createTaskQuery().taskUnassigned().count());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testSetVariablesBatch() {
+    List<String> taskIds = startOneTaskProcesses(3);
+
+    TaskBatchResult result = taskService.setVariablesBatch(taskIds, CollectionUtil.singletonMap("reviewer", "kermit"));
+    assertFalse(result.hasFailures());
+    assertEquals(taskIds, result.getSucceededTaskIds());
+
+    for (String taskId : taskIds) {
+      Task task = taskService.createTaskQuery().taskId(taskId).singleResult();
+      assertEquals("kermit", runtimeService.getVariable(task.getProcessInstanceId(), "reviewer"));
+    }
+  }
+
+  protected List<String> startOneTaskProcesses(int count) {
+    List<String> taskIds = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess");
+      taskIds.add(taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult().getId());
+    }
+    return taskIds;
+  }
+
+}
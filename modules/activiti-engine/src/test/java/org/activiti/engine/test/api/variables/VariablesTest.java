@@ -12,6 +12,9 @@ import java.util.Map;
 
 import org.activiti.engine.delegate.DelegateExecution;
 import org.activiti.engine.delegate.JavaDelegate;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.test.PluggableActivitiTestCase;
 import org.activiti.engine.repository.Deployment;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -344,6 +347,77 @@ public class VariablesTest extends PluggableActivitiTestCase {
 
   }
 
+  public void testGetVariablesWithCollectionFromChildExecution() {
+    Task task = taskService.createTaskQuery().singleResult();
+    taskService.complete(task.getId());
+
+    task = taskService.createTaskQuery().taskName("Task 3").singleResult();
+    final String executionId = task.getExecutionId();
+    runtimeService.setVariableLocal(executionId, "stringVar1", "local");
+
+    Map<String, Object> vars = managementService.executeCommand(new Command<Map<String, Object>>() {
+      public Map<String, Object> execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionEntityManager().findById(executionId);
+        return execution.getVariables(Arrays.asList("stringVar1", "intVar1", "unknownVar"));
+      }
+    });
+    assertEquals(3, vars.size());
+    assertEquals("local", vars.get("stringVar1"));
+    assertEquals(100, vars.get("intVar1"));
+    assertTrue(vars.containsKey("unknownVar"));
+    assertNull(vars.get("unknownVar"));
+
+    vars = managementService.executeCommand(new Command<Map<String, Object>>() {
+      public Map<String, Object> execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionEntityManager().findById(executionId);
+        return execution.getVariablesLocal(Arrays.asList("stringVar1", "intVar1"));
+      }
+    });
+    assertEquals("local", vars.get("stringVar1"));
+    assertNull(vars.get("intVar1"));
+  }
+
+  public void testParentVariableLookupFromChildExecutionSeesChanges() {
+    Task task = taskService.createTaskQuery().singleResult();
+    taskService.complete(task.getId());
+
+    task = taskService.createTaskQuery().taskName("Task 3").singleResult();
+    final String executionId = task.getExecutionId();
+
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionEntityManager().findById(executionId);
+        ExecutionEntity processInstance = commandContext.getExecutionEntityManager().findById(processInstanceId);
+
+        // Found in the process instance, and found there again
+        assertEquals(100, execution.getVariable("intVar1"));
+        assertEquals(100, execution.getVariable("intVar1"));
+
+        processInstance.setVariableLocal("intVar1", 101);
+        assertEquals(101, execution.getVariable("intVar1"));
+
+        execution.setVariableLocal("intVar1", "local");
+        assertEquals("local", execution.getVariable("intVar1"));
+
+        execution.removeVariableLocal("intVar1");
+        assertEquals(101, execution.getVariable("intVar1"));
+
+        processInstance.setTransientVariableLocal("intVar1", "transient");
+        assertEquals("transient", execution.getVariable("intVar1"));
+        processInstance.removeTransientVariableLocal("intVar1");
+
+        processInstance.removeVariableLocal("intVar1");
+        assertNull(execution.getVariable("intVar1"));
+
+        processInstance.setVariableLocal("intVar1", 102);
+        assertEquals(102, execution.getVariable("intVar1"));
+        return null;
+      }
+    });
+
+    assertEquals(102, runtimeService.getVariable(executionId, "intVar1"));
+  }
+
   @org.activiti.engine.test.Deployment
   public void testGetVariableAllVariableFetchingDefault() {
 
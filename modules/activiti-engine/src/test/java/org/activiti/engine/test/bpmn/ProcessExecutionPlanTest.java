@@ -0,0 +1,143 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.bpmn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.Process;
+import org.activiti.engine.impl.agenda.AbstractOperation;
+import org.activiti.engine.impl.agenda.FlowNodeExecutionPlan;
+import org.activiti.engine.impl.agenda.ProcessExecutionPlan;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionCacheEntry;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class ProcessExecutionPlanTest extends PluggableActivitiTestCase {
+
+  @Deployment(resources = "org/activiti/engine/test/bpmn/ProcessExecutionPlanTest.bpmn20.xml")
+  public void testExecutionPlanBuiltOnDeploy() {
+    ProcessDefinitionCacheEntry cacheEntry = getCacheEntry();
+    ProcessExecutionPlan executionPlan = cacheEntry.getExecutionPlan();
+    assertNotNull(executionPlan);
+
+    Process process = cacheEntry.getProcess();
+    assertEquals(process.findFlowElementsOfType(FlowNode.class, true).size(), executionPlan.size());
+
+    FlowNodeExecutionPlan startPlan = executionPlan.getFlowNodePlan((FlowNode) process.getFlowElement("theStart"));
+    assertTrue(startPlan.isProcessStart());
+    assertFalse(startPlan.hasStartExecutionListeners());
+
+    FlowNodeExecutionPlan taskPlan = executionPlan.getFlowNodePlan((FlowNode) process.getFlowElement("theTask"));
+    assertFalse(taskPlan.isProcessStart());
+    assertTrue(taskPlan.hasStartExecutionListeners());
+    assertTrue(taskPlan.hasEndExecutionListeners());
+    assertEquals(1, taskPlan.getBoundaryEventsToExecute().size());
+    assertEquals("timer", taskPlan.getBoundaryEventsToExecute().get(0).getId());
+    assertTrue(taskPlan.getCancelBoundaryEventIds().isEmpty());
+
+    FlowNodeExecutionPlan gatewayPlan = executionPlan.getFlowNodePlan((FlowNode) process.getFlowElement("exclusiveGw"));
+    assertTrue(gatewayPlan.isOutgoingFlowsCompiled());
+    assertEquals(2, gatewayPlan.getOutgoingFlowCount());
+    assertEquals("defaultFlow", gatewayPlan.getDefaultFlow().getId());
+    assertNull(gatewayPlan.getOutgoingFlowCondition(0));
+    assertNotNull(gatewayPlan.getOutgoingFlowCondition(1));
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/bpmn/ProcessExecutionPlanTest.bpmn20.xml")
+  public void testExecutionPlanIgnoresForeignFlowNode() {
+    ProcessDefinitionCacheEntry cacheEntry = getCacheEntry();
+    FlowNode taskCopy = (FlowNode) cacheEntry.getProcess().getFlowElement("theTask").clone();
+    assertNull(cacheEntry.getExecutionPlan().getFlowNodePlan(taskCopy));
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/bpmn/ProcessExecutionPlanTest.bpmn20.xml")
+  public void testProcessExecutionWithPlan() {
+    assertProcessExecution();
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/bpmn/ProcessExecutionPlanTest.bpmn20.xml")
+  public void testProcessExecutionWithoutPlan() {
+    getCacheEntry().setExecutionPlan(null);
+    assertProcessExecution();
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/bpmn/ProcessExecutionPlanTest.bpmn20.xml")
+  public void testExecutionPlanResolvedOncePerOperation() {
+    final ProcessDefinitionCacheEntry cacheEntry = getCacheEntry();
+    final String processInstanceId = runtimeService.startProcessInstanceByKey("executionPlanProcess", CollectionUtil.singletonMap("input", 2)).getId();
+
+    final DeploymentCache<ProcessDefinitionCacheEntry> processDefinitionCache = processEngineConfiguration.getProcessDefinitionCache();
+    final AtomicInteger lookupCount = new AtomicInteger();
+    processEngineConfiguration.setProcessDefinitionCache(new DefaultDeploymentCache<ProcessDefinitionCacheEntry>() {
+      public ProcessDefinitionCacheEntry get(String id) {
+        lookupCount.incrementAndGet();
+        return processDefinitionCache.get(id);
+      }
+    });
+    try {
+      managementService.executeCommand(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          ExecutionEntity processInstance = commandContext.getExecutionEntityManager().findById(processInstanceId);
+          AbstractOperation operation = new AbstractOperation(commandContext, processInstance) {
+            public void run() {
+              Process process = cacheEntry.getProcess();
+              assertNotNull(getFlowNodeExecutionPlan((FlowNode) process.getFlowElement("theTask")));
+              assertNotNull(getFlowNodeExecutionPlan((FlowNode) process.getFlowElement("exclusiveGw")));
+            }
+          };
+          operation.run();
+          return null;
+        }
+      });
+      assertEquals(1, lookupCount.get());
+
+    } finally {
+      processEngineConfiguration.setProcessDefinitionCache(processDefinitionCache);
+    }
+  }
+
+  protected void assertProcessExecution() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("executionPlanProcess", CollectionUtil.singletonMap("input", 2));
+    assertEquals(Boolean.TRUE, runtimeService.getVariable(processInstance.getId(), "taskStarted"));
+    assertNull(runtimeService.getVariable(processInstance.getId(), "taskEnded"));
+    assertEquals(1, managementService.createTimerJobQuery().processInstanceId(processInstance.getId()).count());
+
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.complete(task.getId());
+    assertEquals(Boolean.TRUE, runtimeService.getVariable(processInstance.getId(), "taskEnded"));
+    assertEquals(0, managementService.createTimerJobQuery().processInstanceId(processInstance.getId()).count());
+    assertNotNull(runtimeService.createExecutionQuery().processInstanceId(processInstance.getId()).activityId("conditionalTask").singleResult());
+
+    processInstance = runtimeService.startProcessInstanceByKey("executionPlanProcess", CollectionUtil.singletonMap("input", 3));
+    task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.complete(task.getId());
+    assertNotNull(runtimeService.createExecutionQuery().processInstanceId(processInstance.getId()).activityId("defaultTask").singleResult());
+  }
+
+  protected ProcessDefinitionCacheEntry getCacheEntry() {
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().processDefinitionKey("executionPlanProcess").singleResult();
+    repositoryService.getProcessDefinition(processDefinition.getId());
+    return processEngineConfiguration.getProcessDefinitionCache().get(processDefinition.getId());
+  }
+
+}
@@ -0,0 +1,180 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.cache;
+
+import org.activiti.engine.DynamicBpmnConstants;
+import org.activiti.engine.DynamicBpmnService;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneProcessEngineConfiguration;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.deploy.DbPollingDeploymentCacheInvalidationChannel;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCacheInvalidationChannel;
+import org.activiti.engine.impl.persistence.deploy.InMemoryDeploymentCacheInvalidationChannel;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionInfoCache;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionInfoCacheObject;
+import org.activiti.engine.impl.test.AbstractTestCase;
+import org.activiti.engine.repository.ProcessDefinition;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Two process engines sharing a database, telling each other about changed process definitions and infos.
+ */
+public class DeploymentCacheInvalidationTest extends AbstractTestCase {
+
+  protected ProcessEngine processEngine1;
+  protected ProcessEngine processEngine2;
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (processEngine1 != null) {
+      processEngine1.close();
+    }
+    if (processEngine2 != null) {
+      processEngine2.close();
+    }
+    super.tearDown();
+  }
+
+  public void testInMemoryChannel() {
+    InMemoryDeploymentCacheInvalidationChannel channel1 = new InMemoryDeploymentCacheInvalidationChannel();
+    InMemoryDeploymentCacheInvalidationChannel channel2 = channel1.createPeer();
+    buildProcessEngines("activiti-in-memory-invalidation-test", channel1, channel2);
+    ProcessEngineConfigurationImpl processEngineConfiguration2 = (ProcessEngineConfigurationImpl) processEngine2.getProcessEngineConfiguration();
+    assertFalse(processEngineConfiguration2.getDeploymentManager().getProcessDefinitionInfoCache().isRevisionCheckEnabled());
+
+    ProcessDefinition processDefinition = deployAndCacheOnSecondEngine();
+
+    // A change of the info on the first engine is seen by the second engine
+    changeTaskName(processDefinition, "changed task");
+    assertEquals("changed task", getTaskName(processEngine2, processDefinition));
+
+    // A deletion on the first engine evicts the process definition from the cache of the second engine
+    processEngine1.getRepositoryService().deleteDeployment(processDefinition.getDeploymentId(), true);
+    assertFalse(processEngineConfiguration2.getProcessDefinitionCache().contains(processDefinition.getId()));
+  }
+
+  public void testInfoInvalidatedWhileLoadingIsNotCached() {
+    InMemoryDeploymentCacheInvalidationChannel channel1 = new InMemoryDeploymentCacheInvalidationChannel();
+    buildProcessEngines("activiti-info-invalidated-while-loading-test", channel1, channel1.createPeer());
+    ProcessEngineConfigurationImpl processEngineConfiguration2 = (ProcessEngineConfigurationImpl) processEngine2.getProcessEngineConfiguration();
+    ProcessDefinition processDefinition = deployAndCacheOnSecondEngine();
+
+    // The invalidation arrives after the info was read, but before it is put in the cache
+    final boolean[] invalidate = { true };
+    ProcessDefinitionInfoCache infoCache = new ProcessDefinitionInfoCache(processEngineConfiguration2.getCommandExecutor()) {
+      protected ProcessDefinitionInfoCacheObject retrieveProcessDefinitionInfoCacheObject(String processDefinitionId, CommandContext commandContext) {
+        ProcessDefinitionInfoCacheObject cacheObject = super.retrieveProcessDefinitionInfoCacheObject(processDefinitionId, commandContext);
+        if (invalidate[0]) {
+          remove(processDefinitionId);
+        }
+        return cacheObject;
+      }
+    };
+    infoCache.setRevisionCheckEnabled(false);
+
+    assertNotNull(infoCache.get(processDefinition.getId()));
+    assertEquals(0, infoCache.size());
+
+    invalidate[0] = false;
+    assertNotNull(infoCache.get(processDefinition.getId()));
+    assertEquals(1, infoCache.size());
+  }
+
+  public void testDbPollingChannel() {
+    // Polled explicitly, so no scheduled poll interferes
+    DbPollingDeploymentCacheInvalidationChannel channel2 = new DbPollingDeploymentCacheInvalidationChannel(60 * 60 * 1000L);
+    buildProcessEngines("activiti-db-polling-invalidation-test", new DbPollingDeploymentCacheInvalidationChannel(60 * 60 * 1000L), channel2);
+    ProcessEngineConfigurationImpl processEngineConfiguration2 = (ProcessEngineConfigurationImpl) processEngine2.getProcessEngineConfiguration();
+
+    ProcessDefinition processDefinition = deployAndCacheOnSecondEngine();
+    channel2.poll();
+
+    // The second engine trusts its cache until the change is polled
+    changeTaskName(processDefinition, "changed task");
+    assertNull(getTaskName(processEngine2, processDefinition));
+    channel2.poll();
+    assertEquals("changed task", getTaskName(processEngine2, processDefinition));
+
+    changeTaskName(processDefinition, "changed again");
+    channel2.poll();
+    assertEquals("changed again", getTaskName(processEngine2, processDefinition));
+
+    processEngine1.getRepositoryService().deleteDeployment(processDefinition.getDeploymentId(), true);
+    assertTrue(processEngineConfiguration2.getProcessDefinitionCache().contains(processDefinition.getId()));
+    channel2.poll();
+    assertFalse(processEngineConfiguration2.getProcessDefinitionCache().contains(processDefinition.getId()));
+  }
+
+  public void testDbPollingChannelSeesDeploymentReplacedBetweenPolls() throws Exception {
+    DbPollingDeploymentCacheInvalidationChannel channel2 = new DbPollingDeploymentCacheInvalidationChannel(60 * 60 * 1000L);
+    buildProcessEngines("activiti-db-polling-replaced-test", new DbPollingDeploymentCacheInvalidationChannel(60 * 60 * 1000L), channel2);
+    ProcessEngineConfigurationImpl processEngineConfiguration2 = (ProcessEngineConfigurationImpl) processEngine2.getProcessEngineConfiguration();
+
+    ProcessDefinition processDefinition = deployAndCacheOnSecondEngine();
+    channel2.poll();
+
+    // The number of process definitions is the same, the latest deploy time isn't
+    Thread.sleep(10L);
+    processEngine1.getRepositoryService().deleteDeployment(processDefinition.getDeploymentId(), true);
+    processEngine1.getRepositoryService().createDeployment().addClasspathResource("org/activiti/engine/test/cache/originalProcess.bpmn20.xml").deploy();
+    assertTrue(processEngineConfiguration2.getProcessDefinitionCache().contains(processDefinition.getId()));
+    channel2.poll();
+    assertFalse(processEngineConfiguration2.getProcessDefinitionCache().contains(processDefinition.getId()));
+  }
+
+  protected void buildProcessEngines(String databaseName, DeploymentCacheInvalidationChannel channel1, DeploymentCacheInvalidationChannel channel2) {
+    String jdbcUrl = "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=1000";
+    processEngine1 = new StandaloneProcessEngineConfiguration()
+        .setDeploymentCacheInvalidationChannel(channel1)
+        .setProcessEngineName(databaseName + "-1")
+        .setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_CREATE_DROP)
+        .setJdbcUrl(jdbcUrl)
+        .setAsyncExecutorActivate(false)
+        .buildProcessEngine();
+    processEngine2 = new StandaloneProcessEngineConfiguration()
+        .setDeploymentCacheInvalidationChannel(channel2)
+        .setProcessEngineName(databaseName + "-2")
+        .setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_FALSE)
+        .setJdbcUrl(jdbcUrl)
+        .setAsyncExecutorActivate(false)
+        .buildProcessEngine();
+  }
+
+  protected ProcessDefinition deployAndCacheOnSecondEngine() {
+    processEngine1.getRepositoryService().createDeployment().addClasspathResource("org/activiti/engine/test/cache/originalProcess.bpmn20.xml").deploy();
+    ProcessDefinition processDefinition = processEngine2.getRepositoryService().createProcessDefinitionQuery().singleResult();
+
+    processEngine2.getRuntimeService().startProcessInstanceById(processDefinition.getId());
+    assertNull(getTaskName(processEngine2, processDefinition));
+    return processDefinition;
+  }
+
+  protected void changeTaskName(ProcessDefinition processDefinition, String name) {
+    DynamicBpmnService dynamicBpmnService = processEngine1.getDynamicBpmnService();
+    ObjectNode infoNode = dynamicBpmnService.changeUserTaskName("theTask", name);
+    dynamicBpmnService.saveProcessDefinitionInfo(processDefinition.getId(), infoNode);
+  }
+
+  protected String getTaskName(ProcessEngine processEngine, ProcessDefinition processDefinition) {
+    ObjectNode infoNode = processEngine.getDynamicBpmnService().getProcessDefinitionInfo(processDefinition.getId());
+    ObjectNode elementProperties = processEngine.getDynamicBpmnService().getBpmnElementProperties("theTask", infoNode);
+    if (elementProperties == null || !elementProperties.has(DynamicBpmnConstants.USER_TASK_NAME)) {
+      return null;
+    }
+    return elementProperties.get(DynamicBpmnConstants.USER_TASK_NAME).asText();
+  }
+
+}
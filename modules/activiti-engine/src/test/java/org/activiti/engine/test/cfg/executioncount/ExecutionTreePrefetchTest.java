@@ -0,0 +1,165 @@
+package org.activiti.engine.test.cfg.executioncount;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.activiti.engine.impl.cfg.CommandExecutorImpl;
+import org.activiti.engine.impl.cfg.ExecutionTreePrefetchCollection;
+import org.activiti.engine.impl.db.DbSqlSessionFactory;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandInterceptor;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.profiler.ActivitiProfiler;
+import org.activiti.engine.test.profiler.CommandStats;
+import org.activiti.engine.test.profiler.ProfilingDbSqlSessionFactory;
+import org.activiti.engine.test.profiler.TotalExecutionTimeCommandInterceptor;
+
+public class ExecutionTreePrefetchTest extends PluggableActivitiTestCase {
+
+  protected boolean oldExecutionTreeFetchValue;
+  protected Set<ExecutionTreePrefetchCollection> oldExecutionTreePrefetchCollections;
+  protected CommandInterceptor oldFirstCommandInterceptor;
+  protected DbSqlSessionFactory oldDbSqlSessionFactory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    this.oldExecutionTreeFetchValue = processEngineConfiguration.getPerformanceSettings().isEnableEagerExecutionTreeFetching();
+    this.oldExecutionTreePrefetchCollections = processEngineConfiguration.getPerformanceSettings().getExecutionTreePrefetchCollections();
+    processEngineConfiguration.getPerformanceSettings().setEnableEagerExecutionTreeFetching(true);
+
+    CommandExecutorImpl commandExecutor = ((CommandExecutorImpl) processEngineConfiguration.getCommandExecutor());
+    this.oldFirstCommandInterceptor = commandExecutor.getFirst();
+    TotalExecutionTimeCommandInterceptor timeCommandInterceptor = new TotalExecutionTimeCommandInterceptor();
+    timeCommandInterceptor.setNext(oldFirstCommandInterceptor);
+    commandExecutor.setFirst(timeCommandInterceptor);
+
+    this.oldDbSqlSessionFactory = processEngineConfiguration.getDbSqlSessionFactory();
+    DbSqlSessionFactory newDbSqlSessionFactory = new ProfilingDbSqlSessionFactory();
+    newDbSqlSessionFactory.setDatabaseType(oldDbSqlSessionFactory.getDatabaseType());
+    newDbSqlSessionFactory.setDatabaseTablePrefix(oldDbSqlSessionFactory.getDatabaseTablePrefix());
+    newDbSqlSessionFactory.setTablePrefixIsSchema(oldDbSqlSessionFactory.isTablePrefixIsSchema());
+    newDbSqlSessionFactory.setDatabaseCatalog(oldDbSqlSessionFactory.getDatabaseCatalog());
+    newDbSqlSessionFactory.setDatabaseSchema(oldDbSqlSessionFactory.getDatabaseSchema());
+    newDbSqlSessionFactory.setSqlSessionFactory(oldDbSqlSessionFactory.getSqlSessionFactory());
+    newDbSqlSessionFactory.setIdGenerator(oldDbSqlSessionFactory.getIdGenerator());
+    newDbSqlSessionFactory.setDbIdentityUsed(oldDbSqlSessionFactory.isDbIdentityUsed());
+    newDbSqlSessionFactory.setDbHistoryUsed(oldDbSqlSessionFactory.isDbHistoryUsed());
+    processEngineConfiguration.addSessionFactory(newDbSqlSessionFactory);
+
+    repositoryService.createDeployment()
+      .addClasspathResource("org/activiti/engine/test/cfg/executioncount/process-parallel-usertasks.bpmn20.xml")
+      .deploy();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.getPerformanceSettings().setEnableEagerExecutionTreeFetching(oldExecutionTreeFetchValue);
+    processEngineConfiguration.getPerformanceSettings().setExecutionTreePrefetchCollections(oldExecutionTreePrefetchCollections);
+    ((CommandExecutorImpl) processEngineConfiguration.getCommandExecutor()).setFirst(oldFirstCommandInterceptor);
+    processEngineConfiguration.addSessionFactory(oldDbSqlSessionFactory);
+    ActivitiProfiler.getInstance().reset();
+
+    for (Deployment deployment : repositoryService.createDeploymentQuery().list()) {
+      repositoryService.deleteDeployment(deployment.getId(), true);
+    }
+    super.tearDown();
+  }
+
+  public void testWithoutPrefetchCollectionsAreLoadedPerExecution() {
+    processEngineConfiguration.getPerformanceSettings().setExecutionTreePrefetchCollections(EnumSet.noneOf(ExecutionTreePrefetchCollection.class));
+
+    CommandStats stats = startProcessInstanceAndProfileTaskCompletion();
+    assertEquals(Long.valueOf(1L), stats.getDbSelects().get("selectTasksByExecutionId"));
+    assertFalse(stats.getDbSelects().containsKey("selectTasksByExecutionTree"));
+    assertFalse(stats.getDbSelects().containsKey("selectVariablesByExecutionTree"));
+  }
+
+  public void testPrefetchCollections() {
+    processEngineConfiguration.getPerformanceSettings().setExecutionTreePrefetchCollections(EnumSet.allOf(ExecutionTreePrefetchCollection.class));
+
+    CommandStats stats = startProcessInstanceAndProfileTaskCompletion();
+    Map<String, Long> selects = stats.getDbSelects();
+    assertEquals(Long.valueOf(1L), selects.get("selectExecutionsWithSameRootProcessInstanceId"));
+    assertEquals(Long.valueOf(1L), selects.get("selectVariablesByExecutionTree"));
+    assertEquals(Long.valueOf(1L), selects.get("selectTasksByExecutionTree"));
+    assertEquals(Long.valueOf(1L), selects.get("selectTimerJobsByExecutionTree"));
+    assertEquals(Long.valueOf(1L), selects.get("selectJobsByExecutionTree"));
+    assertEquals(Long.valueOf(1L), selects.get("selectEventSubscriptionsByExecutionTree"));
+    assertEquals(Long.valueOf(1L), selects.get("selectIdentityLinksByExecutionTree"));
+
+    assertFalse(selects.containsKey("selectVariablesByExecutionId"));
+    assertFalse(selects.containsKey("selectTasksByExecutionId"));
+    assertFalse(selects.containsKey("selectTimerJobsByExecutionId"));
+    assertFalse(selects.containsKey("selectJobsByExecutionId"));
+    assertFalse(selects.containsKey("selectEventSubscriptionsByExecution"));
+    assertFalse(selects.containsKey("selectIdentityLinksByProcessInstance"));
+  }
+
+  public void testPrefetchedCollectionsAreKeptUpToDate() {
+    processEngineConfiguration.getPerformanceSettings().setExecutionTreePrefetchCollections(EnumSet.allOf(ExecutionTreePrefetchCollection.class));
+
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("var", "value");
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("process-parallel-usertasks", variables);
+
+    Task taskA = taskService.createTaskQuery().processInstanceId(processInstance.getId()).taskDefinitionKey("taskA").singleResult();
+    Map<String, Object> taskVariables = new HashMap<String, Object>();
+    taskVariables.put("other", 123);
+    taskService.complete(taskA.getId(), taskVariables);
+    assertEquals(2, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(1, managementService.createTimerJobQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals("value", runtimeService.getVariable(processInstance.getId(), "var"));
+    assertEquals(123, runtimeService.getVariable(processInstance.getId(), "other"));
+
+    // Completing the task with the boundary timer removes the timer job of its execution
+    Task taskC = taskService.createTaskQuery().processInstanceId(processInstance.getId()).taskDefinitionKey("taskC").singleResult();
+    taskService.complete(taskC.getId());
+    assertEquals(0, managementService.createTimerJobQuery().processInstanceId(processInstance.getId()).count());
+
+    Task taskB = taskService.createTaskQuery().processInstanceId(processInstance.getId()).taskDefinitionKey("taskB").singleResult();
+    taskService.complete(taskB.getId());
+    assertProcessEnded(processInstance.getId());
+  }
+
+  public void testCollectionsOfExecutionsCachedByQueryAreFetched() {
+    processEngineConfiguration.getPerformanceSettings().setExecutionTreePrefetchCollections(EnumSet.allOf(ExecutionTreePrefetchCollection.class));
+
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("var", "value");
+    final ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("process-parallel-usertasks", variables);
+
+    // The executions are in the cache before their tree is fetched, which mustn't be mistaken for a prefetched tree
+    int variableCount = managementService.executeCommand(new Command<Integer>() {
+      public Integer execute(CommandContext commandContext) {
+        commandContext.getExecutionEntityManager().findExecutionsByProcessInstanceIds(Collections.singletonList(processInstance.getId()));
+        return commandContext.getVariableInstanceEntityManager().findVariableInstancesByExecutionId(processInstance.getId()).size();
+      }
+    });
+    assertEquals(1, variableCount);
+  }
+
+  protected CommandStats startProcessInstanceAndProfileTaskCompletion() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("var", "value");
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("process-parallel-usertasks", variables);
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).taskDefinitionKey("taskA").singleResult();
+
+    ActivitiProfiler activitiProfiler = ActivitiProfiler.getInstance();
+    activitiProfiler.startProfileSession("Profiling session");
+    taskService.complete(task.getId());
+    activitiProfiler.stopCurrentProfileSession();
+
+    Map<String, CommandStats> allStats = activitiProfiler.getProfileSessions().get(0).calculateSummaryStatistics();
+    return allStats.get("org.activiti.engine.impl.cmd.CompleteTaskCmd");
+  }
+
+}
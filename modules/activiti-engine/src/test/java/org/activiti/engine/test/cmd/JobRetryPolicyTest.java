@@ -0,0 +1,159 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.cmd;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.jobexecutor.CircuitBreakerJobRetryPolicy;
+import org.activiti.engine.impl.jobexecutor.ExponentialBackoffJobRetryPolicy;
+import org.activiti.engine.impl.jobexecutor.JobRetryPolicy;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.test.Deployment;
+
+public class JobRetryPolicyTest extends PluggableActivitiTestCase {
+
+  protected Date startTime = new Date(1000000000000L);
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    processEngineConfiguration.getClock().setCurrentTime(startTime);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setJobRetryPolicies(null);
+    processEngineConfiguration.setExceptionJobRetryPolicies(null);
+    processEngineConfiguration.getClock().reset();
+    super.tearDown();
+  }
+
+  public void testExponentialBackoff() {
+    ExponentialBackoffJobRetryPolicy jobRetryPolicy = new ExponentialBackoffJobRetryPolicy(5, 1000L, 2.0, 5000L);
+    jobRetryPolicy.setJitter(0.0);
+    assertEquals(startTime.getTime() + 1000L, jobRetryPolicy.getRetryDate(null, null, 1, startTime).getTime());
+    assertEquals(startTime.getTime() + 2000L, jobRetryPolicy.getRetryDate(null, null, 2, startTime).getTime());
+    assertEquals(startTime.getTime() + 4000L, jobRetryPolicy.getRetryDate(null, null, 3, startTime).getTime());
+    assertEquals(startTime.getTime() + 5000L, jobRetryPolicy.getRetryDate(null, null, 4, startTime).getTime());
+
+    jobRetryPolicy.setJitter(0.5);
+    for (int i = 0; i < 100; i++) {
+      long delay = jobRetryPolicy.getRetryDate(null, null, 2, startTime).getTime() - startTime.getTime();
+      assertTrue(delay >= 1000L && delay <= 3000L);
+    }
+  }
+
+  public void testCircuitBreaker() {
+    ExponentialBackoffJobRetryPolicy backoffPolicy = new ExponentialBackoffJobRetryPolicy(5, 1000L, 2.0, 60000L);
+    backoffPolicy.setJitter(0.0);
+    CircuitBreakerJobRetryPolicy jobRetryPolicy = new CircuitBreakerJobRetryPolicy(backoffPolicy, 3, 10000L, 60000L);
+    long time = startTime.getTime();
+
+    // Failures outside of the window don't open the circuit
+    assertEquals(time + 1000L, jobRetryPolicy.getRetryDate(null, null, 1, new Date(time)).getTime());
+    assertEquals(time + 20000L + 1000L, jobRetryPolicy.getRetryDate(null, null, 1, new Date(time + 20000L)).getTime());
+    assertEquals(time + 21000L + 2000L, jobRetryPolicy.getRetryDate(null, null, 2, new Date(time + 21000L)).getTime());
+    assertFalse(jobRetryPolicy.isOpen(new Date(time + 21000L)));
+
+    // The third failure within the window opens the circuit
+    long openUntil = time + 22000L + 60000L;
+    assertEquals(openUntil + 1000L, jobRetryPolicy.getRetryDate(null, null, 1, new Date(time + 22000L)).getTime());
+    assertTrue(jobRetryPolicy.isOpen(new Date(time + 30000L)));
+    assertEquals(openUntil + 4000L, jobRetryPolicy.getRetryDate(null, null, 3, new Date(time + 30000L)).getTime());
+
+    // Closed again
+    assertFalse(jobRetryPolicy.isOpen(new Date(openUntil)));
+    assertEquals(openUntil + 1000L, jobRetryPolicy.getRetryDate(null, null, 1, new Date(openUntil)).getTime());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/cmd/JobRetryPolicyTest.bpmn20.xml")
+  public void testServiceTaskJobRetryPolicy() {
+    ExponentialBackoffJobRetryPolicy jobRetryPolicy = new ExponentialBackoffJobRetryPolicy(3, 60000L, 2.0, 3600000L);
+    jobRetryPolicy.setJitter(0.0);
+    processEngineConfiguration.setJobRetryPolicies(Collections.<String, JobRetryPolicy>singletonMap("backoff", jobRetryPolicy));
+
+    String processInstanceId = runtimeService.startProcessInstanceByKey("jobRetryPolicy").getId();
+
+    executeFailingJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult());
+    Job timerJob = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertEquals(2, timerJob.getRetries());
+    assertEquals(startTime.getTime() + 60000L, timerJob.getDuedate().getTime());
+
+    executeFailingJob(managementService.moveTimerToExecutableJob(timerJob.getId()));
+    timerJob = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertEquals(1, timerJob.getRetries());
+    assertEquals(startTime.getTime() + 120000L, timerJob.getDuedate().getTime());
+
+    executeFailingJob(managementService.moveTimerToExecutableJob(timerJob.getId()));
+    assertEquals(0, managementService.createTimerJobQuery().count());
+    Job deadLetterJob = managementService.createDeadLetterJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertEquals(0, deadLetterJob.getRetries());
+    assertEquals(FailingDelegate.EXCEPTION_MESSAGE, deadLetterJob.getExceptionMessage());
+  }
+
+  @Deployment
+  public void testExceptionWithoutMessage() {
+    ExponentialBackoffJobRetryPolicy jobRetryPolicy = new ExponentialBackoffJobRetryPolicy(3, 60000L, 2.0, 3600000L);
+    jobRetryPolicy.setJitter(0.0);
+    processEngineConfiguration.setJobRetryPolicies(Collections.<String, JobRetryPolicy>singletonMap("backoff", jobRetryPolicy));
+
+    String processInstanceId = runtimeService.startProcessInstanceByKey("jobRetryPolicyNoMessage").getId();
+
+    // Every failure counts, even though no exception message is stored
+    executeFailingJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult());
+    Job timerJob = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertNull(timerJob.getExceptionMessage());
+    assertEquals(2, timerJob.getRetries());
+
+    executeFailingJob(managementService.moveTimerToExecutableJob(timerJob.getId()));
+    timerJob = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertEquals(1, timerJob.getRetries());
+    assertEquals(startTime.getTime() + 120000L, timerJob.getDuedate().getTime());
+
+    executeFailingJob(managementService.moveTimerToExecutableJob(timerJob.getId()));
+    assertEquals(0, managementService.createTimerJobQuery().count());
+    assertEquals(1, managementService.createDeadLetterJobQuery().processInstanceId(processInstanceId).count());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/cmd/FailedJobRetryCmdTest.testFailedServiceTask.bpmn20.xml")
+  public void testExceptionJobRetryPolicy() {
+    // Takes precedence over the failedJobRetryTimeCycle of the service task
+    ExponentialBackoffJobRetryPolicy jobRetryPolicy = new ExponentialBackoffJobRetryPolicy(2, 5000L, 2.0, 3600000L);
+    jobRetryPolicy.setJitter(0.0);
+    processEngineConfiguration.setExceptionJobRetryPolicies(Collections.<String, JobRetryPolicy>singletonMap(RuntimeException.class.getName(), jobRetryPolicy));
+
+    String processInstanceId = runtimeService.startProcessInstanceByKey("failedServiceTask").getId();
+
+    executeFailingJob(managementService.createJobQuery().processInstanceId(processInstanceId).singleResult());
+    Job timerJob = managementService.createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    assertEquals(1, timerJob.getRetries());
+    assertEquals(startTime.getTime() + 5000L, timerJob.getDuedate().getTime());
+
+    executeFailingJob(managementService.moveTimerToExecutableJob(timerJob.getId()));
+    assertEquals(0, managementService.createTimerJobQuery().count());
+    assertEquals(1, managementService.createDeadLetterJobQuery().processInstanceId(processInstanceId).count());
+  }
+
+  protected void executeFailingJob(Job job) {
+    try {
+      managementService.executeJob(job.getId());
+      fail();
+    } catch (ActivitiException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.activiti.engine.impl.asyncexecutor.AcquiredJobEntities;
+import org.activiti.engine.impl.asyncexecutor.AcquisitionStrategyAsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.AsyncJobAcquisitionStrategy;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.activiti.engine.impl.cmd.AcquireJobsCmd;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.test.Deployment;
+
+public class AcquireJobsCmdTest extends PluggableActivitiTestCase {
+
+  protected static final String PROCESS_RESOURCE = "org/activiti/engine/test/jobexecutor/ResetExpiredJobsTest.testResetExpiredJobs.bpmn20.xml";
+
+  protected AcquisitionStrategyAsyncExecutor asyncExecutor;
+  protected AsyncJobAcquisitionStrategy originalStrategy;
+  protected int originalMaxAsyncJobsDuePerAcquisition;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    asyncExecutor = (AcquisitionStrategyAsyncExecutor) processEngineConfiguration.getAsyncExecutor();
+    originalStrategy = asyncExecutor.getAsyncJobAcquisitionStrategy();
+    originalMaxAsyncJobsDuePerAcquisition = asyncExecutor.getMaxAsyncJobsDuePerAcquisition();
+    asyncExecutor.setMaxAsyncJobsDuePerAcquisition(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    asyncExecutor.setAsyncJobAcquisitionStrategy(originalStrategy);
+    asyncExecutor.setMaxAsyncJobsDuePerAcquisition(originalMaxAsyncJobsDuePerAcquisition);
+    super.tearDown();
+  }
+
+  @Deployment(resources = PROCESS_RESOURCE)
+  public void testOptimisticLockingAcquisition() {
+    assertAcquisitionInBatches(AsyncJobAcquisitionStrategy.OPTIMISTIC_LOCKING);
+  }
+
+  @Deployment(resources = PROCESS_RESOURCE)
+  public void testSkipLockedAcquisition() {
+    // Falls back to optimistic locking on databases without skip locked support, like the default H2 test database
+    assertAcquisitionInBatches(AsyncJobAcquisitionStrategy.SKIP_LOCKED);
+  }
+
+  @Deployment(resources = PROCESS_RESOURCE)
+  public void testClaimUpdateAcquisition() {
+    assertAcquisitionInBatches(AsyncJobAcquisitionStrategy.CLAIM_UPDATE);
+  }
+
+  @Deployment(resources = PROCESS_RESOURCE)
+  public void testClaimUpdateSkipsLockedJobs() {
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("myProcess");
+    }
+    final List<String> jobIds = new ArrayList<String>();
+    for (Job job : managementService.createJobQuery().list()) {
+      jobIds.add(job.getId());
+    }
+
+    // Another async executor locked the first job
+    int claimedByOther = managementService.executeCommand(new Command<Integer>() {
+      public Integer execute(CommandContext commandContext) {
+        return commandContext.getJobEntityManager().updateJobLockForAcquisition(jobIds.subList(0, 1), "otherLockOwner", new Date());
+      }
+    });
+    assertEquals(1, claimedByOther);
+
+    List<JobEntity> claimedJobs = managementService.executeCommand(new Command<List<JobEntity>>() {
+      public List<JobEntity> execute(CommandContext commandContext) {
+        int claimed = commandContext.getJobEntityManager().updateJobLockForAcquisition(jobIds, asyncExecutor.getLockOwner(), new Date());
+        assertEquals(2, claimed);
+        return commandContext.getJobEntityManager().findJobsByIdsAndLockOwner(jobIds, asyncExecutor.getLockOwner());
+      }
+    });
+
+    assertEquals(2, claimedJobs.size());
+    for (JobEntity job : claimedJobs) {
+      assertFalse(job.getId().equals(jobIds.get(0)));
+      assertEquals(2, job.getRevision());
+    }
+    assertEquals(3, managementService.createJobQuery().locked().count());
+  }
+
+  protected void assertAcquisitionInBatches(AsyncJobAcquisitionStrategy strategy) {
+    asyncExecutor.setAsyncJobAcquisitionStrategy(strategy);
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("myProcess");
+    }
+    assertEquals(3, managementService.createJobQuery().count());
+
+    AcquiredJobEntities acquiredJobs = managementService.executeCommand(new AcquireJobsCmd(asyncExecutor));
+    assertEquals(2, acquiredJobs.size());
+    for (JobEntity job : acquiredJobs.getJobs()) {
+      assertEquals(asyncExecutor.getLockOwner(), job.getLockOwner());
+      assertNotNull(job.getLockExpirationTime());
+    }
+    assertEquals(2, managementService.createJobQuery().locked().count());
+
+    acquiredJobs = managementService.executeCommand(new AcquireJobsCmd(asyncExecutor));
+    assertEquals(1, acquiredJobs.size());
+    assertEquals(3, managementService.createJobQuery().locked().count());
+
+    acquiredJobs = managementService.executeCommand(new AcquireJobsCmd(asyncExecutor));
+    assertEquals(0, acquiredJobs.size());
+  }
+
+
+  public void testSkipLockedSupportedByDatabaseVersion() {
+    SkipLockedSupportConfiguration configuration = new SkipLockedSupportConfiguration();
+    assertFalse(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_POSTGRES, 9, 4));
+    assertTrue(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_POSTGRES, 9, 5));
+    assertTrue(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_POSTGRES, 10, 0));
+    assertFalse(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_MYSQL, 5, 7));
+    assertTrue(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_MYSQL, 8, 0));
+    assertTrue(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_ORACLE, 11, 2));
+    assertTrue(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_MSSQL, 12, 0));
+    assertFalse(configuration.isSkipLockedSupported(ProcessEngineConfigurationImpl.DATABASE_TYPE_H2, 1, 4));
+  }
+
+  protected static class SkipLockedSupportConfiguration extends StandaloneInMemProcessEngineConfiguration {
+
+    @Override
+    public boolean isSkipLockedSupported(String databaseType, int majorVersion, int minorVersion) {
+      return super.isSkipLockedSupported(databaseType, majorVersion, minorVersion);
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import org.activiti.engine.impl.asyncexecutor.AdaptiveJobAcquisition;
+import org.activiti.engine.impl.asyncexecutor.AdaptiveAsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobAcquisitionMetrics;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.test.Deployment;
+
+public class AdaptiveJobAcquisitionTest extends PluggableActivitiTestCase {
+
+  public void testPageSizeGrowsWithFullPagesAndFollowsQueueCapacity() {
+    JobAcquisitionMetrics metrics = new JobAcquisitionMetrics();
+    AdaptiveJobAcquisition adaptiveJobAcquisition = new AdaptiveJobAcquisition(metrics);
+
+    assertEquals(1, adaptiveJobAcquisition.determinePageSize(10, 100));
+    assertEquals(0, adaptiveJobAcquisition.jobsAcquired(1, 1, 10, 100, 1000));
+    assertEquals(2, adaptiveJobAcquisition.determinePageSize(10, 100));
+    adaptiveJobAcquisition.jobsAcquired(2, 2, 10, 100, 1000);
+    adaptiveJobAcquisition.jobsAcquired(4, 4, 10, 100, 1000);
+    adaptiveJobAcquisition.jobsAcquired(8, 8, 10, 100, 1000);
+    
+    // Never more than the configured maximum
+    assertEquals(10, adaptiveJobAcquisition.determinePageSize(10, 100));
+    
+    // Never more than the free capacity of the queue
+    assertEquals(3, adaptiveJobAcquisition.determinePageSize(10, 3));
+    assertEquals(0, adaptiveJobAcquisition.determinePageSize(10, 0));
+    
+    // Shrinks to the number of jobs that were found, and waits the minimum time
+    assertEquals(100, adaptiveJobAcquisition.jobsAcquired(10, 4, 10, 100, 1000));
+    assertEquals(4, adaptiveJobAcquisition.determinePageSize(10, 100));
+    
+    assertEquals(5, metrics.getAcquisitionCycles());
+    assertEquals(19, metrics.getJobsAcquired());
+    assertEquals(4, metrics.getPageSizeIncreases());
+    assertEquals(1, metrics.getPageSizeDecreases());
+  }
+
+  public void testExponentialBackOff() {
+    JobAcquisitionMetrics metrics = new JobAcquisitionMetrics();
+    AdaptiveJobAcquisition adaptiveJobAcquisition = new AdaptiveJobAcquisition(metrics);
+
+    assertEquals(100, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+    assertEquals(200, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+    assertEquals(400, adaptiveJobAcquisition.lockConflict(100, 1000));
+    assertEquals(800, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+    assertEquals(1000, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+    assertEquals(1000, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+
+    assertEquals(5, metrics.getEmptyAcquisitions());
+    assertEquals(1, metrics.getLockConflicts());
+    assertEquals(5, metrics.getBackOffs());
+    assertEquals(1000, metrics.getCurrentWaitTimeInMillis());
+
+    // A new job resets the back off
+    assertTrue(adaptiveJobAcquisition.wakeUp(100));
+    assertEquals(100, adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000));
+    assertFalse(adaptiveJobAcquisition.wakeUp(100));
+    assertEquals(1, metrics.getWakeUps());
+    
+    // A found job stops the back off
+    adaptiveJobAcquisition.jobsAcquired(1, 0, 10, 100, 1000);
+    assertEquals(0, adaptiveJobAcquisition.jobsAcquired(1, 1, 10, 100, 1000));
+    assertEquals(100, adaptiveJobAcquisition.jobsAcquired(2, 0, 10, 100, 1000));
+  }
+
+  public void testLockConflictShrinksPageSize() {
+    AdaptiveJobAcquisition adaptiveJobAcquisition = new AdaptiveJobAcquisition(new JobAcquisitionMetrics());
+    adaptiveJobAcquisition.jobsAcquired(1, 1, 10, 100, 1000);
+    adaptiveJobAcquisition.jobsAcquired(2, 2, 10, 100, 1000);
+    assertEquals(4, adaptiveJobAcquisition.getPageSize());
+
+    adaptiveJobAcquisition.lockConflict(100, 1000);
+    assertEquals(2, adaptiveJobAcquisition.getPageSize());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/jobexecutor/ResetExpiredJobsTest.testResetExpiredJobs.bpmn20.xml")
+  public void testAdaptiveAcquisitionExecutesJobs() {
+    AdaptiveAsyncExecutor asyncExecutor = (AdaptiveAsyncExecutor) processEngineConfiguration.getAsyncExecutor();
+    boolean originalAdaptiveJobAcquisition = asyncExecutor.isAdaptiveJobAcquisition();
+    asyncExecutor.setAdaptiveJobAcquisition(true);
+    asyncExecutor.getAsyncJobAcquisitionMetrics().reset();
+    try {
+      for (int i = 0; i < 5; i++) {
+        runtimeService.startProcessInstanceByKey("myProcess");
+      }
+      assertEquals(5, managementService.createJobQuery().count());
+
+      waitForJobExecutorToProcessAllJobs(10000L, 100L);
+      
+      assertEquals(0, managementService.createJobQuery().count());
+      assertEquals(5, taskService.createTaskQuery().count());
+      
+      JobAcquisitionMetrics metrics = asyncExecutor.getAsyncJobAcquisitionMetrics();
+      assertEquals(5, metrics.getJobsAcquired());
+      assertTrue(metrics.getAcquisitionCycles() > 1);
+      assertTrue(metrics.getPageSizeIncreases() > 0);
+      
+    } finally {
+      asyncExecutor.setAdaptiveJobAcquisition(originalAdaptiveJobAcquisition);
+    }
+  }
+
+}
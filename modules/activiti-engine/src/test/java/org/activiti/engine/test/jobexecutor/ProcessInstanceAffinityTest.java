@@ -0,0 +1,287 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.JavaDelegate;
+import org.activiti.engine.impl.asyncexecutor.DefaultAsyncJobExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobPartitionLease;
+import org.activiti.engine.impl.asyncexecutor.JobPartitionLeaseRunnable;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+import org.activiti.engine.impl.persistence.entity.PropertyEntityManager;
+import org.activiti.engine.impl.test.JobTestHelper;
+import org.activiti.engine.runtime.Job;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the execution of exclusive jobs on the job lanes of the async executor.
+ */
+public class ProcessInstanceAffinityTest {
+
+  private static final int PARTITION_COUNT = 8;
+
+  @Before
+  public void resetRecordedExecutions() {
+    RecordExecutionDelegate.reset();
+  }
+
+  @After
+  public void clearRecordedExecutions() {
+    RecordExecutionDelegate.reset();
+  }
+
+  @Test
+  public void testExclusiveJobsExecutedOnLanes() throws Exception {
+    ProcessEngine processEngine = createProcessEngine();
+    try {
+      waitForOwnedPartitions(processEngine, PARTITION_COUNT);
+      deploy(processEngine);
+
+      List<String> processInstanceIds = new ArrayList<String>();
+      for (int i = 0; i < 4; i++) {
+        processInstanceIds.add(processEngine.getRuntimeService().startProcessInstanceByKey("processInstanceAffinity").getId());
+      }
+      waitForAllJobsBeingExecuted(processEngine);
+
+      for (String processInstanceId : processInstanceIds) {
+        Assert.assertEquals(1, processEngine.getTaskService().createTaskQuery().processInstanceId(processInstanceId).count());
+      }
+      Assert.assertEquals(20, RecordExecutionDelegate.threadNames.size());
+      for (String threadName : RecordExecutionDelegate.threadNames) {
+        Assert.assertTrue(threadName, threadName.startsWith("activiti-async-job-lane-"));
+      }
+      Assert.assertEquals(1, RecordExecutionDelegate.maxConcurrentExecutions);
+
+    } finally {
+      cleanup(processEngine);
+    }
+  }
+
+  @Test
+  public void testPartitionsSharedAndReleased() throws Exception {
+    ProcessEngine firstProcessEngine = createProcessEngine();
+    ProcessEngine secondProcessEngine = null;
+    try {
+      waitForOwnedPartitions(firstProcessEngine, PARTITION_COUNT);
+
+      // The first node stops renewing half of the leases, and the second node claims them when they have expired
+      secondProcessEngine = createProcessEngine();
+      waitForOwnedPartitions(firstProcessEngine, PARTITION_COUNT / 2);
+      waitForOwnedPartitions(secondProcessEngine, PARTITION_COUNT / 2);
+
+      JobPartitionLeaseRunnable firstLeases = getJobPartitionLeaseRunnable(firstProcessEngine);
+      JobPartitionLeaseRunnable secondLeases = getJobPartitionLeaseRunnable(secondProcessEngine);
+      for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+        Assert.assertTrue(firstLeases.isOwnedByThisNode(partition) != secondLeases.isOwnedByThisNode(partition));
+        
+        // Jobs of the previous owner can still hold process instance locks: the new owner keeps locking for the async job lock time
+        if (secondLeases.isOwnedByThisNode(partition)) {
+          Assert.assertFalse(secondLeases.isProcessInstanceLockSkipped(partition));
+        }
+      }
+
+      // Closing the second node releases its leases right away
+      String secondLockOwner = secondProcessEngine.getProcessEngineConfiguration().getAsyncExecutor().getLockOwner();
+      secondProcessEngine.close();
+      secondProcessEngine = null;
+      for (String value : firstProcessEngine.getManagementService().getProperties().values()) {
+        JobPartitionLease lease = JobPartitionLease.parse(value);
+        Assert.assertTrue(lease == null || !secondLockOwner.equals(lease.getLockOwner()));
+      }
+      waitForOwnedPartitions(firstProcessEngine, PARTITION_COUNT);
+
+    } finally {
+      if (secondProcessEngine != null) {
+        secondProcessEngine.close();
+      }
+      cleanup(firstProcessEngine);
+    }
+  }
+
+  @Test
+  public void testJobsOfPartitionsLeasedByOtherNodeNotAcquired() throws Exception {
+    ProcessEngine processEngine = createProcessEngine(false);
+    ProcessEngine partitionedProcessEngine = null;
+    try {
+      // Another node holds the leases of all partitions
+      final long expirationTime = System.currentTimeMillis() + 60 * 60 * 1000L;
+      processEngine.getManagementService().executeCommand(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          insertProperty(commandContext, JobPartitionLease.NODE_PROPERTY_PREFIX + "otherNode", new JobPartitionLease("otherNode", expirationTime));
+          for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            insertProperty(commandContext, JobPartitionLease.LEASE_PROPERTY_PREFIX + partition, new JobPartitionLease("otherNode", expirationTime));
+          }
+          return null;
+        }
+      });
+      deploy(processEngine);
+
+      partitionedProcessEngine = createProcessEngine();
+      JobPartitionLeaseRunnable jobPartitionLeaseRunnable = getJobPartitionLeaseRunnable(partitionedProcessEngine);
+      long end = System.currentTimeMillis() + 10000L;
+      while (jobPartitionLeaseRunnable.getLeases().isEmpty() && System.currentTimeMillis() < end) {
+        Thread.sleep(50L);
+      }
+      
+      String processInstanceId = processEngine.getRuntimeService().startProcessInstanceByKey("processInstanceAffinity").getId();
+      List<String> jobIds = getJobIds(processEngine, processInstanceId);
+      Assert.assertTrue(jobPartitionLeaseRunnable.isOwnedByOtherNode(jobPartitionLeaseRunnable.getPartition(processInstanceId)));
+      Thread.sleep(500L);
+      
+      // The jobs are left to the other node: not locked, and not deleted and inserted again with a new id
+      Assert.assertEquals(jobIds, getJobIds(processEngine, processInstanceId));
+      for (Job job : processEngine.getManagementService().createJobQuery().processInstanceId(processInstanceId).list()) {
+        Assert.assertNull(((JobEntity) job).getLockOwner());
+      }
+      Assert.assertEquals(0, RecordExecutionDelegate.threadNames.size());
+
+    } finally {
+      if (partitionedProcessEngine != null) {
+        partitionedProcessEngine.close();
+      }
+      processEngine.getManagementService().executeCommand(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          PropertyEntityManager propertyEntityManager = commandContext.getPropertyEntityManager();
+          for (PropertyEntity property : propertyEntityManager.findByNamePrefix(JobPartitionLease.PROPERTY_PREFIX)) {
+            propertyEntityManager.delete(property);
+          }
+          return null;
+        }
+      });
+      cleanup(processEngine);
+    }
+  }
+
+  // Helpers ////////////////////////////////////////////////////////
+
+  private ProcessEngine createProcessEngine() {
+    return createProcessEngine(true);
+  }
+
+  private ProcessEngine createProcessEngine(boolean enableAsyncExecutor) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = new StandaloneInMemProcessEngineConfiguration();
+    processEngineConfiguration.setJdbcUrl("jdbc:h2:mem:activiti-ProcessInstanceAffinityTest;DB_CLOSE_DELAY=1000");
+    processEngineConfiguration.setDatabaseSchemaUpdate("true");
+    processEngineConfiguration.setAsyncExecutorActivate(enableAsyncExecutor);
+    processEngineConfiguration.setAsyncExecutorProcessInstanceAffinity(true);
+    processEngineConfiguration.setAsyncExecutorJobPartitionCount(PARTITION_COUNT);
+    processEngineConfiguration.setAsyncExecutorJobPartitionLeaseTime(1500);
+    processEngineConfiguration.setAsyncExecutorDefaultAsyncJobAcquireWaitTime(50);
+    processEngineConfiguration.setAsyncExecutorDefaultTimerJobAcquireWaitTime(50);
+    return processEngineConfiguration.buildProcessEngine();
+  }
+
+  private JobPartitionLeaseRunnable getJobPartitionLeaseRunnable(ProcessEngine processEngine) {
+    return ((DefaultAsyncJobExecutor) processEngine.getProcessEngineConfiguration().getAsyncExecutor()).getJobPartitionLeaseRunnable();
+  }
+
+  private void waitForOwnedPartitions(ProcessEngine processEngine, int expectedOwnedPartitions) throws InterruptedException {
+    JobPartitionLeaseRunnable jobPartitionLeaseRunnable = getJobPartitionLeaseRunnable(processEngine);
+    long end = System.currentTimeMillis() + 15000L;
+    int ownedPartitions = 0;
+    while (System.currentTimeMillis() < end) {
+      ownedPartitions = 0;
+      for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+        if (jobPartitionLeaseRunnable.isOwnedByThisNode(partition)) {
+          ownedPartitions++;
+        }
+      }
+      if (ownedPartitions == expectedOwnedPartitions) {
+        return;
+      }
+      Thread.sleep(100L);
+    }
+    Assert.assertEquals(expectedOwnedPartitions, ownedPartitions);
+  }
+
+  private List<String> getJobIds(ProcessEngine processEngine, String processInstanceId) {
+    List<String> jobIds = new ArrayList<String>();
+    for (Job job : processEngine.getManagementService().createJobQuery().processInstanceId(processInstanceId).orderByJobId().asc().list()) {
+      jobIds.add(job.getId());
+    }
+    return jobIds;
+  }
+
+  private void insertProperty(CommandContext commandContext, String name, JobPartitionLease lease) {
+    PropertyEntity property = commandContext.getPropertyEntityManager().create();
+    property.setName(name);
+    property.setValue(lease.toValue());
+    commandContext.getPropertyEntityManager().insert(property);
+  }
+
+  private void deploy(ProcessEngine processEngine) {
+    processEngine.getRepositoryService().createDeployment()
+        .addClasspathResource("org/activiti/engine/test/jobexecutor/ProcessInstanceAffinityTest.bpmn20.xml").deploy();
+  }
+
+  private void waitForAllJobsBeingExecuted(ProcessEngine processEngine) {
+    JobTestHelper.waitForJobExecutorToProcessAllJobs(processEngine.getProcessEngineConfiguration(), processEngine.getManagementService(), 10000L, 100L, false);
+  }
+
+  private void cleanup(ProcessEngine processEngine) {
+    for (org.activiti.engine.repository.Deployment deployment : processEngine.getRepositoryService().createDeploymentQuery().list()) {
+      processEngine.getRepositoryService().deleteDeployment(deployment.getId(), true);
+    }
+    processEngine.close();
+  }
+
+  public static class RecordExecutionDelegate implements JavaDelegate {
+
+    static List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+    static Map<String, Integer> concurrentExecutions = new HashMap<String, Integer>();
+    static int maxConcurrentExecutions;
+
+    public void execute(DelegateExecution execution) {
+      threadNames.add(Thread.currentThread().getName());
+      String processInstanceId = execution.getProcessInstanceId();
+      synchronized (RecordExecutionDelegate.class) {
+        Integer count = concurrentExecutions.get(processInstanceId);
+        count = count == null ? 1 : count + 1;
+        concurrentExecutions.put(processInstanceId, count);
+        maxConcurrentExecutions = Math.max(maxConcurrentExecutions, count);
+      }
+      try {
+        Thread.sleep(20L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        synchronized (RecordExecutionDelegate.class) {
+          concurrentExecutions.put(processInstanceId, concurrentExecutions.get(processInstanceId) - 1);
+        }
+      }
+    }
+
+    static synchronized void reset() {
+      threadNames.clear();
+      concurrentExecutions.clear();
+      maxConcurrentExecutions = 0;
+    }
+
+  }
+
+}
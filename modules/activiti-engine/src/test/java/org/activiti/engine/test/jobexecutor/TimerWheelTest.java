@@ -0,0 +1,278 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.impl.asyncexecutor.DefaultAsyncJobExecutor;
+import org.activiti.engine.impl.asyncexecutor.TimerJobWheel;
+import org.activiti.engine.impl.asyncexecutor.TimerWheelAcquireTimerJobsRunnable;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.activiti.engine.impl.persistence.entity.TimerJobEntity;
+import org.activiti.engine.impl.test.JobTestHelper;
+import org.activiti.engine.runtime.Job;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TimerJobWheel} and the timer job acquisition using it.
+ */
+public class TimerWheelTest {
+
+  @Test
+  public void testExpireReturnsDueTimerJobsOnly() {
+    TimerJobWheel wheel = new TimerJobWheel(100, 10);
+    wheel.schedule("a", 1050);
+    wheel.schedule("b", 1120);
+    wheel.schedule("c", 1199);
+    wheel.schedule("d", 5000); // more than one revolution ahead, same bucket as 'a'
+
+    Assert.assertEquals(4, wheel.size());
+    Assert.assertEquals(1050, wheel.getNextDueTime());
+
+    Assert.assertEquals(Collections.singletonList("a"), wheel.expire(1100));
+    Assert.assertEquals(Collections.singletonList("b"), wheel.expire(1150));
+    Assert.assertEquals(1199, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.singletonList("c"), wheel.expire(1199));
+    Assert.assertEquals(5000, wheel.getNextDueTime());
+    Assert.assertTrue(wheel.expire(4999).isEmpty());
+    Assert.assertEquals(Collections.singletonList("d"), wheel.expire(5000));
+    Assert.assertEquals(0, wheel.size());
+    Assert.assertEquals(Long.MAX_VALUE, wheel.getNextDueTime());
+  }
+
+  @Test
+  public void testScheduleForExpiredTick() {
+    TimerJobWheel wheel = new TimerJobWheel(100, 10);
+    Assert.assertTrue(wheel.expire(1150).isEmpty());
+
+    // Due in a tick that has passed: returned by the next expiration
+    wheel.schedule("a", 1050);
+    Assert.assertEquals(1050, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.singletonList("a"), wheel.expire(1150));
+
+    // Due later in the current tick
+    wheel.schedule("b", 1170);
+    Assert.assertTrue(wheel.expire(1160).isEmpty());
+    Assert.assertEquals(Collections.singletonList("b"), wheel.expire(1180));
+  }
+
+  @Test
+  public void testRescheduleAndRemove() {
+    TimerJobWheel wheel = new TimerJobWheel(100, 10);
+    wheel.schedule("a", 1000);
+    wheel.schedule("b", 1000);
+    wheel.schedule("a", 3000);
+    Assert.assertTrue(wheel.remove("b"));
+    Assert.assertFalse(wheel.remove("b"));
+
+    Assert.assertTrue(wheel.expire(2000).isEmpty());
+    Assert.assertTrue(wheel.contains("a"));
+    Assert.assertEquals(Collections.singletonList("a"), wheel.expire(3000));
+  }
+
+  @Test
+  public void testExpireAfterLongPause() {
+    TimerJobWheel wheel = new TimerJobWheel(100, 10);
+    wheel.expire(0);
+    wheel.schedule("a", 150);
+    wheel.schedule("b", 950);
+    wheel.schedule("c", 2500);
+
+    // More than one revolution passed: all buckets are checked
+    Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "b")), new HashSet<String>(wheel.expire(2400)));
+    Assert.assertEquals(Collections.singletonList("c"), wheel.expire(2500));
+  }
+
+  @Test
+  public void testTimerFetchedByRefill() {
+    ProcessEngine processEngine = createProcessEngine(false, 60 * 1000);
+    ProcessEngine timerWheelProcessEngine = null;
+    try {
+      Date now = setClockToCurrentTime(processEngine);
+      deploy(processEngine, "AsyncExecutorTest.testRegularAsyncExecution.bpmn20.xml");
+      processEngine.getRuntimeService().startProcessInstanceByKey("asyncExecutor");
+      Job timerJob = processEngine.getManagementService().createTimerJobQuery().singleResult();
+      Assert.assertNull(((TimerJobEntity) timerJob).getLockOwner());
+
+      // The timer is due after 5 minutes: not in the lookahead window yet
+      timerWheelProcessEngine = createProcessEngine(true, 60 * 1000);
+      timerWheelProcessEngine.getProcessEngineConfiguration().getClock().setCurrentTime(now);
+      TimerJobWheel wheel = getTimerJobWheel(timerWheelProcessEngine);
+      Thread.sleep(500L);
+      Assert.assertFalse(wheel.contains(timerJob.getId()));
+
+      // Within the lookahead window: fetched and locked by the next refill, and then fired
+      addSecondsToCurrentTime(timerWheelProcessEngine, 301);
+      waitForAllJobsBeingExecuted(timerWheelProcessEngine);
+
+      Assert.assertEquals(1, processEngine.getTaskService().createTaskQuery().taskName("Task after timer").count());
+      Assert.assertEquals(0, processEngine.getManagementService().createTimerJobQuery().count());
+
+    } catch (InterruptedException e) {
+      Assert.fail();
+    } finally {
+      cleanup(processEngine);
+      cleanup(timerWheelProcessEngine);
+    }
+  }
+
+  @Test
+  public void testLocalTimerAddedToWheelAndLocksReleasedOnShutdown() throws Exception {
+    ProcessEngine processEngine = createProcessEngine(false, 60 * 1000);
+    ProcessEngine timerWheelProcessEngine = null;
+    try {
+      Date now = setClockToCurrentTime(processEngine);
+      deploy(processEngine, "AsyncExecutorTest.testRegularAsyncExecution.bpmn20.xml");
+      processEngine.getRuntimeService().startProcessInstanceByKey("asyncExecutor");
+      Job firstTimerJob = processEngine.getManagementService().createTimerJobQuery().singleResult();
+
+      // A lookahead of 10 minutes: the existing timer is locked by the first refill
+      timerWheelProcessEngine = createProcessEngine(true, 10 * 60 * 1000);
+      timerWheelProcessEngine.getProcessEngineConfiguration().getClock().setCurrentTime(now);
+      DefaultAsyncJobExecutor asyncExecutor = (DefaultAsyncJobExecutor) timerWheelProcessEngine.getProcessEngineConfiguration().getAsyncExecutor();
+      TimerJobWheel wheel = getTimerJobWheel(timerWheelProcessEngine);
+      waitUntilInWheel(wheel, firstTimerJob.getId());
+      Assert.assertEquals(asyncExecutor.getLockOwner(), getLockOwner(timerWheelProcessEngine, firstTimerJob.getId()));
+
+      // A timer created by this engine is added to the wheel without a refill
+      timerWheelProcessEngine.getRuntimeService().startProcessInstanceByKey("asyncExecutor");
+      Job secondTimerJob = timerWheelProcessEngine.getManagementService().createTimerJobQuery().processInstanceId(
+          timerWheelProcessEngine.getRuntimeService().createProcessInstanceQuery().list().get(1).getId()).singleResult();
+      waitUntilInWheel(wheel, secondTimerJob.getId());
+      Assert.assertNull(getLockOwner(timerWheelProcessEngine, secondTimerJob.getId()));
+
+      // Stopping the executor releases the locks, so other engines can take over right away
+      asyncExecutor.shutdown();
+      Assert.assertNull(getLockOwner(timerWheelProcessEngine, firstTimerJob.getId()));
+      Assert.assertEquals(2, processEngine.getManagementService().createTimerJobQuery().count());
+
+    } finally {
+      cleanup(processEngine);
+      cleanup(timerWheelProcessEngine);
+    }
+  }
+
+  @Test
+  public void testRefillFetchesEarliestTimersUpToMaxWheelSize() throws Exception {
+    ProcessEngine processEngine = createProcessEngine(false, 60 * 1000);
+    ProcessEngine timerWheelProcessEngine = null;
+    try {
+      Date now = setClockToCurrentTime(processEngine);
+      deploy(processEngine, "AsyncExecutorTest.testRegularAsyncExecution.bpmn20.xml");
+
+      // The timers are due 5 minutes after the start, they are created in another order than they are due
+      String[] timerJobIds = new String[3];
+      for (int minutes : new int[] { 2, 0, 1 }) {
+        processEngine.getProcessEngineConfiguration().getClock().setCurrentTime(new Date(now.getTime() + (minutes * 60 * 1000L)));
+        String processInstanceId = processEngine.getRuntimeService().startProcessInstanceByKey("asyncExecutor").getId();
+        timerJobIds[minutes] = processEngine.getManagementService().createTimerJobQuery().processInstanceId(processInstanceId).singleResult().getId();
+      }
+
+      // A lookahead of 10 minutes and room for 2 timers: the 2 that are due first are locked, the last one is left for another refill
+      timerWheelProcessEngine = createProcessEngine(true, 10 * 60 * 1000, 2);
+      timerWheelProcessEngine.getProcessEngineConfiguration().getClock().setCurrentTime(now);
+      DefaultAsyncJobExecutor asyncExecutor = (DefaultAsyncJobExecutor) timerWheelProcessEngine.getProcessEngineConfiguration().getAsyncExecutor();
+      TimerJobWheel wheel = getTimerJobWheel(timerWheelProcessEngine);
+      waitUntilInWheel(wheel, timerJobIds[0]);
+      waitUntilInWheel(wheel, timerJobIds[1]);
+      Thread.sleep(500L);
+      
+      Assert.assertEquals(2, wheel.size());
+      Assert.assertFalse(wheel.contains(timerJobIds[2]));
+      Assert.assertEquals(asyncExecutor.getLockOwner(), getLockOwner(timerWheelProcessEngine, timerJobIds[1]));
+      Assert.assertNull(getLockOwner(timerWheelProcessEngine, timerJobIds[2]));
+      
+      // Once the first timers are fired, the last one is fetched as well
+      addSecondsToCurrentTime(timerWheelProcessEngine, 10 * 60);
+      waitForAllJobsBeingExecuted(timerWheelProcessEngine);
+      Assert.assertEquals(3, processEngine.getTaskService().createTaskQuery().taskName("Task after timer").count());
+
+    } finally {
+      cleanup(processEngine);
+      cleanup(timerWheelProcessEngine);
+    }
+  }
+
+  // Helpers ////////////////////////////////////////////////////////
+
+  private ProcessEngine createProcessEngine(boolean enableAsyncExecutor, int lookahead) {
+    return createProcessEngine(enableAsyncExecutor, lookahead, 10000);
+  }
+
+  private ProcessEngine createProcessEngine(boolean enableAsyncExecutor, int lookahead, int maxWheelSize) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = new StandaloneInMemProcessEngineConfiguration();
+    processEngineConfiguration.setJdbcUrl("jdbc:h2:mem:activiti-TimerWheelTest;DB_CLOSE_DELAY=1000");
+    processEngineConfiguration.setDatabaseSchemaUpdate("true");
+    processEngineConfiguration.setAsyncExecutorActivate(enableAsyncExecutor);
+    processEngineConfiguration.setAsyncExecutorTimerWheelEnabled(true);
+    processEngineConfiguration.setAsyncExecutorTimerWheelLookahead(lookahead);
+    processEngineConfiguration.setAsyncExecutorTimerWheelMaxSize(maxWheelSize);
+    processEngineConfiguration.setAsyncExecutorDefaultTimerJobAcquireWaitTime(50);
+    processEngineConfiguration.setAsyncExecutorDefaultAsyncJobAcquireWaitTime(50);
+    return processEngineConfiguration.buildProcessEngine();
+  }
+
+  private TimerJobWheel getTimerJobWheel(ProcessEngine processEngine) {
+    DefaultAsyncJobExecutor asyncExecutor = (DefaultAsyncJobExecutor) processEngine.getProcessEngineConfiguration().getAsyncExecutor();
+    return ((TimerWheelAcquireTimerJobsRunnable) asyncExecutor.getTimerJobRunnable()).getTimerJobWheel();
+  }
+
+  private void waitUntilInWheel(TimerJobWheel wheel, String timerJobId) throws InterruptedException {
+    long end = System.currentTimeMillis() + 10000L;
+    while (!wheel.contains(timerJobId) && System.currentTimeMillis() < end) {
+      Thread.sleep(50L);
+    }
+    Assert.assertTrue(wheel.contains(timerJobId));
+  }
+
+  private String getLockOwner(ProcessEngine processEngine, String timerJobId) {
+    TimerJobEntity timerJob = (TimerJobEntity) processEngine.getManagementService().createTimerJobQuery().jobId(timerJobId).singleResult();
+    return timerJob.getLockOwner();
+  }
+
+  private Date setClockToCurrentTime(ProcessEngine processEngine) {
+    Date date = new Date();
+    processEngine.getProcessEngineConfiguration().getClock().setCurrentTime(date);
+    return date;
+  }
+
+  private void addSecondsToCurrentTime(ProcessEngine processEngine, long nrOfSeconds) {
+    Date currentTime = processEngine.getProcessEngineConfiguration().getClock().getCurrentTime();
+    processEngine.getProcessEngineConfiguration().getClock().setCurrentTime(new Date(currentTime.getTime() + (nrOfSeconds * 1000L)));
+  }
+
+  private void cleanup(ProcessEngine processEngine) {
+    if (processEngine == null) {
+      return;
+    }
+    for (org.activiti.engine.repository.Deployment deployment : processEngine.getRepositoryService().createDeploymentQuery().list()) {
+      processEngine.getRepositoryService().deleteDeployment(deployment.getId(), true);
+    }
+    processEngine.close();
+  }
+
+  private String deploy(ProcessEngine processEngine, String resource) {
+    return processEngine.getRepositoryService().createDeployment().addClasspathResource("org/activiti/engine/test/jobexecutor/" + resource).deploy().getId();
+  }
+
+  private void waitForAllJobsBeingExecuted(ProcessEngine processEngine) {
+    JobTestHelper.waitForJobExecutorToProcessAllJobsAndExecutableTimerJobs(processEngine.getProcessEngineConfiguration(), processEngine.getManagementService(), 10000L, 200L, false);
+  }
+
+}
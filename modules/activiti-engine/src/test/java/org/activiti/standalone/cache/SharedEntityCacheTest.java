@@ -0,0 +1,186 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.engine.identity.User;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCache;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCacheEvictionPolicy;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCachePolicy;
+import org.activiti.engine.impl.persistence.cache.SharedEntityCacheRegion;
+import org.activiti.engine.impl.persistence.entity.GroupEntityImpl;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntityImpl;
+import org.activiti.engine.impl.persistence.entity.UserEntity;
+import org.activiti.engine.impl.persistence.entity.UserEntityImpl;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.test.Deployment;
+
+public class SharedEntityCacheTest extends ResourceActivitiTestCase {
+
+  public SharedEntityCacheTest() {
+    super("org/activiti/standalone/cache/sharedentitycache.activiti.cfg.xml");
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    for (SharedEntityCacheRegion region : processEngineConfiguration.getSharedEntityCache().getRegions()) {
+      region.resetStatistics();
+    }
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testProcessDefinitionFromSharedCache() {
+    String processDefinitionId = repositoryService.createProcessDefinitionQuery().singleResult().getId();
+    SharedEntityCacheRegion region = processEngineConfiguration.getSharedEntityCache().getRegion(ProcessDefinitionEntityImpl.class);
+
+    ProcessDefinitionEntity first = findProcessDefinition(processDefinitionId);
+    ProcessDefinitionEntity second = findProcessDefinition(processDefinitionId);
+    assertTrue(region.getHitCount() > 0);
+
+    // Every command gets its own copy
+    assertNotSame(first, second);
+    assertEquals(first.getKey(), second.getKey());
+    assertEquals(first.getDeploymentId(), second.getDeploymentId());
+    assertEquals(first.getRevision(), second.getRevision());
+    assertEquals(first.getVersion(), second.getVersion());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testProcessDefinitionInvalidatedOnUpdate() {
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+    assertFalse(repositoryService.getProcessDefinition(processDefinition.getId()).isSuspended());
+    assertFalse(repositoryService.getProcessDefinition(processDefinition.getId()).isSuspended());
+
+    repositoryService.suspendProcessDefinitionById(processDefinition.getId());
+    assertTrue(repositoryService.getProcessDefinition(processDefinition.getId()).isSuspended());
+    assertTrue(findProcessDefinition(processDefinition.getId()).isSuspended());
+
+    repositoryService.activateProcessDefinitionById(processDefinition.getId());
+    assertFalse(findProcessDefinition(processDefinition.getId()).isSuspended());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testProcessDefinitionInvalidatedOnTenantChange() {
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+    assertEquals("", findProcessDefinition(processDefinition.getId()).getTenantId());
+
+    repositoryService.changeDeploymentTenantId(processDefinition.getDeploymentId(), "myTenant");
+    assertEquals("myTenant", findProcessDefinition(processDefinition.getId()).getTenantId());
+  }
+
+  public void testUserInvalidatedOnUpdateAndDelete() {
+    User user = identityService.newUser("kermit");
+    user.setFirstName("Kermit");
+    identityService.saveUser(user);
+
+    try {
+      assertEquals("Kermit", findUser("kermit").getFirstName());
+      assertEquals("Kermit", findUser("kermit").getFirstName());
+      assertTrue(processEngineConfiguration.getSharedEntityCache().getRegion(UserEntityImpl.class).getHitCount() > 0);
+
+      UserEntity userEntity = findUser("kermit");
+      userEntity.setFirstName("The frog");
+      identityService.saveUser(userEntity);
+      assertEquals("The frog", findUser("kermit").getFirstName());
+      assertEquals(userEntity.getRevision(), findUser("kermit").getRevision());
+
+    } finally {
+      identityService.deleteUser("kermit");
+    }
+    assertNull(findUser("kermit"));
+  }
+
+  public void testLruEviction() {
+    SharedEntityCache sharedEntityCache = createSharedEntityCache(SharedEntityCacheEvictionPolicy.LRU);
+    long[] invalidationStamps = sharedEntityCache.getInvalidationStamps();
+    sharedEntityCache.put(createGroup("a"), invalidationStamps);
+    sharedEntityCache.put(createGroup("b"), invalidationStamps);
+    assertNotNull(sharedEntityCache.get(GroupEntityImpl.class, "a"));
+    sharedEntityCache.put(createGroup("c"), invalidationStamps);
+
+    assertNotNull(sharedEntityCache.get(GroupEntityImpl.class, "a"));
+    assertNull(sharedEntityCache.get(GroupEntityImpl.class, "b"));
+    assertNotNull(sharedEntityCache.get(GroupEntityImpl.class, "c"));
+    assertEquals(1, sharedEntityCache.getRegion(GroupEntityImpl.class).getEvictionCount());
+  }
+
+  public void testLfuEviction() {
+    SharedEntityCache sharedEntityCache = createSharedEntityCache(SharedEntityCacheEvictionPolicy.LFU);
+    long[] invalidationStamps = sharedEntityCache.getInvalidationStamps();
+    sharedEntityCache.put(createGroup("a"), invalidationStamps);
+    sharedEntityCache.put(createGroup("b"), invalidationStamps);
+    sharedEntityCache.get(GroupEntityImpl.class, "a");
+    sharedEntityCache.get(GroupEntityImpl.class, "a");
+    sharedEntityCache.get(GroupEntityImpl.class, "b");
+    sharedEntityCache.put(createGroup("c"), invalidationStamps);
+
+    assertNotNull(sharedEntityCache.get(GroupEntityImpl.class, "a"));
+    assertNull(sharedEntityCache.get(GroupEntityImpl.class, "b"));
+    assertNotNull(sharedEntityCache.get(GroupEntityImpl.class, "c"));
+  }
+
+  public void testStalePutRejected() {
+    SharedEntityCache sharedEntityCache = createSharedEntityCache(SharedEntityCacheEvictionPolicy.LRU);
+    long[] invalidationStamps = sharedEntityCache.getInvalidationStamps();
+
+    // The group was changed by another command after this one started
+    sharedEntityCache.invalidate(GroupEntityImpl.class, "a");
+    assertFalse(sharedEntityCache.put(createGroup("a"), invalidationStamps));
+    assertNull(sharedEntityCache.get(GroupEntityImpl.class, "a"));
+
+    assertTrue(sharedEntityCache.put(createGroup("a"), sharedEntityCache.getInvalidationStamps()));
+    assertEquals(1, sharedEntityCache.getRegion(GroupEntityImpl.class).getRejectedPutCount());
+
+    // Not cached at all
+    assertFalse(sharedEntityCache.put(new UserEntityImpl(), invalidationStamps));
+    assertNull(sharedEntityCache.getRegion(UserEntityImpl.class));
+  }
+
+  protected SharedEntityCache createSharedEntityCache(SharedEntityCacheEvictionPolicy evictionPolicy) {
+    Map<Class<?>, SharedEntityCachePolicy> policies = new HashMap<Class<?>, SharedEntityCachePolicy>();
+    policies.put(GroupEntityImpl.class, SharedEntityCachePolicy.READ_MOSTLY);
+    policies.put(UserEntityImpl.class, SharedEntityCachePolicy.DISABLED);
+    return new SharedEntityCache(policies, evictionPolicy, 2);
+  }
+
+  protected GroupEntityImpl createGroup(String id) {
+    GroupEntityImpl group = new GroupEntityImpl();
+    group.setId(id);
+    group.setName("Group " + id);
+    return group;
+  }
+
+  protected ProcessDefinitionEntity findProcessDefinition(final String processDefinitionId) {
+    return managementService.executeCommand(new Command<ProcessDefinitionEntity>() {
+      public ProcessDefinitionEntity execute(CommandContext commandContext) {
+        return commandContext.getProcessDefinitionEntityManager().findById(processDefinitionId);
+      }
+    });
+  }
+
+  protected UserEntity findUser(final String userId) {
+    return managementService.executeCommand(new Command<UserEntity>() {
+      public UserEntity execute(CommandContext commandContext) {
+        return commandContext.getUserEntityManager().findById(userId);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,133 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.db;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class BatchFlushTest extends ResourceActivitiTestCase {
+
+  public BatchFlushTest() {
+    super("org/activiti/standalone/db/batchflush.activiti.cfg.xml");
+  }
+
+  public void testBatchFlushEnabled() {
+    assertTrue(processEngineConfiguration.isBatchFlushEnabled());
+    assertTrue(processEngineConfiguration.getDbSqlSessionFactory().isBatchFlushEnabled());
+  }
+
+  public void testBatchUpdateCountsReportedDetected() {
+    // Not configured, so detected when the engine was built: H2 returns the update counts of batched statements
+    assertNull(processEngineConfiguration.getBatchUpdateCountsReported());
+    assertTrue(processEngineConfiguration.getDbSqlSessionFactory().isBatchUpdateCountsReported());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testProcessLifecycle() {
+    // More variables than fit in one bulk insert
+    Map<String, Object> variables = new HashMap<String, Object>();
+    for (int i = 0; i < 25; i++) {
+      variables.put("var" + i, i);
+    }
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+    assertEquals(25, runtimeService.getVariables(processInstance.getId()).size());
+
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.addCandidateUser(task.getId(), "kermit");
+    taskService.setVariable(task.getId(), "var0", "updated");
+    assertEquals("updated", runtimeService.getVariable(processInstance.getId(), "var0"));
+
+    taskService.complete(task.getId());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+    assertEquals(0, runtimeService.createExecutionQuery().count());
+
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().finished().count());
+    assertEquals(25, historyService.createHistoricVariableInstanceQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(3, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals("updated", historyService.createHistoricVariableInstanceQuery()
+        .processInstanceId(processInstance.getId()).variableName("var0").singleResult().getValue());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testOptimisticLockingOnUpdate() {
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    Task task1 = taskService.createTaskQuery().singleResult();
+    Task task2 = taskService.createTaskQuery().singleResult();
+
+    task1.setDescription("first");
+    taskService.saveTask(task1);
+
+    task2.setDescription("second");
+    try {
+      taskService.saveTask(task2);
+      fail("expected optimistic locking exception");
+    } catch (ActivitiOptimisticLockingException e) {
+      // expected
+    }
+
+    assertEquals("first", taskService.createTaskQuery().singleResult().getDescription());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testUpdateCountsNotReported() {
+    // As if the driver returned Statement.SUCCESS_NO_INFO: the checked statements are executed without batching
+    processEngineConfiguration.getDbSqlSessionFactory().setBatchUpdateCountsReported(false);
+    try {
+      testProcessLifecycle();
+      testOptimisticLockingOnUpdate();
+    } finally {
+      processEngineConfiguration.getDbSqlSessionFactory().setBatchUpdateCountsReported(true);
+    }
+  }
+
+  public void testOptimisticLockingOnDelete() {
+    Task task = taskService.newTask();
+    taskService.saveTask(task);
+    final String taskId = task.getId();
+    
+    final TaskEntity staleTask = managementService.executeCommand(new Command<TaskEntity>() {
+      public TaskEntity execute(CommandContext commandContext) {
+        return commandContext.getTaskEntityManager().findById(taskId);
+      }
+    });
+
+    task.setName("updated");
+    taskService.saveTask(task);
+
+    try {
+      managementService.executeCommand(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          commandContext.getDbSqlSession().delete(staleTask);
+          return null;
+        }
+      });
+      fail("expected optimistic locking exception");
+    } catch (ActivitiOptimisticLockingException e) {
+      // expected
+    }
+    assertEquals(1, taskService.createTaskQuery().taskId(taskId).count());
+
+    taskService.deleteTask(taskId, true);
+    assertEquals(0, taskService.createTaskQuery().taskId(taskId).count());
+  }
+
+}
@@ -0,0 +1,162 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.deploy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.text.MessageFormat;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.ValuedDataObject;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
+import org.activiti.engine.impl.persistence.entity.ResourceEntity;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.task.Task;
+
+public class BpmnModelSnapshotCacheTest extends ResourceActivitiTestCase {
+
+  protected static final String PROCESS_TEMPLATE = "/org/activiti/standalone/deploy/deploymentCacheTest.bpmn20.xml";
+  protected static final String RESOURCE_NAME = "snapshot/process.bpmn20.xml";
+
+  public BpmnModelSnapshotCacheTest() {
+    super("org/activiti/standalone/deploy/bpmn.model.snapshot.test.activiti.cfg.xml");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (Deployment deployment : repositoryService.createDeploymentQuery().list()) {
+      repositoryService.deleteDeployment(deployment.getId(), true);
+    }
+    super.tearDown();
+  }
+
+  public void testSnapshotUsedWhenDeploymentIsParsedAgain() {
+    String deploymentId = deployProcess();
+
+    // The snapshot is written when the deployment is committed
+    BpmnModel snapshot = getSnapshot(deploymentId);
+    assertNotNull(snapshot);
+    assertEquals("myProcess1", snapshot.getMainProcess().getId());
+
+    // Change the snapshot, to tell it apart from the XML
+    snapshot.getMainProcess().setName("From snapshot");
+    putSnapshot(deploymentId, snapshot);
+
+    processEngineConfiguration.getProcessDefinitionCache().clear();
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+    assertEquals("From snapshot", repositoryService.getBpmnModel(processDefinition.getId()).getMainProcess().getName());
+
+    // The behaviors are attached to the restored model
+    runtimeService.startProcessInstanceByKey("myProcess1");
+    Task task = taskService.createTaskQuery().singleResult();
+    assertEquals("my task", task.getName());
+    taskService.complete(task.getId());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+  }
+
+  public void testUnreadableSnapshotIgnored() throws Exception {
+    String deploymentId = deployProcess();
+    File snapshotFile = findSnapshotFile(deploymentId);
+    assertNotNull(snapshotFile);
+
+    FileOutputStream out = new FileOutputStream(snapshotFile);
+    out.write(new byte[] { 1, 2, 3 });
+    out.close();
+    assertNull(getSnapshot(deploymentId));
+
+    // The resource is parsed from the XML, and the snapshot is written again
+    processEngineConfiguration.getProcessDefinitionCache().clear();
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+    assertEquals("The Best Process In The Whole Wide World", repositoryService.getBpmnModel(processDefinition.getId()).getMainProcess().getName());
+    assertNotNull(getSnapshot(deploymentId));
+
+    runtimeService.startProcessInstanceByKey("myProcess1");
+    assertEquals(1, taskService.createTaskQuery().count());
+  }
+
+  public void testSnapshotWithUnexpectedClassIgnored() {
+    String deploymentId = deployProcess();
+
+    // A class outside of the model and the JDK classes it uses isn't deserialized
+    BpmnModel snapshot = getSnapshot(deploymentId);
+    UnexpectedDataObject dataObject = new UnexpectedDataObject();
+    dataObject.setId("unexpected");
+    snapshot.getMainProcess().addFlowElement(dataObject);
+    putSnapshot(deploymentId, snapshot);
+    assertNull(getSnapshot(deploymentId));
+
+    processEngineConfiguration.getProcessDefinitionCache().clear();
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+    assertNull(repositoryService.getBpmnModel(processDefinition.getId()).getMainProcess().getFlowElement("unexpected"));
+  }
+
+  public void testSnapshotsRemovedWithDeployment() {
+    String deploymentId = deployProcess();
+    assertNotNull(findSnapshotFile(deploymentId));
+
+    repositoryService.deleteDeployment(deploymentId, true);
+    assertNull(findSnapshotFile(deploymentId));
+  }
+
+  protected String deployProcess() {
+    String processTemplate = DeploymentCacheTestUtil.readTemplateFile(PROCESS_TEMPLATE);
+    return repositoryService.createDeployment()
+        .addString(RESOURCE_NAME, MessageFormat.format(processTemplate, 1))
+        .deploy()
+        .getId();
+  }
+
+  protected File findSnapshotFile(String deploymentId) {
+    File[] files = new File(processEngineConfiguration.getBpmnModelSnapshotDirectory(), deploymentId).listFiles();
+    return files != null && files.length == 1 ? files[0] : null;
+  }
+
+  protected BpmnModel getSnapshot(final String deploymentId) {
+    return managementService.executeCommand(new Command<BpmnModel>() {
+      public BpmnModel execute(CommandContext commandContext) {
+        DeploymentEntity deployment = commandContext.getDeploymentEntityManager().findById(deploymentId);
+        ResourceEntity resource = deployment.getResources().get(RESOURCE_NAME);
+        return processEngineConfiguration.getBpmnModelSnapshotCache().get(deployment, resource);
+      }
+    });
+  }
+
+  protected void putSnapshot(final String deploymentId, final BpmnModel bpmnModel) {
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        DeploymentEntity deployment = commandContext.getDeploymentEntityManager().findById(deploymentId);
+        ResourceEntity resource = deployment.getResources().get(RESOURCE_NAME);
+        processEngineConfiguration.getBpmnModelSnapshotCache().put(deployment, resource, bpmnModel);
+        return null;
+      }
+    });
+  }
+
+  public static class UnexpectedDataObject extends ValuedDataObject {
+
+    public void setValue(Object value) {
+      this.value = value;
+    }
+
+    public UnexpectedDataObject clone() {
+      UnexpectedDataObject clone = new UnexpectedDataObject();
+      clone.setValues(this);
+      return clone;
+    }
+  }
+
+}
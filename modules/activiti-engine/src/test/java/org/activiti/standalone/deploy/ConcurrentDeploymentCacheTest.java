@@ -0,0 +1,126 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.deploy;
+
+import java.text.MessageFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.engine.impl.persistence.deploy.ConcurrentDeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionCacheEntry;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.repository.ProcessDefinition;
+
+public class ConcurrentDeploymentCacheTest extends ResourceActivitiTestCase {
+
+  public ConcurrentDeploymentCacheTest() {
+    super("org/activiti/standalone/deploy/concurrent.deployment.cache.test.activiti.cfg.xml");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (Deployment deployment : repositoryService.createDeploymentQuery().list()) {
+      repositoryService.deleteDeployment(deployment.getId(), true);
+    }
+    super.tearDown();
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testProcessDefinitionsEvictedByWeight() {
+    ConcurrentDeploymentCache<ProcessDefinitionCacheEntry> processDefinitionCache = 
+        (ConcurrentDeploymentCache<ProcessDefinitionCacheEntry>) processEngineConfiguration.getProcessDefinitionCache();
+    assertEquals(0, processDefinitionCache.size());
+
+    String processDefinitionTemplate = DeploymentCacheTestUtil.readTemplateFile("/org/activiti/standalone/deploy/deploymentCacheTest.bpmn20.xml");
+    for (int i = 1; i <= 3; i++) {
+      repositoryService.createDeployment().addString("Process " + i + ".bpmn20.xml", MessageFormat.format(processDefinitionTemplate, i)).deploy();
+    }
+    assertEquals(2, processDefinitionCache.size());
+    assertEquals(12, processDefinitionCache.getWeight());
+    assertEquals(1, processDefinitionCache.getEvictionCount());
+
+    // The evicted process definition is loaded again
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().processDefinitionKey("myProcess1").singleResult();
+    assertFalse(processDefinitionCache.contains(processDefinition.getId()));
+    runtimeService.startProcessInstanceByKey("myProcess1");
+    assertTrue(processDefinitionCache.contains(processDefinition.getId()));
+    assertEquals(1, processDefinitionCache.getLoadCount());
+    assertEquals(2, processDefinitionCache.getEvictionCount());
+    assertTrue(processDefinitionCache.getHitCount() > 0);
+    assertTrue(processDefinitionCache.getMissCount() > 0);
+  }
+
+  public void testLeastRecentlyUsedEvicted() {
+    ConcurrentDeploymentCache<String> cache = new ConcurrentDeploymentCache<String>(2);
+    cache.add("a", "A");
+    cache.add("b", "B");
+    assertEquals("A", cache.get("a"));
+
+    cache.add("c", "C");
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains("a"));
+    assertFalse(cache.contains("b"));
+    assertTrue(cache.contains("c"));
+
+    cache.remove("a");
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getWeight());
+  }
+
+  public void testConcurrentMissesLoadOnce() throws Exception {
+    final ConcurrentDeploymentCache<String> cache = new ConcurrentDeploymentCache<String>();
+    final CountDownLatch loadStarted = new CountDownLatch(1);
+    final CountDownLatch finishLoad = new CountDownLatch(1);
+    final AtomicInteger loaderCalls = new AtomicInteger();
+    final Callable<String> loader = new Callable<String>() {
+      public String call() throws Exception {
+        loaderCalls.incrementAndGet();
+        loadStarted.countDown();
+        finishLoad.await(10, TimeUnit.SECONDS);
+        return "A";
+      }
+    };
+
+    final String[] results = new String[2];
+    Thread[] threads = new Thread[2];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        public void run() {
+          results[index] = cache.get("a", loader);
+        }
+      };
+    }
+
+    threads[0].start();
+    assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+    threads[1].start();
+    // Give the second thread the time to run into the load of the first one
+    Thread.sleep(100);
+    finishLoad.countDown();
+    for (Thread thread : threads) {
+      thread.join(10000);
+    }
+
+    assertEquals("A", results[0]);
+    assertEquals("A", results[1]);
+    assertEquals(1, loaderCalls.get());
+    assertEquals(1, cache.getLoadCount());
+    assertEquals("A", cache.get("a"));
+  }
+
+}
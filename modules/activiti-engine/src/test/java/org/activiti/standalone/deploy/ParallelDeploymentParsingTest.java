@@ -0,0 +1,165 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.deploy;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.repository.DeploymentBuilder;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.validation.ProcessValidator;
+import org.activiti.validation.ValidationError;
+import org.activiti.validation.validator.ValidatorSet;
+
+public class ParallelDeploymentParsingTest extends ResourceActivitiTestCase {
+
+  protected static final String PROCESS_TEMPLATE = "/org/activiti/standalone/deploy/deploymentCacheTest.bpmn20.xml";
+  protected static final String INVALID_PROCESS_TEMPLATE = "/org/activiti/standalone/deploy/parallelDeploymentParsingInvalid.bpmn20.xml";
+
+  public ParallelDeploymentParsingTest() {
+    super("org/activiti/standalone/deploy/parallel.deployment.parsing.test.activiti.cfg.xml");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (Deployment deployment : repositoryService.createDeploymentQuery().list()) {
+      repositoryService.deleteDeployment(deployment.getId(), true);
+    }
+    super.tearDown();
+  }
+
+  public void testDeployManyResources() {
+    String processTemplate = DeploymentCacheTestUtil.readTemplateFile(PROCESS_TEMPLATE);
+    DeploymentBuilder deploymentBuilder = repositoryService.createDeployment().name("parallel");
+    for (int i = 0; i < 12; i++) {
+      deploymentBuilder.addString("process" + i + ".bpmn20.xml", MessageFormat.format(processTemplate, i));
+    }
+    String deploymentId = deploymentBuilder.deploy().getId();
+
+    List<ProcessDefinition> processDefinitions = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).list();
+    assertEquals(12, processDefinitions.size());
+    for (ProcessDefinition processDefinition : processDefinitions) {
+      String index = processDefinition.getKey().substring("myProcess".length());
+      assertEquals("process" + index + ".bpmn20.xml", processDefinition.getResourceName());
+      assertNotNull(repositoryService.getBpmnModel(processDefinition.getId()).getMainProcess());
+    }
+
+    // the parsed processes are executable
+    runtimeService.startProcessInstanceByKey("myProcess7");
+    assertEquals(1, taskService.createTaskQuery().processDefinitionKey("myProcess7").count());
+  }
+
+  public void testValidationErrorOfOneResourceFailsDeployment() {
+    String processTemplate = DeploymentCacheTestUtil.readTemplateFile(PROCESS_TEMPLATE);
+    String invalidProcessTemplate = DeploymentCacheTestUtil.readTemplateFile(INVALID_PROCESS_TEMPLATE);
+    DeploymentBuilder deploymentBuilder = repositoryService.createDeployment().name("parallel");
+    for (int i = 0; i < 4; i++) {
+      deploymentBuilder.addString("process" + i + ".bpmn20.xml", MessageFormat.format(processTemplate, i));
+    }
+    deploymentBuilder.addString("invalid.bpmn20.xml", MessageFormat.format(invalidProcessTemplate, 0));
+
+    try {
+      deploymentBuilder.deploy();
+      fail();
+    } catch (ActivitiException e) {
+      assertTextPresent("Errors while parsing", e.getMessage());
+    }
+    assertEquals(0, repositoryService.createDeploymentQuery().count());
+    assertEquals(0, repositoryService.createProcessDefinitionQuery().count());
+  }
+
+  public void testUnchangedResourceIsNotValidatedAgain() {
+    String processTemplate = DeploymentCacheTestUtil.readTemplateFile(PROCESS_TEMPLATE);
+    ProcessValidator originalProcessValidator = processEngineConfiguration.getProcessValidator();
+    CountingProcessValidator processValidator = new CountingProcessValidator(originalProcessValidator);
+    processEngineConfiguration.setProcessValidator(processValidator);
+    try {
+      repositoryService.createDeployment().name("unchanged")
+        .addString("process.bpmn20.xml", MessageFormat.format(processTemplate, 0))
+        .deploy();
+      assertEquals(1, processValidator.validatedModelCount.get());
+
+      // unchanged, so not validated again
+      repositoryService.createDeployment().name("unchanged")
+        .addString("process.bpmn20.xml", MessageFormat.format(processTemplate, 0))
+        .addString("other.bpmn20.xml", MessageFormat.format(processTemplate, 1))
+        .deploy();
+      assertEquals(2, processValidator.validatedModelCount.get());
+
+      // still unchanged compared to the previous deployment, which skipped the validation of the validated resource
+      repositoryService.createDeployment().name("unchanged")
+        .addString("process.bpmn20.xml", MessageFormat.format(processTemplate, 0))
+        .addString("other.bpmn20.xml", MessageFormat.format(processTemplate, 2))
+        .deploy();
+      assertEquals(3, processValidator.validatedModelCount.get());
+
+      // unchanged, but compared with a deployment of another name or tenant
+      repositoryService.createDeployment().name("other")
+        .addString("process.bpmn20.xml", MessageFormat.format(processTemplate, 0))
+        .deploy();
+      assertEquals(4, processValidator.validatedModelCount.get());
+      repositoryService.createDeployment().name("unchanged").tenantId("tenant")
+        .addString("process.bpmn20.xml", MessageFormat.format(processTemplate, 0))
+        .deploy();
+      assertEquals(5, processValidator.validatedModelCount.get());
+
+    } finally {
+      processEngineConfiguration.setProcessValidator(originalProcessValidator);
+    }
+  }
+
+  public void testResourceDeployedWithoutValidationIsValidated() {
+    String invalidProcessTemplate = DeploymentCacheTestUtil.readTemplateFile(INVALID_PROCESS_TEMPLATE);
+
+    repositoryService.createDeployment().name("unvalidated")
+      .addString("invalid.bpmn20.xml", MessageFormat.format(invalidProcessTemplate, 0))
+      .disableBpmnValidation()
+      .deploy();
+
+    // unchanged, but never validated
+    try {
+      repositoryService.createDeployment().name("unvalidated")
+        .addString("invalid.bpmn20.xml", MessageFormat.format(invalidProcessTemplate, 0))
+        .deploy();
+      fail();
+    } catch (ActivitiException e) {
+      assertTextPresent("Errors while parsing", e.getMessage());
+    }
+  }
+
+  protected static class CountingProcessValidator implements ProcessValidator {
+
+    protected ProcessValidator processValidator;
+    protected AtomicInteger validatedModelCount = new AtomicInteger();
+
+    public CountingProcessValidator(ProcessValidator processValidator) {
+      this.processValidator = processValidator;
+    }
+
+    public List<ValidationError> validate(BpmnModel bpmnModel) {
+      validatedModelCount.incrementAndGet();
+      return processValidator.validate(bpmnModel);
+    }
+
+    public List<ValidatorSet> getValidatorSets() {
+      return processValidator.getValidatorSets();
+    }
+
+  }
+
+}
@@ -0,0 +1,137 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.el;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.activiti.engine.delegate.Expression;
+import org.activiti.engine.impl.el.ExpressionCache;
+import org.activiti.engine.impl.el.ExpressionManager;
+import org.activiti.engine.impl.el.ExpressionStatistics;
+import org.activiti.engine.impl.el.JuelExpression;
+import org.activiti.engine.impl.el.NoExecutionVariableScope;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.test.Deployment;
+
+public class ExpressionCacheTest extends ResourceActivitiTestCase {
+
+  public ExpressionCacheTest() {
+    super("org/activiti/standalone/el/expressioncache.activiti.cfg.xml");
+  }
+
+  public void testExpressionIsParsedOnce() {
+    ExpressionManager expressionManager = processEngineConfiguration.getExpressionManager();
+    ExpressionCache expressionCache = processEngineConfiguration.getExpressionCache();
+    assertSame(expressionCache, expressionManager.getExpressionCache());
+    assertNotSame(ExpressionCache.getSharedInstance(), expressionCache);
+
+    long hitCount = expressionCache.getHitCount();
+    JuelExpression first = (JuelExpression) expressionManager.createExpression("${1 + 2}");
+    JuelExpression second = (JuelExpression) expressionManager.createExpression(" ${1 + 2} ");
+    assertNotSame(first, second);
+    assertSame(first.getStatistics(), second.getStatistics());
+    assertEquals(" ${1 + 2} ", second.getExpressionText());
+    assertEquals(hitCount + 1, expressionCache.getHitCount());
+
+    final Expression expression = second;
+    Object value = managementService.executeCommand(new Command<Object>() {
+      public Object execute(CommandContext commandContext) {
+        return expression.getValue(NoExecutionVariableScope.getSharedInstance());
+      }
+    });
+    assertEquals(3L, value);
+    assertEquals(1, first.getStatistics().getEvaluationCount());
+    assertEquals(0, first.getStatistics().getFailureCount());
+  }
+
+  @Deployment(resources = "org/activiti/standalone/el/ExpressionCacheTest.bpmn20.xml")
+  public void testConditionStatistics() {
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("expressionCache", Collections.<String, Object>singletonMap("amount", 100 * i));
+    }
+    assertEquals(1, taskService.createTaskQuery().taskName("Large amount").count());
+    assertEquals(2, taskService.createTaskQuery().taskName("Small amount").count());
+
+    ExpressionStatistics statistics = null;
+    for (ExpressionStatistics expressionStatistics : processEngineConfiguration.getExpressionCache().getStatistics()) {
+      if ("${amount > 100}".equals(expressionStatistics.getExpressionText())) {
+        statistics = expressionStatistics;
+      }
+    }
+    assertNotNull(statistics);
+    assertEquals(3, statistics.getEvaluationCount());
+    assertTrue(statistics.getTotalEvaluationTimeInNanos() >= statistics.getMaxEvaluationTimeInNanos());
+  }
+
+  public void testLeastRecentlyUsedExpressionIsEvicted() {
+    ExpressionManager expressionManager = new ExpressionManager();
+    ExpressionCache expressionCache = new ExpressionCache(2);
+    expressionManager.setExpressionCache(expressionCache);
+
+    expressionManager.createExpression("${a}");
+    expressionManager.createExpression("${b}");
+    expressionManager.createExpression("${a}");
+    expressionManager.createExpression("${c}");
+    assertEquals(2, expressionCache.size());
+    assertEquals(1, expressionCache.getEvictionCount());
+
+    // ${b} was the least recently used one
+    long missCount = expressionCache.getMissCount();
+    expressionManager.createExpression("${a}");
+    assertEquals(missCount, expressionCache.getMissCount());
+    expressionManager.createExpression("${b}");
+    assertEquals(missCount + 1, expressionCache.getMissCount());
+
+    // Statistics are only collected when enabled
+    assertNull(((JuelExpression) expressionManager.createExpression("${a}")).getStatistics());
+  }
+
+  public void testConcurrentUse() throws Exception {
+    final ExpressionManager expressionManager = new ExpressionManager();
+    final ExpressionCache expressionCache = new ExpressionCache(10);
+    expressionManager.setExpressionCache(expressionCache);
+
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      final int threadIndex = i;
+      Thread thread = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 1000; j++) {
+              Expression expression = expressionManager.createExpression("${" + ((j * (threadIndex + 1)) % 20) + "}");
+              assertNotNull(expression);
+            }
+          } catch (Throwable t) {
+            failures.add(t);
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertTrue(failures.toString(), failures.isEmpty());
+    // A put skips the eviction while another thread is evicting, so there can be a few more entries than the maximum
+    assertTrue(expressionCache.size() <= 10 + threads.size());
+    assertEquals(expressionCache.size(), expressionCache.getStatistics().size());
+  }
+
+}
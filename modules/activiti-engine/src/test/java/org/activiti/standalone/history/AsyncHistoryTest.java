@@ -0,0 +1,230 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.standalone.history;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.history.HistoricActivityInstance;
+import org.activiti.engine.history.HistoricDetail;
+import org.activiti.engine.history.HistoricProcessInstance;
+import org.activiti.engine.history.HistoricVariableInstance;
+import org.activiti.engine.history.HistoricVariableUpdate;
+import org.activiti.engine.impl.history.AsyncHistoryManager;
+import org.activiti.engine.impl.jobexecutor.AsyncHistoryJobHandler;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * Tests the history written through the {@link AsyncHistoryManager}.
+ */
+public class AsyncHistoryTest extends ResourceActivitiTestCase {
+
+  public AsyncHistoryTest() {
+    super("org/activiti/standalone/history/asynchistory.activiti.cfg.xml");
+  }
+
+  @Deployment(resources = "org/activiti/standalone/history/AsyncHistoryTest.bpmn20.xml")
+  public void testActivityHistoryIsWrittenByJob() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+
+    // The process instance itself is written synchronously, the activities are not
+    HistoricProcessInstance historicProcessInstance = historyService.createHistoricProcessInstanceQuery().processInstanceId(processInstance.getId()).singleResult();
+    assertNotNull(historicProcessInstance);
+    assertEquals(0, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).count());
+    
+    List<Job> jobs = managementService.createJobQuery().list();
+    assertEquals(1, jobs.size());
+    assertEquals(AsyncHistoryJobHandler.TYPE, ((JobEntity) jobs.get(0)).getJobHandlerType());
+
+    executeHistoryJobs();
+    
+    HistoricActivityInstance startEvent = historyService.createHistoricActivityInstanceQuery()
+        .processInstanceId(processInstance.getId()).activityId("start").singleResult();
+    assertNotNull(startEvent.getEndTime());
+    assertEquals("startEvent", startEvent.getActivityType());
+    
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    HistoricActivityInstance userTask = historyService.createHistoricActivityInstanceQuery()
+        .processInstanceId(processInstance.getId()).activityId("task").singleResult();
+    assertNull(userTask.getEndTime());
+    assertEquals("Review", userTask.getActivityName());
+    assertEquals("userTask", userTask.getActivityType());
+    assertEquals(task.getId(), userTask.getTaskId());
+    assertEquals("kermit", userTask.getAssignee());
+    assertEquals(processInstance.getProcessDefinitionId(), userTask.getProcessDefinitionId());
+
+    // The activity is ended by an event queued in a later command
+    taskService.setAssignee(task.getId(), "fozzie");
+    taskService.complete(task.getId());
+    
+    assertEquals(0, runtimeService.createProcessInstanceQuery().processInstanceId(processInstance.getId()).count());
+    assertNull(historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).activityId("end").singleResult());
+    
+    executeHistoryJobs();
+    
+    userTask = historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).activityId("task").singleResult();
+    assertNotNull(userTask.getEndTime());
+    assertEquals("fozzie", userTask.getAssignee());
+    assertEquals(3, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).finished().count());
+    assertProcessEnded(processInstance.getId());
+  }
+
+  @Deployment(resources = "org/activiti/standalone/history/AsyncHistoryTest.bpmn20.xml")
+  public void testVariableHistoryIsWrittenByJob() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("number", 1);
+    variables.put("text", "one");
+    variables.put("bytes", ":-(".getBytes());
+    variables.put("removed", "two");
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory", variables);
+    
+    runtimeService.setVariable(processInstance.getId(), "number", 2);
+    runtimeService.setVariable(processInstance.getId(), "bytes", ":-)".getBytes());
+    runtimeService.removeVariable(processInstance.getId(), "removed");
+    
+    assertEquals(0, historyService.createHistoricVariableInstanceQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(0, historyService.createHistoricDetailQuery().processInstanceId(processInstance.getId()).count());
+    
+    executeHistoryJobs();
+    
+    List<HistoricVariableInstance> historicVariables = historyService.createHistoricVariableInstanceQuery()
+        .processInstanceId(processInstance.getId()).orderByVariableName().asc().list();
+    assertEquals(3, historicVariables.size());
+    assertEquals("bytes", historicVariables.get(0).getVariableName());
+    assertEquals(":-)", new String((byte[]) historicVariables.get(0).getValue()));
+    assertEquals("number", historicVariables.get(1).getVariableName());
+    assertEquals(2, historicVariables.get(1).getValue());
+    assertEquals("text", historicVariables.get(2).getVariableName());
+    assertEquals("one", historicVariables.get(2).getValue());
+    
+    // Every variable change, including the removal, is kept as a detail
+    List<HistoricDetail> details = historyService.createHistoricDetailQuery().variableUpdates()
+        .processInstanceId(processInstance.getId()).orderByVariableName().asc().orderByVariableRevision().asc().list();
+    assertEquals(7, details.size());
+    assertEquals(":-(", new String((byte[]) ((HistoricVariableUpdate) details.get(0)).getValue()));
+    assertEquals(":-)", new String((byte[]) ((HistoricVariableUpdate) details.get(1)).getValue()));
+    assertEquals(1, ((HistoricVariableUpdate) details.get(2)).getValue());
+    assertEquals(2, ((HistoricVariableUpdate) details.get(3)).getValue());
+    assertEquals("two", ((HistoricVariableUpdate) details.get(4)).getValue());
+    assertEquals("removed", ((HistoricVariableUpdate) details.get(5)).getVariableName());
+    assertNull(((HistoricVariableUpdate) details.get(5)).getValue());
+    assertEquals("text", ((HistoricVariableUpdate) details.get(6)).getVariableName());
+    
+    taskService.complete(taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult().getId());
+    executeHistoryJobs();
+  }
+
+  @Deployment(resources = "org/activiti/standalone/history/AsyncHistoryTest.bpmn20.xml")
+  public void testPendingJobsOfProcessInstanceAreAppliedInOrder() throws Exception {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+    runtimeService.setVariable(processInstance.getId(), "var", "one");
+    runtimeService.setVariable(processInstance.getId(), "var", "two");
+    
+    // One job per command that changed history, linked to the process instance
+    List<Job> jobs = managementService.createJobQuery().list();
+    assertEquals(3, jobs.size());
+    for (Job job : jobs) {
+      assertEquals(processInstance.getId(), job.getProcessInstanceId());
+    }
+    
+    // The jobs are applied in the order of the sequence stored with their events, not by due date or id:
+    // later jobs (with a higher id) get an earlier due date
+    Connection connection = processEngineConfiguration.getDataSource().getConnection();
+    try {
+      PreparedStatement statement = connection.prepareStatement("update ACT_RU_JOB set DUEDATE_ = ? where ID_ = ?");
+      for (Job job : jobs) {
+        statement.setTimestamp(1, new Timestamp(1000000000L - Long.parseLong(job.getId())));
+        statement.setString(2, job.getId());
+        statement.executeUpdate();
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    } finally {
+      connection.close();
+    }
+    
+    // Executing any of the jobs applies the history of all commands, in order
+    managementService.executeJob(jobs.get(0).getId());
+    assertEquals(0, managementService.createJobQuery().count());
+    
+    assertEquals(1, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).finished().count());
+    HistoricVariableInstance historicVariable = historyService.createHistoricVariableInstanceQuery()
+        .processInstanceId(processInstance.getId()).variableName("var").singleResult();
+    assertEquals("two", historicVariable.getValue());
+    
+    taskService.complete(taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult().getId());
+    executeHistoryJobs();
+  }
+
+  @Deployment(resources = "org/activiti/standalone/history/AsyncHistoryTest.bpmn20.xml")
+  public void testPendingJobsAreMergedWhenProcessInstanceEnds() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+    runtimeService.setVariable(processInstance.getId(), "var", "one");
+    assertEquals(2, managementService.createJobQuery().count());
+    
+    // The jobs can't reference the deleted process instance, so its pending history ends up in a single job
+    taskService.complete(taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult().getId());
+    
+    Job job = managementService.createJobQuery().singleResult();
+    assertNotNull(job);
+    assertNull(job.getProcessInstanceId());
+    
+    managementService.executeJob(job.getId());
+    assertEquals(0, managementService.createJobQuery().count());
+    
+    assertEquals(3, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).finished().count());
+    assertEquals("one", historyService.createHistoricVariableInstanceQuery()
+        .processInstanceId(processInstance.getId()).variableName("var").singleResult().getValue());
+    assertProcessEnded(processInstance.getId());
+  }
+  
+  @Deployment(resources = "org/activiti/standalone/history/AsyncHistoryTest.bpmn20.xml")
+  public void testNoHistoryJobWhenCommandFails() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+    executeHistoryJobs();
+    
+    try {
+      runtimeService.setVariable(processInstance.getId(), "var", new Object()); // not serializable
+      fail("Exception expected");
+    } catch (Exception e) {
+      // expected
+    }
+    assertEquals(0, managementService.createJobQuery().count());
+    
+    runtimeService.deleteProcessInstance(processInstance.getId(), "test");
+    executeHistoryJobs();
+    assertEquals(0, historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstance.getId()).unfinished().count());
+  }
+
+  protected void executeHistoryJobs() {
+    for (Job job : managementService.createJobQuery().list()) {
+      // Earlier jobs can already have been applied together with another job of the same process instance
+      if (managementService.createJobQuery().jobId(job.getId()).count() > 0) {
+        managementService.executeJob(job.getId());
+      }
+    }
+    assertEquals(0, managementService.createJobQuery().count());
+  }
+
+}
@@ -0,0 +1,192 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.history.HistoricProcessInstance;
+import org.activiti.engine.history.HistoricVariableInstance;
+import org.activiti.engine.impl.db.DbSqlSessionFactory;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntityImpl;
+import org.activiti.engine.impl.persistence.entity.HistoricProcessInstanceEntityImpl;
+import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntityImpl;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.query.QueryResultHandler;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Tests {@link org.activiti.engine.query.Query#forEach(QueryResultHandler)}, with the results read through a cursor.
+ */
+public class QueryStreamTest extends ResourceActivitiTestCase {
+
+  public QueryStreamTest() {
+    this("org/activiti/standalone/history/querystream.activiti.cfg.xml");
+  }
+
+  protected QueryStreamTest(String activitiConfigurationResource) {
+    super(activitiConfigurationResource);
+  }
+
+  public void testStreamStatementUsesFetchSize() {
+    MappedStatement streamStatement = processEngineConfiguration.getSqlSessionFactory().getConfiguration()
+        .getMappedStatement("selectHistoricProcessInstancesByQueryCriteria" + DbSqlSessionFactory.STREAM_STATEMENT_SUFFIX);
+    assertEquals(Integer.valueOf(3), streamStatement.getFetchSize());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testForEachHistoricProcessInstance() {
+    for (int i = 0; i < 10; i++) {
+      runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    }
+
+    final List<String> ids = new ArrayList<String>();
+    historyService.createHistoricProcessInstanceQuery().processDefinitionKey("oneTaskProcess").orderByProcessInstanceId().asc()
+      .forEach(new QueryResultHandler<HistoricProcessInstance>() {
+        public void handleResult(HistoricProcessInstance historicProcessInstance) {
+          ids.add(historicProcessInstance.getId());
+        }
+      });
+
+    List<String> expectedIds = new ArrayList<String>();
+    for (HistoricProcessInstance historicProcessInstance : historyService.createHistoricProcessInstanceQuery().orderByProcessInstanceId().asc().list()) {
+      expectedIds.add(historicProcessInstance.getId());
+    }
+    assertEquals(10, ids.size());
+    assertEquals(expectedIds, ids);
+
+    // A query that matches nothing doesn't call the handler
+    historyService.createHistoricProcessInstanceQuery().processDefinitionKey("unexisting").forEach(new QueryResultHandler<HistoricProcessInstance>() {
+      public void handleResult(HistoricProcessInstance historicProcessInstance) {
+        fail();
+      }
+    });
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testForEachDoesNotFillEntityCache() {
+    for (int i = 0; i < 5; i++) {
+      runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    }
+
+    int count = managementService.executeCommand(new Command<Integer>() {
+      public Integer execute(CommandContext commandContext) {
+        final List<HistoricProcessInstance> results = new ArrayList<HistoricProcessInstance>();
+        historyService.createHistoricProcessInstanceQuery().forEach(new QueryResultHandler<HistoricProcessInstance>() {
+          public void handleResult(HistoricProcessInstance historicProcessInstance) {
+            results.add(historicProcessInstance);
+          }
+        });
+        assertTrue(commandContext.getEntityCache().findInCache(HistoricProcessInstanceEntityImpl.class).isEmpty());
+        return results.size();
+      }
+    });
+    assertEquals(5, count);
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testForEachHistoricVariableInstance() {
+    for (int i = 0; i < 4; i++) {
+      Map<String, Object> variables = new HashMap<String, Object>();
+      variables.put("index", i);
+      variables.put("name", "instance " + i);
+      variables.put("bytes", ("bytes " + i).getBytes());
+      runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+    }
+
+    final Map<String, List<Object>> values = managementService.executeCommand(new Command<Map<String, List<Object>>>() {
+      public Map<String, List<Object>> execute(CommandContext commandContext) {
+        final Map<String, List<Object>> values = new HashMap<String, List<Object>>();
+        historyService.createHistoricVariableInstanceQuery().forEach(new QueryResultHandler<HistoricVariableInstance>() {
+          public void handleResult(HistoricVariableInstance historicVariableInstance) {
+            List<Object> variableValues = values.get(historicVariableInstance.getVariableName());
+            if (variableValues == null) {
+              variableValues = new ArrayList<Object>();
+              values.put(historicVariableInstance.getVariableName(), variableValues);
+            }
+            variableValues.add(historicVariableInstance.getValue());
+          }
+        });
+        assertTrue(commandContext.getEntityCache().findInCache(HistoricVariableInstanceEntityImpl.class).isEmpty());
+        assertTrue(commandContext.getEntityCache().findInCache(ByteArrayEntityImpl.class).isEmpty());
+        return values;
+      }
+    });
+
+    assertEquals(3, values.size());
+    assertEquals(4, values.get("index").size());
+    assertTrue(values.get("index").containsAll(Arrays.asList(0, 1, 2, 3)));
+    assertTrue(values.get("name").contains("instance 2"));
+    List<String> bytes = new ArrayList<String>();
+    for (Object value : values.get("bytes")) {
+      bytes.add(new String((byte[]) value));
+    }
+    assertTrue(bytes.containsAll(Arrays.asList("bytes 0", "bytes 1", "bytes 2", "bytes 3")));
+
+    // Filtering still applies
+    final List<Object> filteredValues = new ArrayList<Object>();
+    historyService.createHistoricVariableInstanceQuery().variableName("name").forEach(new QueryResultHandler<HistoricVariableInstance>() {
+      public void handleResult(HistoricVariableInstance historicVariableInstance) {
+        filteredValues.add(historicVariableInstance.getValue());
+      }
+    });
+    assertEquals(4, filteredValues.size());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testForEachHandlerException() {
+    for (int i = 0; i < 5; i++) {
+      runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    }
+
+    final List<String> ids = new ArrayList<String>();
+    try {
+      historyService.createHistoricProcessInstanceQuery().forEach(new QueryResultHandler<HistoricProcessInstance>() {
+        public void handleResult(HistoricProcessInstance historicProcessInstance) {
+          ids.add(historicProcessInstance.getId());
+          if (ids.size() == 2) {
+            throw new ActivitiException("stop");
+          }
+        }
+      });
+      fail("Exception expected");
+    } catch (ActivitiException e) {
+      assertEquals("stop", e.getMessage());
+    }
+    assertEquals(2, ids.size());
+  }
+
+  @Deployment(resources = "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testForEachWithoutStreamingSupport() {
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    }
+
+    final List<String> taskIds = new ArrayList<String>();
+    taskService.createTaskQuery().forEach(new QueryResultHandler<Task>() {
+      public void handleResult(Task task) {
+        taskIds.add(task.getId());
+      }
+    });
+    assertEquals(3, taskIds.size());
+  }
+
+}
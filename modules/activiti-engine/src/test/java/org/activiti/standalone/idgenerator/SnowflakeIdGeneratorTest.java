@@ -0,0 +1,168 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.idgenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.activiti.engine.impl.cmd.AcquireIdNodeLeaseCmd;
+import org.activiti.engine.impl.db.IdNodeLease;
+import org.activiti.engine.impl.db.SnowflakeIdGenerator;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.PropertyEntityManager;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class SnowflakeIdGeneratorTest extends ResourceActivitiTestCase {
+
+  public SnowflakeIdGeneratorTest() throws Exception {
+    super("org/activiti/standalone/idgenerator/snowflakeidgenerator.test.activiti.cfg.xml");
+  }
+
+  @Deployment
+  public void testProcessUsage() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("simpleProcess");
+    assertEquals(13, processInstance.getId().length());
+
+    for (int i = 0; i < 3; i++) {
+      Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+      assertEquals(13, task.getId().length());
+      assertTrue(task.getId().compareTo(processInstance.getId()) > 0);
+      taskService.complete(task.getId());
+    }
+    assertProcessEnded(processInstance.getId());
+  }
+
+  public void testIdsAreUniqueAndOrderedPerThread() throws Exception {
+    final SnowflakeIdGenerator idGenerator = (SnowflakeIdGenerator) processEngineConfiguration.getIdGenerator();
+    final int idsPerThread = 20000;
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(executorService.submit(new Callable<List<String>>() {
+
+        public List<String> call() {
+          List<String> ids = new ArrayList<String>(idsPerThread);
+          for (int i = 0; i < idsPerThread; i++) {
+            ids.add(idGenerator.getNextId());
+          }
+          return ids;
+        }
+
+      }));
+    }
+
+    Set<String> allIds = new HashSet<String>();
+    for (Future<List<String>> future : futures) {
+      String previousId = null;
+      for (String id : future.get()) {
+        assertEquals(13, id.length());
+        if (previousId != null) {
+          assertTrue(previousId + " < " + id, previousId.compareTo(id) < 0);
+        }
+        previousId = id;
+        allIds.add(id);
+      }
+    }
+    executorService.shutdown();
+
+    assertEquals(4 * idsPerThread, allIds.size());
+  }
+
+  public void testNodeIdLeasedInPropertyTable() {
+    SnowflakeIdGenerator idGenerator = (SnowflakeIdGenerator) processEngineConfiguration.getIdGenerator();
+    idGenerator.getNextId();
+
+    Map<String, String> properties = managementService.getProperties();
+    String lease = properties.get(AcquireIdNodeLeaseCmd.PROPERTY_NAME_PREFIX + idGenerator.getNodeId());
+    assertNotNull(lease);
+    assertTrue(lease.startsWith(idGenerator.getOwner() + "|"));
+  }
+
+  public void testGeneratorsLeaseDifferentNodeIds() {
+    SnowflakeIdGenerator idGenerator = (SnowflakeIdGenerator) processEngineConfiguration.getIdGenerator();
+    idGenerator.getNextId();
+
+    SnowflakeIdGenerator otherIdGenerator = new SnowflakeIdGenerator();
+    otherIdGenerator.setCommandExecutor(processEngineConfiguration.getCommandExecutor());
+    otherIdGenerator.setCommandConfig(new CommandConfig().transactionRequiresNew());
+    otherIdGenerator.getNextId();
+
+    assertTrue(otherIdGenerator.getNodeId() >= 0);
+    assertFalse(idGenerator.getNodeId() == otherIdGenerator.getNodeId());
+
+    releaseLease(otherIdGenerator.getNodeId());
+  }
+
+  public void testLeaseIsOnlyTakenOverAfterExpiration() {
+    CommandExecutor commandExecutor = processEngineConfiguration.getCommandExecutor();
+    int nodeId = SnowflakeIdGenerator.MAX_NODE_ID;
+
+    IdNodeLease lease = commandExecutor.execute(new AcquireIdNodeLeaseCmd("owner1", nodeId, 60000L));
+    assertNotNull(lease);
+    assertEquals(nodeId, lease.getNodeId());
+
+    // still leased by owner1, which can renew it
+    assertNull(commandExecutor.execute(new AcquireIdNodeLeaseCmd("owner2", nodeId, 60000L)));
+    assertNotNull(commandExecutor.execute(new AcquireIdNodeLeaseCmd("owner1", nodeId, -1L)));
+
+    // the renewed lease has expired
+    assertNotNull(commandExecutor.execute(new AcquireIdNodeLeaseCmd("owner2", nodeId, 60000L)));
+    assertNull(commandExecutor.execute(new AcquireIdNodeLeaseCmd("owner1", nodeId, 60000L)));
+
+    releaseLease(nodeId);
+  }
+
+  public void testFixedNodeId() {
+    SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator();
+    idGenerator.setNodeId(42);
+
+    // no command executor needed
+    String id = idGenerator.getNextId();
+    assertEquals(13, id.length());
+    assertEquals(42, idGenerator.getNodeId());
+
+    try {
+      idGenerator.setNodeId(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+      fail();
+    } catch (Exception e) {
+      // expected
+    }
+  }
+
+  protected void releaseLease(final int nodeId) {
+    managementService.executeCommand(new Command<Void>() {
+
+      public Void execute(CommandContext commandContext) {
+        PropertyEntityManager propertyEntityManager = commandContext.getPropertyEntityManager();
+        propertyEntityManager.delete(propertyEntityManager.findById(AcquireIdNodeLeaseCmd.PROPERTY_NAME_PREFIX + nodeId));
+        return null;
+      }
+
+    });
+  }
+
+}
@@ -0,0 +1,180 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.history.HistoricTaskInstance;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * Runs task, process instance and historic task queries that include variables with the two phase variables fetch,
+ * with a chunk size of two ids.
+ */
+public class TwoPhaseQueryVariablesFetchTest extends ResourceActivitiTestCase {
+
+  protected static final int NR_OF_PROCESS_INSTANCES = 5;
+
+  public TwoPhaseQueryVariablesFetchTest() {
+    super("org/activiti/standalone/query/twophasequeryvariablesfetch.activiti.cfg.xml");
+  }
+
+  @Deployment(resources = "org/activiti/standalone/query/TwoPhaseQueryVariablesFetchTest.bpmn20.xml")
+  public void testTaskQueryIncludeVariables() {
+    startProcessInstances();
+
+    List<Task> tasks = taskService.createTaskQuery().includeProcessVariables().includeTaskLocalVariables().list();
+    assertEquals(NR_OF_PROCESS_INSTANCES, tasks.size());
+    for (Task task : tasks) {
+      assertProcessVariables(task.getProcessVariables());
+      assertTaskLocalVariables(task.getTaskLocalVariables());
+    }
+
+    tasks = taskService.createTaskQuery().includeProcessVariables().list();
+    for (Task task : tasks) {
+      assertProcessVariables(task.getProcessVariables());
+      assertEquals(0, task.getTaskLocalVariables().size());
+    }
+
+    tasks = taskService.createTaskQuery().includeTaskLocalVariables().list();
+    for (Task task : tasks) {
+      assertEquals(0, task.getProcessVariables().size());
+      assertTaskLocalVariables(task.getTaskLocalVariables());
+    }
+  }
+
+  @Deployment(resources = "org/activiti/standalone/query/TwoPhaseQueryVariablesFetchTest.bpmn20.xml")
+  public void testTaskQueryIncludeVariablesIsNotCappedByVariablesLimit() {
+    startProcessInstances();
+
+    // the outer join would return 20 rows, 5 tasks x (3 process + 1 local variables)
+    List<Task> tasks = taskService.createTaskQuery().includeProcessVariables().includeTaskLocalVariables().limitTaskVariables(4).list();
+    assertEquals(NR_OF_PROCESS_INSTANCES, tasks.size());
+    for (Task task : tasks) {
+      assertProcessVariables(task.getProcessVariables());
+      assertTaskLocalVariables(task.getTaskLocalVariables());
+    }
+  }
+
+  @Deployment(resources = "org/activiti/standalone/query/TwoPhaseQueryVariablesFetchTest.bpmn20.xml")
+  public void testTaskQueryIncludeVariablesWithPaging() {
+    List<String> processInstanceIds = startProcessInstances();
+
+    List<Task> tasks = taskService.createTaskQuery().includeProcessVariables().includeTaskLocalVariables()
+        .orderByProcessInstanceId().asc().listPage(1, 3);
+    assertEquals(3, tasks.size());
+
+    List<String> sortedProcessInstanceIds = new ArrayList<String>(processInstanceIds);
+    Collections.sort(sortedProcessInstanceIds);
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      assertEquals(sortedProcessInstanceIds.get(i + 1), task.getProcessInstanceId());
+      assertProcessVariables(task.getProcessVariables());
+      assertTaskLocalVariables(task.getTaskLocalVariables());
+    }
+  }
+
+  public void testStandaloneTaskIncludeVariables() {
+    Task task = taskService.newTask();
+    taskService.saveTask(task);
+    try {
+      taskService.setVariableLocal(task.getId(), "localVar", "standalone");
+
+      task = taskService.createTaskQuery().taskId(task.getId()).includeProcessVariables().includeTaskLocalVariables().singleResult();
+      assertEquals(0, task.getProcessVariables().size());
+      assertEquals(1, task.getTaskLocalVariables().size());
+      assertEquals("standalone", task.getTaskLocalVariables().get("localVar"));
+
+    } finally {
+      taskService.deleteTask(task.getId(), true);
+    }
+  }
+
+  @Deployment(resources = "org/activiti/standalone/query/TwoPhaseQueryVariablesFetchTest.bpmn20.xml")
+  public void testProcessInstanceQueryIncludeVariables() {
+    startProcessInstances();
+
+    List<ProcessInstance> processInstances = runtimeService.createProcessInstanceQuery().includeProcessVariables().list();
+    assertEquals(NR_OF_PROCESS_INSTANCES, processInstances.size());
+    for (ProcessInstance processInstance : processInstances) {
+      // the task local variable is not a process variable
+      assertProcessVariables(processInstance.getProcessVariables());
+    }
+
+    processInstances = runtimeService.createProcessInstanceQuery().includeProcessVariables().orderByProcessInstanceId().desc().listPage(3, 10);
+    assertEquals(2, processInstances.size());
+    for (ProcessInstance processInstance : processInstances) {
+      assertProcessVariables(processInstance.getProcessVariables());
+    }
+  }
+
+  @Deployment(resources = "org/activiti/standalone/query/TwoPhaseQueryVariablesFetchTest.bpmn20.xml")
+  public void testHistoricTaskInstanceQueryIncludeVariables() {
+    startProcessInstances();
+
+    for (Task task : taskService.createTaskQuery().list()) {
+      taskService.complete(task.getId());
+    }
+
+    List<HistoricTaskInstance> historicTaskInstances = historyService.createHistoricTaskInstanceQuery()
+        .includeProcessVariables().includeTaskLocalVariables().orderByTaskCreateTime().asc().list();
+    assertEquals(NR_OF_PROCESS_INSTANCES, historicTaskInstances.size());
+    for (HistoricTaskInstance historicTaskInstance : historicTaskInstances) {
+      assertProcessVariables(historicTaskInstance.getProcessVariables());
+      assertTaskLocalVariables(historicTaskInstance.getTaskLocalVariables());
+    }
+
+    historicTaskInstances = historyService.createHistoricTaskInstanceQuery().includeTaskLocalVariables().listPage(0, 2);
+    assertEquals(2, historicTaskInstances.size());
+    for (HistoricTaskInstance historicTaskInstance : historicTaskInstances) {
+      assertEquals(0, historicTaskInstance.getProcessVariables().size());
+      assertTaskLocalVariables(historicTaskInstance.getTaskLocalVariables());
+    }
+  }
+
+  protected List<String> startProcessInstances() {
+    List<String> processInstanceIds = new ArrayList<String>();
+    for (int i = 0; i < NR_OF_PROCESS_INSTANCES; i++) {
+      Map<String, Object> variables = new HashMap<String, Object>();
+      variables.put("index", i);
+      variables.put("name", "process" + i);
+      variables.put("bytes", ("bytes" + i).getBytes());
+      String processInstanceId = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables).getId();
+      processInstanceIds.add(processInstanceId);
+
+      Task task = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult();
+      taskService.setVariableLocal(task.getId(), "localVar", "local" + i);
+    }
+    return processInstanceIds;
+  }
+
+  protected void assertProcessVariables(Map<String, Object> variables) {
+    assertEquals(3, variables.size());
+    int index = (Integer) variables.get("index");
+    assertEquals("process" + index, variables.get("name"));
+    assertEquals("bytes" + index, new String((byte[]) variables.get("bytes")));
+  }
+
+  protected void assertTaskLocalVariables(Map<String, Object> variables) {
+    assertEquals(1, variables.size());
+    assertTrue(((String) variables.get("localVar")).startsWith("local"));
+  }
+
+}
@@ -58,9 +58,11 @@ import org.activiti.form.engine.impl.interceptor.LogInterceptor;
 import org.activiti.form.engine.impl.interceptor.SessionFactory;
 import org.activiti.form.engine.impl.parser.FormParseFactory;
 import org.activiti.form.engine.impl.persistence.StrongUuidGenerator;
+import org.activiti.form.engine.impl.persistence.deploy.ConcurrentDeploymentCache;
 import org.activiti.form.engine.impl.persistence.deploy.DefaultDeploymentCache;
 import org.activiti.form.engine.impl.persistence.deploy.Deployer;
 import org.activiti.form.engine.impl.persistence.deploy.DeploymentCache;
+import org.activiti.form.engine.impl.persistence.deploy.DeploymentCacheWeigher;
 import org.activiti.form.engine.impl.persistence.deploy.DeploymentManager;
 import org.activiti.form.engine.impl.persistence.deploy.FormCacheEntry;
 import org.activiti.form.engine.impl.persistence.entity.FormDeploymentEntityManager;
@@ -314,6 +316,14 @@ public class FormEngineConfiguration {
   protected DeploymentManager deploymentManager;
 
   protected int formCacheLimit = -1; // By default, no limit
+
+  /**
+   * When set, the form cache is a {@link ConcurrentDeploymentCache} that evicts the least recently used 
+   * forms once the total weight of the cached ones exceeds this, as weighed by the {@link #formCacheWeigher}
+   * (by default every form weighs 1). Takes precedence over the {@link #formCacheLimit}. By default, no limit.
+   */
+  protected long formCacheMaxWeight = -1;
+  protected DeploymentCacheWeigher<FormCacheEntry> formCacheWeigher;
   protected DeploymentCache<FormCacheEntry> formCache;
 
   protected IdGenerator idGenerator;
@@ -720,7 +730,13 @@ public class FormEngineConfiguration {
 
     // Decision cache
     if (formCache == null) {
-      if (formCacheLimit <= 0) {
+      if (formCacheMaxWeight > 0) {
+        if (formCacheWeigher == null) {
+          formCache = new ConcurrentDeploymentCache<FormCacheEntry>(formCacheMaxWeight);
+        } else {
+          formCache = new ConcurrentDeploymentCache<FormCacheEntry>(formCacheMaxWeight, formCacheWeigher);
+        }
+      } else if (formCacheLimit <= 0) {
         formCache = new DefaultDeploymentCache<FormCacheEntry>();
       } else {
         formCache = new DefaultDeploymentCache<FormCacheEntry>(formCacheLimit);
@@ -1155,6 +1171,24 @@ public class FormEngineConfiguration {
     return this;
   }
 
+  public long getFormCacheMaxWeight() {
+    return formCacheMaxWeight;
+  }
+
+  public FormEngineConfiguration setFormCacheMaxWeight(long formCacheMaxWeight) {
+    this.formCacheMaxWeight = formCacheMaxWeight;
+    return this;
+  }
+
+  public DeploymentCacheWeigher<FormCacheEntry> getFormCacheWeigher() {
+    return formCacheWeigher;
+  }
+
+  public FormEngineConfiguration setFormCacheWeigher(DeploymentCacheWeigher<FormCacheEntry> formCacheWeigher) {
+    this.formCacheWeigher = formCacheWeigher;
+    return this;
+  }
+
   public DeploymentCache<FormCacheEntry> getFormCache() {
     return formCache;
   }
@@ -13,6 +13,7 @@
 package org.activiti.form.engine.impl.persistence.deploy;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.activiti.form.api.Form;
 import org.activiti.form.engine.ActivitiFormException;
@@ -132,19 +133,38 @@ public class DeploymentManager {
     FormCacheEntry cachedForm = formCache.get(formId);
 
     if (cachedForm == null) {
-      FormDeploymentEntity deployment = engineConfig.getDeploymentEntityManager().findById(deploymentId);
-      List<ResourceEntity> resources = engineConfig.getResourceEntityManager().findResourcesByDeploymentId(deploymentId);
-      for (ResourceEntity resource : resources) {
-        deployment.addResource(resource);
+      if (formCache instanceof ConcurrentDeploymentCache) {
+        // Concurrent misses for the same form wait for a single redeploy
+        final String id = formId;
+        final String parentDeploymentId = deploymentId;
+        cachedForm = ((ConcurrentDeploymentCache<FormCacheEntry>) formCache).get(formId, new Callable<FormCacheEntry>() {
+          public FormCacheEntry call() {
+            return redeployForm(id, parentDeploymentId);
+          }
+        });
+      } else {
+        cachedForm = redeployForm(formId, deploymentId);
       }
-      
-      deployment.setNew(false);
-      deploy(deployment);
-      cachedForm = formCache.get(formId);
+    }
+    return cachedForm;
+  }
 
-      if (cachedForm == null) {
-        throw new ActivitiFormException("deployment '" + deploymentId + "' didn't put form '" + formId + "' in the cache");
-      }
+  /**
+   * Deploys the given deployment again, which puts its forms in the cache.
+   */
+  protected FormCacheEntry redeployForm(String formId, String deploymentId) {
+    FormDeploymentEntity deployment = engineConfig.getDeploymentEntityManager().findById(deploymentId);
+    List<ResourceEntity> resources = engineConfig.getResourceEntityManager().findResourcesByDeploymentId(deploymentId);
+    for (ResourceEntity resource : resources) {
+      deployment.addResource(resource);
+    }
+    
+    deployment.setNew(false);
+    deploy(deployment);
+    FormCacheEntry cachedForm = formCache.get(formId);
+
+    if (cachedForm == null) {
+      throw new ActivitiFormException("deployment '" + deploymentId + "' didn't put form '" + formId + "' in the cache");
     }
     return cachedForm;
   }
@@ -12,11 +12,20 @@
  */
 package org.activiti.spring.executor.jms;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import javax.jms.Message;
 import javax.jms.TextMessage;
 
 import org.activiti.engine.impl.asyncexecutor.ExecuteAsyncRunnable;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,21 +37,131 @@ public class JobMessageListener implements javax.jms.MessageListener {
   private static final Logger logger = LoggerFactory.getLogger(JobMessageListener.class);
   
   protected ProcessEngineConfigurationImpl processEngineConfiguration;
+  
+  protected JobMessageSerializer jobMessageSerializer = new JobMessageSerializer();
+  
+  /** 
+   * Optional executor service for the jobs of a message holding multiple jobs (see {@link MessageBasedJobManager#setBatchMessagesPerTransaction(boolean)}).
+   * The jobs are executed concurrently, except for the exclusive jobs of the same process instance. 
+   * The message is only acknowledged when all of its jobs have been executed. 
+   */
+  protected ExecutorService executorService;
+  
+  /** 
+   * The number of job ids for which the last executed revision is remembered, to skip the jobs of redelivered messages
+   * that were already executed. Only redelivered messages are checked: a job that is retried keeps its id and revision
+   * (it is moved to the timer job table and back), so the message sent for the retry must be executed.
+   */
+  protected int executedJobRevisionsCacheSize = 1000;
+  
+  protected Map<String, Integer> executedJobRevisions;
 
   public void onMessage(final Message message) {
     try {
       if (message instanceof TextMessage) {
         TextMessage textMessage = (TextMessage) message;
-        String jobId = textMessage.getText();
+        String format = textMessage.getStringProperty(JobMessageSerializer.FORMAT_PROPERTY);
         
-        ExecuteAsyncRunnable executeAsyncRunnable = new ExecuteAsyncRunnable(jobId, processEngineConfiguration);
-        executeAsyncRunnable.run();
+        if (format == null) {
+          String jobId = textMessage.getText();
+          ExecuteAsyncRunnable executeAsyncRunnable = new ExecuteAsyncRunnable(jobId, processEngineConfiguration);
+          executeAsyncRunnable.run();
+          
+        } else {
+          List<JobEntity> jobs = jobMessageSerializer.deserialize(textMessage.getText());
+          executeJobs(jobs, JobMessageSerializer.FORMAT_SNAPSHOTS.equals(format), textMessage.getJMSRedelivered());
+        }
         
       }
     } catch (Exception e) {
       logger.error("Exception when handling message from job queue", e);
     }
   }
+  
+  protected void executeJobs(List<JobEntity> jobs, boolean snapshots, boolean redelivered) throws InterruptedException {
+    
+    // Exclusive jobs of the same process instance are executed one after the other, to avoid failing to lock the process instance
+    Map<String, List<Runnable>> exclusiveRunnables = new LinkedHashMap<String, List<Runnable>>();
+    List<Runnable> runnables = new ArrayList<Runnable>(jobs.size());
+    
+    for (JobEntity job : jobs) {
+      if (!markExecuted(job, redelivered)) {
+        logger.debug("Skipping job {} with revision {} of a redelivered message, it was already received", job.getId(), job.getRevision());
+        continue;
+      }
+      
+      final Runnable runnable = snapshots ? new ExecuteAsyncRunnable(job, processEngineConfiguration) : new ExecuteAsyncRunnable(job.getId(), processEngineConfiguration);
+      if (snapshots && job.isExclusive() && job.getProcessInstanceId() != null) {
+        List<Runnable> processInstanceRunnables = exclusiveRunnables.get(job.getProcessInstanceId());
+        if (processInstanceRunnables == null) {
+          processInstanceRunnables = new ArrayList<Runnable>();
+          exclusiveRunnables.put(job.getProcessInstanceId(), processInstanceRunnables);
+          runnables.add(createSequentialRunnable(processInstanceRunnables));
+        }
+        processInstanceRunnables.add(runnable);
+        
+      } else {
+        runnables.add(runnable);
+      }
+    }
+    
+    if (executorService == null || runnables.size() <= 1) {
+      for (Runnable runnable : runnables) {
+        runnable.run();
+      }
+      
+    } else {
+      List<Future<?>> futures = new ArrayList<Future<?>>(runnables.size());
+      for (Runnable runnable : runnables) {
+        futures.add(executorService.submit(runnable));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          logger.error("Exception when executing job from job queue", e.getCause());
+        }
+      }
+    }
+  }
+  
+  protected Runnable createSequentialRunnable(final List<Runnable> runnables) {
+    return new Runnable() {
+      public void run() {
+        for (Runnable runnable : runnables) {
+          runnable.run();
+        }
+      }
+    };
+  }
+  
+  /**
+   * Remembers the revision of the given job. Returns false when the job is part of a redelivered message
+   * and the given revision of the job (or a later one) was already received.
+   * Jobs without a known revision are always executed.
+   */
+  protected synchronized boolean markExecuted(JobEntity job, boolean redelivered) {
+    if (job.getRevision() <= 0 || executedJobRevisionsCacheSize <= 0) {
+      return true;
+    }
+    
+    if (executedJobRevisions == null) {
+      executedJobRevisions = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+          return size() > executedJobRevisionsCacheSize;
+        }
+      };
+    }
+    
+    Integer executedRevision = executedJobRevisions.get(job.getId());
+    if (redelivered && executedRevision != null && executedRevision >= job.getRevision()) {
+      return false;
+    }
+    executedJobRevisions.put(job.getId(), job.getRevision());
+    return true;
+  }
 
   public ProcessEngineConfigurationImpl getProcessEngineConfiguration() {
     return processEngineConfiguration;
@@ -51,5 +170,29 @@ public class JobMessageListener implements javax.jms.MessageListener {
   public void setProcessEngineConfiguration(ProcessEngineConfigurationImpl processEngineConfiguration) {
     this.processEngineConfiguration = processEngineConfiguration;
   }
+
+  public JobMessageSerializer getJobMessageSerializer() {
+    return jobMessageSerializer;
+  }
+
+  public void setJobMessageSerializer(JobMessageSerializer jobMessageSerializer) {
+    this.jobMessageSerializer = jobMessageSerializer;
+  }
+
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
+  public void setExecutorService(ExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  public int getExecutedJobRevisionsCacheSize() {
+    return executedJobRevisionsCacheSize;
+  }
+
+  public void setExecutedJobRevisionsCacheSize(int executedJobRevisionsCacheSize) {
+    this.executedJobRevisionsCacheSize = executedJobRevisionsCacheSize;
+  }
   
 }
@@ -0,0 +1,138 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.spring.executor.jms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.db.HasRevision;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityImpl;
+import org.activiti.engine.runtime.Job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Writes the jobs of one transaction to the body of a single job message, and reads them back.
+ * 
+ * Every job is written with its id and revision. When snapshots are included, the fields needed
+ * to execute the job are written too, so the consumer doesn't have to fetch the job before executing it.
+ */
+public class JobMessageSerializer {
+
+  /** String property of a job message written by this serializer, holding one of the formats below */
+  public static final String FORMAT_PROPERTY = "activitiJobMessageFormat";
+  public static final String FORMAT_IDS = "ids";
+  public static final String FORMAT_SNAPSHOTS = "snapshots";
+
+  protected static final String ID = "id";
+  protected static final String REVISION = "rev";
+  protected static final String PROCESS_INSTANCE_ID = "pi";
+  protected static final String EXECUTION_ID = "ex";
+  protected static final String PROCESS_DEFINITION_ID = "pd";
+  protected static final String EXCLUSIVE = "excl";
+  protected static final String JOB_TYPE = "type";
+  protected static final String JOB_HANDLER_TYPE = "handler";
+  protected static final String RETRIES = "retries";
+  protected static final String TENANT_ID = "tenant";
+
+  protected ObjectMapper objectMapper = new ObjectMapper();
+
+  public String serialize(Collection<? extends Job> jobs, boolean includeSnapshots) {
+    ArrayNode jobsNode = objectMapper.createArrayNode();
+    for (Job job : jobs) {
+      ObjectNode jobNode = jobsNode.addObject();
+      jobNode.put(ID, job.getId());
+      if (job instanceof HasRevision) {
+        jobNode.put(REVISION, ((HasRevision) job).getRevision());
+      }
+      
+      if (includeSnapshots) {
+        putIfNotNull(jobNode, PROCESS_INSTANCE_ID, job.getProcessInstanceId());
+        putIfNotNull(jobNode, EXECUTION_ID, job.getExecutionId());
+        putIfNotNull(jobNode, PROCESS_DEFINITION_ID, job.getProcessDefinitionId());
+        jobNode.put(EXCLUSIVE, job.isExclusive());
+        putIfNotNull(jobNode, JOB_TYPE, job.getJobType());
+        putIfNotNull(jobNode, JOB_HANDLER_TYPE, job.getJobHandlerType());
+        jobNode.put(RETRIES, job.getRetries());
+        putIfNotNull(jobNode, TENANT_ID, job.getTenantId());
+      }
+    }
+    
+    try {
+      return objectMapper.writeValueAsString(jobsNode);
+    } catch (Exception e) {
+      throw new ActivitiException("Could not serialize job message", e);
+    }
+  }
+
+  /**
+   * Reads the jobs of a job message. Only the id and revision are set when the message holds no snapshots.
+   * The revision is 0 when it's unknown.
+   */
+  public List<JobEntity> deserialize(String text) {
+    JsonNode jobsNode = null;
+    try {
+      jobsNode = objectMapper.readTree(text);
+    } catch (Exception e) {
+      throw new ActivitiException("Could not deserialize job message", e);
+    }
+    
+    List<JobEntity> jobs = new ArrayList<JobEntity>(jobsNode.size());
+    for (JsonNode jobNode : jobsNode) {
+      JobEntity job = new JobEntityImpl();
+      job.setId(jobNode.path(ID).asText());
+      job.setRevision(jobNode.path(REVISION).asInt(0));
+      job.setProcessInstanceId(getText(jobNode, PROCESS_INSTANCE_ID));
+      job.setExecutionId(getText(jobNode, EXECUTION_ID));
+      job.setProcessDefinitionId(getText(jobNode, PROCESS_DEFINITION_ID));
+      job.setExclusive(jobNode.path(EXCLUSIVE).asBoolean(false));
+      job.setJobType(getText(jobNode, JOB_TYPE));
+      job.setJobHandlerType(getText(jobNode, JOB_HANDLER_TYPE));
+      job.setRetries(jobNode.path(RETRIES).asInt(0));
+      if (jobNode.has(TENANT_ID)) {
+        job.setTenantId(getText(jobNode, TENANT_ID));
+      }
+      jobs.add(job);
+    }
+    return jobs;
+  }
+
+  protected void putIfNotNull(ObjectNode node, String fieldName, String value) {
+    if (value != null) {
+      node.put(fieldName, value);
+    }
+  }
+
+  protected String getText(JsonNode node, String fieldName) {
+    JsonNode fieldNode = node.get(fieldName);
+    if (fieldNode == null || fieldNode.isNull()) {
+      return null;
+    }
+    return fieldNode.asText();
+  }
+
+  public ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  public void setObjectMapper(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+}
@@ -12,11 +12,15 @@
  */
 package org.activiti.spring.executor.jms;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Session;
+import javax.jms.TextMessage;
 
 import org.activiti.engine.impl.asyncexecutor.DefaultJobManager;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
@@ -34,8 +38,18 @@ import org.springframework.jms.core.MessageCreator;
  */
 public class MessageBasedJobManager extends DefaultJobManager {
   
+  protected static final String JOB_BATCH_ATTRIBUTE = MessageBasedJobManager.class.getName() + ".jobBatch";
+  
   protected JmsTemplate jmsTemplate;
   
+  /** When true, all jobs of a transaction are sent in one message after the commit, instead of one message per job */
+  protected boolean batchMessagesPerTransaction;
+  
+  /** When true, the messages carry a snapshot of the jobs, so the {@link JobMessageListener} doesn't need to fetch them first */
+  protected boolean includeJobSnapshots;
+  
+  protected JobMessageSerializer jobMessageSerializer = new JobMessageSerializer();
+  
   public MessageBasedJobManager() {
     super(null);
   }
@@ -53,28 +67,78 @@ public class MessageBasedJobManager extends DefaultJobManager {
   public void unacquire(final Job job) {
     
     if (job instanceof JobEntity) {
-      JobEntity jobEntity = (JobEntity) job;
+      // The given job can be a detached snapshot: update the persistent job instead, so its revision
+      // is bumped and the message sent after the commit isn't skipped as a redelivery by the listener
+      JobEntity jobEntity = processEngineConfiguration.getJobEntityManager().findById(job.getId());
+      if (jobEntity == null) {
+        return;
+      }
       
       // When unacquiring, we up the lock time again., so that it isn't cleared by the reset expired thread.
       jobEntity.setLockExpirationTime(new Date(processEngineConfiguration.getClock().getCurrentTime().getTime() 
           + processEngineConfiguration.getAsyncExecutor().getAsyncJobLockTimeInMillis()));
+      sendMessage(jobEntity);
+      return;
     }
     
     sendMessage(job);
   }
   
   protected void sendMessage(final Job jobEntity) {
+    if (batchMessagesPerTransaction) {
+      addToJobBatch(jobEntity);
+      return;
+    }
+    
     Context.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
       public void execute(CommandContext commandContext) {
         jmsTemplate.send(new MessageCreator() {
           public Message createMessage(Session session) throws JMSException {
-            return session.createTextMessage(jobEntity.getId());
+            return createJobMessage(session, Collections.singletonList(jobEntity));
           }
         });
       }
     });
   }
   
+  /**
+   * Adds the job to the batch of the current transaction. The batch is sent as one message
+   * when the transaction is committed, so the revisions of the jobs are the committed ones.
+   */
+  @SuppressWarnings("unchecked")
+  protected void addToJobBatch(Job job) {
+    CommandContext commandContext = Context.getCommandContext();
+    List<Job> jobBatch = (List<Job>) commandContext.getAttribute(JOB_BATCH_ATTRIBUTE);
+    if (jobBatch == null) {
+      final List<Job> newJobBatch = new ArrayList<Job>();
+      commandContext.addAttribute(JOB_BATCH_ATTRIBUTE, newJobBatch);
+      
+      Context.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          jmsTemplate.send(new MessageCreator() {
+            public Message createMessage(Session session) throws JMSException {
+              return createJobMessage(session, newJobBatch);
+            }
+          });
+        }
+      });
+      jobBatch = newJobBatch;
+    }
+    jobBatch.add(job);
+  }
+  
+  protected Message createJobMessage(Session session, List<Job> jobs) throws JMSException {
+    if (!includeJobSnapshots && jobs.size() == 1) {
+      // Plain job id, as understood by every version of the listener
+      return session.createTextMessage(jobs.get(0).getId());
+    }
+    
+    TextMessage message = session.createTextMessage(jobMessageSerializer.serialize(jobs, includeJobSnapshots));
+    message.setStringProperty(JobMessageSerializer.FORMAT_PROPERTY, 
+        includeJobSnapshots ? JobMessageSerializer.FORMAT_SNAPSHOTS : JobMessageSerializer.FORMAT_IDS);
+    return message;
+  }
+  
   public JmsTemplate getJmsTemplate() {
     return jmsTemplate;
   }
@@ -83,4 +147,28 @@ public class MessageBasedJobManager extends DefaultJobManager {
     this.jmsTemplate = jmsTemplate;
   }
 
+  public boolean isBatchMessagesPerTransaction() {
+    return batchMessagesPerTransaction;
+  }
+
+  public void setBatchMessagesPerTransaction(boolean batchMessagesPerTransaction) {
+    this.batchMessagesPerTransaction = batchMessagesPerTransaction;
+  }
+
+  public boolean isIncludeJobSnapshots() {
+    return includeJobSnapshots;
+  }
+
+  public void setIncludeJobSnapshots(boolean includeJobSnapshots) {
+    this.includeJobSnapshots = includeJobSnapshots;
+  }
+
+  public JobMessageSerializer getJobMessageSerializer() {
+    return jobMessageSerializer;
+  }
+
+  public void setJobMessageSerializer(JobMessageSerializer jobMessageSerializer) {
+    this.jobMessageSerializer = jobMessageSerializer;
+  }
+
 }
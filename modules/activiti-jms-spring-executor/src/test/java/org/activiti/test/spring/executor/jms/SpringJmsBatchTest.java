@@ -0,0 +1,135 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.test.spring.executor.jms;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityImpl;
+import org.activiti.engine.runtime.Job;
+import org.activiti.spring.executor.jms.JobMessageSerializer;
+import org.activiti.spring.impl.test.CleanTestExecutionListener;
+import org.activiti.test.spring.executor.jms.config.SpringJmsBatchConfig;
+import org.activiti.test.spring.executor.jms.delegate.FailOnceDelegate;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.TestExecutionListeners.MergeMode;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.jayway.awaitility.Awaitility;
+
+@TestExecutionListeners(value = CleanTestExecutionListener.class, mergeMode = MergeMode.MERGE_WITH_DEFAULTS)
+@ContextConfiguration(classes = SpringJmsBatchConfig.class)
+@RunWith(SpringJUnit4ClassRunner.class)
+public class SpringJmsBatchTest {
+  
+  @Autowired
+  private ProcessEngine processEngine;
+  
+  @Test
+  public void testBatchedSnapshotMessages() {
+    processEngine.getRepositoryService().createDeployment()
+      .addClasspathResource("org/activiti/test/spring/executor/jms/SpringJmsTest.testMessageQueueAsyncExecutor.bpmn20.xml")
+      .deploy();
+    
+    Map<String, Object> vars = new HashMap<String, Object>();
+    vars.put("input1", 123);
+    vars.put("input2", 456);
+    processEngine.getRuntimeService().startProcessInstanceByKey("AsyncProcess", vars);
+    
+    // Wait until the process is completely finished
+    Awaitility.waitAtMost(1, TimeUnit.MINUTES).pollInterval(500, TimeUnit.MILLISECONDS).until(new Callable<Boolean>() {
+      public Boolean call() throws Exception {
+        return processEngine.getRuntimeService().createProcessInstanceQuery().count() == 0;
+      }
+    });
+    
+    Assert.assertEquals(0L, processEngine.getRuntimeService().createProcessInstanceQuery().count());
+    
+    for (String activityName : Arrays.asList("A", "B", "C", "D", "E", "F", "After boundary", "The user task", "G", "G1", "G2", "G3", "H", "I", "J", "K", "L")) {
+      Assert.assertNotNull(processEngine.getHistoryService().createHistoricActivityInstanceQuery().activityName(activityName).singleResult());
+    }
+  }
+  
+  @Test
+  public void testFailedJobIsRetried() {
+    processEngine.getRepositoryService().createDeployment()
+      .addClasspathResource("org/activiti/test/spring/executor/jms/SpringJmsBatchTest.testFailedJobIsRetried.bpmn20.xml")
+      .deploy();
+    FailOnceDelegate.executions.set(0);
+    
+    final String processInstanceId = processEngine.getRuntimeService().startProcessInstanceByKey("FailOnceProcess").getId();
+    
+    // The failed job waits as a timer job for its retry
+    Awaitility.waitAtMost(1, TimeUnit.MINUTES).pollInterval(200, TimeUnit.MILLISECONDS).until(new Callable<Boolean>() {
+      public Boolean call() throws Exception {
+        return processEngine.getManagementService().createTimerJobQuery().processInstanceId(processInstanceId).count() == 1;
+      }
+    });
+    Job timerJob = processEngine.getManagementService().createTimerJobQuery().processInstanceId(processInstanceId).singleResult();
+    Assert.assertEquals(1, FailOnceDelegate.executions.get());
+    
+    // The retry keeps the job id and revision of the failed execution, it must not be skipped as a redelivery
+    processEngine.getManagementService().moveTimerToExecutableJob(timerJob.getId());
+    
+    Awaitility.waitAtMost(1, TimeUnit.MINUTES).pollInterval(200, TimeUnit.MILLISECONDS).until(new Callable<Boolean>() {
+      public Boolean call() throws Exception {
+        return processEngine.getRuntimeService().createProcessInstanceQuery().processInstanceId(processInstanceId).count() == 0;
+      }
+    });
+    Assert.assertEquals(2, FailOnceDelegate.executions.get());
+  }
+  
+  @Test
+  public void testSerializeSnapshots() {
+    JobEntity job = new JobEntityImpl();
+    job.setId("job1");
+    job.setRevision(3);
+    job.setProcessInstanceId("pi1");
+    job.setExecutionId("ex1");
+    job.setProcessDefinitionId("pd1");
+    job.setExclusive(true);
+    job.setJobHandlerType("async-continuation");
+    job.setRetries(2);
+    
+    JobMessageSerializer serializer = new JobMessageSerializer();
+    List<JobEntity> jobs = serializer.deserialize(serializer.serialize(Arrays.asList(job), true));
+    Assert.assertEquals(1, jobs.size());
+    
+    JobEntity deserializedJob = jobs.get(0);
+    Assert.assertEquals("job1", deserializedJob.getId());
+    Assert.assertEquals(3, deserializedJob.getRevision());
+    Assert.assertEquals("pi1", deserializedJob.getProcessInstanceId());
+    Assert.assertEquals("ex1", deserializedJob.getExecutionId());
+    Assert.assertEquals("pd1", deserializedJob.getProcessDefinitionId());
+    Assert.assertTrue(deserializedJob.isExclusive());
+    Assert.assertEquals("async-continuation", deserializedJob.getJobHandlerType());
+    Assert.assertEquals(2, deserializedJob.getRetries());
+    
+    jobs = serializer.deserialize(serializer.serialize(Arrays.asList(job), false));
+    Assert.assertEquals("job1", jobs.get(0).getId());
+    Assert.assertEquals(3, jobs.get(0).getRevision());
+    Assert.assertNull(jobs.get(0).getProcessInstanceId());
+  }
+
+}
@@ -0,0 +1,93 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.test.spring.executor.jms.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.activiti.spring.executor.jms.JobMessageListener;
+import org.activiti.spring.executor.jms.MessageBasedJobManager;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.MessageListenerContainer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Same setup as {@link SpringJmsConfig}, but the jobs of a transaction are sent as one message carrying job snapshots.
+ */
+@Configuration
+public class SpringJmsBatchConfig extends SpringJmsConfig {
+  
+  @Bean
+  @Override
+  public DataSource dataSource() {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:activiti-spring-jms-batch-test;DB_CLOSE_DELAY=1000");
+    dataSource.setDriverClassName("org.h2.Driver");
+    dataSource.setUsername("sa");
+    dataSource.setPassword("");
+    return dataSource;
+  }
+  
+  @Bean
+  @Override
+  public MessageBasedJobManager jobManager() {
+    MessageBasedJobManager jobManager = new MessageBasedJobManager();
+    jobManager.setJmsTemplate(jmsTemplate());
+    jobManager.setBatchMessagesPerTransaction(true);
+    jobManager.setIncludeJobSnapshots(true);
+    return jobManager;
+  }
+  
+  @Bean
+  @Override
+  public JmsTemplate jmsTemplate() {
+      JmsTemplate jmsTemplate = new JmsTemplate();
+      jmsTemplate.setDefaultDestination(new ActiveMQQueue("activiti-job-batches"));
+      jmsTemplate.setConnectionFactory(connectionFactory());
+      return jmsTemplate;
+  }
+  
+  @Bean
+  @Override
+  public MessageListenerContainer messageListenerContainer() {
+      DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+      messageListenerContainer.setConnectionFactory(connectionFactory());
+      messageListenerContainer.setDestinationName("activiti-job-batches");
+      messageListenerContainer.setMessageListener(jobMessageListener());
+      messageListenerContainer.setConcurrentConsumers(2);
+      messageListenerContainer.start();
+      return messageListenerContainer;
+  }
+  
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService jobMessageExecutorService() {
+    return Executors.newFixedThreadPool(4);
+  }
+  
+  @Bean
+  @Override
+  public JobMessageListener jobMessageListener() {
+    JobMessageListener jobMessageListener = new JobMessageListener();
+    jobMessageListener.setProcessEngineConfiguration(processEngineConfiguration());
+    jobMessageListener.setExecutorService(jobMessageExecutorService());
+    return jobMessageListener;
+  }
+  
+}
@@ -0,0 +1,19 @@
+package org.activiti.test.spring.executor.jms.delegate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.JavaDelegate;
+
+public class FailOnceDelegate implements JavaDelegate {
+
+    public static final AtomicInteger executions = new AtomicInteger();
+
+    public void execute(DelegateExecution delegateExecution) {
+        if (executions.incrementAndGet() == 1) {
+            throw new ActivitiException("Failing the first execution");
+        }
+    }
+
+}
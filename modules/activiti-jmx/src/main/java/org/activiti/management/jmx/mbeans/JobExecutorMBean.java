@@ -13,7 +13,9 @@
 package org.activiti.management.jmx.mbeans;
 
 import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.impl.asyncexecutor.AdaptiveAsyncExecutor;
 import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobAcquisitionMetrics;
 import org.activiti.management.jmx.annotations.ManagedAttribute;
 import org.activiti.management.jmx.annotations.ManagedOperation;
 import org.activiti.management.jmx.annotations.ManagedResource;
@@ -36,6 +38,88 @@ public class JobExecutorMBean {
     return jobExecutor != null && jobExecutor.isActive();
   }
 
+  @ManagedAttribute(description = "check if the job executor adapts the job acquisition to the load")
+  public boolean isAdaptiveJobAcquisition() {
+    AdaptiveAsyncExecutor adaptiveJobExecutor = getAdaptiveJobExecutor();
+    return adaptiveJobExecutor != null && adaptiveJobExecutor.isAdaptiveJobAcquisition();
+  }
+
+  @ManagedAttribute(description = "number of async job acquisition queries")
+  public long getAsyncJobAcquisitionCycles() {
+    return getAsyncJobAcquisitionMetrics().getAcquisitionCycles();
+  }
+
+  @ManagedAttribute(description = "number of async jobs acquired")
+  public long getAsyncJobsAcquired() {
+    return getAsyncJobAcquisitionMetrics().getJobsAcquired();
+  }
+
+  @ManagedAttribute(description = "number of async job acquisition queries that did not return any job")
+  public long getAsyncJobEmptyAcquisitions() {
+    return getAsyncJobAcquisitionMetrics().getEmptyAcquisitions();
+  }
+
+  @ManagedAttribute(description = "number of async job acquisitions that conflicted with another executor")
+  public long getAsyncJobAcquisitionLockConflicts() {
+    return getAsyncJobAcquisitionMetrics().getLockConflicts();
+  }
+
+  @ManagedAttribute(description = "number of async job acquisitions skipped because the job queue was full")
+  public long getAsyncJobAcquisitionQueueFullSkips() {
+    return getAsyncJobAcquisitionMetrics().getQueueFullSkips();
+  }
+
+  @ManagedAttribute(description = "number of times the async job acquisition backed off")
+  public long getAsyncJobAcquisitionBackOffs() {
+    return getAsyncJobAcquisitionMetrics().getBackOffs();
+  }
+
+  @ManagedAttribute(description = "number of times the async job acquisition was woken up by a new job")
+  public long getAsyncJobAcquisitionWakeUps() {
+    return getAsyncJobAcquisitionMetrics().getWakeUps();
+  }
+
+  @ManagedAttribute(description = "current async job acquisition page size")
+  public int getAsyncJobAcquisitionPageSize() {
+    return getAsyncJobAcquisitionMetrics().getCurrentPageSize();
+  }
+
+  @ManagedAttribute(description = "current async job acquisition wait time in milliseconds")
+  public long getAsyncJobAcquisitionWaitTime() {
+    return getAsyncJobAcquisitionMetrics().getCurrentWaitTimeInMillis();
+  }
+
+  @ManagedAttribute(description = "number of timer jobs acquired")
+  public long getTimerJobsAcquired() {
+    return getTimerJobAcquisitionMetrics().getJobsAcquired();
+  }
+
+  @ManagedAttribute(description = "number of timer job acquisitions that conflicted with another executor")
+  public long getTimerJobAcquisitionLockConflicts() {
+    return getTimerJobAcquisitionMetrics().getLockConflicts();
+  }
+
+  @ManagedAttribute(description = "current timer job acquisition wait time in milliseconds")
+  public long getTimerJobAcquisitionWaitTime() {
+    return getTimerJobAcquisitionMetrics().getCurrentWaitTimeInMillis();
+  }
+
+  protected AdaptiveAsyncExecutor getAdaptiveJobExecutor() {
+    return jobExecutor instanceof AdaptiveAsyncExecutor ? (AdaptiveAsyncExecutor) jobExecutor : null;
+  }
+
+  protected JobAcquisitionMetrics getAsyncJobAcquisitionMetrics() {
+    AdaptiveAsyncExecutor adaptiveJobExecutor = getAdaptiveJobExecutor();
+    JobAcquisitionMetrics metrics = adaptiveJobExecutor != null ? adaptiveJobExecutor.getAsyncJobAcquisitionMetrics() : null;
+    return metrics != null ? metrics : new JobAcquisitionMetrics();
+  }
+
+  protected JobAcquisitionMetrics getTimerJobAcquisitionMetrics() {
+    AdaptiveAsyncExecutor adaptiveJobExecutor = getAdaptiveJobExecutor();
+    JobAcquisitionMetrics metrics = adaptiveJobExecutor != null ? adaptiveJobExecutor.getTimerJobAcquisitionMetrics() : null;
+    return metrics != null ? metrics : new JobAcquisitionMetrics();
+  }
+
   @ManagedOperation(description = "set job executor activate")
   public void setJobExecutorActivate(Boolean active) {
     if (active)
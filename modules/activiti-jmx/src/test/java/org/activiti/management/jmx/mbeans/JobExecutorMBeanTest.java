@@ -29,7 +29,8 @@ import javax.management.ObjectName;
 import javax.management.modelmbean.ModelMBean;
 
 import org.activiti.engine.ProcessEngineConfiguration;
-import org.activiti.engine.impl.asyncexecutor.AsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.AdaptiveAsyncExecutor;
+import org.activiti.engine.impl.asyncexecutor.JobAcquisitionMetrics;
 import org.activiti.management.jmx.DefaultManagementMBeanAssembler;
 import org.activiti.management.jmx.ManagementMBeanAssembler;
 import org.junit.Before;
@@ -49,7 +50,7 @@ public class JobExecutorMBeanTest {
   protected ProcessEngineConfiguration processEngineConfiguration;
 
   @Mock
-  protected AsyncExecutor jobExecutor;
+  protected AdaptiveAsyncExecutor jobExecutor;
 
   @Before
   public void initMocks() throws MalformedObjectNameException {
@@ -86,6 +87,24 @@ public class JobExecutorMBeanTest {
 
   }
 
+  @Test
+  public void testAcquisitionMetrics() {
+    JobAcquisitionMetrics metrics = new JobAcquisitionMetrics();
+    metrics.acquisitionCycle(4, 4);
+    metrics.acquisitionCycle(8, 0);
+    metrics.lockConflict();
+    when(jobExecutor.getAsyncJobAcquisitionMetrics()).thenReturn(metrics);
+
+    assertEquals(2, jobExecutorMbean.getAsyncJobAcquisitionCycles());
+    assertEquals(4, jobExecutorMbean.getAsyncJobsAcquired());
+    assertEquals(1, jobExecutorMbean.getAsyncJobEmptyAcquisitions());
+    assertEquals(1, jobExecutorMbean.getAsyncJobAcquisitionLockConflicts());
+    assertEquals(8, jobExecutorMbean.getAsyncJobAcquisitionPageSize());
+    
+    // No metrics available
+    assertEquals(0, jobExecutorMbean.getTimerJobsAcquired());
+  }
+
   ManagementMBeanAssembler assembler = new DefaultManagementMBeanAssembler();
 
   @Test
@@ -96,7 +115,7 @@ public class JobExecutorMBeanTest {
     MBeanInfo beanInfo = modelBean.getMBeanInfo();
     assertNotNull(beanInfo);
     assertNotNull(beanInfo.getOperations());
-    assertEquals(2, beanInfo.getOperations().length);
+    assertEquals(15, beanInfo.getOperations().length);
     int counter = 0;
 
     for (MBeanOperationInfo op : beanInfo.getOperations()) {
@@ -112,7 +131,7 @@ public class JobExecutorMBeanTest {
 
     // check attributes
     assertNotNull(beanInfo.getAttributes());
-    assertEquals(1, beanInfo.getAttributes().length);
+    assertEquals(14, beanInfo.getAttributes().length);
 
     counter = 0;
 
@@ -121,9 +140,13 @@ public class JobExecutorMBeanTest {
         counter++;
         assertEquals("check if the job executor is activated", attr.getDescription());
         assertEquals("boolean", attr.getType());
+      } else if (attr.getName().equals("AsyncJobAcquisitionPageSize")) {
+        counter++;
+        assertEquals("current async job acquisition page size", attr.getDescription());
+        assertEquals("int", attr.getType());
       }
     }
-    assertEquals(1, counter);
+    assertEquals(2, counter);
 
   }
 
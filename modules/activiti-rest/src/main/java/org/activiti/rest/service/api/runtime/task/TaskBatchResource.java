@@ -0,0 +1,115 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.rest.service.api.runtime.task;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.Authorization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.task.TaskBatchResult;
+import org.activiti.rest.service.api.engine.variable.RestVariable;
+import org.activiti.rest.service.api.runtime.task.TaskBatchResponse.TaskBatchFailureResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Api(tags = { "Tasks" }, description = "Manage Tasks", authorizations = { @Authorization(value = "basicAuth") })
+public class TaskBatchResource extends TaskBaseResource {
+
+  @ApiOperation(value = "Execute an action on multiple tasks", tags = {"Tasks"},
+      notes="## Complete tasks - Request Body\n\n"
+          + " ```JSON\n" + "{\n" + "  \"action\" : \"complete\",\n" + "  \"taskIds\" : [\"5\", \"8\"],\n" + "  \"variables\" : []\n" + "} ```"
+          + "Completes all tasks, setting the optional variables on every task like the single task complete action does."
+          + "\n\n\n"
+          + "## Claim tasks - Request Body \n\n"
+          + " ```JSON\n" + "{\n" + "  \"action\" : \"claim\",\n" + "  \"taskIds\" : [\"5\", \"8\"],\n" + "  \"assignee\" : \"userWhoClaims\"\n" + "} ```"
+          + "\n\n\n"
+          + "Claims all tasks by the given assignee. If the assignee is null, the tasks are assigned to no-one, claimable again."
+          + "\n\n\n"
+          + "## Set variables on tasks - Request Body \n\n"
+          + " ```JSON\n" + "{\n" + "  \"action\" : \"setVariables\",\n" + "  \"taskIds\" : [\"5\", \"8\"],\n" + "  \"variables\" : []\n" + "} ```"
+          + "\n\n\n"
+          + "The tasks are handled in chunks, each chunk in a single transaction. A task on which the action fails does not prevent the action on the other tasks: "
+          + "the response lists the ids of the tasks that succeeded and the failure of every other task."
+      )
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message =  "Indicates the action was executed. The response body lists the succeeded and failed tasks."),
+      @ApiResponse(code = 400, message =  "When the body contains an invalid value or when no task ids are given.")
+  })
+  @RequestMapping(value = "/runtime/tasks/batch", method = RequestMethod.POST, produces = "application/json")
+  @ResponseStatus(value = HttpStatus.OK)
+  public TaskBatchResponse executeTaskBatchAction(@RequestBody TaskBatchActionRequest actionRequest) {
+    if (actionRequest == null) {
+      throw new ActivitiException("A request body was expected when executing a task batch action.");
+    }
+    if (actionRequest.getTaskIds() == null || actionRequest.getTaskIds().isEmpty()) {
+      throw new ActivitiIllegalArgumentException("At least one task id is required.");
+    }
+
+    TaskBatchResult result = null;
+    if (TaskBatchActionRequest.ACTION_COMPLETE.equals(actionRequest.getAction())) {
+      result = taskService.completeBatch(actionRequest.getTaskIds(), getVariablesToSet(actionRequest));
+
+    } else if (TaskBatchActionRequest.ACTION_CLAIM.equals(actionRequest.getAction())) {
+      result = taskService.claimBatch(actionRequest.getTaskIds(), actionRequest.getAssignee());
+
+    } else if (TaskBatchActionRequest.ACTION_SET_VARIABLES.equals(actionRequest.getAction())) {
+      if (actionRequest.getVariables() == null) {
+        throw new ActivitiIllegalArgumentException("Variables are required when setting variables on tasks.");
+      }
+      result = taskService.setVariablesBatch(actionRequest.getTaskIds(), getVariablesToSet(actionRequest));
+
+    } else {
+      throw new ActivitiIllegalArgumentException("Invalid action: '" + actionRequest.getAction() + "'.");
+    }
+
+    return createTaskBatchResponse(result);
+  }
+
+  protected Map<String, Object> getVariablesToSet(TaskBatchActionRequest actionRequest) {
+    Map<String, Object> variablesToSet = null;
+    if (actionRequest.getVariables() != null) {
+      variablesToSet = new HashMap<String, Object>();
+      for (RestVariable var : actionRequest.getVariables()) {
+        if (var.getName() == null) {
+          throw new ActivitiIllegalArgumentException("Variable name is required");
+        }
+
+        Object actualVariableValue = restResponseFactory.getVariableValue(var);
+        variablesToSet.put(var.getName(), actualVariableValue);
+      }
+    }
+    return variablesToSet;
+  }
+
+  protected TaskBatchResponse createTaskBatchResponse(TaskBatchResult result) {
+    TaskBatchResponse response = new TaskBatchResponse();
+    response.getSucceededTaskIds().addAll(result.getSucceededTaskIds());
+    for (Map.Entry<String, RuntimeException> failure : result.getFailures().entrySet()) {
+      response.getFailures().add(new TaskBatchFailureResponse(failure.getKey(), failure.getValue().getClass().getName(), failure.getValue().getMessage()));
+    }
+    return response;
+  }
+
+}
@@ -0,0 +1,79 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.rest.service.api.runtime.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TaskBatchResponse {
+
+  protected List<String> succeededTaskIds = new ArrayList<String>();
+  protected List<TaskBatchFailureResponse> failures = new ArrayList<TaskBatchFailureResponse>();
+
+  public List<String> getSucceededTaskIds() {
+    return succeededTaskIds;
+  }
+
+  public void setSucceededTaskIds(List<String> succeededTaskIds) {
+    this.succeededTaskIds = succeededTaskIds;
+  }
+
+  public List<TaskBatchFailureResponse> getFailures() {
+    return failures;
+  }
+
+  public void setFailures(List<TaskBatchFailureResponse> failures) {
+    this.failures = failures;
+  }
+
+  public static class TaskBatchFailureResponse {
+
+    protected String taskId;
+    protected String exception;
+    protected String message;
+
+    public TaskBatchFailureResponse() {
+    }
+
+    public TaskBatchFailureResponse(String taskId, String exception, String message) {
+      this.taskId = taskId;
+      this.exception = exception;
+      this.message = message;
+    }
+
+    public String getTaskId() {
+      return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+      this.taskId = taskId;
+    }
+
+    public String getException() {
+      return exception;
+    }
+
+    public void setException(String exception) {
+      this.exception = exception;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public void setMessage(String message) {
+      this.message = message;
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.rest.service.api.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.task.Task;
+import org.activiti.rest.service.BaseSpringRestTestCase;
+import org.activiti.rest.service.api.RestUrls;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Test for the batch task actions. POST runtime/tasks/batch
+ */
+public class TaskBatchResourceTest extends BaseSpringRestTestCase {
+
+  public void testCompleteTasks() throws Exception {
+    try {
+      List<String> taskIds = createTasks(3);
+
+      ObjectNode requestNode = objectMapper.createObjectNode();
+      requestNode.put("action", "complete");
+      ArrayNode taskIdsNode = requestNode.putArray("taskIds");
+      for (String taskId : taskIds) {
+        taskIdsNode.add(taskId);
+      }
+      taskIdsNode.add("unexistingtask");
+
+      HttpPost httpPost = new HttpPost(SERVER_URL_PREFIX + RestUrls.createRelativeResourceUrl(RestUrls.URL_TASK_BATCH));
+      httpPost.setEntity(new StringEntity(requestNode.toString()));
+      CloseableHttpResponse response = executeRequest(httpPost, HttpStatus.SC_OK);
+      JsonNode responseNode = objectMapper.readTree(response.getEntity().getContent());
+      closeResponse(response);
+
+      assertEquals(3, responseNode.get("succeededTaskIds").size());
+      assertEquals(1, responseNode.get("failures").size());
+      assertEquals("unexistingtask", responseNode.get("failures").get(0).get("taskId").asText());
+      assertEquals(0, taskService.createTaskQuery().count());
+
+    } finally {
+      // Clean adhoc-tasks even if test fails
+      List<Task> tasks = taskService.createTaskQuery().list();
+      for (Task task : tasks) {
+        taskService.deleteTask(task.getId(), true);
+      }
+    }
+  }
+
+  public void testClaimTasks() throws Exception {
+    try {
+      List<String> taskIds = createTasks(2);
+
+      ObjectNode requestNode = objectMapper.createObjectNode();
+      requestNode.put("action", "claim");
+      requestNode.put("assignee", "kermit");
+      ArrayNode taskIdsNode = requestNode.putArray("taskIds");
+      for (String taskId : taskIds) {
+        taskIdsNode.add(taskId);
+      }
+
+      HttpPost httpPost = new HttpPost(SERVER_URL_PREFIX + RestUrls.createRelativeResourceUrl(RestUrls.URL_TASK_BATCH));
+      httpPost.setEntity(new StringEntity(requestNode.toString()));
+      CloseableHttpResponse response = executeRequest(httpPost, HttpStatus.SC_OK);
+      JsonNode responseNode = objectMapper.readTree(response.getEntity().getContent());
+      closeResponse(response);
+
+      assertEquals(2, responseNode.get("succeededTaskIds").size());
+      assertEquals(0, responseNode.get("failures").size());
+      assertEquals(2, taskService.createTaskQuery().taskAssignee("kermit").count());
+
+      // Missing task ids or an unknown action are rejected
+      requestNode.remove("taskIds");
+      httpPost.setEntity(new StringEntity(requestNode.toString()));
+      closeResponse(executeRequest(httpPost, HttpStatus.SC_BAD_REQUEST));
+
+      requestNode.put("action", "unexisting");
+      requestNode.putArray("taskIds").add(taskIds.get(0));
+      httpPost.setEntity(new StringEntity(requestNode.toString()));
+      closeResponse(executeRequest(httpPost, HttpStatus.SC_BAD_REQUEST));
+
+    } finally {
+      // Clean adhoc-tasks even if test fails
+      List<Task> tasks = taskService.createTaskQuery().list();
+      for (Task task : tasks) {
+        taskService.deleteTask(task.getId(), true);
+      }
+    }
+  }
+
+  protected List<String> createTasks(int count) {
+    List<String> taskIds = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      Task task = taskService.newTask();
+      taskService.saveTask(task);
+      taskIds.add(task.getId());
+    }
+    return taskIds;
+  }
+
+}